@@ -0,0 +1,44 @@
+package hotciv.benchmark;
+
+import hotciv.framework.Position;
+import hotciv.framework.World;
+import hotciv.standard.random.SeededDieRoll;
+import hotciv.standard.resolveAttack.ActualCombat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the attack of a red archer on a blue legion in the middle of the map,
+ * supported by the units around them. Resolving an attack does not change the world.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CombatBenchmark {
+    @Param({"16", "256", "1024"})
+    public int size;
+    @Param({"0.01", "0.1", "0.5"})
+    public double density;
+
+    private World world;
+    private final ActualCombat combat = new ActualCombat(new SeededDieRoll(1));
+    private Position attacker;
+    private Position defender;
+
+    @Setup
+    public void setUp() {
+        String[][] layout = Maps.layout(size, density, 1);
+        int middle = size / 2;
+        layout[middle][middle] = "pa1";
+        layout[middle][middle + 1] = "hl2";
+        world = new World(layout);
+        attacker = new Position(middle, middle);
+        defender = new Position(middle, middle + 1);
+    }
+
+    @Benchmark
+    public boolean unitAttack() {
+        return combat.unitAttack(world, attacker, defender);
+    }
+}
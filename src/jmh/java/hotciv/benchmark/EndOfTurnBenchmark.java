@@ -0,0 +1,50 @@
+package hotciv.benchmark;
+
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a round, the end of the red and the blue turn, in the variants that differ in
+ * what happens at the end of a round. The game starts over every iteration, as the
+ * cities fill the map with units. The lowest density leaves about two hundred cities and
+ * units on the largest map, where a round should not cost a visit to every tile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EndOfTurnBenchmark {
+    @Param({"alpha", "beta", "epsilon", "eta", "semi"})
+    public String variant;
+    @Param({"16", "256", "1024"})
+    public int size;
+    @Param({"0.0002", "0.01", "0.1"})
+    public double density;
+
+    private GameImpl game;
+
+    private StrategyFactory factory() {
+        switch (variant) {
+            case "alpha": return new AlphaFactory();
+            case "beta": return new BetaFactory();
+            case "epsilon": return new EpsilonFactory(1);
+            case "eta": return new EtaFactory();
+            case "semi": return new SemiFactory(1);
+            default: throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        game = new GameImpl(factory(), Maps.layout(size, density, 1));
+    }
+
+    @Benchmark
+    public GameImpl endOfTurn() {
+        game.endOfTurn();
+        game.endOfTurn();
+        return game;
+    }
+}
@@ -0,0 +1,64 @@
+package hotciv.benchmark;
+
+import hotciv.framework.Position;
+import hotciv.framework.World;
+import hotciv.framework.WorldFile;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.AlphaFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forks a game, as a look-ahead search does for every move it tries, alone and together
+ * with its first move, which copies what the move changes. The copy of the whole world
+ * through the saved game format is what a search would do without forks. The larger map
+ * holds 20000 units.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ForkBenchmark {
+    private static final int UNITS = 20000;
+
+    @Param({"16", "1024"})
+    public int size;
+
+    private GameImpl game;
+    private final Position from = new Position(1, 1);
+    private final Position to = new Position(1, 2);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(size);
+        String[][] layout = new String[size][size];
+        layout[1][1] = "pa1";
+        for (int i = 0; size > 16 && i < UNITS; i++)
+            layout[2 + random.nextInt(size - 2)][random.nextInt(size)] = random.nextBoolean() ? "pa1" : "pl2";
+        game = new GameImpl(new AlphaFactory(), layout);
+    }
+
+    @Benchmark
+    public GameImpl fork() {
+        return game.fork();
+    }
+
+    @Benchmark
+    public GameImpl forkAndMove() {
+        GameImpl fork = game.fork();
+        fork.moveUnit(from, to);
+        return fork;
+    }
+
+    @Benchmark
+    public World copy() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WorldFile.write(game.getWorld(), Channels.newChannel(out));
+        return WorldFile.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+    }
+}
@@ -0,0 +1,20 @@
+package hotciv.benchmark;
+
+import hotciv.standard.layout.FractalLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a fractal layout, as a FractalFactory game does. The generator always makes a
+ * map of the standard size without units or cities, so there is nothing to vary.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FractalLayoutBenchmark {
+    @Benchmark
+    public String[][] getLayout() {
+        return new FractalLayout().getLayout();
+    }
+}
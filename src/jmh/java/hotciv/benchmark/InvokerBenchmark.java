@@ -0,0 +1,77 @@
+package hotciv.benchmark;
+
+import frds.broker.ReplyObject;
+import hotciv.broker.OperationNames;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.marshall.BinaryWireFormat;
+import hotciv.broker.marshall.JsonWireFormat;
+import hotciv.broker.marshall.WireFormat;
+import hotciv.framework.Position;
+import hotciv.standard.GameImpl;
+import hotciv.standard.UnitImpl;
+import hotciv.standard.factory.AlphaFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles requests on the server: unmarshalling the arguments, calling the game and
+ * marshalling the reply, in both wire formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InvokerBenchmark {
+    @Param({"16", "256", "1024"})
+    public int size;
+    @Param({"0.01", "0.1"})
+    public double density;
+    @Param({"json", "binary"})
+    public String format;
+
+    private Invoker invoker;
+    private WireFormat wire;
+    private UnitImpl archer;
+    private String getWorldSnapshot;
+    private String getUnitAt;
+    private String moveUnit;
+    private String noArguments;
+    private String archerArguments;
+    private String[] moveArguments;
+    private int move;
+
+    @Setup
+    public void setUp() {
+        wire = format.equals("json") ? new JsonWireFormat() : new BinaryWireFormat();
+        GameImpl game = new GameImpl(new AlphaFactory(), Maps.layout(size, density, 1));
+        invoker = new Invoker(game, wire);
+        // the red archer in the corner moves east and back
+        Position corner = new Position(0, 0);
+        Position east = new Position(0, 1);
+        archer = game.getWorld().getTiles().getUnit(0);
+        getWorldSnapshot = wire.encodeOperation(OperationNames.getWorldSnapshot);
+        getUnitAt = wire.encodeOperation(OperationNames.getUnitAt);
+        moveUnit = wire.encodeOperation(OperationNames.moveUnit);
+        noArguments = wire.marshalArguments();
+        archerArguments = wire.marshalArguments(corner);
+        moveArguments = new String[]{wire.marshalArguments(corner, east), wire.marshalArguments(east, corner)};
+    }
+
+    @Benchmark
+    public ReplyObject getWorldSnapshot() {
+        return invoker.handleRequest("game", getWorldSnapshot, noArguments);
+    }
+
+    @Benchmark
+    public ReplyObject getUnitAt() {
+        return invoker.handleRequest("game", getUnitAt, archerArguments);
+    }
+
+    @Benchmark
+    public ReplyObject moveUnit() {
+        ReplyObject reply = invoker.handleRequest("game", moveUnit, moveArguments[move]);
+        move = 1 - move;
+        archer.refreshMoveCount();
+        return reply;
+    }
+}
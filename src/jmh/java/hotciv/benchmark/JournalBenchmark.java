@@ -0,0 +1,49 @@
+package hotciv.benchmark;
+
+import hotciv.framework.Command;
+import hotciv.framework.Position;
+import hotciv.journal.CommandJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends a command to a journal which forces a group of 1, 16 or 256 commands to the
+ * disk together.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JournalBenchmark {
+    @Param({"1", "16", "256"})
+    public int batchSize;
+
+    private final Command move = Command.moveUnit(new Position(2, 0), new Position(3, 1));
+    private final int[] rolls = {3, 5};
+    private Path folder;
+    private Path file;
+    private CommandJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("hotciv");
+        file = folder.resolve("game.hcjl");
+        journal = new CommandJournal(file, 0, batchSize, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public CommandJournal append() throws IOException {
+        journal.append(move, rolls);
+        return journal;
+    }
+}
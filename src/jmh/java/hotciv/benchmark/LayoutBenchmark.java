@@ -0,0 +1,32 @@
+package hotciv.benchmark;
+
+import hotciv.framework.TileStore;
+import hotciv.standard.layout.LayoutStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the tiles, units and cities of a world from its layout
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LayoutBenchmark {
+    @Param({"16", "256", "1024"})
+    public int size;
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    private String[][] layout;
+
+    @Setup
+    public void setUp() {
+        layout = Maps.layout(size, density, 1);
+    }
+
+    @Benchmark
+    public TileStore generateMap() {
+        return LayoutStrategy.generateMap(layout);
+    }
+}
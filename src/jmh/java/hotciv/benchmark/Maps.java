@@ -0,0 +1,43 @@
+package hotciv.benchmark;
+
+import java.util.Random;
+
+/**
+ * The layouts the benchmarks are run on
+ */
+final class Maps {
+    // the terrain of the tiles, mostly plains
+    private static final String[] TERRAIN = {"p", "p", "p", "p", "p", "p", "p", "f", "h", "m", "o"};
+
+    private Maps() {
+    }
+
+    /**
+     * A map of mixed terrain where a fraction of the tiles hold a unit or a city of either
+     * player, one in four of them a city. There is always a red archer in the north west
+     * corner and a blue legion in the south east corner, each with plains to the east.
+     * @param size the number of rows and columns
+     * @param density the fraction of the tiles holding a unit or a city
+     * @param seed the map is the same for the same seed
+     */
+    static String[][] layout(int size, double density, long seed) {
+        Random random = new Random(seed);
+        String[][] layout = new String[size][size];
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++) {
+                String terrain = TERRAIN[random.nextInt(TERRAIN.length)];
+                if (terrain.equals("o") || random.nextDouble() >= density)
+                    layout[r][c] = terrain;
+                else {
+                    String owner = random.nextBoolean() ? "1" : "2";
+                    String piece = random.nextInt(4) == 0 ? "c" : random.nextBoolean() ? "a" : "l";
+                    layout[r][c] = terrain + piece + owner;
+                }
+            }
+        layout[0][0] = "pa1";
+        layout[0][1] = "p";
+        layout[size - 1][size - 2] = "pl2";
+        layout[size - 1][size - 1] = "p";
+        return layout;
+    }
+}
@@ -0,0 +1,78 @@
+package hotciv.benchmark;
+
+import hotciv.ai.MctsPlayer;
+import hotciv.simulation.RandomPlayer;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.EpsilonFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a round of EpsilonCiv between the computer player, as red, and a random player,
+ * with the search on 1 to 8 threads. A turn takes the time the computer is given, so the
+ * score that matters is the nodes it searched per second, counted as an extra result. A
+ * new game starts when somebody wins or after 20 rounds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MctsBenchmark {
+    private static final long TURN_MILLIS = 200;
+    private static final int ROUNDS = 20;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private MctsPlayer computer;
+    private RandomPlayer random;
+    private GameImpl game;
+    private long seed;
+    private int round;
+
+    /**
+     * The nodes searched, reported per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        computer = new MctsPlayer(EpsilonFactory::new, 0, TURN_MILLIS, threads);
+        newGame();
+    }
+
+    @TearDown
+    public void tearDown() {
+        computer.close();
+    }
+
+    private void newGame() {
+        game = new GameImpl(new EpsilonFactory(seed));
+        random = new RandomPlayer(seed);
+        seed++;
+        round = 0;
+    }
+
+    @Benchmark
+    public GameImpl playRound(Nodes counter) {
+        if (game.getWinner() != null || round == ROUNDS)
+            newGame();
+        long before = computer.getStatistics().getNodes();
+        computer.playTurn(game);
+        counter.nodes += computer.getStatistics().getNodes() - before;
+        game.endOfTurn();
+        random.playTurn(game);
+        game.endOfTurn();
+        round++;
+        return game;
+    }
+}
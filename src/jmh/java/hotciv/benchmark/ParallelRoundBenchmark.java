@@ -0,0 +1,63 @@
+package hotciv.benchmark;
+
+import hotciv.framework.GameConstants;
+import hotciv.standard.CityImpl;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.EtaFactory;
+import hotciv.standard.factory.ParallelFactory;
+import hotciv.standard.factory.StrategyFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a round in EtaCiv on a 512x512 map with 16384 cities, updated one at a time and
+ * in fork join pools of 1 to 8 threads. The cities are of size 9 with a production
+ * focus, so each of them picks the best of the 8 tiles around it for every worker. More
+ * threads than cores gains nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelRoundBenchmark {
+    private static final int SIZE = 512;
+    private static final int SPACING = 4;
+
+    @Param({"serial", "1", "2", "4", "8"})
+    public String threads;
+
+    private String[][] layout;
+    private GameImpl game;
+
+    @Setup
+    public void setUp() {
+        layout = new String[SIZE][SIZE];
+        for (int r = 0; r < SIZE; r++)
+            for (int c = 0; c < SIZE; c++)
+                layout[r][c] = (r + 2 * c) % 3 == 0 ? "f" : (r + c) % 5 == 0 ? "h" : null;
+        int cities = 0;
+        for (int r = 1; r < SIZE; r += SPACING)
+            for (int c = 1; c < SIZE; c += SPACING)
+                layout[r][c] = cities++ % 2 == 0 ? "pc1" : "pc2";
+    }
+
+    // the cities grow and fill the map with units, so every iteration starts over
+    @Setup(Level.Iteration)
+    public void newGame() {
+        StrategyFactory factory = threads.equals("serial") ? new EtaFactory()
+                : new ParallelFactory(new EtaFactory(), Integer.parseInt(threads));
+        game = new GameImpl(factory, layout);
+        for (CityImpl city : game.getWorld().getTiles().getCities().values()) {
+            city.setWorkforceFocus(GameConstants.productionFocus);
+            for (int i = 1; i < 9; i++)
+                city.increaseSize();
+        }
+    }
+
+    @Benchmark
+    public GameImpl endOfRound() {
+        game.endOfTurn();
+        game.endOfTurn();
+        return game;
+    }
+}
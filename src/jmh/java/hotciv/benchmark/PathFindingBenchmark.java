@@ -0,0 +1,68 @@
+package hotciv.benchmark;
+
+import hotciv.framework.GameConstants;
+import hotciv.framework.Position;
+import hotciv.framework.World;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.AlphaFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds routes for an archer in the middle of the map to random tiles, on maps where a
+ * third of the tiles are mountains or ocean, and a route after the terrain has changed,
+ * which works out the passable tiles again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFindingBenchmark {
+    // the destinations taking turns
+    private static final int ROUTES = 256;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    private GameImpl game;
+    private Position from;
+    private Position next;
+    private final Position[] to = new Position[ROUTES];
+    private int route;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(size);
+        String[][] layout = new String[size][size];
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++) {
+                int roll = random.nextInt(6);
+                layout[r][c] = roll == 0 ? "m" : roll == 1 ? "o" : roll == 2 ? "f" : null;
+            }
+        layout[size / 2][size / 2] = "pa1";
+        layout[size / 2 + 1][size / 2 + 1] = null;
+        game = new GameImpl(new AlphaFactory(), layout);
+        from = new Position(size / 2, size / 2);
+        next = new Position(size / 2 + 1, size / 2 + 1);
+        for (int i = 0; i < ROUTES; i++)
+            to[i] = new Position(random.nextInt(size), random.nextInt(size));
+    }
+
+    @Benchmark
+    public List<Position> findPath() {
+        route = (route + 1) % ROUTES;
+        return game.findPath(from, to[route]);
+    }
+
+    @Benchmark
+    public List<Position> findPathAfterChange() {
+        // like a forest bombed into plains
+        World world = game.getWorld();
+        Position changed = new Position(0, 0);
+        world.setTypeAt(changed, world.getTypeAt(changed).equals(GameConstants.HILLS) ? GameConstants.PLAINS
+                : GameConstants.HILLS);
+        return game.findPath(from, next);
+    }
+}
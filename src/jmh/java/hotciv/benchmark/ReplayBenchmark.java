@@ -0,0 +1,75 @@
+package hotciv.benchmark;
+
+import hotciv.framework.Neighborhood;
+import hotciv.framework.TileStore;
+import hotciv.framework.World;
+import hotciv.journal.CommandJournal;
+import hotciv.journal.JournaledGame;
+import hotciv.journal.Replay;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.EpsilonFactory;
+import hotciv.standard.random.SeededDieRoll;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the journal of a long EpsilonCiv game of random orders, ending the turn now
+ * and then, from its saved world.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReplayBenchmark {
+    private static final int ORDERS = 200_000;
+
+    private Path folder;
+    private Path snapshot;
+    private Path journal;
+    private int entries;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("hotciv");
+        snapshot = folder.resolve("game.hciv");
+        journal = folder.resolve("game.hcjl");
+        JournaledGame game = JournaledGame.start(EpsilonFactory::new, new SeededDieRoll(1), snapshot, journal,
+                256, 0);
+        SplittableRandom random = new SplittableRandom(42);
+        World world = game.getGame().getWorld();
+        TileStore tiles = world.getTiles();
+        List<Integer> units = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            units.clear();
+            units.addAll(world.getUnitsOf(game.getPlayerInTurn()).keySet());
+            if (random.nextInt(10) == 0 || units.isEmpty()) {
+                game.endOfTurn();
+                continue;
+            }
+            int unit = units.get(random.nextInt(units.size()));
+            int to = tiles.getNeighborhood().neighbor(unit, 1 + random.nextInt(Neighborhood.SIZE - 1));
+            if (to >= 0)
+                game.moveUnit(tiles.positionOf(unit), tiles.positionOf(to));
+        }
+        game.close();
+        entries = CommandJournal.read(journal).getEntries().size();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(journal);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public GameImpl replay() throws IOException {
+        return Replay.replay(EpsilonFactory::new, snapshot, journal, entries);
+    }
+}
@@ -0,0 +1,51 @@
+package hotciv.benchmark;
+
+import hotciv.framework.World;
+import hotciv.framework.WorldFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves a world to a file and loads it again, on maps where one tile in twenty holds a
+ * unit or a city. Saving includes forcing the file to the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SaveGameBenchmark {
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    private World world;
+    private Path folder;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        world = new World(Maps.layout(size, 0.05, 1));
+        folder = Files.createTempDirectory("hotciv");
+        file = folder.resolve("world.hciv");
+        WorldFile.save(world, file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        WorldFile.save(world, file);
+        return file;
+    }
+
+    @Benchmark
+    public World load() throws IOException {
+        return WorldFile.load(file);
+    }
+}
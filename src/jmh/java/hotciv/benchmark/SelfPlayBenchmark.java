@@ -0,0 +1,56 @@
+package hotciv.benchmark;
+
+import hotciv.simulation.GameOutcome;
+import hotciv.simulation.RandomPlayer;
+import hotciv.simulation.Simulation;
+import hotciv.standard.factory.AlphaFactory;
+import hotciv.standard.factory.EpsilonFactory;
+import hotciv.standard.factory.SemiFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a game between random players, a new seed every call, until somebody wins or
+ * after 200 rounds. The score is the games a thread plays per second; Simulation.run
+ * plays a game on every core at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SelfPlayBenchmark {
+    private static final int MAX_ROUNDS = 200;
+
+    @Param({"alpha", "epsilon", "semi"})
+    public String variant;
+
+    private Simulation simulation;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        switch (variant) {
+            case "alpha":
+                simulation = new Simulation(seed -> new AlphaFactory(), RandomPlayer::new, RandomPlayer::new, MAX_ROUNDS, 1);
+                break;
+            case "epsilon":
+                simulation = new Simulation(EpsilonFactory::new, RandomPlayer::new, RandomPlayer::new, MAX_ROUNDS, 1);
+                break;
+            case "semi":
+                simulation = new Simulation(SemiFactory::new, RandomPlayer::new, RandomPlayer::new, MAX_ROUNDS, 1);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulation.close();
+    }
+
+    @Benchmark
+    public GameOutcome play() {
+        return simulation.play(next++);
+    }
+}
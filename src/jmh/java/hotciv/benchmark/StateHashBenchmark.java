@@ -0,0 +1,80 @@
+package hotciv.benchmark;
+
+import hotciv.framework.Position;
+import hotciv.framework.TileStore;
+import hotciv.framework.World;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.GammaFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asks for the state hash of a GammaCiv game on a map of 1024x1024 tiles with a few
+ * hundred units and cities, after a command changing it, against working the hash out
+ * from scratch by hashing every tile, unit and city into a new store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StateHashBenchmark {
+    private static final int SIZE = 1024;
+    private static final int UNITS = 400;
+    private static final int CITIES = 100;
+    private static final String[] TERRAIN = {null, null, "o", "m", "f", "h"};
+
+    private String[][] layout;
+    private GameImpl game;
+    private final Position archer = new Position(0, 0);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SIZE);
+        layout = new String[SIZE][SIZE];
+        for (int r = 0; r < SIZE; r++)
+            for (int c = 0; c < SIZE; c++)
+                layout[r][c] = TERRAIN[random.nextInt(TERRAIN.length)];
+        for (int i = 0; i < CITIES; i++)
+            layout[2 + random.nextInt(SIZE - 2)][random.nextInt(SIZE)] = random.nextBoolean() ? "pc1" : "pc2";
+        for (int i = 0; i < UNITS; i++)
+            layout[2 + random.nextInt(SIZE - 2)][random.nextInt(SIZE)] = random.nextBoolean() ? "pa1" : "pa2";
+        layout[0][0] = "pa1";
+    }
+
+    // the cities fill the map with units, so every iteration starts over
+    @Setup(Level.Iteration)
+    public void newGame() {
+        game = new GameImpl(new GammaFactory(), layout);
+    }
+
+    @Benchmark
+    public long fortify() {
+        // fortifies and unfortifies the archer
+        game.performUnitActionAt(archer);
+        game.getWorld().getUnitForWrite(archer).setUsedAction(false);
+        return game.getStateHash();
+    }
+
+    @Benchmark
+    public long endOfRound() {
+        game.endOfTurn();
+        game.endOfTurn();
+        return game.getStateHash();
+    }
+
+    @Benchmark
+    public long fromScratch() {
+        World world = game.getWorld();
+        TileStore tiles = world.getTiles();
+        TileStore copy = new TileStore(tiles.getSize());
+        for (int index = 0; index < tiles.getSize() * tiles.getSize(); index++)
+            copy.setType(index, tiles.getType(index));
+        for (Map.Entry<Integer, ?> unit : tiles.getUnits().entrySet())
+            copy.setUnit(unit.getKey(), tiles.getUnit(unit.getKey()));
+        for (Map.Entry<Integer, ?> city : tiles.getCities().entrySet())
+            copy.setCity(city.getKey(), tiles.getCity(city.getKey()));
+        return copy.getHash() ^ world.getVariables().getHash();
+    }
+}
@@ -0,0 +1,71 @@
+package hotciv.benchmark;
+
+import hotciv.framework.Position;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.GammaFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a command and undoes it, as a search does for every command it tries, in a
+ * GammaCiv game on a map of 64x64 tiles with 400 units and 20 cities: a move, a unit
+ * action fortifying an archer, and the end of a round. A fork per command is the other
+ * way of trying a command.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UndoBenchmark {
+    private static final int SIZE = 64;
+    private static final int UNITS = 400;
+    private static final int CITIES = 20;
+
+    private GameImpl game;
+    private final Position archer = new Position(0, 0);
+    private final Position next = new Position(0, 1);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SIZE);
+        String[][] layout = new String[SIZE][SIZE];
+        for (int i = 0; i < CITIES; i++)
+            layout[2 + random.nextInt(SIZE - 2)][random.nextInt(SIZE)] = random.nextBoolean() ? "pc1" : "pc2";
+        for (int i = 0; i < UNITS; i++)
+            layout[2 + random.nextInt(SIZE - 2)][random.nextInt(SIZE)] = random.nextBoolean() ? "pa1" : "pa2";
+        layout[0][0] = "pa1";
+        game = new GameImpl(new GammaFactory(), layout);
+        game.setUndoRecording(true);
+    }
+
+    @Benchmark
+    public GameImpl moveAndUndo() {
+        game.moveUnit(archer, next);
+        game.undo();
+        return game;
+    }
+
+    @Benchmark
+    public GameImpl fortifyAndUndo() {
+        game.performUnitActionAt(archer);
+        game.undo();
+        return game;
+    }
+
+    @Benchmark
+    public GameImpl endOfRoundAndUndo() {
+        game.endOfTurn();
+        game.endOfTurn();
+        game.undo();
+        game.undo();
+        return game;
+    }
+
+    @Benchmark
+    public GameImpl forkAndMove() {
+        GameImpl fork = game.fork();
+        fork.moveUnit(archer, next);
+        return fork;
+    }
+}
@@ -0,0 +1,151 @@
+package hotciv.benchmark;
+
+import com.google.gson.Gson;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import hotciv.broker.GameEvents;
+import hotciv.broker.OperationNames;
+import hotciv.broker.marshall.Arguments;
+import hotciv.broker.marshall.BinaryWireFormat;
+import hotciv.broker.marshall.JsonWireFormat;
+import hotciv.broker.marshall.WireFormat;
+import hotciv.framework.GameConstants;
+import hotciv.framework.Player;
+import hotciv.framework.Position;
+import hotciv.framework.WorldSnapshot;
+import hotciv.standard.GameImpl;
+import hotciv.standard.UnitImpl;
+import hotciv.standard.factory.AlphaFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshals and unmarshals the request and the reply of an operation in both wire formats.
+ * The line benchmarks frame them as the socket handlers send them, a line of JSON holding
+ * the object id, operation and payload, and count the bytes of the line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmark {
+    @Param({"getAge", "moveUnit", "changeProductionInCityAt", "getUnitAt", "awaitEvents", "getWorldSnapshot"})
+    public String operation;
+    @Param({"json", "binary"})
+    public String format;
+
+    private final Gson gson = new Gson();
+    private WireFormat wire;
+    private String name;
+    private Object[] arguments;
+    private Class<?>[] argumentTypes;
+    private Object reply;
+    private Type replyType;
+    private String request;
+    private String marshalledReply;
+
+    /**
+     * The bytes of the request line, with its newline
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RequestLine {
+        public long requestBytes;
+    }
+
+    /**
+     * The bytes of the reply line, with its newline
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ReplyLine {
+        public long replyBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        wire = format.equals("json") ? new JsonWireFormat() : new BinaryWireFormat();
+        GameImpl game = new GameImpl(new AlphaFactory());
+        Position unit = new Position(2, 0);
+        switch (operation) {
+            case "getAge":
+                operation(OperationNames.getAge, game.getAge(), Integer.class);
+                break;
+            case "moveUnit":
+                operation(OperationNames.moveUnit, true, Boolean.class, unit, new Position(3, 0));
+                break;
+            case "changeProductionInCityAt":
+                operation(OperationNames.changeProductionInCityAt, null, Void.class, new Position(1, 1),
+                        GameConstants.LEGION);
+                break;
+            case "getUnitAt":
+                operation(OperationNames.getUnitAt, game.getUnitAt(unit), UnitImpl.class, unit);
+                break;
+            case "awaitEvents":
+                GameEvents events = new GameEvents();
+                events.setSequence(1234);
+                events.addChange(new Position(5, 5));
+                events.addChange(new Position(5, 6));
+                events.setTurnEnds(Player.BLUE);
+                operation(OperationNames.awaitEvents, events, GameEvents.class, 1233L, 30000L);
+                break;
+            case "getWorldSnapshot":
+                operation(OperationNames.getWorldSnapshot, game.getWorldSnapshot(), WorldSnapshot.class);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+        request = wire.marshalArguments(arguments);
+        marshalledReply = wire.marshal(reply);
+    }
+
+    private void operation(String name, Object reply, Type replyType, Object... arguments) {
+        this.name = name;
+        this.reply = reply;
+        this.replyType = replyType;
+        this.arguments = arguments;
+        argumentTypes = new Class<?>[arguments.length];
+        for (int i = 0; i < arguments.length; i++)
+            argumentTypes[i] = arguments[i].getClass();
+    }
+
+    @Benchmark
+    public String marshalRequest() {
+        return wire.marshalArguments(arguments);
+    }
+
+    @Benchmark
+    public Object unmarshalRequest() {
+        Arguments unmarshalled = wire.unmarshalArguments(request);
+        Object last = wire.decodeOperation(wire.encodeOperation(name));
+        for (int i = 0; i < argumentTypes.length; i++)
+            last = unmarshalled.get(i, argumentTypes[i]);
+        return last;
+    }
+
+    @Benchmark
+    public String marshalReply() {
+        return wire.marshal(reply);
+    }
+
+    // the requestor does not read the reply of an operation without a return value
+    @Benchmark
+    public Object unmarshalReply() {
+        return replyType == Void.class ? null : wire.unmarshal(marshalledReply, replyType);
+    }
+
+    @Benchmark
+    public String requestLine(RequestLine lines) {
+        String line = gson.toJson(new RequestObject("game", wire.encodeOperation(name), wire.marshalArguments(arguments)));
+        lines.requestBytes = line.length() + 1;
+        return line;
+    }
+
+    @Benchmark
+    public String replyLine(ReplyLine lines) {
+        String line = gson.toJson(new ReplyObject(200, wire.marshal(reply)));
+        lines.replyBytes = line.length() + 1;
+        return line;
+    }
+}
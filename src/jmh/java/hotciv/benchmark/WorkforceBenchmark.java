@@ -0,0 +1,52 @@
+package hotciv.benchmark;
+
+import hotciv.framework.GameConstants;
+import hotciv.framework.World;
+import hotciv.standard.CityImpl;
+import hotciv.standard.workforce.WorkableTiles;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Works the tiles around the cities of the map, one city a call. The cities start at
+ * size 5 with a production focus, and grow as they work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WorkforceBenchmark {
+    @Param({"16", "256", "1024"})
+    public int size;
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    private World world;
+    private final WorkableTiles workforce = new WorkableTiles();
+    private List<CityImpl> cities;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        String[][] layout = Maps.layout(size, density, 1);
+        layout[1][1] = "pc1";
+        world = new World(layout);
+        cities = new ArrayList<>(world.getTiles().getCities().values());
+        for (CityImpl city : cities) {
+            city.setWorkforceFocus(GameConstants.productionFocus);
+            for (int i = 1; i < 5; i++)
+                city.increaseSize();
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public CityImpl workTiles() {
+        CityImpl city = cities.get(next);
+        next = (next + 1) % cities.size();
+        workforce.workTiles(world, city);
+        return city;
+    }
+}
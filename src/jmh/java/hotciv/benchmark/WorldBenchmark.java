@@ -0,0 +1,78 @@
+package hotciv.benchmark;
+
+import hotciv.framework.*;
+import hotciv.standard.UnitImpl;
+import hotciv.standard.random.SeededDieRoll;
+import hotciv.standard.resolveAttack.ActualCombat;
+import hotciv.standard.resolveAttack.ResolveAttackStrategy;
+import hotciv.standard.unitMovementDistinction.GroundOnly;
+import hotciv.standard.unitMovementDistinction.UnitMovementDistinctionStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the red units of the map to a free neighboring plains tile and back, one unit a
+ * call, so a move never attacks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WorldBenchmark {
+    // the most units taking turns to move
+    private static final int MOVES = 1024;
+
+    @Param({"16", "256", "1024"})
+    public int size;
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    private World world;
+    private final ResolveAttackStrategy attack = new ActualCombat(new SeededDieRoll(1));
+    private final UnitMovementDistinctionStrategy movement = new GroundOnly();
+    private final List<Position> from = new ArrayList<>();
+    private final List<Position> to = new ArrayList<>();
+    private final List<UnitImpl> units = new ArrayList<>();
+    // whether each unit is on its way back
+    private boolean[] back;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        world = new World(Maps.layout(size, density, 1));
+        TileStore tiles = world.getTiles();
+        Neighborhood neighborhood = tiles.getNeighborhood();
+        HashSet<Integer> taken = new HashSet<>();
+        for (int index : world.getUnitsOf(Player.RED).keySet()) {
+            // the unit must be able to move back, so not from the mountains
+            if (!movement.validUnitPosition(world, tiles.positionOf(index), tiles.getUnit(index).getTypeString()))
+                continue;
+            for (int n = 1; n < Neighborhood.SIZE && units.size() < MOVES; n++) {
+                int free = neighborhood.neighbor(index, n);
+                if (free < 0 || tiles.getUnit(free) != null || tiles.getCity(free) != null || taken.contains(free)
+                        || !tiles.getType(free).equals(GameConstants.PLAINS))
+                    continue;
+                taken.add(free);
+                from.add(tiles.positionOf(index));
+                to.add(tiles.positionOf(free));
+                units.add(tiles.getUnit(index));
+                break;
+            }
+        }
+        back = new boolean[units.size()];
+    }
+
+    @Benchmark
+    public boolean moveUnit() {
+        int i = next;
+        next = (next + 1) % units.size();
+        boolean moved = back[i] ? world.moveUnit(to.get(i), from.get(i), attack, movement)
+                : world.moveUnit(from.get(i), to.get(i), attack, movement);
+        back[i] = !back[i];
+        units.get(i).refreshMoveCount();
+        return moved;
+    }
+}
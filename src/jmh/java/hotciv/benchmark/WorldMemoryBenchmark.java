@@ -0,0 +1,41 @@
+package hotciv.benchmark;
+
+import hotciv.framework.World;
+import hotciv.standard.TileImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the map of a world of plains, as the TileStore of a new world and as the
+ * TileImpl[][] tile map that getMap materializes. Run with -PjmhProfiler=gc, where
+ * gc.alloc.rate.norm is the bytes of each map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldMemoryBenchmark {
+    @Param({"16", "256", "2048"})
+    public int size;
+
+    private String[][] layout;
+    private World world;
+
+    @Setup
+    public void setUp() {
+        layout = new String[size][size];
+        layout[0][0] = "pc1";
+        layout[size - 1][size - 1] = "pa2";
+        world = new World(layout);
+    }
+
+    @Benchmark
+    public World tileStore() {
+        return new World(layout);
+    }
+
+    @Benchmark
+    public TileImpl[][] tileMap() {
+        return world.getMap();
+    }
+}
@@ -0,0 +1,106 @@
+package hotciv.ai;
+
+import hotciv.framework.Game;
+import hotciv.framework.GameObserver;
+import hotciv.framework.Player;
+import hotciv.framework.Position;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Seats a computer player at a game: whenever the turn passes to its player, the computer
+ * plays the turn and ends it. Add the seat as an observer of the game, local or a proxy of
+ * a remote one.
+ *
+ * The turn is played on the executor, as observers are told of the end of a turn from
+ * inside endOfTurn; use the thread of the user interface for a game shown in one, or a
+ * thread of its own for a client. The search for each command runs on the search
+ * executor, and only the command chosen is played on the executor, so a user interface
+ * goes on drawing while the computer thinks.
+ */
+public class ComputerSeat implements GameObserver {
+    private final Game game;
+    private final Player seat;
+    private final MctsPlayer player;
+    private final Executor executor;
+    private final Executor search;
+    // the turn being played, or null; only used on the executor
+    private MctsPlayer.Turn turn;
+
+    /**
+     * @param executor plays the game, the thread of the user interface of a game shown in one
+     * @param search searches for the commands, off the thread of the user interface
+     */
+    public ComputerSeat(Game game, Player seat, MctsPlayer player, Executor executor, Executor search) {
+        this.game = game;
+        this.seat = seat;
+        this.player = player;
+        this.executor = executor;
+        this.search = search;
+    }
+
+    /**
+     * Seats a computer that searches on the thread playing the game
+     */
+    public ComputerSeat(Game game, Player seat, MctsPlayer player, Executor executor) {
+        this(game, seat, player, executor, executor);
+    }
+
+    /**
+     * Plays the turn if it is the turn of the seat already, such as when the computer starts
+     */
+    public void start() {
+        turnEnds(game.getPlayerInTurn());
+    }
+
+    public void turnEnds(Player nextPlayer) {
+        if (nextPlayer == seat)
+            executor.execute(this::playTurn);
+    }
+
+    private void playTurn() {
+        // the turn may be played already, if the seat was told twice
+        if (turn != null || game.getPlayerInTurn() != seat || game.getWinner() != null)
+            return;
+        turn = player.beginTurn(game);
+        next();
+    }
+
+    // runs on the executor, and has the search run on the search executor
+    private void next() {
+        MctsPlayer.Turn current = turn;
+        if (!current.next()) {
+            endTurn();
+            return;
+        }
+        search.execute(() -> {
+            long command;
+            try {
+                command = current.decide();
+            } catch (RuntimeException e) {
+                executor.execute(this::endTurn);
+                throw e;
+            }
+            executor.execute(() -> {
+                if (current.play(command))
+                    next();
+                else
+                    endTurn();
+            });
+        });
+    }
+
+    private void endTurn() {
+        turn = null;
+        game.endOfTurn();
+    }
+
+    public void worldChangedAt(Position pos) {
+    }
+
+    public void tileFocusChangedAt(Position position) {
+    }
+
+    public void requestUpdate() {
+    }
+}
@@ -0,0 +1,284 @@
+package hotciv.ai;
+
+import hotciv.framework.*;
+import hotciv.simulation.SimulatedPlayer;
+import hotciv.standard.GameImpl;
+import hotciv.standard.UnitImpl;
+import hotciv.standard.factory.StrategyFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * A computer player choosing its commands by Monte Carlo tree search, within a time budget
+ * per turn.
+ *
+ * The commands of a turn are chosen one at a time, each by a search of the rest of the
+ * turn (see TreeSearch) given an equal share of the time left: the search has until the
+ * deadline, the command tried most often is played, and the next command is searched
+ * from the game it left. The turn is done when the end of the turn is chosen, the time is
+ * up or the game is won.
+ *
+ * The search runs on several threads, each growing a tree of its own in a fork of a model
+ * of the game with a die of its own; the visits of the commands are added up over the trees
+ * when the time is up. The model is a copy of the game, see GameImpl.copy: forking the game
+ * itself would have it copy its units and cities the next time they change, and the ones
+ * held by its clients, such as a user interface or a broker, would no longer be on the map.
+ * The model plays the commands chosen as the game does, and is copied again when a die
+ * has it differ from the game. The game itself is only read and played by the thread
+ * calling playTurn; a game played on a thread that must not wait for the search, such as
+ * the thread of a user interface, is played a command at a time with a Turn.
+ * A game that is not a GameImpl, such as a proxy of a remote game, is searched in a game
+ * rebuilt from its world snapshot, which has the units, cities, age and player in turn but
+ * not the round, combat victories or the fortifications and used actions of the units.
+ */
+public class MctsPlayer implements SimulatedPlayer, Closeable {
+    // the commands of a turn at most, so a turn ends if every command keeps changing the game
+    private static final int MAX_COMMANDS = 256;
+
+    private final LongFunction<StrategyFactory> variant;
+    private final SplittableRandom seeds;
+    private final long turnNanos;
+    private final int threads;
+    // the threads searching besides the caller, or null if it searches alone
+    private final ExecutorService pool;
+
+    private long decisions;
+    private long nodes;
+    private long searchNanos;
+    private long lastDecisionNanos;
+    private long maxDecisionNanos;
+
+    /**
+     * @param variant makes the factory of the searched games from a seed, for the variant played
+     * @param seed the seed of the search
+     * @param turnMillis the time to spend on a turn
+     * @param threads the number of threads searching, including the one calling playTurn
+     */
+    public MctsPlayer(LongFunction<StrategyFactory> variant, long seed, long turnMillis, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("A player needs a thread to search on");
+        this.variant = variant;
+        this.seeds = new SplittableRandom(seed);
+        this.turnNanos = turnMillis * 1_000_000;
+        this.threads = threads;
+        this.pool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "tree search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int playTurn(GameImpl game) {
+        return playTurn((Game) game);
+    }
+
+    /**
+     * Gives the orders of the player in turn, without ending the turn
+     * @param game the game, local or remote
+     * @return the number of combats fought, won or lost
+     */
+    public int playTurn(Game game) {
+        Turn turn = beginTurn(game);
+        while (turn.next() && turn.play(turn.decide()))
+            ;
+        return turn.getCombats();
+    }
+
+    /**
+     * Starts the turn of the player in turn, to be played a command at a time, see Turn
+     * @param game the game, local or remote
+     */
+    public Turn beginTurn(Game game) {
+        return new Turn(game);
+    }
+
+    /**
+     * A turn played a command at a time: next and play read and play the game, on the
+     * thread playing it, and decide searches a model of the game, on any thread, so the
+     * thread playing the game is free while the search runs. The steps are taken one
+     * after the other, next, decide and play, until next or play returns false.
+     */
+    public class Turn {
+        private final Game game;
+        private final Player player;
+        private final long end;
+        private GameImpl model;
+        private long deadline;
+        private int played;
+        private int combats;
+
+        private Turn(Game game) {
+            this.game = game;
+            player = game.getPlayerInTurn();
+            end = System.nanoTime() + turnNanos;
+        }
+
+        /**
+         * Prepares the search of the next command, on the thread playing the game
+         * @return false if the turn is over: the time is up, the game is won or the turn has passed
+         */
+        public boolean next() {
+            if (played == MAX_COMMANDS || game.getWinner() != null || game.getPlayerInTurn() != player)
+                return false;
+            long start = System.nanoTime();
+            if (start >= end)
+                return false;
+            model = model(game, model);
+            int commands = countCommands(model, player);
+            if (commands == 0)
+                return false;
+            deadline = start + (end - start) / commands;
+            return true;
+        }
+
+        /**
+         * Searches for the next command, on any thread
+         * @return the command chosen
+         */
+        public long decide() {
+            return MctsPlayer.this.decide(model, deadline);
+        }
+
+        /**
+         * Plays the command chosen, on the thread playing the game
+         * @return false if the command is the end of the turn, which is not played
+         */
+        public boolean play(long command) {
+            if (TreeSearch.kind(command) == TreeSearch.END_TURN)
+                return false;
+            TileStore tiles = model.getWorld().getTiles();
+            combats += MctsPlayer.play(game, tiles, command);
+            if (game instanceof GameImpl)
+                MctsPlayer.play(model, tiles, command);
+            played++;
+            return true;
+        }
+
+        /**
+         * @return the number of combats fought so far, won or lost
+         */
+        public int getCombats() {
+            return combats;
+        }
+    }
+
+    // the game to search, the model of the last command while it is the same as the game
+    private GameImpl model(Game game, GameImpl last) {
+        if (!(game instanceof GameImpl))
+            return rebuild(game);
+        if (last != null && last.getStateHash() == game.getStateHash())
+            return last;
+        return ((GameImpl) game).copy(variant.apply(seeds.nextLong()));
+    }
+
+    /**
+     * @return the search of the turns played so far
+     */
+    public synchronized SearchStatistics getStatistics() {
+        return new SearchStatistics(decisions, nodes, searchNanos, lastDecisionNanos, maxDecisionNanos);
+    }
+
+    /**
+     * Stops the threads searching
+     */
+    public void close() {
+        if (pool != null)
+            pool.shutdownNow();
+    }
+
+    // searches the game in forks on every thread, and chooses the command visited most often
+    private long decide(GameImpl model, long deadline) {
+        long start = System.nanoTime();
+        TreeSearch[] searches = new TreeSearch[threads];
+        for (int i = 0; i < threads; i++) {
+            GameImpl fork = model.fork(variant.apply(seeds.nextLong()));
+            fork.setUndoRecording(true);
+            searches[i] = new TreeSearch(fork, seeds.nextLong());
+        }
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            TreeSearch search = searches[i];
+            running.add(pool.submit(() -> search.search(deadline, Integer.MAX_VALUE)));
+        }
+        searches[0].search(deadline, Integer.MAX_VALUE);
+        try {
+            for (Future<?> future : running)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A search failed", e.getCause());
+        }
+
+        Map<Long, Integer> visits = new HashMap<>();
+        int iterations = 0;
+        for (TreeSearch search : searches) {
+            long[] commands = search.getCommands();
+            int[] counts = search.getVisits();
+            for (int i = 0; i < commands.length; i++)
+                visits.merge(commands[i], counts[i], Integer::sum);
+            iterations += search.getIterations();
+        }
+        long best = TreeSearch.END_TURN;
+        int mostVisits = 0;
+        for (Map.Entry<Long, Integer> entry : visits.entrySet())
+            if (entry.getValue() > mostVisits) {
+                best = entry.getKey();
+                mostVisits = entry.getValue();
+            }
+
+        long time = System.nanoTime() - start;
+        synchronized (this) {
+            decisions++;
+            nodes += iterations;
+            searchNanos += time;
+            lastDecisionNanos = time;
+            maxDecisionNanos = Math.max(maxDecisionNanos, time);
+        }
+        return best;
+    }
+
+    // the units of the player that can still move or act, and the end of the turn
+    private static int countCommands(GameImpl model, Player player) {
+        int commands = 1;
+        for (UnitImpl unit : model.getWorld().getUnitsOf(player).values())
+            if (unit.getMoveCount() > 0 || !unit.getUsedAction())
+                commands++;
+        return commands;
+    }
+
+    // plays a command chosen in the model in the game itself
+    private static int play(Game game, TileStore tiles, long command) {
+        Position at = tiles.positionOf(TreeSearch.tile(command));
+        if (TreeSearch.kind(command) == TreeSearch.ACTION) {
+            game.performUnitActionAt(at);
+            return 0;
+        }
+        Position to = tiles.positionOf(tiles.getNeighborhood().neighbor(TreeSearch.tile(command), TreeSearch.neighbor(command)));
+        Unit defender = game.getUnitAt(to);
+        boolean enemy = defender != null && defender.getOwner() != game.getPlayerInTurn();
+        boolean moved = game.moveUnit(at, to);
+        return enemy && (moved || game.getUnitAt(at) == null) ? 1 : 0;
+    }
+
+    // a game in the world of a snapshot of the game
+    private GameImpl rebuild(Game game) {
+        WorldSnapshot snapshot = game.getWorldSnapshot();
+        GameVariables variables = new GameVariables();
+        variables.setAge(snapshot.getAge());
+        variables.setCurrentPlayer(snapshot.getPlayerInTurn());
+        World world = new World(TileStore.of(snapshot.toTileMap()), variables);
+        return new GameImpl(variant.apply(seeds.nextLong()), world);
+    }
+}
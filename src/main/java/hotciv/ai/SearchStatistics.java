@@ -0,0 +1,67 @@
+package hotciv.ai;
+
+/**
+ * How much a computer player has searched, taken at one moment
+ */
+public class SearchStatistics {
+    private final long decisions;
+    private final long nodes;
+    private final long searchNanos;
+    private final long lastDecisionNanos;
+    private final long maxDecisionNanos;
+
+    public SearchStatistics(long decisions, long nodes, long searchNanos, long lastDecisionNanos, long maxDecisionNanos) {
+        this.decisions = decisions;
+        this.nodes = nodes;
+        this.searchNanos = searchNanos;
+        this.lastDecisionNanos = lastDecisionNanos;
+        this.maxDecisionNanos = maxDecisionNanos;
+    }
+
+    /**
+     * @return the number of commands chosen by searching
+     */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * @return the number of nodes added to the search trees, one per iteration on every thread
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the wall clock time spent choosing commands
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * @return the nodes searched per second of wall clock time, on all threads together
+     */
+    public double getNodesPerSecond() {
+        return searchNanos == 0 ? 0 : nodes * 1e9 / searchNanos;
+    }
+
+    public long getLastDecisionNanos() {
+        return lastDecisionNanos;
+    }
+
+    public long getMaxDecisionNanos() {
+        return maxDecisionNanos;
+    }
+
+    public double getMeanDecisionNanos() {
+        return decisions == 0 ? 0 : (double) searchNanos / decisions;
+    }
+
+    @Override
+    public String toString() {
+        return decisions + " decisions, " + nodes + " nodes, " + Math.round(getNodesPerSecond()) + " nodes/s, "
+                + "decision mean " + Math.round(getMeanDecisionNanos() / 1e3) + " us, max "
+                + Math.round(maxDecisionNanos / 1e3) + " us";
+    }
+}
@@ -0,0 +1,326 @@
+package hotciv.ai;
+
+import hotciv.framework.*;
+import hotciv.simulation.RandomPlayer;
+import hotciv.standard.CityImpl;
+import hotciv.standard.GameImpl;
+import hotciv.standard.UnitImpl;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A Monte Carlo tree search of the commands of one turn, on a game of its own.
+ *
+ * The tree holds the commands of the player in turn, one after another, up to the end of
+ * the turn. Every iteration goes down the tree by UCT, adds one command to it, and plays
+ * out the rest: the turn is ended, the other player replies with random orders, and the
+ * game is scored for the player searching. The commands are then undone, so the game is
+ * back where the search started.
+ *
+ * A move is followed by a chance node: whether the unit got to the tile or died fighting
+ * for it is decided by the die of the game, so each command has a decision for each
+ * outcome, reached as often as the die gives it. A command that changes nothing, such as a
+ * move into the mountains, is dropped the first time it is tried.
+ *
+ * A search is for one thread; searches on several threads each have their own game.
+ */
+class TreeSearch {
+    // a command is a kind, a tile index and, for a move, the neighbor of the tile moved to
+    static final int END_TURN = 0;
+    static final int MOVE = 1;
+    static final int ACTION = 2;
+
+    private static final double EXPLORATION = 1.4;
+    // the commands in a row the tree goes down, so a player with many units still plays out
+    private static final int MAX_DEPTH = 48;
+    // the material one side must be ahead by for a score of about three quarters
+    private static final double SCALE = 10;
+
+    static long move(int from, int neighbor) {
+        return (long) from << 8 | neighbor << 2 | MOVE;
+    }
+
+    static long action(int at) {
+        return (long) at << 8 | ACTION;
+    }
+
+    static int kind(long command) {
+        return (int) (command & 3);
+    }
+
+    static int tile(long command) {
+        return (int) (command >>> 8);
+    }
+
+    static int neighbor(long command) {
+        return (int) (command >>> 2) & 0x3F;
+    }
+
+    /**
+     * The commands of the player at a point of the turn, the ones tried first
+     */
+    private static final class Decision {
+        long[] commands;
+        int count;
+        int tried;
+        Chance[] edges;
+        int visits;
+    }
+
+    /**
+     * A command tried, and the decisions after it: the one after the unit moved, or the command
+     * was carried out, and the one after the unit died fighting
+     */
+    private static final class Chance {
+        final long command;
+        final Decision[] outcomes = new Decision[2];
+        int visits;
+        double value;
+
+        Chance(long command) {
+            this.command = command;
+        }
+    }
+
+    private final GameImpl game;
+    private final Player player;
+    private final SplittableRandom random;
+    private final RandomPlayer opponent;
+    private final Decision root = new Decision();
+    // the way down of an iteration
+    private final Decision[] decisions = new Decision[MAX_DEPTH + 1];
+    private final Chance[] chances = new Chance[MAX_DEPTH + 1];
+    private int iterations;
+
+    /**
+     * @param game a game of the search's own, recording undo records
+     * @param seed the seed of the choices of the search and of the other player
+     */
+    TreeSearch(GameImpl game, long seed) {
+        this.game = game;
+        this.player = game.getPlayerInTurn();
+        this.random = new SplittableRandom(seed);
+        this.opponent = new RandomPlayer(random.nextLong());
+    }
+
+    int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Searches until the time is up
+     * @param deadline the System.nanoTime to stop at
+     * @param maxIterations the iterations to stop after, if the time is not up first
+     */
+    void search(long deadline, int maxIterations) {
+        while (iterations < maxIterations && System.nanoTime() < deadline)
+            iterate();
+    }
+
+    /**
+     * @return the commands tried at the root
+     */
+    long[] getCommands() {
+        return Arrays.copyOf(root.commands == null ? new long[0] : root.commands, root.tried);
+    }
+
+    /**
+     * @return the times each command tried at the root was gone down, in the order of getCommands
+     */
+    int[] getVisits() {
+        int[] visits = new int[root.tried];
+        for (int i = 0; i < visits.length; i++)
+            visits[i] = root.edges[i].visits;
+        return visits;
+    }
+
+    /**
+     * @return the summed scores of each command tried at the root, in the order of getCommands
+     */
+    double[] getValues() {
+        double[] values = new double[root.tried];
+        for (int i = 0; i < values.length; i++)
+            values[i] = root.edges[i].value;
+        return values;
+    }
+
+    void iterate() {
+        int depth = 0;
+        Decision node = root;
+        while (true) {
+            decisions[depth] = node;
+            if (node.commands == null)
+                listCommands(node);
+            Chance edge = tryNext(node);
+            boolean added = edge != null;
+            if (!added) {
+                edge = select(node);
+                if (play(edge.command) < 0) // the game is the same as when the command was tried
+                    game.undo();
+            }
+            chances[depth++] = edge;
+            if (kind(edge.command) == END_TURN || game.getWinner() != null)
+                break;
+            int outcome = game.getUnitAt(target(edge.command)) != null
+                    && game.getUnitAt(target(edge.command)).getOwner() == player ? 0 : 1;
+            Decision next = edge.outcomes[outcome];
+            if (next == null) {
+                edge.outcomes[outcome] = new Decision();
+                break;
+            }
+            if (added || depth == MAX_DEPTH)
+                break;
+            node = next;
+        }
+
+        double value = playOut();
+        for (int i = 0; i < depth; i++) {
+            decisions[i].visits++;
+            chances[i].visits++;
+            chances[i].value += value;
+        }
+        while (game.getUndoableCommands() > 0)
+            game.undo();
+        iterations++;
+    }
+
+    // the tile of the unit after a command, if it is still there
+    private Position target(long command) {
+        TileStore tiles = game.getWorld().getTiles();
+        if (kind(command) == MOVE) {
+            int to = tiles.getNeighborhood().neighbor(tile(command), neighbor(command));
+            return tiles.positionOf(to);
+        }
+        return tiles.positionOf(tile(command));
+    }
+
+    // the end of the turn, and the moves and actions of every unit of the player in turn
+    private void listCommands(Decision node) {
+        World world = game.getWorld();
+        TileStore tiles = world.getTiles();
+        Neighborhood neighborhood = tiles.getNeighborhood();
+        Map<Integer, UnitImpl> units = world.getUnitsOf(player);
+        long[] commands = new long[1 + units.size() * Neighborhood.SIZE];
+        int count = 0;
+        commands[count++] = END_TURN;
+        for (Map.Entry<Integer, UnitImpl> entry : units.entrySet()) {
+            int index = entry.getKey();
+            UnitImpl unit = entry.getValue();
+            if (unit.getMoveCount() > 0) {
+                for (int n = 1; n < Neighborhood.SIZE; n++) {
+                    int to = neighborhood.neighbor(index, n);
+                    if (to < 0)
+                        continue;
+                    UnitImpl there = tiles.getUnit(to);
+                    if (there == null || there.getOwner() != player)
+                        commands[count++] = move(index, n);
+                }
+            }
+            if (!unit.getUsedAction())
+                commands[count++] = action(index);
+        }
+        node.commands = commands;
+        node.count = count;
+        node.edges = new Chance[count];
+    }
+
+    /**
+     * Plays one of the commands not tried yet, dropping the ones that change nothing
+     * @return the command played, or null if every command has been tried
+     */
+    private Chance tryNext(Decision node) {
+        while (node.tried < node.count) {
+            int pick = node.tried + random.nextInt(node.count - node.tried);
+            long command = node.commands[pick];
+            node.commands[pick] = node.commands[node.tried];
+            node.commands[node.tried] = command;
+            if (play(command) < 0) {
+                game.undo();
+                node.commands[node.tried] = node.commands[--node.count];
+                continue;
+            }
+            Chance edge = new Chance(command);
+            node.edges[node.tried++] = edge;
+            return edge;
+        }
+        return null;
+    }
+
+    private Chance select(Decision node) {
+        Chance best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(Math.max(1, node.visits));
+        for (int i = 0; i < node.tried; i++) {
+            Chance edge = node.edges[i];
+            double score = edge.visits == 0 ? Double.POSITIVE_INFINITY
+                    : edge.value / edge.visits + EXPLORATION * Math.sqrt(logVisits / edge.visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = edge;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays a command in the game of the search
+     * @return -1 if it changed nothing, else 0
+     */
+    private int play(long command) {
+        World world = game.getWorld();
+        TileStore tiles = world.getTiles();
+        int version = world.getVersion();
+        switch (kind(command)) {
+            case END_TURN:
+                game.endOfTurn();
+                return 0;
+            case MOVE:
+                int to = tiles.getNeighborhood().neighbor(tile(command), neighbor(command));
+                game.moveUnit(tiles.positionOf(tile(command)), tiles.positionOf(to));
+                break;
+            default:
+                game.performUnitActionAt(tiles.positionOf(tile(command)));
+                break;
+        }
+        return world.getVersion() == version ? -1 : 0;
+    }
+
+    // ends the turn, lets the other player reply, and scores the game
+    private double playOut() {
+        if (game.getWinner() == null && game.getPlayerInTurn() == player)
+            game.endOfTurn();
+        if (game.getWinner() == null) {
+            opponent.playTurn(game);
+            game.endOfTurn();
+        }
+        return score();
+    }
+
+    /**
+     * @return the game for the player searching, from 0 for lost to 1 for won
+     */
+    double score() {
+        Player winner = game.getWinner();
+        if (winner != null)
+            return winner == player ? 1 : 0;
+        World world = game.getWorld();
+        TileStore tiles = world.getTiles();
+        double material = 0;
+        for (UnitImpl unit : tiles.getUnits().values()) {
+            int strength = unit.getAttackingStrength() + unit.getDefensiveStrength();
+            material += unit.getOwner() == player ? strength : -strength;
+        }
+        for (CityImpl city : tiles.getCities().values()) {
+            int worth = 5 + 2 * city.getSize();
+            material += city.getOwner() == player ? worth : -worth;
+        }
+        GameVariables variables = world.getVariables();
+        for (Player other : Player.values())
+            if (other != player)
+                material -= 3 * variables.getCombatVictories(other);
+        material += 3 * variables.getCombatVictories(player);
+        return 1 / (1 + Math.exp(-material / SCALE));
+    }
+}
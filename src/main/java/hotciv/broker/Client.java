@@ -1,12 +1,14 @@
 package hotciv.broker;
 
 import frds.broker.Requestor;
-import frds.broker.ipc.socket.SocketClientRequestHandler;
 import frds.broker.marshall.json.StandardJSONRequestor;
 import hotciv.broker.proxies.*;
 
 public class Client {
-    private SocketClientRequestHandler requestHandler;
+    // enough connections for a request while another one waits for game events
+    private static final int CONNECTIONS = 4;
+    private static final long IDLE_TIMEOUT = 60000;
+    private NetworkClientRequestHandler requestHandler;
     private Requestor requestor;
     public GameProxy gameProxy;
     public CityProxy cityProxy;
@@ -14,7 +16,7 @@ public class Client {
     public TileProxy tileProxy;
 
     public Client(String host, int port) {
-        requestHandler = new SocketClientRequestHandler(host, port);
+        requestHandler = new NetworkClientRequestHandler(host, port, CONNECTIONS, IDLE_TIMEOUT);
         requestor = new StandardJSONRequestor(requestHandler);
         gameProxy = new GameProxy(requestor);
         cityProxy = new CityProxy(requestor);
@@ -22,6 +24,18 @@ public class Client {
         tileProxy = new TileProxy(requestor);
     }
 
+    /**
+     * Joins one of the games hosted by a MultiGameServer
+     */
+    public Client(String host, int port, String gameId) {
+        requestHandler = new NetworkClientRequestHandler(host, port, CONNECTIONS, IDLE_TIMEOUT);
+        requestor = new StandardJSONRequestor(requestHandler);
+        gameProxy = new GameProxy(requestor, gameId);
+        cityProxy = new CityProxy(requestor, gameId);
+        unitProxy = new UnitProxy(requestor, gameId);
+        tileProxy = new TileProxy(requestor, gameId);
+    }
+
     public GameProxy getGameProxy() {
         return gameProxy;
     }
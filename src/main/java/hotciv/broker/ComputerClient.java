@@ -0,0 +1,44 @@
+package hotciv.broker;
+
+import hotciv.ai.ComputerSeat;
+import hotciv.ai.MctsPlayer;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.Player;
+import hotciv.standard.factory.SemiFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Joins a SemiCiv game on the server as a computer player, which plays its turns as they
+ * come until the game is won.
+ *
+ * Arguments: the player to play, RED or BLUE (default BLUE), the milliseconds to think
+ * about a turn (default 2000), and the id of a game hosted by a MultiGameServer, if any.
+ */
+public class ComputerClient {
+    private static String ip = "localhost";
+
+    public static void main(String[] args) throws InterruptedException {
+        Player seat = args.length > 0 ? Player.valueOf(args[0]) : Player.BLUE;
+        long turnMillis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        Client client = args.length > 2 ? new Client(ip, 2800, args[2]) : new Client(ip, 2800);
+        GameProxy game = client.getGameProxy();
+
+        MctsPlayer computer = new MctsPlayer(SemiFactory::new, System.nanoTime(), turnMillis,
+                Runtime.getRuntime().availableProcessors());
+        // the turns are played on a thread of their own, the events are handed to it
+        ExecutorService turns = Executors.newSingleThreadExecutor();
+        ComputerSeat computerSeat = new ComputerSeat(game, seat, computer, turns);
+        game.addObserver(computerSeat);
+        game.subscribe(turns);
+        turns.execute(computerSeat::start);
+
+        while (game.getWinner() == null)
+            Thread.sleep(1000);
+        System.out.println(game.getWinner() + " won, " + computer.getStatistics());
+        game.unsubscribe();
+        computer.close();
+        turns.shutdown();
+    }
+}
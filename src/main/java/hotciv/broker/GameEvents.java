@@ -0,0 +1,78 @@
+package hotciv.broker;
+
+import hotciv.framework.Player;
+import hotciv.framework.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The observer events of a game, coalesced: every changed position once, the last
+ * turn change and the last tile focus. The sequence number tells the client what
+ * to ask for next time.
+ */
+public class GameEvents {
+    private long sequence;
+    // true when the client was too far behind, so it must redraw everything
+    private boolean missed;
+    private ArrayList<Position> changes = new ArrayList<>();
+    private Player turnEnds;
+    private Position focus;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public boolean isMissed() {
+        return missed;
+    }
+
+    public void setMissed(boolean missed) {
+        this.missed = missed;
+    }
+
+    public List<Position> getChanges() {
+        return changes;
+    }
+
+    public void addChange(Position pos) {
+        if (!changes.contains(pos))
+            changes.add(pos);
+    }
+
+    public Player getTurnEnds() {
+        return turnEnds;
+    }
+
+    public void setTurnEnds(Player nextPlayer) {
+        this.turnEnds = nextPlayer;
+    }
+
+    public Position getFocus() {
+        return focus;
+    }
+
+    public void setFocus(Position focus) {
+        this.focus = focus;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty() && turnEnds == null && focus == null;
+    }
+
+    /**
+     * Adds the events of a later batch to these
+     */
+    public void merge(GameEvents later) {
+        for (Position pos : later.changes)
+            addChange(pos);
+        if (later.turnEnds != null)
+            turnEnds = later.turnEnds;
+        if (later.focus != null)
+            focus = later.focus;
+    }
+}
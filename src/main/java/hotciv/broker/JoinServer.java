@@ -7,6 +7,8 @@ import hotciv.visual.HotCivFactory4;
 import minidraw.framework.DrawingEditor;
 import minidraw.standard.MiniDrawApplication;
 
+import javax.swing.*;
+
 public class JoinServer {
     private static String ip = "localhost";
     private static Client client;
@@ -16,5 +18,7 @@ public class JoinServer {
         DrawingEditor editor = new MiniDrawApplication("HotCiv", new HotCivFactory4(client.getGameProxy()));
         editor.open();
         editor.setTool(new CompositeTool(editor, client.getGameProxy()));
+        // show the moves of the other players as they happen
+        client.getGameProxy().subscribe(SwingUtilities::invokeLater);
     }
 }
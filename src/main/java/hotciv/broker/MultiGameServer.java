@@ -0,0 +1,49 @@
+package hotciv.broker;
+
+import hotciv.broker.invokers.SessionInvoker;
+import hotciv.framework.Game;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.SemiFactory;
+
+import java.io.IOException;
+
+/**
+ * A server hosting several games on one port. Clients join a game by its id,
+ * see Client(host, port, gameId).
+ */
+public class MultiGameServer {
+    ServerRequestHandler requestHandler;
+    SessionInvoker invoker;
+
+    public MultiGameServer(int port) throws IOException {
+        invoker = new SessionInvoker();
+        requestHandler = new ServerRequestHandler(port, invoker);
+    }
+
+    public void addGame(String gameId, Game game) {
+        invoker.addGame(gameId, game);
+    }
+
+    public void removeGame(String gameId) {
+        invoker.removeGame(gameId);
+    }
+
+    public void start() {
+        requestHandler.start();
+    }
+
+    public void stop() {
+        requestHandler.stop();
+        invoker.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        MultiGameServer server = new MultiGameServer(2800);
+        for (int i = 0; i < games; i++) {
+            server.addGame("game" + i, new GameImpl(new SemiFactory()));
+            System.out.println("Hosting game" + i);
+        }
+        server.start();
+    }
+}
@@ -2,66 +2,227 @@ package hotciv.broker;
 
 import com.google.gson.Gson;
 import frds.broker.ClientRequestHandler;
+import frds.broker.IPCException;
 import frds.broker.ReplyObject;
 import frds.broker.RequestObject;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Sends newline delimited JSON requests to a ServerRequestHandler.
+ *
+ * By default a new connection is opened for every request. In keep-alive mode the
+ * connections are kept in a bounded pool and reused; connections that have been idle
+ * for longer than the idle timeout are closed, and a pooled connection the server has
+ * closed in the meantime is replaced by a new one before anything is sent on it.
+ *
+ * A request is sent again on a new connection only if it could not be written to a pooled
+ * connection, which the server had then closed. Once the requests are written the server
+ * may have carried them out, so a failure reading the replies is not retried, as moving a
+ * unit or ending a turn twice is not the same as doing it once.
+ */
 public class NetworkClientRequestHandler implements ClientRequestHandler {
     private Gson gson = new Gson();
-    private Socket socket;
-    private PrintWriter out;
-    private BufferedReader serverIn;
     private String ip;
     private int port= 2800;
 
+    private boolean keepAlive;
+    private long idleTimeout;
+    private Semaphore permits;
+    private ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private final Socket socket;
+        private final PrintWriter out;
+        private final BufferedReader in;
+        private long lastUsed;
+
+        Connection(String host, int port) throws IOException {
+            channel = SocketChannel.open(new InetSocketAddress(host, port));
+            socket = channel.socket();
+            socket.setTcpNoDelay(true);
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        }
+
+        /**
+         * Checks, without waiting, whether the server has closed the connection. The server
+         * sends nothing but replies, so an idle connection has nothing to read unless it is closed.
+         */
+        boolean isClosedByServer() {
+            try {
+                channel.configureBlocking(false);
+                try {
+                    return channel.read(ByteBuffer.allocate(1)) != 0;
+                } finally {
+                    channel.configureBlocking(true);
+                }
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+    }
 
     public NetworkClientRequestHandler(String ip) {
         this.ip = ip;
     }
 
+    /**
+     * Creates a request handler in keep-alive mode
+     * @param poolSize the maximal number of open connections
+     * @param idleTimeout milliseconds a connection may stay unused before it is closed
+     */
+    public NetworkClientRequestHandler(String ip, int port, int poolSize, long idleTimeout) {
+        this.ip = ip;
+        this.port = port;
+        this.keepAlive = true;
+        this.idleTimeout = idleTimeout;
+        this.permits = new Semaphore(poolSize, true);
+    }
+
     public ReplyObject sendToServer(RequestObject requestObject) {
-        setServer(ip, port);
-        String payload = gson.toJson(requestObject);
-        out.println(payload);
-        String inputLine;
+        return sendAll(Collections.singletonList(requestObject)).get(0);
+    }
+
+    /**
+     * Sends all requests over one connection before reading any reply, so a batch
+     * of requests costs a single round trip.
+     * @return the replies in the order of the requests
+     */
+    public List<ReplyObject> sendAll(List<RequestObject> requests) {
+        if (!keepAlive) {
+            Connection connection = open();
+            try {
+                return exchange(connection, requests);
+            } catch (IOException e) {
+                throw new IPCException("Request to " + ip + ":" + port + " failed", e);
+            } finally {
+                connection.close();
+            }
+        }
+
+        permits.acquireUninterruptibly();
         try {
-            inputLine = serverIn.readLine();
-            ReplyObject reply = gson.fromJson(inputLine, ReplyObject.class);
-            close();
-            return reply;
+            evictIdle();
+            Connection connection = idle.pollFirst();
+            while (connection != null && connection.isClosedByServer()) {
+                connection.close();
+                connection = idle.pollFirst();
+            }
+            boolean reused = connection != null;
+            if (!reused)
+                connection = open();
 
-        } catch (IOException e) {
-            e.printStackTrace();
+            try {
+                write(connection, requests);
+            } catch (IOException e) {
+                connection.close();
+                if (!reused)
+                    throw new IPCException("Request to " + ip + ":" + port + " failed", e);
+                // the server closed the pooled connection before the requests got to it, reconnect once
+                connection = open();
+                try {
+                    write(connection, requests);
+                } catch (IOException retry) {
+                    connection.close();
+                    throw new IPCException("Request to " + ip + ":" + port + " failed after reconnect", retry);
+                }
+            }
+            List<ReplyObject> replies;
+            try {
+                replies = read(connection, requests.size());
+            } catch (IOException e) {
+                // the server may have carried out the requests, so they are not sent again
+                connection.close();
+                throw new IPCException("Reply from " + ip + ":" + port + " failed", e);
+            }
+            connection.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(connection);
+            return replies;
+        } finally {
+            permits.release();
         }
-        System.out.println("We return null in requesthandler");
-        return null;
     }
 
-    public void setServer(String hostname, int port) {
-        try {
-            socket = new Socket(hostname, port);
-            out = new PrintWriter(socket.getOutputStream(), true);
-            serverIn = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        } catch (UnknownHostException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
+    private List<ReplyObject> exchange(Connection connection, List<RequestObject> requests) throws IOException {
+        write(connection, requests);
+        return read(connection, requests.size());
+    }
+
+    private void write(Connection connection, List<RequestObject> requests) throws IOException {
+        for (RequestObject request : requests)
+            connection.out.println(gson.toJson(request));
+        connection.out.flush();
+        if (connection.out.checkError())
+            throw new IOException("Could not write to " + ip + ":" + port);
+    }
+
+    private List<ReplyObject> read(Connection connection, int count) throws IOException {
+        ArrayList<ReplyObject> replies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String inputLine = connection.in.readLine();
+            if (inputLine == null)
+                throw new IOException("Connection closed by " + ip + ":" + port);
+            replies.add(gson.fromJson(inputLine, ReplyObject.class));
         }
+        return replies;
     }
 
-    public void close() {
+    private Connection open() {
         try {
-            socket.close();
-            out.close();
-            serverIn.close();
+            return new Connection(ip, port);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new IPCException("Could not connect to " + ip + ":" + port, e);
         }
     }
+
+    /**
+     * Closes the pooled connections that have not been used within the idle timeout
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        idle.removeIf(connection -> {
+            boolean stale = now - connection.lastUsed > idleTimeout || connection.socket.isClosed();
+            if (stale)
+                connection.close();
+            return stale;
+        });
+    }
+
+    public int getIdleConnectionCount() {
+        return idle.size();
+    }
+
+    public void setServer(String hostname, int port) {
+        close();
+        this.ip = hostname;
+        this.port = port;
+    }
+
+    /**
+     * Closes all pooled connections
+     */
+    public void close() {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null)
+            connection.close();
+    }
 }
@@ -0,0 +1,292 @@
+package hotciv.broker;
+
+import com.google.gson.Gson;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import hotciv.broker.invokers.LongPollInvoker;
+import hotciv.broker.marshall.BinaryWireFormat;
+import hotciv.broker.marshall.WireFormat;
+import hotciv.stub.ServerStub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Serves the same newline delimited JSON requests as ServerRequestHandler, but all
+ * connections share one selector thread and a small pool of worker threads, so hundreds
+ * of clients can be connected at once.
+ *
+ * The selector thread reads the bytes and cuts them into lines. Each complete line is
+ * handed to a worker, which calls the invoker and queues the reply for the selector
+ * thread to write. A connection has at most one worker at a time, so its replies are
+ * written in the order of its requests.
+ *
+ * A game_awaitEvents request may wait for its events for as long as the client allows,
+ * so it holds no thread at all: the invoker calls back when the events are published or
+ * the wait times out, and the callback queues the reply like a worker does. A server with
+ * more subscribed clients than threads would otherwise stop answering everyone else.
+ * The connection goes back to the workers once the events are sent.
+ */
+public class NioServerRequestHandler {
+    // A request line longer than this closes the connection
+    private static final int MAX_LINE = 1 << 20;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final LongPollInvoker invoker;
+    private final ExecutorService workers;
+    // decodes the operations of both formats, as the JSON format sends the names themselves
+    private static final WireFormat operations = new BinaryWireFormat();
+    private final ConcurrentLinkedQueue<Connection> writable = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    private final Gson gson = new Gson();
+    private volatile boolean running = true;
+
+    private class Connection {
+        private final SocketChannel channel;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final ArrayDeque<String> requests = new ArrayDeque<>();
+        private final ConcurrentLinkedQueue<ByteBuffer> replies = new ConcurrentLinkedQueue<>();
+        private boolean scheduled;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Runs on a worker thread until the connection has no more requests, or until it
+         * waits for events
+         */
+        void handleRequests() {
+            while (true) {
+                String line;
+                synchronized (this) {
+                    line = requests.poll();
+                    if (line == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                RequestObject request;
+                try {
+                    request = gson.fromJson(line, RequestObject.class);
+                } catch (RuntimeException e) {
+                    reply(gson.toJson(new ReplyObject(500, e.toString())));
+                    continue;
+                }
+                if (isLongPoll(request)) {
+                    // the connection stays scheduled, so its later requests wait for this reply
+                    invoker.awaitEvents(request.getObjectId(), request.getOperationName(), request.getPayload(),
+                            events -> {
+                                reply(gson.toJson(events));
+                                resume();
+                            });
+                    return;
+                }
+                reply(handle(request));
+            }
+        }
+
+        /**
+         * Hands the connection back to the workers after its events are sent
+         */
+        private void resume() {
+            if (!running)
+                return;
+            try {
+                workers.execute(this::handleRequests);
+            } catch (RejectedExecutionException e) {
+                // the server is stopping
+            }
+        }
+
+        private void reply(String reply) {
+            replies.add(ByteBuffer.wrap((reply + "\n").getBytes(StandardCharsets.UTF_8)));
+            writable.add(this);
+            selector.wakeup();
+        }
+    }
+
+    public NioServerRequestHandler(int port, LongPollInvoker invoker, int workerCount) throws IOException {
+        this.invoker = invoker;
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public NioServerRequestHandler(int port, LongPollInvoker invoker) throws IOException {
+        this(port, invoker, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Runs the selector loop until stop is called
+     */
+    public void start() {
+        try {
+            while (running) {
+                selector.select();
+                flushReplies();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid())
+                            continue;
+                        if (key.isAcceptable())
+                            accept();
+                        else {
+                            if (key.isReadable())
+                                read(key);
+                            if (key.isValid() && key.isWritable())
+                                write(key);
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("I/O exception on the server side...");
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys())
+                close(key);
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        readBuffer.clear();
+        int read = connection.channel.read(readBuffer);
+        if (read < 0) {
+            close(key);
+            return;
+        }
+        boolean received = false;
+        for (int i = 0; i < read; i++) {
+            byte b = readBuffer.get(i);
+            if (b == '\n') {
+                String request = new String(connection.line.toByteArray(), StandardCharsets.UTF_8);
+                connection.line.reset();
+                synchronized (connection) {
+                    connection.requests.add(request);
+                }
+                received = true;
+            } else if (connection.line.size() >= MAX_LINE) {
+                close(key);
+                return;
+            } else {
+                connection.line.write(b);
+            }
+        }
+        if (received) {
+            synchronized (connection) {
+                if (connection.scheduled)
+                    return;
+                connection.scheduled = true;
+            }
+            workers.execute(connection::handleRequests);
+        }
+    }
+
+    private static boolean isLongPoll(RequestObject request) {
+        return request != null && request.getOperationName() != null
+                && OperationNames.awaitEvents.equals(operations.decodeOperation(request.getOperationName()));
+    }
+
+    private String handle(RequestObject request) {
+        ReplyObject reply;
+        try {
+            reply = invoker.handleRequest(request.getObjectId(), request.getOperationName(), request.getPayload());
+        } catch (RuntimeException e) {
+            reply = new ReplyObject(500, e.toString());
+        }
+        return gson.toJson(reply);
+    }
+
+    /**
+     * Writes the replies the workers have queued since the last select
+     */
+    private void flushReplies() {
+        Connection connection;
+        while ((connection = writable.poll()) != null) {
+            SelectionKey key = connection.channel.keyFor(selector);
+            if (key == null || !key.isValid())
+                continue;
+            try {
+                write(key);
+            } catch (IOException e) {
+                close(key);
+            }
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer reply;
+        while ((reply = connection.replies.peek()) != null) {
+            connection.channel.write(reply);
+            if (reply.hasRemaining()) {
+                // the socket is full, continue when it becomes writable
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.replies.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+    }
+
+    /**
+     * Stops the selector loop, which closes the server and all client connections
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        workers.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        new NioServerRequestHandler(2800, new hotciv.broker.invokers.Invoker(new ServerStub())).start();
+    }
+}
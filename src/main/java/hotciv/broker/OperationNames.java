@@ -3,6 +3,9 @@ package hotciv.broker;
 import hotciv.framework.City;
 
 public class OperationNames {
+    // Separates the game id from the object id when a server hosts several games
+    public static final String gameSeparator = "#";
+
     // Game Methods
     public static final String game = "game_";
     public static final String getTileAt = game + "getTileAt";
@@ -12,6 +15,7 @@ public class OperationNames {
     public static final String getWinner = game + "getWinner";
     public static final String getAge = game + "getAge";
     public static final String moveUnit = game + "moveUnit";
+    public static final String moveUnitAlongPath = game + "moveUnitAlongPath";
     public static final String endOfTurn = game + "endOfTurn";
     public static final String changeWorkForceFocusInCityAt = game + "changeWorkForceFocusInCityAt";
     public static final String changeProductionInCityAt = game + "changeProductionInCityAt";
@@ -21,6 +25,11 @@ public class OperationNames {
     public static final String requestUpdate = game + "requestUpdate";
     public static final String getAvailableUnits = game + "getAvailableUnits";
     public static final String getTileMap = game + "getTileMap";
+    public static final String getWorldSnapshot = game + "getWorldSnapshot";
+    public static final String getWorldChangesSince = game + "getWorldChangesSince";
+    public static final String awaitEvents = game + "awaitEvents";
+    public static final String submitBatch = game + "submitBatch";
+    public static final String getStateHash = game + "getStateHash";
 
     // City methods
     public static final String city = "city_";
@@ -58,9 +67,6 @@ public class OperationNames {
     // Tile methods
     public static final String tile = "tile_";
     public static final String getTypeStringTile = tile + "getTypeString";
-    public static final String setType = tile + "setType";
-    public static final String setCity = tile + "setCity";
-    public static final String setUnit = tile + "setUnit";
     public static final String getUnit = tile + "getUnit";
     public static final String getCity = tile + "getCity";
 }
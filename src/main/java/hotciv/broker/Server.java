@@ -1,6 +1,5 @@
 package hotciv.broker;
 
-import frds.broker.ipc.socket.SocketServerRequestHandler;
 import hotciv.broker.invokers.Invoker;
 import hotciv.framework.Game;
 import hotciv.standard.GameImpl;
@@ -8,27 +7,29 @@ import hotciv.standard.factory.SemiFactory;
 import hotciv.stub.GameStub;
 import hotciv.stub.ServerStub;
 
+import java.io.IOException;
 
 public class Server {
-    SocketServerRequestHandler requestHandler;
+    ServerRequestHandler requestHandler;
     Invoker invoker;
 
-    public Server(Game game, int port) {
+    // Every client connection is served by its own thread, so a client waiting
+    // for game events does not hold up the others
+    public Server(Game game, int port) throws IOException {
         invoker = new Invoker(game);
-        requestHandler = new SocketServerRequestHandler(port, invoker);
+        requestHandler = new ServerRequestHandler(port, invoker);
     }
 
     public void start() {
-//        requestHandler.start();
-        requestHandler.run();
+        requestHandler.start();
     }
 
     public void stop() {
         requestHandler.stop();
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Server server = new Server(new GameImpl(new SemiFactory()), 2800);
         server.start();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
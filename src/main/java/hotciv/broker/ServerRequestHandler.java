@@ -1,40 +1,90 @@
 package hotciv.broker;
 import com.google.gson.Gson;
+import frds.broker.Invoker;
 import frds.broker.ReplyObject;
 import frds.broker.RequestObject;
-import hotciv.broker.invokers.Invoker;
-import hotciv.standard.GameImpl;
-import hotciv.standard.factory.SemiFactory;
 import hotciv.stub.ServerStub;
 import java.net.*;
 import java.io.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Serves newline delimited JSON requests. Every connection gets its own thread and is
+ * kept open until the client closes it, so a client may send any number of requests,
+ * also several before reading the replies, which are written back in request order.
+ */
 public class ServerRequestHandler {
-    public static void main(String[] args) {
-        int portNumber = 2800;
-        Invoker invoker = new Invoker(new ServerStub());
-        Gson gson = new Gson();
+    private ServerSocket serverSocket;
+    private Invoker invoker;
+    private ExecutorService connections = Executors.newCachedThreadPool();
+    private Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private Gson gson = new Gson();
 
+    public ServerRequestHandler(int port, Invoker invoker) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.invoker = invoker;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until stop is called
+     */
+    public void start() {
         try {
-            while(true) {
-                ServerSocket serverSocket = new ServerSocket(portNumber);
+            while (true) {
                 Socket clientSocket = serverSocket.accept();
-                PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
-                BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                String inputLine;
+                clients.add(clientSocket);
+                connections.execute(() -> serve(clientSocket));
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                System.err.println("I/O exception on the server side...");
+                e.printStackTrace();
+            }
+        }
+    }
 
-                while ((inputLine = in.readLine()) != null) {
-                    RequestObject request = gson.fromJson(inputLine, RequestObject.class);
-                    ReplyObject reply = invoker.handleRequest(request.getObjectId(), request.getOperationName(), request.getPayload());
-                    out.println(gson.toJson(reply));
-                }
-                // Closing the streams and the server socket
-                serverSocket.close();
+    private void serve(Socket clientSocket) {
+        try (Socket socket = clientSocket;
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            String inputLine;
+            while ((inputLine = in.readLine()) != null) {
+                RequestObject request = gson.fromJson(inputLine, RequestObject.class);
+                ReplyObject reply = invoker.handleRequest(request.getObjectId(), request.getOperationName(), request.getPayload());
+                out.println(gson.toJson(reply));
+                // only flush when the client has not already sent the next request
+                if (!in.ready())
+                    out.flush();
             }
         } catch (IOException e) {
-            System.err.println("I/O exception on the server side...");
+            // the client went away, nothing more to do for this connection
+        } finally {
+            clients.remove(clientSocket);
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+            for (Socket client : clients)
+                client.close();
+        } catch (IOException e) {
             e.printStackTrace();
-            System.exit(1);
         }
+        connections.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        new ServerRequestHandler(2800, new hotciv.broker.invokers.Invoker(new ServerStub())).start();
     }
 }
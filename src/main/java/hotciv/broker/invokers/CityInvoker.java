@@ -1,74 +1,80 @@
 package hotciv.broker.invokers;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
 import frds.broker.ReplyObject;
 import hotciv.broker.OperationNames;
+import hotciv.broker.marshall.Arguments;
+import hotciv.broker.marshall.WireFormat;
 import hotciv.framework.Game;
 import hotciv.framework.Player;
 import hotciv.framework.Position;
 import hotciv.standard.CityImpl;
 
 public class CityInvoker implements frds.broker.Invoker {
-    public CityInvoker(){}
+    private Invoker invoker;
+
+    public CityInvoker(Invoker invoker) {
+        this.invoker = invoker;
+    }
 
     public ReplyObject handleRequest(String objectId, String operationName, String payload) {
-        Gson gson = new Gson();
-        CityImpl city = Invoker.getCity(objectId);
+        WireFormat format = invoker.getFormat();
+        CityImpl city = invoker.getCity(objectId);
 
-        JsonParser parser = new JsonParser();
-        JsonArray array = parser.parse(payload).getAsJsonArray();
         try {
+            // a malformed payload is answered with a failure, like any other failed request
+            Arguments arguments = format.unmarshalArguments(payload);
             switch (operationName) {
                 case OperationNames.getOwnerCity:
-                    return new ReplyObject(0, gson.toJson(city.getOwner()));
+                    return new ReplyObject(0, format.marshal(city.getOwner()));
                 case OperationNames.getSize:
-                    return new ReplyObject(0,gson.toJson(city.getSize()));
+                    return new ReplyObject(0,format.marshal(city.getSize()));
                 case OperationNames.getTreasury:
-                    return new ReplyObject(0, gson.toJson(city.getTreasury()));
+                    return new ReplyObject(0, format.marshal(city.getTreasury()));
                 case OperationNames.getProduction:
-                    return new ReplyObject(0, gson.toJson(city.getProduction()));
+                    return new ReplyObject(0, format.marshal(city.getProduction()));
                 case OperationNames.getWorkforceFocus:
-                    return new ReplyObject(0, gson.toJson(city.getWorkforceFocus()));
+                    return new ReplyObject(0, format.marshal(city.getWorkforceFocus()));
                 case OperationNames.getFood:
-                    return new ReplyObject(0, gson.toJson(city.getFood()));
+                    return new ReplyObject(0, format.marshal(city.getFood()));
                 case OperationNames.getLocation:
-                    return new ReplyObject(0, gson.toJson(city.getLocation()));
+                    return new ReplyObject(0, format.marshal(city.getLocation()));
                 case OperationNames.getProductionCost:
-                    return new ReplyObject(0, gson.toJson(city.getProductionCost()));
+                    return new ReplyObject(0, format.marshal(city.getProductionCost()));
+                // changes are made through the game, as the city may be shared with a fork
                 case OperationNames.decrementSize:
-                    return new ReplyObject(0, gson.toJson(city.decrementSize()));
+                    boolean[] decremented = new boolean[1];
+                    invoker.changeCity(objectId, changed -> decremented[0] = changed.decrementSize());
+                    return new ReplyObject(0, format.marshal(decremented[0]));
                 case OperationNames.addProductionValue:
-                    int prodVal = gson.fromJson(array.get(0), Integer.class);
-                    city.addProductionValue(prodVal);
+                    int prodVal = arguments.get(0, Integer.class);
+                    invoker.changeCity(objectId, changed -> changed.addProductionValue(prodVal));
                     break;
                 case OperationNames.setProduction:
-                    String prodString = gson.fromJson(array.get(0), String.class);
-                    city.setProduction(prodString);
+                    String prodString = arguments.get(0, String.class);
+                    invoker.changeCity(objectId, changed -> changed.setProduction(prodString));
                     break;
                 case OperationNames.setOwner:
-                    Player owner = gson.fromJson(array.get(0), Player.class);
-                    city.setOwner(owner);
+                    Player owner = arguments.get(0, Player.class);
+                    invoker.changeCity(objectId, changed -> changed.setOwner(owner));
                     break;
                 case OperationNames.resetFood:
-                    city.resetFood();
+                    invoker.changeCity(objectId, CityImpl::resetFood);
                     break;
                 case OperationNames.increaseSize:
-                    city.increaseSize();
+                    invoker.changeCity(objectId, CityImpl::increaseSize);
                     break;
                 case OperationNames.addFood:
-                    int food = gson.fromJson(array.get(0), Integer.class);
-                    city.addFood(food);
+                    int food = arguments.get(0, Integer.class);
+                    invoker.changeCity(objectId, changed -> changed.addFood(food));
                     break;
                 case OperationNames.setWorkforceFocus:
-                    String workforceFocus = gson.fromJson(array.get(0), String.class);
-                    city.setWorkforceFocus(workforceFocus);
+                    String workforceFocus = arguments.get(0, String.class);
+                    invoker.changeCity(objectId, changed -> changed.setWorkforceFocus(workforceFocus));
                     break;
             }
         }
         catch (Exception e) {
-            e.printStackTrace();
+            return new ReplyObject(500, e.toString());
         }
         return new ReplyObject(0, "");
     }
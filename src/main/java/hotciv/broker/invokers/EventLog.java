@@ -0,0 +1,174 @@
+package hotciv.broker.invokers;
+
+import hotciv.broker.GameEvents;
+import hotciv.framework.GameObserver;
+import hotciv.framework.Player;
+import hotciv.framework.Position;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects the events of a game for remote clients that wait for them with
+ * game_awaitEvents. The events are published in batches, one per handled request,
+ * so a waiting client gets everything an endOfTurn caused in one reply.
+ *
+ * A client waits either on its own thread, with await, or with a callback, which is
+ * called on publish or when the wait times out and holds no thread in between.
+ */
+public class EventLog implements GameObserver {
+    // The number of batches kept for clients that have fallen behind
+    public static final int HISTORY = 256;
+
+    private GameEvents pending = new GameEvents();
+    private ArrayDeque<GameEvents> published = new ArrayDeque<>();
+    private long sequence;
+    // the callbacks waiting for the next batch
+    private ArrayList<Waiter> waiters = new ArrayList<>();
+
+    // one daemon thread ends the callback waits of all logs that time out
+    private static final ScheduledThreadPoolExecutor timeouts = newTimeouts();
+
+    private static ScheduledThreadPoolExecutor newTimeouts() {
+        ScheduledThreadPoolExecutor timeouts = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "event timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // a wait ended by a publish does not stay queued until its timeout
+        timeouts.setRemoveOnCancelPolicy(true);
+        return timeouts;
+    }
+
+    private static class Waiter {
+        private final long since;
+        private final Consumer<GameEvents> reply;
+        private ScheduledFuture<?> timeout;
+
+        Waiter(long since, Consumer<GameEvents> reply) {
+            this.since = since;
+            this.reply = reply;
+        }
+    }
+
+    public synchronized void worldChangedAt(Position pos) {
+        pending.addChange(pos);
+    }
+
+    public synchronized void turnEnds(Player nextPlayer) {
+        pending.setTurnEnds(nextPlayer);
+    }
+
+    public synchronized void tileFocusChangedAt(Position pos) {
+        pending.setFocus(pos);
+    }
+
+    public void requestUpdate() {
+        // a repaint asked for by a local user interface, nothing to send
+    }
+
+    /**
+     * Makes the events since the last call visible to the waiting clients
+     */
+    public void publish() {
+        ArrayList<Waiter> woken;
+        ArrayList<GameEvents> replies = new ArrayList<>();
+        synchronized (this) {
+            if (pending.isEmpty())
+                return;
+            sequence++;
+            pending.setSequence(sequence);
+            published.addLast(pending);
+            if (published.size() > HISTORY)
+                published.removeFirst();
+            pending = new GameEvents();
+            notifyAll();
+
+            woken = waiters;
+            waiters = new ArrayList<>();
+            for (Waiter waiter : woken) {
+                waiter.timeout.cancel(false);
+                replies.add(eventsSince(waiter.since));
+            }
+        }
+        // the callbacks run outside the lock, so they may wait again at once
+        for (int i = 0; i < woken.size(); i++)
+            woken.get(i).reply.accept(replies.get(i));
+    }
+
+    /**
+     * Waits until there are events after the given sequence number
+     * @param since the sequence number of the last events the client has seen,
+     *              or a negative number to just get the current sequence number
+     * @param timeout milliseconds to wait before returning no events
+     * @return the events after since, coalesced
+     */
+    public synchronized GameEvents await(long since, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (since == sequence) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0)
+                break;
+            try {
+                wait(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return eventsSince(since);
+    }
+
+    /**
+     * Calls back with the events after the given sequence number, at once if there are
+     * any and otherwise on the next publish or after the timeout, on the thread that
+     * publishes or on the timer thread. The calling thread does not wait.
+     * @param since the sequence number of the last events the client has seen,
+     *              or a negative number to just get the current sequence number
+     * @param timeout milliseconds to wait before calling back with no events
+     * @param reply called once with the events after since, coalesced
+     */
+    public void await(long since, long timeout, Consumer<GameEvents> reply) {
+        GameEvents events;
+        synchronized (this) {
+            if (since == sequence && timeout > 0) {
+                Waiter waiter = new Waiter(since, reply);
+                waiters.add(waiter);
+                waiter.timeout = timeouts.schedule(() -> expire(waiter), timeout, TimeUnit.MILLISECONDS);
+                return;
+            }
+            events = eventsSince(since);
+        }
+        reply.accept(events);
+    }
+
+    private void expire(Waiter waiter) {
+        GameEvents events;
+        synchronized (this) {
+            // a publish may have called back first
+            if (!waiters.remove(waiter))
+                return;
+            events = eventsSince(waiter.since);
+        }
+        waiter.reply.accept(events);
+    }
+
+    private GameEvents eventsSince(long since) {
+        GameEvents events = new GameEvents();
+        events.setSequence(sequence);
+        if (since < 0 || since == sequence)
+            return events;
+        if (since > sequence || since < published.getFirst().getSequence() - 1) {
+            events.setMissed(true);
+            return events;
+        }
+        for (GameEvents batch : published)
+            if (batch.getSequence() > since)
+                events.merge(batch);
+        return events;
+    }
+}
@@ -1,10 +1,9 @@
 package hotciv.broker.invokers;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
 import frds.broker.ReplyObject;
 import hotciv.broker.OperationNames;
+import hotciv.broker.marshall.Arguments;
+import hotciv.broker.marshall.WireFormat;
 import hotciv.broker.Servant;
 import hotciv.framework.*;
 import hotciv.standard.CityImpl;
@@ -12,74 +11,95 @@ import hotciv.standard.TileImpl;
 import hotciv.standard.UnitImpl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class GameInvoker implements frds.broker.Invoker{
     private Game game;
+    private Invoker invoker;
 
-    public GameInvoker(Servant servant) {
+    public GameInvoker(Servant servant, Invoker invoker) {
         game = servant.getGame();
+        this.invoker = invoker;
     }
 
     public ReplyObject handleRequest(String objectId, String operationName, String payload) {
-        Gson gson = new Gson();
+        WireFormat format = invoker.getFormat();
 
-        JsonParser parser = new JsonParser();
-        JsonArray array = parser.parse(payload).getAsJsonArray();
         Position pos;
         try {
+            // a malformed payload is answered with a failure, like any other failed request
+            Arguments arguments = format.unmarshalArguments(payload);
             switch (operationName) {
                 case OperationNames.getAge:
-                    return new ReplyObject(0, gson.toJson(game.getAge()));
+                    return new ReplyObject(0, format.marshal(game.getAge()));
                 case OperationNames.getCityAt:
-                    pos = gson.fromJson(array.get(0), Position.class);
+                    pos = arguments.get(0, Position.class);
                     City city = game.getCityAt(pos);
                     if (city != null)
-                        Invoker.addCity(((CityImpl) city));
-                    return new ReplyObject(0, gson.toJson(city));
+                        invoker.addCity(((CityImpl) city));
+                    return new ReplyObject(0, format.marshal(city));
                 case OperationNames.getPlayerInTurn:
-                    return new ReplyObject(0, gson.toJson(game.getPlayerInTurn()));
+                    return new ReplyObject(0, format.marshal(game.getPlayerInTurn()));
                 case OperationNames.getTileAt:
-                    pos = gson.fromJson(array.get(0), Position.class);
+                    pos = arguments.get(0, Position.class);
                     Tile tile = game.getTileAt(pos);
                     if (tile != null)
-                        Invoker.addTile(((TileImpl) tile));
-                    return new ReplyObject(0, gson.toJson(tile));
+                        invoker.addTile(((TileImpl) tile));
+                    return new ReplyObject(0, format.marshal(tile));
                 case OperationNames.getUnitAt:
-                    pos = gson.fromJson(array.get(0), Position.class);
+                    pos = arguments.get(0, Position.class);
                     Unit unit = game.getUnitAt(pos);
                     if (unit != null)
-                        Invoker.addUnit(((UnitImpl) unit));
-                    return new ReplyObject(0, gson.toJson(unit));
+                        invoker.addUnit(((UnitImpl) unit));
+                    return new ReplyObject(0, format.marshal(unit));
                 case OperationNames.getTileMap:
-                    return new ReplyObject(0, gson.toJson(game.getTileMap()));
+                    return new ReplyObject(0, format.marshal(game.getTileMap()));
+                case OperationNames.getWorldSnapshot:
+                    return new ReplyObject(0, format.marshal(game.getWorldSnapshot()));
+                case OperationNames.getStateHash:
+                    return new ReplyObject(0, format.marshal(game.getStateHash()));
+                case OperationNames.getWorldChangesSince:
+                    int worldVersion = arguments.get(0, Integer.class);
+                    return new ReplyObject(0, format.marshal(game.getWorldChangesSince(worldVersion)));
+                case OperationNames.awaitEvents:
+                    long since = arguments.get(0, Long.class);
+                    long timeout = arguments.get(1, Long.class);
+                    return new ReplyObject(0, format.marshal(invoker.getEvents().await(since, timeout)));
                 case OperationNames.getWinner:
-                    return new ReplyObject(0, gson.toJson(game.getWinner()));
+                    return new ReplyObject(0, format.marshal(game.getWinner()));
                 case OperationNames.getAvailableUnits:
                     ArrayList<String> arrayList = game.getAvailableUnits();
                     String[] asList = arrayList.toArray(new String[arrayList.size()]);
-                    return new ReplyObject(0, gson.toJson(asList));
+                    return new ReplyObject(0, format.marshal(asList));
                 case OperationNames.moveUnit:
-                    Position from = gson.fromJson(array.get(0), Position.class);
-                    Position to = gson.fromJson(array.get(1), Position.class);
-                    return new ReplyObject(0, gson.toJson(game.moveUnit(from, to)));
+                    Position from = arguments.get(0, Position.class);
+                    Position to = arguments.get(1, Position.class);
+                    return new ReplyObject(0, format.marshal(game.moveUnit(from, to)));
+                case OperationNames.moveUnitAlongPath:
+                    from = arguments.get(0, Position.class);
+                    to = arguments.get(1, Position.class);
+                    return new ReplyObject(0, format.marshal(game.moveUnitAlongPath(from, to)));
                 case OperationNames.performUnitActionAt:
-                    pos = gson.fromJson(array.get(0), Position.class);
+                    pos = arguments.get(0, Position.class);
                     game.performUnitActionAt(pos);
                     break;
                 case OperationNames.setTileFocus:
-                    pos = gson.fromJson(array.get(0), Position.class);
+                    pos = arguments.get(0, Position.class);
                     game.setTileFocus(pos);
                     break;
                 case OperationNames.changeProductionInCityAt:
-                    pos = gson.fromJson(array.get(0), Position.class);
-                    String unitType = gson.fromJson(array.get(1), String.class);
+                    pos = arguments.get(0, Position.class);
+                    String unitType = arguments.get(1, String.class);
                     game.changeProductionInCityAt(pos, unitType);
                     break;
                 case OperationNames.changeWorkForceFocusInCityAt:
-                    pos = gson.fromJson(array.get(0), Position.class);
-                    String balance = gson.fromJson(array.get(1), String.class);
+                    pos = arguments.get(0, Position.class);
+                    String balance = arguments.get(1, String.class);
                     game.changeWorkForceFocusInCityAt(pos, balance);
                     break;
+                case OperationNames.submitBatch:
+                    Command[] commands = arguments.get(0, Command[].class);
+                    return new ReplyObject(0, format.marshal(game.submitBatch(Arrays.asList(commands))));
                 case OperationNames.endOfTurn:
                     game.endOfTurn();
                     break;
@@ -87,7 +107,7 @@ public class GameInvoker implements frds.broker.Invoker{
             }
         }
         catch (Exception e) {
-            e.printStackTrace();
+            return new ReplyObject(500, e.toString());
         }
         return new ReplyObject(0, "");
     }
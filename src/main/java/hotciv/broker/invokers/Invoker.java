@@ -3,58 +3,177 @@ package hotciv.broker.invokers;
 import frds.broker.ReplyObject;
 import hotciv.broker.OperationNames;
 import hotciv.broker.Servant;
+import hotciv.broker.marshall.Arguments;
+import hotciv.broker.marshall.JsonWireFormat;
+import hotciv.broker.marshall.WireFormat;
 import hotciv.framework.Game;
-import hotciv.framework.Tile;
+import hotciv.framework.Position;
+import hotciv.framework.WorldListener;
 import hotciv.standard.CityImpl;
+import hotciv.standard.GameImpl;
 import hotciv.standard.TileImpl;
 import hotciv.standard.UnitImpl;
 
-import java.util.HashMap;
+import java.util.function.Consumer;
 
-public class Invoker implements frds.broker.Invoker {
+public class Invoker implements LongPollInvoker {
     Servant servant;
     GameInvoker gameInvoker;
     UnitInvoker unitInvoker;
     CityInvoker cityInvoker;
     TileInvoker tileInvoker;
-    private static HashMap<String, TileImpl> tileMap = new HashMap<>();
-    private static HashMap<String, UnitImpl> unitMap = new HashMap<>();
-    private static HashMap<String, CityImpl> cityMap = new HashMap<>();
+    EventLog events = new EventLog();
+    WireFormat format;
+    // Objects handed out to clients by this invoker, looked up by their id
+    private ObjectRegistry<TileImpl> tiles = new ObjectRegistry<>();
+    private ObjectRegistry<UnitImpl> units = new ObjectRegistry<>();
+    private ObjectRegistry<CityImpl> cities = new ObjectRegistry<>();
 
-    public static TileImpl getTile(String id) {
-        return tileMap.get(id);
+    public TileImpl getTile(String id) {
+        TileImpl tile = tiles.get(id);
+        if (tile != null)
+            return tile;
+        // a tile is a view that is dropped once sent, so it is usually found again by its position
+        Position position = TileImpl.positionOf(id);
+        return position == null ? null : (TileImpl) servant.getGame().getTileAt(position);
     }
 
-    public static void addTile(TileImpl tile){
-        tileMap.put(tile.getId(), tile);
+    public void addTile(TileImpl tile){
+        tiles.put(tile.getId(), tile);
     }
 
-    public static UnitImpl getUnit(String id) {
-        return unitMap.get(id);
+    public UnitImpl getUnit(String id) {
+        return units.get(id);
     }
 
-    public static void addUnit(UnitImpl unit){
-        unitMap.put(unit.getId(), unit);
+    public void addUnit(UnitImpl unit){
+        units.put(unit.getId(), unit);
     }
 
-    public static CityImpl getCity(String id) {
-        return cityMap.get(id);
+    public CityImpl getCity(String id) {
+        return cities.get(id);
     }
 
-    public static void addCity(CityImpl city){
-        cityMap.put(city.getId(), city);
+    public void addCity(CityImpl city){
+        cities.put(city.getId(), city);
+    }
+
+    /**
+     * Changes a unit handed out to a client through the game, see GameImpl.changeUnit; the
+     * registry then holds the unit changed, as a shared unit is copied when it is changed
+     */
+    public void changeUnit(String id, Consumer<UnitImpl> change) {
+        UnitImpl unit = units.get(id);
+        if (unit == null)
+            return;
+        Game game = servant.getGame();
+        // the stubs have no world, so their units are changed where they are
+        if (!(game instanceof GameImpl)) {
+            change.accept(unit);
+            return;
+        }
+        UnitImpl changed = ((GameImpl) game).changeUnit(unit, change);
+        if (changed != null)
+            units.put(id, changed);
+    }
+
+    /**
+     * Changes a city handed out to a client through the game, see changeUnit
+     */
+    public void changeCity(String id, Consumer<CityImpl> change) {
+        CityImpl city = cities.get(id);
+        if (city == null)
+            return;
+        Game game = servant.getGame();
+        if (!(game instanceof GameImpl)) {
+            change.accept(city);
+            return;
+        }
+        CityImpl changed = ((GameImpl) game).changeCity(city, change);
+        if (changed != null)
+            cities.put(id, changed);
+    }
+
+    public ObjectRegistry<TileImpl> getTiles() {
+        return tiles;
+    }
+
+    public ObjectRegistry<UnitImpl> getUnits() {
+        return units;
+    }
+
+    public ObjectRegistry<CityImpl> getCities() {
+        return cities;
+    }
+
+    public EventLog getEvents() {
+        return events;
+    }
+
+    public WireFormat getFormat() {
+        return format;
     }
 
     public Invoker(Game game) {
+        this(game, new JsonWireFormat());
+    }
+
+    /**
+     * Creates an invoker for clients using a WireRequestor with the given format
+     */
+    public Invoker(Game game, WireFormat format) {
+        this.format = format;
+        game.addObserver(events);
+        // the stubs have no world; their objects are evicted once garbage collected
+        if (game instanceof GameImpl)
+            ((GameImpl) game).getWorld().addListener(new WorldListener() {
+                public void unitRemoved(UnitImpl unit) {
+                    units.remove(unit.getId());
+                }
+
+                public void cityRemoved(CityImpl city) {
+                    cities.remove(city.getId());
+                }
+            });
         this.servant = new Servant(game);
-        gameInvoker = new GameInvoker(servant);
-        unitInvoker = new UnitInvoker();
-        cityInvoker = new CityInvoker();
-        tileInvoker = new TileInvoker();
+        gameInvoker = new GameInvoker(servant, this);
+        unitInvoker = new UnitInvoker(this);
+        cityInvoker = new CityInvoker(this);
+        tileInvoker = new TileInvoker(this);
     }
 
 
-    public ReplyObject handleRequest(String objectId, String operationName, String payload) {
+    public ReplyObject handleRequest(String objectId, String operation, String payload) {
+        String operationName = format.decodeOperation(operation);
+        // Waiting for events must not hold up the requests that cause them
+        if (operationName.equals(OperationNames.awaitEvents))
+            return gameInvoker.handleRequest(objectId, operationName, payload);
+
+        // A game is not thread safe, so requests from concurrent connections are handled one at a time
+        synchronized (this) {
+            try {
+                return dispatch(objectId, operationName, payload);
+            } finally {
+                events.publish();
+            }
+        }
+    }
+
+    public void awaitEvents(String objectId, String operationName, String payload, Consumer<ReplyObject> reply) {
+        long since;
+        long timeout;
+        try {
+            Arguments arguments = format.unmarshalArguments(payload);
+            since = arguments.get(0, Long.class);
+            timeout = arguments.get(1, Long.class);
+        } catch (Exception e) {
+            reply.accept(new ReplyObject(500, e.toString()));
+            return;
+        }
+        events.await(since, timeout, batch -> reply.accept(new ReplyObject(0, format.marshal(batch))));
+    }
+
+    private ReplyObject dispatch(String objectId, String operationName, String payload) {
         String fromClass = operationName.substring(0, operationName.indexOf('_')+1);
         switch(fromClass) {
             case OperationNames.game:
@@ -66,7 +185,7 @@ public class Invoker implements frds.broker.Invoker {
             case OperationNames.unit:
                 return unitInvoker.handleRequest(objectId, operationName, payload);
             default:
-                return null;
+                return new ReplyObject(500, "Unknown operation " + operationName);
         }
     }
 }
@@ -0,0 +1,17 @@
+package hotciv.broker.invokers;
+
+import frds.broker.ReplyObject;
+
+import java.util.function.Consumer;
+
+/**
+ * An invoker that answers a game_awaitEvents request when the events are there, rather
+ * than holding the thread that handles the request until then.
+ */
+public interface LongPollInvoker extends frds.broker.Invoker {
+    /**
+     * Handles a game_awaitEvents request
+     * @param reply called once with the reply, possibly on another thread
+     */
+    void awaitEvents(String objectId, String operationName, String payload, Consumer<ReplyObject> reply);
+}
@@ -0,0 +1,95 @@
+package hotciv.broker.invokers;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+
+/**
+ * The objects of one game handed out to clients, looked up by their id when a client
+ * calls a method on them.
+ *
+ * An entry is removed when its object leaves the game (see Invoker, which listens to
+ * the World), and the registry only holds its objects weakly, so an object the game
+ * dropped without telling, like a unit on a map that was replaced, goes away once it
+ * is garbage collected. The registry therefore never holds more than the live objects
+ * clients have asked for.
+ */
+public class ObjectRegistry<T> {
+    private final HashMap<String, Entry<T>> entries = new HashMap<>();
+    private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+    private long added;
+    private long removed;
+    private long evicted;
+
+    private static class Entry<T> extends WeakReference<T> {
+        private final String id;
+
+        Entry(String id, T object, ReferenceQueue<T> queue) {
+            super(object, queue);
+            this.id = id;
+        }
+    }
+
+    public synchronized void put(String id, T object) {
+        purge();
+        Entry<T> old = entries.put(id, new Entry<>(id, object, collected));
+        if (old == null)
+            added++;
+    }
+
+    /**
+     * @return the object, or null if it is unknown or has left the game
+     */
+    public synchronized T get(String id) {
+        purge();
+        Entry<T> entry = entries.get(id);
+        return entry == null ? null : entry.get();
+    }
+
+    public synchronized void remove(String id) {
+        if (entries.remove(id) != null)
+            removed++;
+    }
+
+    /**
+     * @return the number of objects in the registry
+     */
+    public synchronized int size() {
+        purge();
+        return entries.size();
+    }
+
+    /**
+     * @return the number of objects ever put in the registry
+     */
+    public synchronized long getAdded() {
+        return added;
+    }
+
+    /**
+     * @return the number of objects removed because they left the game
+     */
+    public synchronized long getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return the number of objects removed because they were garbage collected
+     */
+    public synchronized long getEvicted() {
+        purge();
+        return evicted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void purge() {
+        Entry<T> entry;
+        while ((entry = (Entry<T>) collected.poll()) != null) {
+            // the id may have been removed, or registered again for a new object
+            if (entries.get(entry.id) == entry) {
+                entries.remove(entry.id);
+                evicted++;
+            }
+        }
+    }
+}
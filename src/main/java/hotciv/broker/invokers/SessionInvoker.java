@@ -0,0 +1,122 @@
+package hotciv.broker.invokers;
+
+import frds.broker.ReplyObject;
+import hotciv.broker.OperationNames;
+import hotciv.broker.marshall.JsonWireFormat;
+import hotciv.broker.marshall.WireFormat;
+import hotciv.framework.Game;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hosts many games behind one broker endpoint. Every request is routed by the game id
+ * carried in its objectId, either the plain game id (game operations) or
+ * gameId + OperationNames.gameSeparator + objectId (city, unit and tile operations).
+ *
+ * Each game is pinned to one shard, a single threaded executor, so the requests for
+ * one game are executed one at a time, while games on different shards run in parallel.
+ */
+public class SessionInvoker implements LongPollInvoker {
+    public static final int NOT_FOUND = 404;
+    public static final int SERVER_ERROR = 500;
+
+    private ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private ExecutorService[] shards;
+    private AtomicInteger nextShard = new AtomicInteger();
+    private WireFormat format;
+
+    private static class GameSession {
+        private final Invoker invoker;
+        private final ExecutorService shard;
+
+        GameSession(Invoker invoker, ExecutorService shard) {
+            this.invoker = invoker;
+            this.shard = shard;
+        }
+    }
+
+    public SessionInvoker(int shardCount) {
+        this(shardCount, new JsonWireFormat());
+    }
+
+    /**
+     * Creates a session invoker for clients using a WireRequestor with the given format
+     */
+    public SessionInvoker(int shardCount, WireFormat format) {
+        this.format = format;
+        shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = Executors.newSingleThreadExecutor();
+    }
+
+    public SessionInvoker() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Adds a game to the server. Games are spread over the shards round robin.
+     * @param gameId the id the clients use to address the game
+     * @param game the game
+     */
+    public void addGame(String gameId, Game game) {
+        ExecutorService shard = shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+        sessions.put(gameId, new GameSession(new Invoker(game, format), shard));
+    }
+
+    public void removeGame(String gameId) {
+        sessions.remove(gameId);
+    }
+
+    public int getGameCount() {
+        return sessions.size();
+    }
+
+    public ReplyObject handleRequest(String objectId, String operationName, String payload) {
+        String gameId = objectId;
+        String innerId = objectId;
+        int split = objectId == null ? -1 : objectId.indexOf(OperationNames.gameSeparator);
+        if (split >= 0) {
+            gameId = objectId.substring(0, split);
+            innerId = objectId.substring(split + OperationNames.gameSeparator.length());
+        }
+
+        GameSession session = gameId == null ? null : sessions.get(gameId);
+        if (session == null)
+            return new ReplyObject(NOT_FOUND, "No game with id " + gameId);
+
+        // a client waiting for events would block the shard
+        if (OperationNames.awaitEvents.equals(format.decodeOperation(operationName)))
+            return session.invoker.handleRequest(innerId, operationName, payload);
+
+        final String id = innerId;
+        Future<ReplyObject> reply = session.shard.submit(() -> session.invoker.handleRequest(id, operationName, payload));
+        try {
+            return reply.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ReplyObject(SERVER_ERROR, "Interrupted while handling " + operationName);
+        } catch (ExecutionException e) {
+            return new ReplyObject(SERVER_ERROR, e.getCause().toString());
+        }
+    }
+
+    public void awaitEvents(String objectId, String operationName, String payload, Consumer<ReplyObject> reply) {
+        // a game operation carries the plain game id
+        GameSession session = objectId == null ? null : sessions.get(objectId);
+        if (session == null) {
+            reply.accept(new ReplyObject(NOT_FOUND, "No game with id " + objectId));
+            return;
+        }
+        session.invoker.awaitEvents(objectId, operationName, payload, reply);
+    }
+
+    /**
+     * Stops the shard threads. Requests can not be handled afterwards.
+     */
+    public void shutdown() {
+        for (ExecutorService shard : shards)
+            shard.shutdown();
+    }
+}
@@ -1,48 +1,36 @@
 package hotciv.broker.invokers;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
 import frds.broker.ReplyObject;
 import hotciv.broker.OperationNames;
-import hotciv.standard.CityImpl;
+import hotciv.broker.marshall.WireFormat;
 import hotciv.standard.TileImpl;
-import hotciv.standard.UnitImpl;
 
 public class TileInvoker implements frds.broker.Invoker {
-    public TileInvoker() {}
+    private Invoker invoker;
+
+    public TileInvoker(Invoker invoker) {
+        this.invoker = invoker;
+    }
 
     public ReplyObject handleRequest(String objectId, String operationName, String payload) {
-        TileImpl tile =  Invoker.getTile(objectId);
-        Gson gson = new Gson();
-        JsonParser parser = new JsonParser();
-        JsonArray array = parser.parse(payload).getAsJsonArray();
+        TileImpl tile =  invoker.getTile(objectId);
+        WireFormat format = invoker.getFormat();
 
         try {
             switch (operationName) {
                 case OperationNames.getTypeStringTile:
-                    return new ReplyObject(0, gson.toJson(tile.getTypeString()));
-                case OperationNames.setType:
-                    String type = gson.fromJson(array.get(0), String.class);
-                    tile.setType(type);
-                    break;
-                case OperationNames.setCity:
-                    CityImpl city = gson.fromJson(array.get(0), CityImpl.class);
-                    tile.setCity(city);
-                    break;
-                case OperationNames.setUnit:
-                    UnitImpl unit = gson.fromJson(array.get(0), UnitImpl.class);
-                    tile.setUnit(unit);
-                    break;
+                    return new ReplyObject(0, format.marshal(tile.getTypeString()));
                 case OperationNames.getUnit:
-                    return new ReplyObject(0, gson.toJson(tile.getUnit()));
+                    return new ReplyObject(0, format.marshal(tile.getUnit()));
                 case OperationNames.getCity:
-                    return new ReplyObject(0, gson.toJson(tile.getCity()));
+                    return new ReplyObject(0, format.marshal(tile.getCity()));
+                // a tile is read-only for clients; the game changes it
+                default:
+                    return new ReplyObject(500, "Unknown operation " + operationName);
             }
         }
         catch (Exception e) {
-            e.printStackTrace();
+            return new ReplyObject(500, e.toString());
         }
-        return new ReplyObject(0, "");
     }
 }
\ No newline at end of file
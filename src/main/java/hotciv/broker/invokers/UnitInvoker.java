@@ -1,53 +1,57 @@
 package hotciv.broker.invokers;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
 import frds.broker.ReplyObject;
 import hotciv.broker.OperationNames;
+import hotciv.broker.marshall.Arguments;
+import hotciv.broker.marshall.WireFormat;
 import hotciv.standard.UnitImpl;
 
 public class UnitInvoker implements frds.broker.Invoker{
-    public UnitInvoker() {}
+    private Invoker invoker;
+
+    public UnitInvoker(Invoker invoker) {
+        this.invoker = invoker;
+    }
 
     public ReplyObject handleRequest(String objectId, String operationName, String payload) {
-        Gson gson = new Gson();
-        UnitImpl unit = Invoker.getUnit(objectId);
+        WireFormat format = invoker.getFormat();
+        UnitImpl unit = invoker.getUnit(objectId);
 
-        JsonParser parser = new JsonParser();
-        JsonArray array = parser.parse(payload).getAsJsonArray();
         try {
+            // a malformed payload is answered with a failure, like any other failed request
+            Arguments arguments = format.unmarshalArguments(payload);
             switch (operationName) {
                 case OperationNames.getTypeStringUnit:
-                    return new ReplyObject(0, gson.toJson(unit.getTypeString()));
+                    return new ReplyObject(0, format.marshal(unit.getTypeString()));
                 case OperationNames.getOwnerUnit:
-                    return new ReplyObject(0, gson.toJson(unit.getOwner()));
+                    return new ReplyObject(0, format.marshal(unit.getOwner()));
                 case OperationNames.getMoveCount:
-                    return new ReplyObject(0, gson.toJson(unit.getMoveCount()));
+                    return new ReplyObject(0, format.marshal(unit.getMoveCount()));
                 case OperationNames.getDefensiveStrength:
-                    return new ReplyObject(0, gson.toJson(unit.getDefensiveStrength()));
+                    return new ReplyObject(0, format.marshal(unit.getDefensiveStrength()));
                 case OperationNames.getAttackingStrength:
-                    return new ReplyObject(0, gson.toJson(unit.getAttackingStrength()));
+                    return new ReplyObject(0, format.marshal(unit.getAttackingStrength()));
                 case OperationNames.getUsedAction:
-                    return new ReplyObject(0, gson.toJson(unit.getUsedAction()));
+                    return new ReplyObject(0, format.marshal(unit.getUsedAction()));
+                // changes are made through the game, as the unit may be shared with a fork
                 case OperationNames.setMoveCount:
-                    int i = gson.fromJson(array.get(0), Integer.class);
-                    unit.setMoveCount(i);
+                    int i = arguments.get(0, Integer.class);
+                    invoker.changeUnit(objectId, changed -> changed.setMoveCount(i));
                     break;
                 case OperationNames.toggleFortify:
-                    unit.toggleFortify();
+                    invoker.changeUnit(objectId, UnitImpl::toggleFortify);
                     break;
                 case OperationNames.setUsedAction:
-                    boolean usedAction = gson.fromJson(array.get(0), boolean.class);
-                    unit.setUsedAction(usedAction);
+                    boolean usedAction = arguments.get(0, boolean.class);
+                    invoker.changeUnit(objectId, changed -> changed.setUsedAction(usedAction));
                     break;
                 case OperationNames.refreshMoveCount:
-                    unit.refreshMoveCount();
+                    invoker.changeUnit(objectId, UnitImpl::refreshMoveCount);
                     break;
             }
         }
         catch (Exception e) {
-            e.printStackTrace();
+            return new ReplyObject(500, e.toString());
         }
         return new ReplyObject(0, "");
     }
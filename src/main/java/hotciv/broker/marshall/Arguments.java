@@ -0,0 +1,15 @@
+package hotciv.broker.marshall;
+
+/**
+ * The arguments of a request, decoded as the invoker asks for them
+ */
+public interface Arguments {
+    /**
+     * @param index the position of the argument
+     * @param type the type of the argument; a wrapper or primitive class for numbers
+     * @return the argument
+     */
+    <T> T get(int index, Class<T> type);
+
+    int size();
+}
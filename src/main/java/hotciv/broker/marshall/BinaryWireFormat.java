@@ -0,0 +1,427 @@
+package hotciv.broker.marshall;
+
+import com.google.gson.Gson;
+import frds.broker.IPCException;
+import hotciv.broker.GameEvents;
+import hotciv.broker.OperationNames;
+import hotciv.framework.Command;
+import hotciv.framework.GameConstants;
+import hotciv.framework.Player;
+import hotciv.framework.Position;
+import hotciv.framework.WorldSnapshot;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+
+/**
+ * A compact binary format. An operation is sent as its index in OPERATIONS, and every
+ * value is a one byte tag followed by its content: numbers as zigzag variable length
+ * integers, players as their ordinal, positions as two numbers, the unit, terrain and
+ * focus names of GameConstants as their index in NAMES, and world snapshots, game
+ * events and command batches in their own binary layout. Other objects, like the tiles, units and cities
+ * handed out by getTileAt, getUnitAt and getCityAt, are embedded as JSON.
+ *
+ * The payload of the broker is a String, and the socket handlers send it inside a line of
+ * JSON, where Gson would escape every control byte as six chars. The bytes are therefore
+ * carried in Base64, without the padding, as Gson escapes '=' too; four chars for every
+ * three bytes is still far less than the JSON of the same values.
+ */
+public class BinaryWireFormat implements WireFormat {
+    // Only append to these tables; the index is what is sent
+    static final String[] OPERATIONS = {
+            OperationNames.getTileAt, OperationNames.getUnitAt, OperationNames.getCityAt,
+            OperationNames.getPlayerInTurn, OperationNames.getWinner, OperationNames.getAge,
+            OperationNames.moveUnit, OperationNames.endOfTurn, OperationNames.changeWorkForceFocusInCityAt,
+            OperationNames.changeProductionInCityAt, OperationNames.performUnitActionAt,
+            OperationNames.setTileFocus, OperationNames.addObserver, OperationNames.requestUpdate,
+            OperationNames.getAvailableUnits, OperationNames.getTileMap, OperationNames.getWorldSnapshot,
+            OperationNames.getWorldChangesSince, OperationNames.awaitEvents,
+            OperationNames.getOwnerCity, OperationNames.getSize, OperationNames.getTreasury,
+            OperationNames.getProduction, OperationNames.getWorkforceFocus, OperationNames.getFood,
+            OperationNames.getLocation, OperationNames.getProductionValue, OperationNames.getProductionCost,
+            OperationNames.decrementSize, OperationNames.addProductionValue, OperationNames.setProduction,
+            OperationNames.setOwner, OperationNames.resetFood, OperationNames.increaseSize,
+            OperationNames.addFood, OperationNames.setWorkforceFocus,
+            OperationNames.getTypeStringUnit, OperationNames.getOwnerUnit, OperationNames.getMoveCount,
+            OperationNames.getDefensiveStrength, OperationNames.getAttackingStrength,
+            OperationNames.refreshMoveCount, OperationNames.setMoveCount, OperationNames.toggleFortify,
+            OperationNames.setUsedAction, OperationNames.getUsedAction,
+            // the tile setters are no longer offered, their places are kept for the later indices
+            OperationNames.getTypeStringTile, "tile_setType", "tile_setCity",
+            "tile_setUnit", OperationNames.getUnit, OperationNames.getCity,
+            OperationNames.submitBatch, OperationNames.getStateHash, OperationNames.moveUnitAlongPath,
+    };
+    static final String[] NAMES = {
+            GameConstants.ARCHER, GameConstants.LEGION, GameConstants.SETTLER, GameConstants.B52,
+            GameConstants.PLAINS, GameConstants.OCEANS, GameConstants.FOREST, GameConstants.HILLS,
+            GameConstants.MOUNTAINS, GameConstants.productionFocus, GameConstants.foodFocus,
+    };
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int STRING = 5;
+    private static final int NAME = 6;
+    private static final int PLAYER = 7;
+    private static final int POSITION = 8;
+    private static final int STRING_ARRAY = 9;
+    private static final int EVENTS = 10;
+    private static final int SNAPSHOT = 11;
+    private static final int JSON = 12;
+    private static final int COMMANDS = 13;
+    private static final int BOOLEAN_ARRAY = 14;
+
+    private static final Gson gson = new Gson();
+    private static final Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder decoder = Base64.getDecoder();
+    private static final HashMap<String, Integer> operationCodes = indexOf(OPERATIONS);
+    private static final HashMap<String, Integer> nameCodes = indexOf(NAMES);
+    private static final Player[] players = Player.values();
+    private static final Command.Type[] commandTypes = Command.Type.values();
+
+    // an object that is only decoded once its type is known
+    private static class Json {
+        private final String text;
+
+        Json(String text) {
+            this.text = text;
+        }
+    }
+
+    // the streams of java.io synchronize every byte, these buffers do not
+    private static class Output extends OutputStream {
+        private byte[] bytes = new byte[64];
+        private int count;
+
+        public void write(int b) {
+            if (count == bytes.length)
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            bytes[count++] = (byte) b;
+        }
+
+        public void write(byte[] b, int offset, int length) {
+            if (count + length > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + length));
+            System.arraycopy(b, offset, bytes, count, length);
+            count += length;
+        }
+
+        public String toString() {
+            return encoder.encodeToString(Arrays.copyOf(bytes, count));
+        }
+    }
+
+    private static class Input extends InputStream {
+        private final byte[] bytes;
+        private int position;
+
+        Input(String payload) {
+            try {
+                bytes = decoder.decode(payload);
+            } catch (IllegalArgumentException e) {
+                throw new IPCException("Malformed binary payload", e);
+            }
+        }
+
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        public int read(byte[] b, int offset, int length) {
+            if (position >= bytes.length)
+                return -1;
+            int n = Math.min(length, bytes.length - position);
+            System.arraycopy(bytes, position, b, offset, n);
+            position += n;
+            return n;
+        }
+    }
+
+    private static HashMap<String, Integer> indexOf(String[] table) {
+        HashMap<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < table.length; i++)
+            codes.put(table[i], i);
+        return codes;
+    }
+
+    public String encodeOperation(String operationName) {
+        Integer code = operationCodes.get(operationName);
+        return code == null ? operationName : Integer.toString(code);
+    }
+
+    public String decodeOperation(String operation) {
+        if (operation.isEmpty() || !Character.isDigit(operation.charAt(0)))
+            return operation;
+        int code;
+        try {
+            code = Integer.parseInt(operation);
+        } catch (NumberFormatException e) {
+            // not an operation of the format, which the invoker answers as unknown
+            return operation;
+        }
+        return code < OPERATIONS.length ? OPERATIONS[code] : operation;
+    }
+
+    public String marshalArguments(Object... arguments) {
+        Output bytes = new Output();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            writeVarint(out, arguments == null ? 0 : arguments.length);
+            if (arguments != null)
+                for (Object argument : arguments)
+                    write(out, argument);
+        } catch (IOException e) {
+            throw new IPCException("Could not marshal the arguments", e);
+        }
+        return bytes.toString();
+    }
+
+    public Arguments unmarshalArguments(String payload) {
+        DataInputStream in = input(payload);
+        Object[] values;
+        try {
+            values = new Object[(int) readVarint(in)];
+            for (int i = 0; i < values.length; i++)
+                values[i] = read(in);
+        } catch (IOException e) {
+            throw new IPCException("Malformed binary arguments", e);
+        }
+        return new Arguments() {
+            public <T> T get(int index, Class<T> type) {
+                return convert(values[index], type);
+            }
+
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    public String marshal(Object value) {
+        Output bytes = new Output();
+        try {
+            write(new DataOutputStream(bytes), value);
+        } catch (IOException e) {
+            throw new IPCException("Could not marshal " + value, e);
+        }
+        return bytes.toString();
+    }
+
+    public <T> T unmarshal(String payload, Type type) {
+        // operations without a return value reply with an empty payload
+        if (payload == null || payload.isEmpty())
+            return null;
+        try {
+            return convert(read(input(payload)), type);
+        } catch (IOException e) {
+            throw new IPCException("Malformed binary reply", e);
+        }
+    }
+
+    private static DataInputStream input(String payload) {
+        return new DataInputStream(new Input(payload));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T convert(Object value, Type type) {
+        if (value instanceof Json)
+            return gson.fromJson(((Json) value).text, type);
+        // numbers are sent as small as they fit, so widen or narrow them to the asked type
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Integer.class || type == int.class)
+                return (T) Integer.valueOf(number.intValue());
+            if (type == Long.class || type == long.class)
+                return (T) Long.valueOf(number.longValue());
+        }
+        return (T) value;
+    }
+
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INT);
+            writeVarint(out, ((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            writeVarint(out, (Long) value);
+        } else if (value instanceof String) {
+            Integer name = nameCodes.get(value);
+            if (name != null) {
+                out.writeByte(NAME);
+                writeVarint(out, name);
+            } else {
+                out.writeByte(STRING);
+                writeString(out, (String) value);
+            }
+        } else if (value instanceof Player) {
+            out.writeByte(PLAYER);
+            out.writeByte(((Player) value).ordinal());
+        } else if (value instanceof Position) {
+            out.writeByte(POSITION);
+            writeVarint(out, ((Position) value).getRow());
+            writeVarint(out, ((Position) value).getColumn());
+        } else if (value instanceof String[]) {
+            String[] strings = (String[]) value;
+            out.writeByte(STRING_ARRAY);
+            writeVarint(out, strings.length);
+            for (String string : strings)
+                write(out, string);
+        } else if (value instanceof boolean[]) {
+            boolean[] booleans = (boolean[]) value;
+            out.writeByte(BOOLEAN_ARRAY);
+            writeVarint(out, booleans.length);
+            for (boolean b : booleans)
+                out.writeBoolean(b);
+        } else if (value instanceof Command[]) {
+            out.writeByte(COMMANDS);
+            writeCommands(out, (Command[]) value);
+        } else if (value instanceof GameEvents) {
+            out.writeByte(EVENTS);
+            writeEvents(out, (GameEvents) value);
+        } else if (value instanceof WorldSnapshot) {
+            out.writeByte(SNAPSHOT);
+            ((WorldSnapshot) value).write(out);
+        } else {
+            out.writeByte(JSON);
+            writeString(out, gson.toJson(value));
+        }
+    }
+
+    private static Object read(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INT:
+                return (int) readVarint(in);
+            case LONG:
+                return readVarint(in);
+            case STRING:
+                return readString(in);
+            case NAME:
+                return NAMES[(int) readVarint(in)];
+            case PLAYER:
+                return players[in.readUnsignedByte()];
+            case POSITION:
+                return readPosition(in);
+            case STRING_ARRAY:
+                String[] strings = new String[(int) readVarint(in)];
+                for (int i = 0; i < strings.length; i++)
+                    strings[i] = (String) read(in);
+                return strings;
+            case BOOLEAN_ARRAY:
+                boolean[] booleans = new boolean[(int) readVarint(in)];
+                for (int i = 0; i < booleans.length; i++)
+                    booleans[i] = in.readBoolean();
+                return booleans;
+            case COMMANDS:
+                return readCommands(in);
+            case EVENTS:
+                return readEvents(in);
+            case SNAPSHOT:
+                return WorldSnapshot.read(in);
+            case JSON:
+                return new Json(readString(in));
+            default:
+                throw new IOException("Unknown tag " + tag);
+        }
+    }
+
+    // a command is its type followed by its position, destination and value as tagged values
+    private static void writeCommands(DataOutputStream out, Command[] commands) throws IOException {
+        writeVarint(out, commands.length);
+        for (Command command : commands) {
+            out.writeByte(command.getType().ordinal());
+            write(out, command.getPosition());
+            write(out, command.getTo());
+            write(out, command.getValue());
+        }
+    }
+
+    private static Command[] readCommands(DataInputStream in) throws IOException {
+        Command[] commands = new Command[(int) readVarint(in)];
+        for (int i = 0; i < commands.length; i++) {
+            Command.Type type = commandTypes[in.readUnsignedByte()];
+            Position position = (Position) read(in);
+            Position to = (Position) read(in);
+            commands[i] = new Command(type, position, to, (String) read(in));
+        }
+        return commands;
+    }
+
+    private static void writeEvents(DataOutputStream out, GameEvents events) throws IOException {
+        writeVarint(out, events.getSequence());
+        out.writeBoolean(events.isMissed());
+        writeVarint(out, events.getChanges().size());
+        for (Position pos : events.getChanges()) {
+            writeVarint(out, pos.getRow());
+            writeVarint(out, pos.getColumn());
+        }
+        write(out, events.getTurnEnds());
+        write(out, events.getFocus());
+    }
+
+    private static GameEvents readEvents(DataInputStream in) throws IOException {
+        GameEvents events = new GameEvents();
+        events.setSequence(readVarint(in));
+        events.setMissed(in.readBoolean());
+        long changes = readVarint(in);
+        for (long i = 0; i < changes; i++)
+            events.addChange(readPosition(in));
+        events.setTurnEnds((Player) read(in));
+        events.setFocus((Position) read(in));
+        return events;
+    }
+
+    private static Position readPosition(DataInputStream in) throws IOException {
+        int row = (int) readVarint(in);
+        return new Position(row, (int) readVarint(in));
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[(int) readVarint(in)];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // zigzag encoded, so small negative numbers like -1 take a single byte too
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        long bits = (value << 1) ^ (value >> 63);
+        while ((bits & ~0x7FL) != 0) {
+            out.writeByte((int) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+        out.writeByte((int) bits);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long bits = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            bits |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return (bits >>> 1) ^ -(bits & 1);
+        }
+        throw new IOException("Malformed number");
+    }
+}
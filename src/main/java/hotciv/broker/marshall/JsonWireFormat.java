@@ -0,0 +1,50 @@
+package hotciv.broker.marshall;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import java.lang.reflect.Type;
+
+/**
+ * The JSON format of the frds StandardJSONRequestor: operation names as they are and the
+ * arguments as a JSON array. Gson and the parser are thread safe, so they are shared
+ * instead of created for every request.
+ */
+public class JsonWireFormat implements WireFormat {
+    private static final Gson gson = new Gson();
+    private static final JsonParser parser = new JsonParser();
+
+    public String encodeOperation(String operationName) {
+        return operationName;
+    }
+
+    public String decodeOperation(String operation) {
+        return operation;
+    }
+
+    public String marshalArguments(Object... arguments) {
+        return gson.toJson(arguments);
+    }
+
+    public Arguments unmarshalArguments(String payload) {
+        JsonArray array = parser.parse(payload).getAsJsonArray();
+        return new Arguments() {
+            public <T> T get(int index, Class<T> type) {
+                return gson.fromJson(array.get(index), type);
+            }
+
+            public int size() {
+                return array.size();
+            }
+        };
+    }
+
+    public String marshal(Object value) {
+        return gson.toJson(value);
+    }
+
+    public <T> T unmarshal(String payload, Type type) {
+        return gson.fromJson(payload, type);
+    }
+}
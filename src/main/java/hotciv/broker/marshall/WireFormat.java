@@ -0,0 +1,34 @@
+package hotciv.broker.marshall;
+
+import java.lang.reflect.Type;
+
+/**
+ * How operations, arguments and return values are written in the requests and replies
+ * of the broker. The WireRequestor on the client and the Invoker on the server must use
+ * the same format.
+ */
+public interface WireFormat {
+    /**
+     * @param operationName one of the OperationNames
+     * @return the operation name as it is sent in the request
+     */
+    String encodeOperation(String operationName);
+
+    /**
+     * @param operation the operation name as it is received
+     * @return the OperationNames name of the operation
+     */
+    String decodeOperation(String operation);
+
+    String marshalArguments(Object... arguments);
+
+    Arguments unmarshalArguments(String payload);
+
+    /**
+     * @param value the return value of an operation, may be null
+     * @return the reply payload
+     */
+    String marshal(Object value);
+
+    <T> T unmarshal(String payload, Type type);
+}
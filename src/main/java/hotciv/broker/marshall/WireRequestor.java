@@ -0,0 +1,38 @@
+package hotciv.broker.marshall;
+
+import frds.broker.ClientRequestHandler;
+import frds.broker.IPCException;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import frds.broker.Requestor;
+
+import java.lang.reflect.Type;
+
+/**
+ * A requestor that marshals the requests in a given wire format, so the proxies can
+ * talk to an Invoker created with the same format.
+ */
+public class WireRequestor implements Requestor {
+    private final ClientRequestHandler clientRequestHandler;
+    private final WireFormat format;
+
+    public WireRequestor(ClientRequestHandler clientRequestHandler, WireFormat format) {
+        this.clientRequestHandler = clientRequestHandler;
+        this.format = format;
+    }
+
+    public <T> T sendRequestAndAwaitReply(String objectId, String operationName, Type typeOfReturnValue, Object... argument) {
+        RequestObject request = new RequestObject(objectId, format.encodeOperation(operationName),
+                format.marshalArguments(argument));
+        ReplyObject reply = clientRequestHandler.sendToServer(request);
+        if (!reply.isSuccess())
+            throw new IPCException("Failed: " + reply.errorDescription());
+        if (typeOfReturnValue == void.class || typeOfReturnValue == Void.class)
+            return null;
+        return format.unmarshal(reply.payload(), typeOfReturnValue);
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+}
@@ -1,6 +1,8 @@
 package hotciv.broker.proxies;
 
+import frds.broker.IPCException;
 import frds.broker.Requestor;
+import hotciv.broker.GameEvents;
 import hotciv.broker.OperationNames;
 import hotciv.framework.*;
 import hotciv.standard.CityImpl;
@@ -9,15 +11,32 @@ import hotciv.standard.UnitImpl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class GameProxy implements Game {
     private Requestor requestor;
-    private final String objectId = "lol";
+    private final String objectId;
     private ArrayList<GameObserver> observers = new ArrayList<>();
+    // milliseconds the server may hold a request for events, and to wait after a failed one
+    private static final long EVENT_TIMEOUT = 30000;
+    private static final long RETRY_DELAY = 1000;
+    // while subscribed the observers are notified of the events pushed by the server only
+    private volatile boolean subscribed;
+    private volatile Thread eventPoller;
 
     public GameProxy(Requestor requestor) {
+        this(requestor, "lol");
+    }
+
+    /**
+     * Creates a proxy for one of the games hosted by a MultiGameServer
+     * @param gameId the id the game was added to the server with
+     */
+    public GameProxy(Requestor requestor, String gameId) {
         this.requestor = requestor;
+        this.objectId = gameId;
     }
 
     public Tile getTileAt(Position pos) {
@@ -48,29 +67,46 @@ public class GameProxy implements Game {
 
     public boolean moveUnit(Position from, Position to) {
         boolean hasMoved = requestor.sendRequestAndAwaitReply(objectId, OperationNames.moveUnit, Boolean.class, from, to);
-        Utility.notifyWorldChange(from, observers);
-        Utility.notifyWorldChange(to, observers);
+        if (!subscribed) {
+            Utility.notifyWorldChange(from, observers);
+            Utility.notifyWorldChange(to, observers);
+        }
         return hasMoved;
     }
 
+    public Position moveUnitAlongPath(Position from, Position to) {
+        Position at = requestor.sendRequestAndAwaitReply(objectId, OperationNames.moveUnitAlongPath, Position.class,
+                from, to);
+        if (!subscribed) {
+            // where a defeated unit fell is only known from the events of the game
+            Utility.notifyWorldChange(from, observers);
+            Utility.notifyWorldChange(at == null ? to : at, observers);
+        }
+        return at;
+    }
+
     public void endOfTurn() {
         requestor.sendRequestAndAwaitReply(objectId, OperationNames.endOfTurn, Void.class);
-        Utility.notifyTurnChange(getPlayerInTurn(), observers);
+        if (!subscribed)
+            Utility.notifyTurnChange(getPlayerInTurn(), observers);
     }
 
     public void changeWorkForceFocusInCityAt(Position pos, String balance) {
         requestor.sendRequestAndAwaitReply(objectId, OperationNames.changeWorkForceFocusInCityAt, Void.class, pos, balance);
-        Utility.notifyWorldChange(pos, observers);
+        if (!subscribed)
+            Utility.notifyWorldChange(pos, observers);
     }
 
     public void changeProductionInCityAt(Position pos, String unitType) {
         requestor.sendRequestAndAwaitReply(objectId, OperationNames.changeProductionInCityAt, Void.class, pos, unitType);
-        Utility.notifyWorldChange(pos, observers);
+        if (!subscribed)
+            Utility.notifyWorldChange(pos, observers);
     }
 
     public void performUnitActionAt(Position pos) {
         requestor.sendRequestAndAwaitReply(objectId, OperationNames.performUnitActionAt, Void.class, pos);
-        Utility.notifyWorldChange(pos, observers);
+        if (!subscribed)
+            Utility.notifyWorldChange(pos, observers);
     }
 
     public void addObserver(GameObserver observer) {
@@ -79,7 +115,91 @@ public class GameProxy implements Game {
 
     public void setTileFocus(Position pos) {
         requestor.sendRequestAndAwaitReply(objectId, OperationNames.setTileFocus, Void.class, pos);
-        Utility.notifyTileFocusChange(pos, observers);
+        if (!subscribed)
+            Utility.notifyTileFocusChange(pos, observers);
+    }
+
+    /**
+     * Lets the server push the game events, also those caused by other clients, to the
+     * observers. A background thread waits for the events with game_awaitEvents, so the
+     * client request handler must allow a request while another is waiting.
+     * All events after this method returns are delivered.
+     * @param dispatcher runs the notifications, e.g. SwingUtilities::invokeLater
+     */
+    public void subscribe(Executor dispatcher) {
+        if (subscribed)
+            return;
+        // a negative sequence number returns at once with the current one
+        GameEvents current = requestor.sendRequestAndAwaitReply(objectId, OperationNames.awaitEvents,
+                GameEvents.class, -1, 0);
+        subscribed = true;
+        eventPoller = new Thread(() -> awaitEvents(dispatcher, current.getSequence()), "hotciv-events");
+        eventPoller.setDaemon(true);
+        eventPoller.start();
+    }
+
+    /**
+     * Goes back to notifying the observers locally. The background thread ends when
+     * its current wait for events returns.
+     */
+    public void unsubscribe() {
+        subscribed = false;
+        eventPoller = null;
+    }
+
+    private void awaitEvents(Executor dispatcher, long since) {
+        while (eventPoller == Thread.currentThread()) {
+            try {
+                GameEvents events = requestor.sendRequestAndAwaitReply(objectId, OperationNames.awaitEvents,
+                        GameEvents.class, since, EVENT_TIMEOUT);
+                boolean news = !events.isEmpty() || events.isMissed();
+                if (news && eventPoller == Thread.currentThread())
+                    dispatcher.execute(() -> notifyObservers(events));
+                since = events.getSequence();
+            } catch (IPCException e) {
+                // the server could not be reached, try again in a while
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void notifyObservers(GameEvents events) {
+        if (events.isMissed()) {
+            requestUpdate();
+            return;
+        }
+        for (Position pos : events.getChanges())
+            Utility.notifyWorldChange(pos, observers);
+        if (events.getTurnEnds() != null)
+            Utility.notifyTurnChange(events.getTurnEnds(), observers);
+        if (events.getFocus() != null)
+            Utility.notifyTileFocusChange(events.getFocus(), observers);
+    }
+
+    public boolean[] submitBatch(List<Command> commands) {
+        boolean[] results = requestor.sendRequestAndAwaitReply(objectId, OperationNames.submitBatch,
+                boolean[].class, (Object) commands.toArray(new Command[0]));
+        if (!subscribed) {
+            LinkedHashSet<Position> changes = new LinkedHashSet<>();
+            boolean turnEnded = false;
+            for (Command command : commands) {
+                // an end of turn has no position
+                if (command.getPosition() != null)
+                    changes.add(command.getPosition());
+                if (command.getTo() != null)
+                    changes.add(command.getTo());
+                turnEnded |= command.getType() == Command.Type.END_OF_TURN;
+            }
+            for (Position pos : changes)
+                Utility.notifyWorldChange(pos, observers);
+            if (turnEnded)
+                Utility.notifyTurnChange(getPlayerInTurn(), observers);
+        }
+        return results;
     }
 
     public void requestUpdate() {
@@ -98,4 +218,19 @@ public class GameProxy implements Game {
     public TileImpl[][] getTileMap() {
         return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getTileMap, TileImpl[][].class);
     }
+
+    @Override
+    public WorldSnapshot getWorldSnapshot() {
+        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getWorldSnapshot, WorldSnapshot.class);
+    }
+
+    @Override
+    public WorldSnapshot getWorldChangesSince(int worldVersion) {
+        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getWorldChangesSince, WorldSnapshot.class, worldVersion);
+    }
+
+    @Override
+    public long getStateHash() {
+        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getStateHash, Long.class);
+    }
 }
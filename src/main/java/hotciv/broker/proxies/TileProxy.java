@@ -6,11 +6,21 @@ import hotciv.framework.Tile;
 
 public class TileProxy{
     private Requestor requestor;
+    private String prefix = "";
 
     public TileProxy(Requestor requestor) {
         this.requestor = requestor;
     }
+
+    /**
+     * Creates a proxy for the tiles of one of the games hosted by a MultiGameServer
+     * @param gameId the id the game was added to the server with
+     */
+    public TileProxy(Requestor requestor, String gameId) {
+        this.requestor = requestor;
+        this.prefix = gameId + OperationNames.gameSeparator;
+    }
     public String getTypeString(String objectId) {
-        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getTypeStringTile, String.class);
+        return requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.getTypeStringTile, String.class);
     }
 }
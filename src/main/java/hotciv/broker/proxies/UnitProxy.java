@@ -7,48 +7,58 @@ import hotciv.framework.Unit;
 
 public class UnitProxy {
     private Requestor requestor;
+    private String prefix = "";
 
     public UnitProxy(Requestor requestor) {
         this.requestor = requestor;
     }
 
+    /**
+     * Creates a proxy for the units of one of the games hosted by a MultiGameServer
+     * @param gameId the id the game was added to the server with
+     */
+    public UnitProxy(Requestor requestor, String gameId) {
+        this.requestor = requestor;
+        this.prefix = gameId + OperationNames.gameSeparator;
+    }
+
     public String getTypeString(String objectId) {
-        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getTypeStringUnit, String.class);
+        return requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.getTypeStringUnit, String.class);
     }
 
     public Player getOwner(String objectId) {
-        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getOwnerUnit, Player.class);
+        return requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.getOwnerUnit, Player.class);
     }
 
     public int getMoveCount(String objectId) {
-        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getMoveCount, Integer.class);
+        return requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.getMoveCount, Integer.class);
     }
 
     public int getDefensiveStrength(String objectId) {
-        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getDefensiveStrength, Integer.class);
+        return requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.getDefensiveStrength, Integer.class);
     }
 
     public int getAttackingStrength(String objectId) {
-        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getAttackingStrength, Integer.class);
+        return requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.getAttackingStrength, Integer.class);
     }
 
     public void refreshMoveCount(String objectId) {
-        requestor.sendRequestAndAwaitReply(objectId, OperationNames.refreshMoveCount, void.class);
+        requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.refreshMoveCount, void.class);
     }
 
     public void toggleFortify(String objectId) {
-        requestor.sendRequestAndAwaitReply(objectId, OperationNames.toggleFortify, void.class);
+        requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.toggleFortify, void.class);
     }
 
     public void setUsedAction(String objectId, boolean usedAction) {
-        requestor.sendRequestAndAwaitReply(objectId, OperationNames.setUsedAction, void.class, usedAction);
+        requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.setUsedAction, void.class, usedAction);
     }
 
     public boolean getUsedAction(String objectId) {
-        return requestor.sendRequestAndAwaitReply(objectId, OperationNames.getUsedAction, boolean.class);
+        return requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.getUsedAction, boolean.class);
     }
 
     public void setMoveCount(String objectId, int i) {
-        requestor.sendRequestAndAwaitReply(objectId, OperationNames.setMoveCount, void.class, i);
+        requestor.sendRequestAndAwaitReply(prefix + objectId, OperationNames.setMoveCount, void.class, i);
     }
 }
\ No newline at end of file
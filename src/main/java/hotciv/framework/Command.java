@@ -0,0 +1,96 @@
+package hotciv.framework;
+
+/**
+ * One order in a batch given to Game.submitBatch: a unit move, to a neighboring tile or
+ * along a path, a change of production or workforce focus in a city, a unit action or
+ * the end of the turn. Create commands with the static methods.
+ */
+public class Command {
+    public enum Type {
+        MOVE_UNIT, CHANGE_PRODUCTION, CHANGE_WORKFORCE_FOCUS, PERFORM_UNIT_ACTION, END_OF_TURN, MOVE_UNIT_ALONG_PATH
+    }
+
+    private Type type;
+    // the unit moved, the city changed or the unit acting
+    private Position position;
+    // where the unit moves to, for MOVE_UNIT and MOVE_UNIT_ALONG_PATH
+    private Position to;
+    // the unit type or the focus, for CHANGE_PRODUCTION and CHANGE_WORKFORCE_FOCUS
+    private String value;
+
+    public Command(Type type, Position position, Position to, String value) {
+        this.type = type;
+        this.position = position;
+        this.to = to;
+        this.value = value;
+    }
+
+    public static Command moveUnit(Position from, Position to) {
+        return new Command(Type.MOVE_UNIT, from, to, null);
+    }
+
+    public static Command moveUnitAlongPath(Position from, Position to) {
+        return new Command(Type.MOVE_UNIT_ALONG_PATH, from, to, null);
+    }
+
+    public static Command changeProductionInCityAt(Position p, String unitType) {
+        return new Command(Type.CHANGE_PRODUCTION, p, null, unitType);
+    }
+
+    public static Command changeWorkForceFocusInCityAt(Position p, String balance) {
+        return new Command(Type.CHANGE_WORKFORCE_FOCUS, p, null, balance);
+    }
+
+    public static Command performUnitActionAt(Position p) {
+        return new Command(Type.PERFORM_UNIT_ACTION, p, null, null);
+    }
+
+    public static Command endOfTurn() {
+        return new Command(Type.END_OF_TURN, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public Position getTo() {
+        return to;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Gives the order to a game
+     * @param game the game
+     * @return the result of moveUnit for a move, whether the unit left its tile for a move
+     * along a path, and true for the other commands
+     */
+    public boolean executeOn(Game game) {
+        switch (type) {
+            case MOVE_UNIT:
+                return game.moveUnit(position, to);
+            case CHANGE_PRODUCTION:
+                game.changeProductionInCityAt(position, value);
+                return true;
+            case CHANGE_WORKFORCE_FOCUS:
+                game.changeWorkForceFocusInCityAt(position, value);
+                return true;
+            case PERFORM_UNIT_ACTION:
+                game.performUnitActionAt(position);
+                return true;
+            case END_OF_TURN:
+                game.endOfTurn();
+                return true;
+            case MOVE_UNIT_ALONG_PATH:
+                return !position.equals(game.moveUnitAlongPath(position, to));
+            default:
+                return false;
+        }
+    }
+}
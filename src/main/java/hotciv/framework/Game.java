@@ -3,6 +3,7 @@ package hotciv.framework;
 import hotciv.standard.TileImpl;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Game is the central interface allowing a client to access and
@@ -111,6 +112,20 @@ public interface Game {
      */
     public boolean moveUnit(Position from, Position to);
 
+    /**
+     * move a unit along a shortest route to another position, as
+     * far as its moves allow, validating and executing each step as
+     * moveUnit does. The route goes around other units; it may end on
+     * an opponent unit, which is attacked with the last step.
+     *
+     * @param from the position that the unit has now
+     * @param to   the position the unit should move to
+     * @return the position of the unit after moving, which is from if
+     * there is no route or the unit has no moves left, or null if the
+     * unit was defeated attacking.
+     */
+    public Position moveUnitAlongPath(Position from, Position to);
+
     /**
      * Tell the game that the current player has
      * finished his/her turn. The next player is then
@@ -182,4 +197,43 @@ public interface Game {
     public ArrayList<String> getAvailableUnits();
 
     public TileImpl[][] getTileMap();
+
+    /** return a compact copy of everything needed to draw the world:
+     * the terrain, the units, the cities, the age and the player
+     * in turn. Over the broker this is a single request.
+     * @return the snapshot of the world.
+     */
+    public WorldSnapshot getWorldSnapshot();
+
+    /** return the tiles that have changed since a version of the
+     * world, in the same encoding as getWorldSnapshot. If the changes
+     * are no longer known, a complete snapshot is returned instead.
+     * @param worldVersion the world version of a snapshot the
+     * caller already has.
+     * @return the changes, see WorldSnapshot.isComplete().
+     */
+    public WorldSnapshot getWorldChangesSince(int worldVersion);
+
+    /** apply a list of commands in order, as one update of the game.
+     * A command that is not valid changes nothing, and the following
+     * commands are still applied. The observers are told about every
+     * changed position once, after the last command. A command that
+     * fails with an exception takes the whole batch back, except for
+     * the dice rolled, and the exception is thrown on.
+     * Over the broker the batch is a single request, and no request
+     * of another client is handled in between its commands.
+     * @param commands the commands to apply.
+     * @return the result of each command, see Command.executeOn.
+     */
+    public boolean[] submitBatch(List<Command> commands);
+
+    /** return a 64 bit hash of the state of the game: the terrain,
+     * units and cities of every tile, the player in turn, the age and
+     * the combat victories. Games in the same state have the same
+     * hash, and games in different states almost surely differ; the
+     * hash is kept up to date as the game is played, so asking for it
+     * is cheap. Over the broker this is a single request.
+     * @return the hash of the game state.
+     */
+    public long getStateHash();
 }
@@ -34,7 +34,7 @@ import java.util.Map.*;
  * limitations under the License.
  */
 public class GameConstants {
-    // The size of the world is set permanently to a 16x16 grid
+    // The size of the standard maps; a world takes its size from its layout
     public static final int CITY_PRODUCTION_PER_TURN = 6;
     public static final int WORLDSIZE = 16;
     public static final int STARTYEAR = -4000;  // This is the starting year for all games of civ
@@ -85,15 +85,28 @@ public class GameConstants {
         int getFood();
         int getProduction();
 
+        // The terrain types known to the game; a variant may register more at startup
+        TypeRegistry<TILE> REGISTRY = new TypeRegistry<TILE>(TILE::getString) {{
+            register(new PLAINS());
+            register(new OCEANS());
+            register(new FOREST());
+            register(new HILLS());
+            register(new MOUNTAINS());
+        }};
+
+        /**
+         * @return the shared descriptor of the terrain type, or null if it is unknown
+         */
         static TILE toClass(String string) {
-            switch (string) {
-                case GameConstants.PLAINS: return new PLAINS();
-                case GameConstants.OCEANS: return new OCEANS();
-                case GameConstants.FOREST: return new FOREST();
-                case GameConstants.HILLS: return new HILLS();
-                case GameConstants.MOUNTAINS: return new MOUNTAINS();
-            }
-            return null;
+            return REGISTRY.get(string);
+        }
+
+        static TILE toClass(int ordinal) {
+            return REGISTRY.get(ordinal);
+        }
+
+        static int register(TILE type) {
+            return REGISTRY.register(type);
         }
 
         class PLAINS implements TILE {
@@ -169,14 +182,27 @@ public class GameConstants {
         int getAttStrength();
         String getMovementCategory();
 
+        // The unit types known to the game; a variant may register more at startup
+        TypeRegistry<UNITS> REGISTRY = new TypeRegistry<UNITS>(UNITS::getString) {{
+            register(new ARCHER());
+            register(new LEGION());
+            register(new SETTLER());
+            register(new B52());
+        }};
+
+        /**
+         * @return the shared descriptor of the unit type, or null if it is unknown
+         */
         static UNITS toClass(String string) {
-            switch (string) {
-                case GameConstants.ARCHER: return new ARCHER();
-                case GameConstants.LEGION: return new LEGION();
-                case GameConstants.SETTLER: return new SETTLER();
-                case GameConstants.B52: return new B52();
-            }
-            return null;
+            return REGISTRY.get(string);
+        }
+
+        static UNITS toClass(int ordinal) {
+            return REGISTRY.get(ordinal);
+        }
+
+        static int register(UNITS type) {
+            return REGISTRY.register(type);
         }
         class ARCHER implements UNITS {
             public static final String string = ARCHER;
@@ -2,52 +2,148 @@ package hotciv.framework;
 
 import java.util.HashMap;
 
+/**
+ * Holds the round based state of a single game. Every game owns its own instance,
+ * so several games can run side by side in the same JVM.
+ */
 public class GameVariables {
-    public static int round;
-    public static HashMap<Player, Integer> combatVictories;
-    public static int age;
-    public static Player winner;
-    public static Player currentPlayer;
+    private int round;
+    private HashMap<Player, Integer> combatVictories;
+    // the combat victories when they were last marked, or null if they have not been
+    private HashMap<Player, Integer> markedVictories;
+    private int age;
+    private Player winner;
+    private Player currentPlayer;
+    // the keys of the player in turn, the age and the combat victories, see StateHash
+    private long hash;
 
-    public static void initialize(){
+    public GameVariables() {
+        initialize();
+    }
+
+    /**
+     * Copies the variables of another game, for a fork of it
+     */
+    public GameVariables(GameVariables variables) {
+        round = variables.round;
+        combatVictories = new HashMap<>(variables.combatVictories);
+        // the marked victories are replaced rather than changed, so they are shared
+        markedVictories = variables.markedVictories;
+        age = variables.age;
+        winner = variables.winner;
+        currentPlayer = variables.currentPlayer;
+        hash = variables.hash;
+    }
+
+    public void initialize(){
         round = 0;
         combatVictories = new HashMap<Player, Integer>();
         resetVictories();
+        markedVictories = null;
         age = GameConstants.STARTYEAR;
         winner = null;
         currentPlayer = Player.RED;
+        hash = StateHash.age(age) ^ StateHash.playerInTurn(currentPlayer);
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public void incrementRound() {
+        round++;
     }
 
-    public static void incrementRound() {
-        GameVariables.round++;
+    public void setRound(int round) {
+        this.round = round;
     }
 
-    public static void setAge(int age) {
-        GameVariables.age = age;
+    public int getAge() {
+        return age;
     }
 
-    public static void incrementVictory(Player player){
-        int wins = GameVariables.combatVictories.get(player);
-        GameVariables.combatVictories.put(player, wins + 1);
+    public void setAge(int age) {
+        hash ^= StateHash.age(this.age) ^ StateHash.age(age);
+        this.age = age;
     }
 
-    public static void setWinner(Player winner) {
-        GameVariables.winner = winner;
+    public void incrementVictory(Player player){
+        setCombatVictories(player, combatVictories.get(player) + 1);
     }
 
-    public static void setCurrentPlayer(Player currentPlayer) {
-        GameVariables.currentPlayer = currentPlayer;
+    public Player getWinner() {
+        return winner;
     }
 
-    public static int getCombatVictories(Player player) {
+    public void setWinner(Player winner) {
+        this.winner = winner;
+    }
+
+    public Player getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public void setCurrentPlayer(Player currentPlayer) {
+        hash ^= StateHash.playerInTurn(this.currentPlayer) ^ StateHash.playerInTurn(currentPlayer);
+        this.currentPlayer = currentPlayer;
+    }
+
+    public int getCombatVictories(Player player) {
         return combatVictories.get(player);
     }
 
-    private static void resetVictories(){
+    /**
+     * @return the combat victories of every player, not to be changed but through setCombatVictories
+     */
+    public HashMap<Player, Integer> getCombatVictories() {
+        return combatVictories;
+    }
+
+    public void setCombatVictories(Player player, int wins) {
+        Integer old = combatVictories.put(player, wins);
+        hash ^= StateHash.victories(player, old == null ? 0 : old) ^ StateHash.victories(player, wins);
+    }
+
+    /**
+     * @return the part of the state hash of the game held by the variables: the player in turn,
+     * the age and the combat victories
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Remembers the combat victories of every player as they are now, for counting the victories won later
+     */
+    public void markCombatVictories() {
+        markedVictories = new HashMap<>(combatVictories);
+    }
+
+    /**
+     * @return the combat victories of every player when they were last marked, or null if they have not been
+     */
+    public HashMap<Player, Integer> getMarkedVictories() {
+        return markedVictories;
+    }
+
+    /**
+     * @return the combat victories of the player when they were last marked, or null if they have not been
+     */
+    public Integer getMarkedVictories(Player player) {
+        return markedVictories == null ? null : markedVictories.get(player);
+    }
+
+    /**
+     * @param victories the marked combat victories of every player, or null to forget them
+     */
+    public void setMarkedVictories(HashMap<Player, Integer> victories) {
+        markedVictories = victories;
+    }
+
+    private void resetVictories(){
         combatVictories.put(Player.RED, 0);
         combatVictories.put(Player.BLUE, 0);
         combatVictories.put(Player.YELLOW, 0);
         combatVictories.put(Player.GREEN, 0);
     }
 }
-
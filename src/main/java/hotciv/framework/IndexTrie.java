@@ -0,0 +1,339 @@
+package hotciv.framework;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * A map from tile index to the unit or city on the tile, kept in tile order, that can be
+ * forked in constant time. The indices are split into groups of 5 bits, each choosing
+ * one of 32 children of a node, and a node only holds the children that are there.
+ *
+ * Every node belongs to the map that made it. A map changes its own nodes in place and
+ * copies the nodes on the path to a change that belong to another, so a fork and its
+ * parent share every node neither has changed since. Forking hands both maps a new
+ * edit, so the nodes they shared are copied by whichever changes them first.
+ *
+ * The values are shared by forks as well. A map that knows how to copy its values gives
+ * out a value of its own for changing with getForWrite, copying it the first time.
+ */
+class IndexTrie<T> extends AbstractMap<Integer, T> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final class Node {
+        // the map allowed to change the node in place
+        final Object edit;
+        // which of the 32 children are there
+        int bitmap;
+        // which of the values of a leaf belong to the map of the node
+        int owned;
+        Object[] slots;
+
+        Node(Object edit, int bitmap, int owned, Object[] slots) {
+            this.edit = edit;
+            this.bitmap = bitmap;
+            this.owned = owned;
+            this.slots = slots;
+        }
+    }
+
+    private final int shift;
+    private final UnaryOperator<T> copier;
+    private Object edit = new Object();
+    private Node root;
+    private int size;
+
+    /**
+     * @param maxIndex the largest index the map will hold
+     * @param copier copies a value, or null if the values are never changed through the map
+     */
+    IndexTrie(int maxIndex, UnaryOperator<T> copier) {
+        int bits = Math.max(BITS, 32 - Integer.numberOfLeadingZeros(maxIndex));
+        this.shift = (bits - 1) / BITS * BITS;
+        this.copier = copier;
+        this.root = new Node(edit, 0, 0, new Object[0]);
+    }
+
+    private IndexTrie(IndexTrie<T> parent) {
+        this.shift = parent.shift;
+        this.copier = parent.copier;
+        this.root = parent.root;
+        this.size = parent.size;
+    }
+
+    /**
+     * @return a map with the same entries, sharing the nodes of this one until either changes
+     */
+    IndexTrie<T> fork() {
+        edit = new Object();
+        return new IndexTrie<>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = 1 << ((index >>> s) & MASK);
+            if ((node.bitmap & bit) == 0)
+                return null;
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (s == 0)
+                return (T) slot;
+            node = (Node) slot;
+        }
+    }
+
+    @Override
+    public T get(Object key) {
+        return key instanceof Integer ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Node editable(Node node) {
+        if (node.edit == edit)
+            return node;
+        return new Node(edit, node.bitmap, 0, node.slots.clone());
+    }
+
+    /**
+     * Puts a value on a tile; the map may change the value in place
+     * @param value the value, not null
+     * @return the value that was on the tile, or null
+     */
+    T put(int index, T value) {
+        return put(index, value, true);
+    }
+
+    /**
+     * Puts a value on a tile, which may be shared with another map
+     * @param value the value, not null
+     * @param owned true if the value belongs to this map, false if getForWrite is to copy it
+     * @return the value that was on the tile, or null
+     */
+    T put(int index, T value, boolean owned) {
+        int own = owned ? 1 : 0;
+        root = editable(root);
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = 1 << ((index >>> s) & MASK);
+            int i = Integer.bitCount(node.bitmap & (bit - 1));
+            if ((node.bitmap & bit) == 0) {
+                Object[] slots = new Object[node.slots.length + 1];
+                System.arraycopy(node.slots, 0, slots, 0, i);
+                System.arraycopy(node.slots, i, slots, i + 1, node.slots.length - i);
+                node.slots = slots;
+                node.bitmap |= bit;
+                if (s == 0) {
+                    // the values after the new one move up a place
+                    int below = node.owned & ((1 << i) - 1);
+                    node.owned = below | ((node.owned & ~((1 << i) - 1)) << 1) | own << i;
+                    slots[i] = value;
+                    size++;
+                    return null;
+                }
+                slots[i] = new Node(edit, 0, 0, new Object[0]);
+            }
+            if (s == 0) {
+                @SuppressWarnings("unchecked")
+                T old = (T) node.slots[i];
+                node.slots[i] = value;
+                node.owned = (node.owned & ~(1 << i)) | own << i;
+                return old;
+            }
+            Node child = editable((Node) node.slots[i]);
+            node.slots[i] = child;
+            node = child;
+        }
+    }
+
+    @Override
+    public T put(Integer key, T value) {
+        return value == null ? remove((int) key) : put((int) key, value);
+    }
+
+    /**
+     * @return the value that was on the tile, or null
+     */
+    T remove(int index) {
+        if (get(index) == null)
+            return null;
+        root = editable(root);
+        T old = remove(root, index, shift);
+        size--;
+        return old;
+    }
+
+    @Override
+    public T remove(Object key) {
+        return key instanceof Integer ? remove((int) (Integer) key) : null;
+    }
+
+    // removes the index below the node, which must be there, and leaves out children left empty
+    @SuppressWarnings("unchecked")
+    private T remove(Node node, int index, int s) {
+        int bit = 1 << ((index >>> s) & MASK);
+        int i = Integer.bitCount(node.bitmap & (bit - 1));
+        T old;
+        if (s == 0) {
+            old = (T) node.slots[i];
+            node.owned = (node.owned & ((1 << i) - 1)) | ((node.owned >>> 1) & (-1 << i));
+        } else {
+            Node child = editable((Node) node.slots[i]);
+            node.slots[i] = child;
+            old = remove(child, index, s - BITS);
+            if (child.bitmap != 0)
+                return old;
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, i);
+        System.arraycopy(node.slots, i + 1, slots, i, slots.length - i);
+        node.slots = slots;
+        node.bitmap &= ~bit;
+        return old;
+    }
+
+    /**
+     * @return true if the value on the tile belongs to this map, so getForWrite gives it as it is
+     */
+    boolean owns(int index) {
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = 1 << ((index >>> s) & MASK);
+            if ((node.bitmap & bit) == 0)
+                return false;
+            int i = Integer.bitCount(node.bitmap & (bit - 1));
+            if (s == 0)
+                return node.edit == edit && (node.owned & (1 << i)) != 0;
+            node = (Node) node.slots[i];
+        }
+    }
+
+    /**
+     * @return the value on the tile, copied first if it is shared with another map, or null
+     */
+    T getForWrite(int index) {
+        if (get(index) == null)
+            return null;
+        root = editable(root);
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = 1 << ((index >>> s) & MASK);
+            int i = Integer.bitCount(node.bitmap & (bit - 1));
+            if (s == 0) {
+                @SuppressWarnings("unchecked")
+                T value = (T) node.slots[i];
+                if ((node.owned & (1 << i)) == 0) {
+                    value = copier.apply(value);
+                    node.slots[i] = value;
+                    node.owned |= 1 << i;
+                }
+                return value;
+            }
+            Node child = editable((Node) node.slots[i]);
+            node.slots[i] = child;
+            node = child;
+        }
+    }
+
+    /**
+     * @return the indices of the map, in increasing order
+     */
+    int[] indices() {
+        int[] indices = new int[size];
+        int count = 0;
+        for (Cursor cursor = new Cursor(); cursor.advance(); )
+            indices[count++] = cursor.index;
+        return indices;
+    }
+
+    @Override
+    public Set<Entry<Integer, T>> entrySet() {
+        return new AbstractSet<Entry<Integer, T>>() {
+            @Override
+            public Iterator<Entry<Integer, T>> iterator() {
+                Cursor cursor = new Cursor();
+                return new Iterator<Entry<Integer, T>>() {
+                    private boolean ready = cursor.advance();
+
+                    @Override
+                    public boolean hasNext() {
+                        return ready;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<Integer, T> next() {
+                        if (!ready)
+                            throw new NoSuchElementException();
+                        Entry<Integer, T> entry = new SimpleImmutableEntry<>(cursor.index, (T) cursor.value);
+                        ready = cursor.advance();
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Walks the leaves in index order
+     */
+    private class Cursor {
+        private final Node[] nodes = new Node[shift / BITS + 1];
+        // the children of each node not yet visited, the slot of the next one, and the index bits chosen above it
+        private final int[] rest = new int[nodes.length];
+        private final int[] next = new int[nodes.length];
+        private final int[] prefix = new int[nodes.length];
+        private int depth;
+        int index;
+        Object value;
+
+        Cursor() {
+            nodes[0] = root;
+            rest[0] = root.bitmap;
+        }
+
+        boolean advance() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (rest[depth] == 0) {
+                    depth--;
+                    continue;
+                }
+                int digit = Integer.numberOfTrailingZeros(rest[depth]);
+                rest[depth] &= rest[depth] - 1;
+                int i = next[depth]++;
+                int bits = prefix[depth] | digit << (shift - depth * BITS);
+                if (depth * BITS == shift) {
+                    index = bits;
+                    value = node.slots[i];
+                    return true;
+                }
+                depth++;
+                nodes[depth] = (Node) node.slots[i];
+                rest[depth] = nodes[depth].bitmap;
+                next[depth] = 0;
+                prefix[depth] = bits;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package hotciv.framework;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The tile and its 8 surrounding tiles on a square map of a given size, visited by tile
+ * index without creating any objects. The neighbors are numbered from 0 to SIZE - 1,
+ * starting with the tile itself and then running clockwise from north.
+ *
+ * Loop over the numbers and skip the ones off the map:
+ * <pre>
+ *   for (int n = 0; n &lt; Neighborhood.SIZE; n++) {
+ *       int neighbor = neighborhood.neighbor(index, n);
+ *       if (neighbor &lt; 0) continue;
+ *       ...
+ *   }
+ * </pre>
+ */
+public class Neighborhood {
+    public static final int SIZE = 9;
+    // the tile itself, north, northeast, east, southeast, south, southwest, west and northwest
+    private static final int[] ROWS = {0, -1, -1, 0, 1, 1, 1, 0, -1};
+    private static final int[] COLUMNS = {0, 0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final int size;
+    // the difference in tile index to each neighbor
+    private final int[] offsets = new int[SIZE];
+
+    public Neighborhood(int size) {
+        this.size = size;
+        for (int n = 0; n < SIZE; n++)
+            offsets[n] = ROWS[n] * size + COLUMNS[n];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param index the index of a tile
+     * @param n the number of the neighbor, 0 for the tile itself
+     * @return the index of the neighbor, or -1 if it is off the map
+     */
+    public int neighbor(int index, int n) {
+        int row = index / size + ROWS[n];
+        int column = index % size + COLUMNS[n];
+        if (row < 0 || row >= size || column < 0 || column >= size)
+            return -1;
+        return index + offsets[n];
+    }
+
+    /**
+     * Calls the visitor with the index of each tile in the neighborhood on the map, in order
+     * @param index the index of the tile in the center
+     * @param includeCenter whether to visit the tile itself
+     */
+    public void forEach(int index, boolean includeCenter, IntConsumer visitor) {
+        for (int n = includeCenter ? 0 : 1; n < SIZE; n++) {
+            int neighbor = neighbor(index, n);
+            if (neighbor >= 0)
+                visitor.accept(neighbor);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package hotciv.framework;
+
+import hotciv.standard.UnitImpl;
+import hotciv.standard.unitMovementDistinction.UnitMovementDistinctionStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds the shortest routes for units over the map of a world, by A* search over the 8
+ * neighbors of a tile, every step costing one move.
+ *
+ * Which tiles a unit type may enter is worked out once from the movement strategy and
+ * kept as a grid of step costs, 0 for a tile the type may not enter. The grids are worked
+ * out again when the terrain of the map changes, such as a B52 bombing a forest into
+ * plains. Units are not part of the grids, as they move all the time: a route goes around
+ * every other unit, and may only end on an enemy unit, attacking it.
+ *
+ * The search uses arrays the size of the map, kept from search to search, so a path finder
+ * is used by one thread at a time, like the world it searches.
+ */
+public class PathFinder {
+    private final World world;
+    private final UnitMovementDistinctionStrategy movement;
+    // the step costs of each unit type, and the map and terrain version they were worked out for
+    private final HashMap<String, byte[]> grids = new HashMap<>();
+    private TileStore gridTiles;
+    private int gridVersion;
+
+    // the search: the moves to reach a tile and the tile it was reached from, valid for the
+    // tiles stamped with the number of the search, and the tiles whose neighbors are searched
+    private int[] cost = new int[0];
+    private int[] cameFrom = new int[0];
+    private int[] stamp = new int[0];
+    private int[] closed = new int[0];
+    private int search;
+    // the open tiles, a binary heap ordered by estimated length of the route through them
+    private int[] open = new int[16];
+    private long[] openKeys = new long[16];
+    private int openCount;
+
+    public PathFinder(World world, UnitMovementDistinctionStrategy movement) {
+        this.world = world;
+        this.movement = movement;
+    }
+
+    public UnitMovementDistinctionStrategy getMovement() {
+        return movement;
+    }
+
+    /**
+     * @return the step cost of entering each tile for the unit type, 0 if it may not
+     */
+    byte[] getGrid(String unitType) {
+        TileStore tiles = world.getTiles();
+        if (tiles != gridTiles || tiles.getTerrainVersion() != gridVersion) {
+            grids.clear();
+            gridTiles = tiles;
+            gridVersion = tiles.getTerrainVersion();
+        }
+        byte[] grid = grids.get(unitType);
+        if (grid == null) {
+            grid = new byte[tiles.getSize() * tiles.getSize()];
+            for (int index = 0; index < grid.length; index++)
+                if (movement.validUnitPosition(world, tiles.positionOf(index), unitType))
+                    grid[index] = 1;
+            grids.put(unitType, grid);
+        }
+        return grid;
+    }
+
+    /**
+     * Finds a shortest route for the unit at from
+     * @param from the tile of the unit
+     * @param to the tile to go to
+     * @return the tiles of the route after from, ending with to; empty if from is to, and
+     * null if there is no unit at from or no route to to
+     */
+    public List<Position> findPath(Position from, Position to) {
+        TileStore tiles = world.getTiles();
+        if (!tiles.contains(from) || !tiles.contains(to))
+            return null;
+        UnitImpl unit = tiles.getUnit(tiles.indexOf(from));
+        if (unit == null)
+            return null;
+        int start = tiles.indexOf(from);
+        int goal = tiles.indexOf(to);
+        if (start == goal)
+            return new ArrayList<>();
+        byte[] grid = getGrid(unit.getTypeString());
+        UnitImpl defender = tiles.getUnit(goal);
+        if (grid[goal] == 0 || defender != null && defender.getOwner() == unit.getOwner())
+            return null;
+
+        int size = tiles.getSize();
+        startSearch(size * size);
+        Neighborhood neighborhood = tiles.getNeighborhood();
+        reach(start, 0, -1, goal, size);
+        while (openCount > 0) {
+            int index = poll();
+            if (index == goal)
+                return route(start, goal, tiles);
+            if (closed[index] == search)
+                continue;
+            closed[index] = search;
+            int moves = cost[index] + 1;
+            for (int n = 1; n < Neighborhood.SIZE; n++) {
+                int neighbor = neighborhood.neighbor(index, n);
+                if (neighbor < 0 || grid[neighbor] == 0)
+                    continue;
+                if (neighbor != goal && tiles.getUnit(neighbor) != null)
+                    continue;
+                if (stamp[neighbor] != search || moves < cost[neighbor])
+                    reach(neighbor, moves, index, goal, size);
+            }
+        }
+        return null;
+    }
+
+    private void startSearch(int tiles) {
+        if (cost.length < tiles) {
+            cost = new int[tiles];
+            cameFrom = new int[tiles];
+            stamp = new int[tiles];
+            closed = new int[tiles];
+            search = 0;
+        }
+        if (++search == 0) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(closed, 0);
+            search = 1;
+        }
+        openCount = 0;
+    }
+
+    // a tile reached more cheaply is queued again, and the dearer entry skipped when it is polled
+    private void reach(int index, int moves, int previous, int goal, int size) {
+        stamp[index] = search;
+        cost[index] = moves;
+        cameFrom[index] = previous;
+        // a unit may move diagonally, so the moves left are at least the larger of the distances
+        int left = Math.max(Math.abs(index / size - goal / size), Math.abs(index % size - goal % size));
+        // ties go to the tile nearest the goal
+        push(index, ((long) (moves + left) << 16) | left);
+    }
+
+    private void push(int index, long key) {
+        if (openCount == open.length) {
+            open = Arrays.copyOf(open, 2 * openCount);
+            openKeys = Arrays.copyOf(openKeys, 2 * openCount);
+        }
+        int i = openCount++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (openKeys[parent] <= key)
+                break;
+            open[i] = open[parent];
+            openKeys[i] = openKeys[parent];
+            i = parent;
+        }
+        open[i] = index;
+        openKeys[i] = key;
+    }
+
+    private int poll() {
+        int top = open[0];
+        int index = open[--openCount];
+        long key = openKeys[openCount];
+        int i = 0;
+        while (2 * i + 1 < openCount) {
+            int child = 2 * i + 1;
+            if (child + 1 < openCount && openKeys[child + 1] < openKeys[child])
+                child++;
+            if (key <= openKeys[child])
+                break;
+            open[i] = open[child];
+            openKeys[i] = openKeys[child];
+            i = child;
+        }
+        open[i] = index;
+        openKeys[i] = key;
+        return top;
+    }
+
+    private List<Position> route(int start, int goal, TileStore tiles) {
+        Position[] steps = new Position[cost[goal]];
+        for (int index = goal; index != start; index = cameFrom[index])
+            steps[cost[index] - 1] = tiles.positionOf(index);
+        return new ArrayList<>(Arrays.asList(steps));
+    }
+}
@@ -60,8 +60,8 @@ public class Position {
   }
 
   public int hashCode() {
-    // works ok for positions up to columns == 479
-    return 479*r+c;
+    // unique for positions up to columns == 65535
+    return (r << 16) + c;
   }
   
   public String toString() {
@@ -0,0 +1,80 @@
+package hotciv.framework;
+
+import hotciv.standard.CityImpl;
+import hotciv.standard.UnitImpl;
+
+import java.util.Objects;
+
+/**
+ * The keys of a Zobrist hash of the state of a game. The hash of a game is the exclusive or
+ * of a key for each thing in it: the terrain of every tile, the unit and the city on every
+ * tile, the player in turn, the age and the combat victories of every player. A change is
+ * hashed by taking the key of what was there out, and putting the key of what is there now
+ * in, both with an exclusive or, so the hash is kept up to date as the game is played.
+ *
+ * The keys are made by a mixing function from what they stand for, rather than looked up
+ * in tables of random numbers, as a table for every tile of a map of thousands by thousands
+ * of tiles would cost more than the map. Plains, an empty tile and no victories have the
+ * key 0, so a new map of plains hashes to 0.
+ */
+final class StateHash {
+    private static final long TERRAIN = 0x243F6A8885A308D3L;
+    private static final long UNIT = 0x13198A2E03707344L;
+    private static final long CITY = 0xA4093822299F31D0L;
+    private static final long PLAYER = 0x082EFA98EC4E6C89L;
+    private static final long AGE = 0x452821E638D01377L;
+    private static final long VICTORIES = 0xBE5466CF34E90C6CL;
+
+    private StateHash() {
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads every bit of its input over the result
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // the key of a thing on a tile, such as a unit with the fields given by value
+    private static long key(long kind, int index, long value) {
+        return mix(mix(kind + index) + value);
+    }
+
+    static long terrain(int index, String type) {
+        return type.equals(GameConstants.PLAINS) ? 0 : key(TERRAIN, index, type.hashCode());
+    }
+
+    static long unit(int index, UnitImpl unit) {
+        if (unit == null)
+            return 0;
+        long value = unit.getTypeString().hashCode();
+        value = value * 31 + unit.getOwner().ordinal();
+        value = value * 31 + unit.getMoveCount();
+        value = value * 2 + (unit.isFortified() ? 1 : 0);
+        return key(UNIT, index, value);
+    }
+
+    static long city(int index, CityImpl city) {
+        if (city == null)
+            return 0;
+        long value = city.getOwner().ordinal();
+        value = value * 31 + city.getSize();
+        value = value * 31 + Objects.hashCode(city.getProduction());
+        value = value * 31 + Objects.hashCode(city.getWorkforceFocus());
+        return key(CITY, index, value);
+    }
+
+    static long playerInTurn(Player player) {
+        return player == null ? 0 : mix(PLAYER + player.ordinal());
+    }
+
+    static long age(int age) {
+        return mix(AGE + age);
+    }
+
+    static long victories(Player player, int victories) {
+        return victories == 0 ? 0 : key(VICTORIES, player.ordinal(), victories);
+    }
+}
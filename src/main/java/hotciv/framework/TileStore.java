@@ -0,0 +1,575 @@
+package hotciv.framework;
+
+import hotciv.standard.CityImpl;
+import hotciv.standard.TileImpl;
+import hotciv.standard.UnitImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tiles of a square map, stored flat in row major order so a tile is identified by
+ * its index, row * size + column.
+ *
+ * The terrain is one byte per tile, holding the index of the terrain type in a table of
+ * the types used on the map. Units and cities are kept in maps from tile index, as most
+ * tiles have neither. A map therefore costs a byte per tile plus its units and cities,
+ * which allows maps of thousands by thousands of tiles.
+ *
+ * The units are also kept by owner, so going through the units or cities of the map,
+ * or of one player, costs in the number of them rather than in the size of the map.
+ * They are kept in tile order, and looked up by index without boxing the index.
+ *
+ * A store is forked in constant time, see fork. The fork shares the terrain, units and
+ * cities of its parent, and each of them copies a page of terrain, a unit or a city the
+ * first time it changes it. Units and cities are therefore changed through the objects
+ * given by getUnitForWrite and getCityForWrite, never through the ones given by getUnit
+ * and getCity, which may be shared.
+ *
+ * The store keeps a Zobrist hash of its terrain, units and cities up to date as they
+ * change, see StateHash and getHash.
+ */
+public class TileStore {
+    // the terrain is kept in pages of 4096 tiles, copied one at a time by forks
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final int size;
+    // the store allowed to change the tables below, and the terrain pages, in place
+    private Object edit = new Object();
+    private byte[][] terrain;
+    private Object terrainEdit;
+    private Object[] pageEdits;
+    private ArrayList<String> types;
+    // the descriptors of the types, looked up the first time they are asked for; threads working
+    // tiles at the same time may both look a type up, and store the same shared descriptor
+    private GameConstants.TILE[] descriptors;
+    private Object typesEdit;
+    private final IndexTrie<UnitImpl> units;
+    private final IndexTrie<CityImpl> cities;
+    private final Neighborhood neighborhood;
+    private final IndexTrie<UnitImpl>[] unitsByOwner;
+    private final IndexTrie<CityImpl>[] citiesByOwner;
+    // grows by one for every change of the terrain of a tile
+    private int terrainVersion;
+    // records the changes for undoing them, or null
+    private UndoLog undoLog;
+    // the hash of the terrain, units and cities, but for the units and cities given for writing
+    // since it was last asked for; their keys are taken out when they are given, and the keys of
+    // what they are then are put in when the hash is asked for
+    private long hash;
+    private IndexSet unitsWritten;
+    private IndexSet citiesWritten;
+    // the cities given for writing since the cities of a player were last asked for; they may
+    // have changed owner, so they are filed under their owner again then
+    private IndexSet ownersWritten;
+
+    /**
+     * Creates a map of plains
+     * @param size the number of rows and columns
+     */
+    public TileStore(int size) {
+        if (size <= 0 || size > 46340) // size * size must fit in an int
+            throw new IllegalArgumentException("Unsupported map size " + size);
+        this.size = size;
+        int tiles = size * size;
+        terrain = new byte[(tiles + PAGE_SIZE - 1) >>> PAGE_BITS][];
+        for (int page = 0; page < terrain.length; page++)
+            terrain[page] = new byte[Math.min(PAGE_SIZE, tiles - (page << PAGE_BITS))];
+        terrainEdit = edit;
+        pageEdits = new Object[terrain.length];
+        Arrays.fill(pageEdits, edit);
+        types = new ArrayList<>();
+        types.add(GameConstants.PLAINS);
+        descriptors = new GameConstants.TILE[256];
+        typesEdit = edit;
+        neighborhood = new Neighborhood(size);
+        units = new IndexTrie<>(tiles - 1, UnitImpl::new);
+        cities = new IndexTrie<>(tiles - 1, CityImpl::new);
+        unitsByOwner = newOwnerTable();
+        citiesByOwner = newOwnerTable();
+        for (Player player : Player.values()) {
+            unitsByOwner[player.ordinal()] = new IndexTrie<>(tiles - 1, null);
+            citiesByOwner[player.ordinal()] = new IndexTrie<>(tiles - 1, null);
+        }
+    }
+
+    private TileStore(TileStore parent) {
+        size = parent.size;
+        terrain = parent.terrain;
+        terrainEdit = parent.terrainEdit;
+        pageEdits = parent.pageEdits;
+        types = parent.types;
+        descriptors = parent.descriptors;
+        typesEdit = parent.typesEdit;
+        terrainVersion = parent.terrainVersion;
+        hash = parent.getHash();
+        parent.fileCities();
+        neighborhood = parent.neighborhood;
+        units = parent.units.fork();
+        cities = parent.cities.fork();
+        unitsByOwner = newOwnerTable();
+        citiesByOwner = newOwnerTable();
+        for (int owner = 0; owner < unitsByOwner.length; owner++) {
+            unitsByOwner[owner] = parent.unitsByOwner[owner].fork();
+            citiesByOwner[owner] = parent.citiesByOwner[owner].fork();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> IndexTrie<T>[] newOwnerTable() {
+        return new IndexTrie[Player.values().length];
+    }
+
+    /**
+     * Forks the store in constant time. The fork and the store go on independently; each
+     * copies what it shares with the other the first time it changes it. Forking changes
+     * the store, so it is done by the thread using the store.
+     * @return a store with the same tiles
+     */
+    public TileStore fork() {
+        TileStore fork = new TileStore(this);
+        // neither owns what they share any longer
+        edit = new Object();
+        return fork;
+    }
+
+    /**
+     * Copies a square tile map into a store
+     * @param map the tile map
+     * @return the store
+     */
+    public static TileStore of(TileImpl[][] map) {
+        TileStore store = new TileStore(map.length);
+        for (int r = 0; r < map.length; r++) {
+            for (int c = 0; c < map.length; c++) {
+                TileImpl tile = map[r][c];
+                int index = store.indexOf(r, c);
+                store.setType(index, tile.getTypeString());
+                store.setUnit(index, tile.getUnit());
+                store.setCity(index, tile.getCity());
+            }
+        }
+        return store;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return true if the position is on the map
+     */
+    public boolean contains(Position p) {
+        return p != null && p.getRow() >= 0 && p.getRow() < size && p.getColumn() >= 0 && p.getColumn() < size;
+    }
+
+    public int indexOf(int row, int column) {
+        return row * size + column;
+    }
+
+    public int indexOf(Position p) {
+        return indexOf(p.getRow(), p.getColumn());
+    }
+
+    /**
+     * @return the neighborhoods of the tiles of the map
+     */
+    public Neighborhood getNeighborhood() {
+        return neighborhood;
+    }
+
+    public Position positionOf(int index) {
+        return new Position(index / size, index % size);
+    }
+
+    public String getType(int index) {
+        return types.get(getTypeOrdinal(index));
+    }
+
+    /**
+     * @return the descriptor of the terrain type of the tile, or null if the type is unknown
+     */
+    public GameConstants.TILE getTerrain(int index) {
+        int type = getTypeOrdinal(index);
+        GameConstants.TILE descriptor = descriptors[type];
+        if (descriptor == null)
+            descriptors[type] = descriptor = GameConstants.TILE.toClass(types.get(type));
+        return descriptor;
+    }
+
+    public void setType(int index, String type) {
+        setTypeOrdinal(index, typeOrdinal(type));
+    }
+
+    /**
+     * @return the terrain types of the map, in the order of their ordinals
+     */
+    public List<String> getTypes() {
+        return Collections.unmodifiableList(types);
+    }
+
+    /**
+     * @return the ordinal of the terrain type, which is added to the types of the map if it is new
+     * @throws IllegalStateException if the map already holds 256 types
+     */
+    public int typeOrdinal(String type) {
+        int ordinal = types.indexOf(type);
+        if (ordinal < 0) {
+            if (types.size() == 256)
+                throw new IllegalStateException("A map holds at most 256 terrain types");
+            if (typesEdit != edit) {
+                types = new ArrayList<>(types);
+                descriptors = descriptors.clone();
+                typesEdit = edit;
+            }
+            types.add(type);
+            ordinal = types.size() - 1;
+        }
+        return ordinal;
+    }
+
+    public int getTypeOrdinal(int index) {
+        return terrain[index >>> PAGE_BITS][index & (PAGE_SIZE - 1)] & 0xFF;
+    }
+
+    /**
+     * @param ordinal the ordinal of one of the types of the map
+     */
+    public void setTypeOrdinal(int index, int ordinal) {
+        if (getTypeOrdinal(index) == ordinal)
+            return;
+        if (terrainEdit != edit) {
+            terrain = terrain.clone();
+            pageEdits = new Object[terrain.length];
+            terrainEdit = edit;
+        }
+        int page = index >>> PAGE_BITS;
+        if (pageEdits[page] != edit) {
+            terrain[page] = terrain[page].clone();
+            pageEdits[page] = edit;
+        }
+        if (undoLog != null)
+            undoLog.terrainSet(index, getTypeOrdinal(index));
+        hash ^= StateHash.terrain(index, getType(index)) ^ StateHash.terrain(index, types.get(ordinal));
+        terrain[page][index & (PAGE_SIZE - 1)] = (byte) ordinal;
+        terrainVersion++;
+    }
+
+    /**
+     * @param undoLog records the changes to the store from now on, or null
+     */
+    void setUndoLog(UndoLog undoLog) {
+        this.undoLog = undoLog;
+    }
+
+    /**
+     * @return a number that changes whenever the terrain of a tile does, for knowing
+     * when what was worked out from the terrain is out of date
+     */
+    public int getTerrainVersion() {
+        return terrainVersion;
+    }
+
+    /**
+     * @return the unit on the tile, not to be changed as it may be shared with a fork, or null
+     */
+    public UnitImpl getUnit(int index) {
+        return units.get(index);
+    }
+
+    /**
+     * @return the unit on the tile, for changing it, or null; it is changed on the tile, before
+     * it is moved to another one
+     */
+    public UnitImpl getUnitForWrite(int index) {
+        UnitImpl shared = units.get(index);
+        if (shared == null)
+            return null;
+        UnitImpl unit = units.getForWrite(index);
+        if (unit != shared)
+            unitsByOwner[unit.getOwner().ordinal()].put(index, unit);
+        if (undoLog != null)
+            undoLog.unitChanged(index, unit);
+        unitWritten(index);
+        return unit;
+    }
+
+    // takes the key of the unit on the tile out of the hash until it is asked for, see getHash
+    private void unitWritten(int index) {
+        if (unitsWritten == null)
+            unitsWritten = new IndexSet();
+        if (unitsWritten.add(index))
+            hash ^= StateHash.unit(index, units.get(index));
+    }
+
+    /**
+     * Makes the unit on the tile the same as it was, for undoing changes to it
+     */
+    void restoreUnitFields(int index, UnitImpl unit, UnitImpl saved) {
+        unitWritten(index);
+        unit.copyFrom(saved);
+    }
+
+    /**
+     * @param unit the unit on the tile, or null to remove it; the store changes it from now on,
+     *             so it is a new unit or one given by getUnitForWrite
+     */
+    public void setUnit(int index, UnitImpl unit) {
+        // the unit taken off is recorded with whether it was shared, to be put back as it was
+        if (undoLog != null && units.get(index) != unit)
+            undoLog.unitSet(index, units.get(index), units.owns(index));
+        setUnit(index, unit, true);
+    }
+
+    /**
+     * Puts back a unit taken off the tile, for undoing
+     * @param owned false if the unit is shared with a fork
+     */
+    void restoreUnit(int index, UnitImpl unit, boolean owned) {
+        setUnit(index, unit, owned);
+    }
+
+    private void setUnit(int index, UnitImpl unit, boolean owned) {
+        UnitImpl old = unit == null ? units.remove(index) : units.put(index, unit, owned);
+        if (unitsWritten == null || !unitsWritten.contains(index))
+            hash ^= StateHash.unit(index, old) ^ StateHash.unit(index, unit);
+        if (old != null)
+            unitsByOwner[old.getOwner().ordinal()].remove(index);
+        if (unit != null)
+            unitsByOwner[unit.getOwner().ordinal()].put(index, unit);
+    }
+
+    /**
+     * @return the city on the tile, not to be changed as it may be shared with a fork, or null
+     */
+    public CityImpl getCity(int index) {
+        return cities.get(index);
+    }
+
+    /**
+     * @return the city on the tile, for changing it, or null
+     */
+    public CityImpl getCityForWrite(int index) {
+        CityImpl city = cities.getForWrite(index);
+        if (city == null)
+            return null;
+        if (undoLog != null)
+            undoLog.cityChanged(index, city);
+        cityWritten(index);
+        ownerWritten(index);
+        return city;
+    }
+
+    private void ownerWritten(int index) {
+        if (ownersWritten == null)
+            ownersWritten = new IndexSet();
+        ownersWritten.add(index);
+    }
+
+    // files the cities given for writing under their owners, see getCitiesOf
+    private void fileCities() {
+        if (ownersWritten == null)
+            return;
+        for (int i = 0; i < ownersWritten.count; i++) {
+            int index = ownersWritten.get(i);
+            for (IndexTrie<CityImpl> owned : citiesByOwner)
+                owned.remove(index);
+            CityImpl city = cities.get(index);
+            if (city != null)
+                citiesByOwner[city.getOwner().ordinal()].put(index, city);
+        }
+        ownersWritten.clear();
+    }
+
+    // takes the key of the city on the tile out of the hash until it is asked for, see getHash
+    private void cityWritten(int index) {
+        if (citiesWritten == null)
+            citiesWritten = new IndexSet();
+        if (citiesWritten.add(index))
+            hash ^= StateHash.city(index, cities.get(index));
+    }
+
+    /**
+     * Makes the city on the tile the same as it was, for undoing changes to it
+     */
+    void restoreCityFields(int index, CityImpl city, CityImpl saved) {
+        cityWritten(index);
+        ownerWritten(index);
+        city.copyFrom(saved);
+    }
+
+    /**
+     * @param city the city on the tile, or null to remove it; the store changes it from now on,
+     *             so it is a new city or one given by getCityForWrite
+     */
+    public void setCity(int index, CityImpl city) {
+        if (undoLog != null && cities.get(index) != city)
+            undoLog.citySet(index, cities.get(index), cities.owns(index));
+        setCity(index, city, true);
+    }
+
+    /**
+     * Puts back a city taken off the tile, for undoing
+     * @param owned false if the city is shared with a fork
+     */
+    void restoreCity(int index, CityImpl city, boolean owned) {
+        setCity(index, city, owned);
+    }
+
+    private void setCity(int index, CityImpl city, boolean owned) {
+        CityImpl old = city == null ? cities.remove(index) : cities.put(index, city, owned);
+        if (citiesWritten == null || !citiesWritten.contains(index))
+            hash ^= StateHash.city(index, old) ^ StateHash.city(index, city);
+        // the old city may have changed owner since it was filed
+        if (old != null)
+            for (IndexTrie<CityImpl> filed : citiesByOwner)
+                filed.remove(index);
+        if (city != null)
+            citiesByOwner[city.getOwner().ordinal()].put(index, city);
+    }
+
+    /**
+     * Brings the hash up to date with the units and cities given for writing, and returns it
+     * @return the exclusive or of the keys of the terrain, units and cities of the tiles, see StateHash
+     */
+    public long getHash() {
+        if (unitsWritten != null) {
+            for (int i = 0; i < unitsWritten.count; i++) {
+                int index = unitsWritten.get(i);
+                hash ^= StateHash.unit(index, units.get(index));
+            }
+            unitsWritten.clear();
+        }
+        if (citiesWritten != null) {
+            for (int i = 0; i < citiesWritten.count; i++) {
+                int index = citiesWritten.get(i);
+                hash ^= StateHash.city(index, cities.get(index));
+            }
+            citiesWritten.clear();
+        }
+        return hash;
+    }
+
+    /**
+     * A set of tile indices, held as index + 1 in an open addressing table where 0 is a free slot.
+     * The slots are listed in the order they were filled, so going through the set and clearing
+     * it costs in the number of indices rather than in the size the table has grown to.
+     */
+    private static final class IndexSet {
+        int[] table = new int[16];
+        int[] slots = new int[8];
+        int count;
+
+        /**
+         * @return false if the index was in the set already
+         */
+        boolean add(int index) {
+            if (2 * (count + 1) > table.length)
+                grow();
+            int mask = table.length - 1;
+            for (int slot = slot(index, mask); ; slot = (slot + 1) & mask) {
+                if (table[slot] == 0) {
+                    table[slot] = index + 1;
+                    slots[count++] = slot;
+                    return true;
+                }
+                if (table[slot] == index + 1)
+                    return false;
+            }
+        }
+
+        boolean contains(int index) {
+            if (count == 0)
+                return false;
+            int mask = table.length - 1;
+            for (int slot = slot(index, mask); table[slot] != 0; slot = (slot + 1) & mask)
+                if (table[slot] == index + 1)
+                    return true;
+            return false;
+        }
+
+        /**
+         * @return the index added i-th
+         */
+        int get(int i) {
+            return table[slots[i]] - 1;
+        }
+
+        void clear() {
+            for (int i = 0; i < count; i++)
+                table[slots[i]] = 0;
+            count = 0;
+        }
+
+        private static int slot(int index, int mask) {
+            int h = index * 0x9E3779B9;
+            return (h ^ h >>> 16) & mask;
+        }
+
+        private void grow() {
+            int[] old = table;
+            int[] oldSlots = slots;
+            int added = count;
+            table = new int[2 * old.length];
+            slots = new int[old.length];
+            count = 0;
+            for (int i = 0; i < added; i++)
+                add(old[oldSlots[i]] - 1);
+        }
+    }
+
+    /**
+     * @return the indices of the tiles holding a unit, in tile order
+     */
+    public int[] getUnitIndices() {
+        return units.indices();
+    }
+
+    /**
+     * @return the indices of the tiles holding a city, in tile order
+     */
+    public int[] getCityIndices() {
+        return cities.indices();
+    }
+
+    /**
+     * @return the units on the map by tile index
+     */
+    public Map<Integer, UnitImpl> getUnits() {
+        return Collections.unmodifiableMap(units);
+    }
+
+    /**
+     * @return the cities on the map by tile index
+     */
+    public Map<Integer, CityImpl> getCities() {
+        return Collections.unmodifiableMap(cities);
+    }
+
+    /**
+     * @return the units of a player by tile index
+     */
+    public Map<Integer, UnitImpl> getUnitsOf(Player owner) {
+        return Collections.unmodifiableMap(unitsByOwner[owner.ordinal()]);
+    }
+
+    /**
+     * @return the cities of a player by tile index. A city changes owner when given for
+     * writing, so the cities given since the last call are filed under their owners first.
+     */
+    public Map<Integer, CityImpl> getCitiesOf(Player owner) {
+        fileCities();
+        return Collections.unmodifiableMap(citiesByOwner[owner.ordinal()]);
+    }
+
+    /**
+     * @return a read-only view of the tile
+     */
+    public TileImpl getTile(int index) {
+        return new TileImpl(this, index);
+    }
+}
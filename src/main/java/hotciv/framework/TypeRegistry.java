@@ -0,0 +1,75 @@
+package hotciv.framework;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Function;
+
+/**
+ * The known terrain or unit types, as one shared, immutable descriptor per type.
+ * A type is looked up by its id (the string used throughout the game) or by its
+ * ordinal, the order it was registered in, without creating any objects.
+ *
+ * The standard types are registered by GameConstants; a variant registers its own
+ * types at startup. Lookups do not lock: registering replaces the tables, so a
+ * lookup always sees a complete set of types.
+ */
+public class TypeRegistry<T> {
+    private final Function<T, String> idOf;
+    private volatile HashMap<String, Integer> ordinals = new HashMap<>();
+    private volatile Object[] types = new Object[0];
+
+    /**
+     * @param idOf gives the id of a type
+     */
+    public TypeRegistry(Function<T, String> idOf) {
+        this.idOf = idOf;
+    }
+
+    /**
+     * Registers a type
+     * @param type the descriptor of the type
+     * @return the ordinal of the type
+     * @throws IllegalArgumentException if a type with the same id is registered
+     */
+    public synchronized int register(T type) {
+        String id = idOf.apply(type);
+        if (ordinals.containsKey(id))
+            throw new IllegalArgumentException("The type " + id + " is already registered");
+        HashMap<String, Integer> newOrdinals = new HashMap<>(ordinals);
+        newOrdinals.put(id, types.length);
+        Object[] newTypes = Arrays.copyOf(types, types.length + 1);
+        newTypes[types.length] = type;
+        types = newTypes;
+        ordinals = newOrdinals;
+        return types.length - 1;
+    }
+
+    /**
+     * @return the type with the id, or null if it is not registered
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? null : (T) types[ordinal];
+    }
+
+    /**
+     * @return the type registered as number ordinal
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int ordinal) {
+        return (T) types[ordinal];
+    }
+
+    /**
+     * @return the ordinal of the type with the id, or -1 if it is not registered
+     */
+    public int ordinalOf(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public int size() {
+        return types.length;
+    }
+}
@@ -0,0 +1,207 @@
+package hotciv.framework;
+
+import hotciv.standard.CityImpl;
+import hotciv.standard.UnitImpl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Records what the commands of a game change, so they can be undone one by one, for a
+ * search that tries a command and takes it back. Every command starts with a record of
+ * the game variables, followed by a record of every unit, city and terrain put on a tile
+ * and of every unit and city changed, taken before the change.
+ *
+ * The records are kept in arrays, the variables as numbers and the fields of changed units
+ * and cities in objects kept from record to record, so once the log has grown to the depth
+ * of the search, recording and undoing allocate nothing.
+ *
+ * Undoing restores the units and cities on the tiles, the terrain, the fields of units
+ * and cities and the variables. A die rolled by a command is not rolled back. The tiles
+ * restored are marked changed; undoing is meant for games searched, but a client of a
+ * game undone is told where to redraw.
+ */
+public class UndoLog {
+    private static final int COMMAND = 0;
+    private static final int UNIT = 1;
+    private static final int CITY = 2;
+    private static final int TERRAIN = 3;
+    private static final int UNIT_FIELDS = 4;
+    private static final int CITY_FIELDS = 5;
+    // a unit or city record is marked when the store owned what it puts back, and a terrain
+    // record keeps the ordinal of the type above the kind
+    private static final int OWNED = 1 << 4;
+    private static final int KIND_MASK = OWNED - 1;
+    private static final int KIND_BITS = 8;
+    private static final Player[] PLAYERS = Player.values();
+    private static final int VARIABLES = 4 + PLAYERS.length;
+
+    // the records: what kind, the tile index it concerns, and the unit or city
+    private int[] kinds = new int[64];
+    private int[] indices = new int[64];
+    private Object[] objects = new Object[64];
+    private int count;
+    private int commands;
+    // the saved fields, stacks of copies used from the bottom and kept when popped
+    private UnitImpl[] savedUnits = new UnitImpl[16];
+    private int unitCount;
+    private CityImpl[] savedCities = new CityImpl[16];
+    private int cityCount;
+    // the variables of each command: round, age, winner, player in turn and the combat victories
+    // of every player; the marked victories are replaced rather than changed, and kept by reference
+    private int[] savedVariables = new int[16 * VARIABLES];
+    // set while undoing, as the changes made then are not recorded
+    private boolean undoing;
+
+    private void add(int kind, int index, Object object) {
+        if (count == kinds.length) {
+            kinds = Arrays.copyOf(kinds, 2 * count);
+            indices = Arrays.copyOf(indices, 2 * count);
+            objects = Arrays.copyOf(objects, 2 * count);
+        }
+        kinds[count] = kind;
+        indices[count] = index;
+        objects[count] = object;
+        count++;
+    }
+
+    /**
+     * Starts the records of a command
+     * @param variables the variables of the game before the command
+     */
+    void beginCommand(GameVariables variables) {
+        int at = commands * VARIABLES;
+        if (at == savedVariables.length)
+            savedVariables = Arrays.copyOf(savedVariables, 2 * at);
+        savedVariables[at] = variables.getRound();
+        savedVariables[at + 1] = variables.getAge();
+        savedVariables[at + 2] = variables.getWinner() == null ? -1 : variables.getWinner().ordinal();
+        savedVariables[at + 3] = variables.getCurrentPlayer().ordinal();
+        for (int player = 0; player < PLAYERS.length; player++)
+            savedVariables[at + 4 + player] = variables.getCombatVictories(PLAYERS[player]);
+        add(COMMAND, at, variables.getMarkedVictories());
+        commands++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void restore(GameVariables variables, int at, Object marked) {
+        variables.setRound(savedVariables[at]);
+        variables.setAge(savedVariables[at + 1]);
+        variables.setWinner(savedVariables[at + 2] < 0 ? null : PLAYERS[savedVariables[at + 2]]);
+        variables.setCurrentPlayer(PLAYERS[savedVariables[at + 3]]);
+        // the victories are rarely changed, and put only if they were, to spare the boxing
+        for (int player = 0; player < PLAYERS.length; player++)
+            if (variables.getCombatVictories(PLAYERS[player]) != savedVariables[at + 4 + player])
+                variables.setCombatVictories(PLAYERS[player], savedVariables[at + 4 + player]);
+        variables.setMarkedVictories((HashMap<Player, Integer>) marked);
+    }
+
+    void unitSet(int index, UnitImpl old, boolean owned) {
+        if (!undoing && commands > 0)
+            add(owned ? UNIT | OWNED : UNIT, index, old);
+    }
+
+    void citySet(int index, CityImpl old, boolean owned) {
+        if (!undoing && commands > 0)
+            add(owned ? CITY | OWNED : CITY, index, old);
+    }
+
+    void terrainSet(int index, int oldOrdinal) {
+        if (!undoing && commands > 0)
+            add(TERRAIN | oldOrdinal << KIND_BITS, index, null);
+    }
+
+    void unitChanged(int index, UnitImpl unit) {
+        if (undoing || commands == 0)
+            return;
+        if (unitCount == savedUnits.length)
+            savedUnits = Arrays.copyOf(savedUnits, 2 * unitCount);
+        if (savedUnits[unitCount] == null)
+            savedUnits[unitCount] = new UnitImpl(unit);
+        else
+            savedUnits[unitCount].copyFrom(unit);
+        unitCount++;
+        add(UNIT_FIELDS, index, unit);
+    }
+
+    void cityChanged(int index, CityImpl city) {
+        if (undoing || commands == 0)
+            return;
+        if (cityCount == savedCities.length)
+            savedCities = Arrays.copyOf(savedCities, 2 * cityCount);
+        if (savedCities[cityCount] == null)
+            savedCities[cityCount] = new CityImpl(city);
+        else
+            savedCities[cityCount].copyFrom(city);
+        cityCount++;
+        add(CITY_FIELDS, index, city);
+    }
+
+    /**
+     * @return the number of commands that can be undone
+     */
+    public int getCommands() {
+        return commands;
+    }
+
+    /**
+     * Undoes the last command recorded, in the reverse order of its changes
+     * @param world the world the command changed
+     * @return false if there is no command to undo
+     */
+    boolean undo(World world) {
+        if (commands == 0)
+            return false;
+        TileStore tiles = world.getTiles();
+        undoing = true;
+        try {
+            while (true) {
+                count--;
+                int index = indices[count];
+                Object object = objects[count];
+                objects[count] = null;
+                boolean owned = (kinds[count] & OWNED) != 0;
+                switch (kinds[count] & KIND_MASK) {
+                    case UNIT:
+                        tiles.restoreUnit(index, (UnitImpl) object, owned);
+                        world.markChanged(index);
+                        break;
+                    case CITY:
+                        tiles.restoreCity(index, (CityImpl) object, owned);
+                        world.markChanged(index);
+                        break;
+                    case TERRAIN:
+                        tiles.setTypeOrdinal(index, kinds[count] >>> KIND_BITS);
+                        world.markChanged(index);
+                        break;
+                    case UNIT_FIELDS:
+                        // the fields are saved in the order of the records, so the last saved are undone first
+                        tiles.restoreUnitFields(index, (UnitImpl) object, savedUnits[--unitCount]);
+                        world.markChanged(index);
+                        break;
+                    case CITY_FIELDS:
+                        tiles.restoreCityFields(index, (CityImpl) object, savedCities[--cityCount]);
+                        world.markChanged(index);
+                        break;
+                    default:
+                        restore(world.getVariables(), index, object);
+                        commands--;
+                        return true;
+                }
+            }
+        } finally {
+            undoing = false;
+        }
+    }
+
+    /**
+     * Forgets every command recorded
+     */
+    void clear() {
+        Arrays.fill(objects, 0, count, null);
+        count = 0;
+        commands = 0;
+        unitCount = 0;
+        cityCount = 0;
+    }
+}
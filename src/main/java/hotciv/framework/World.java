@@ -6,52 +6,330 @@ import hotciv.standard.*;
 import hotciv.standard.unitMovementDistinction.UnitMovementDistinctionStrategy;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * The world of a single game: the map of tiles and the round based game variables.
+ * Each GameImpl owns its own World, and strategies are handed the world they work on.
+ * The map is square and takes its size from the layout it is made from.
+ */
 public class World {
-    private static TileImpl[][] map;
+    // The number of changed tiles remembered for clients asking for changes since a version
+    public static final int CHANGE_LOG_SIZE = 1024;
 
-    public static void setTileMap(TileImpl[][] newMap) {
-        map = newMap;
+    private TileStore tiles;
+    private GameVariables variables;
+    // Grows by one for every change to a tile; the tile index of each change is logged
+    private int version;
+    private int oldestLoggedVersion;
+    // null for a fork, which does not log its changes
+    private int[] changeLog;
+    private ArrayList<WorldListener> listeners = new ArrayList<>();
+    // finds routes for the movement strategy of the game, made when the first route is asked for
+    private PathFinder pathFinder;
+    // records the commands for undoing them, or null if they are not recorded
+    private UndoLog undoLog;
+
+    public World(String[][] layout) {
+        changeLog = new int[CHANGE_LOG_SIZE];
+        setMap(layout);
+        variables = new GameVariables();
+    }
+
+    /**
+     * Creates a world from its tiles and variables, such as a restored world
+     */
+    public World(TileStore tiles, GameVariables variables) {
+        this.tiles = tiles;
+        this.variables = variables;
+        changeLog = new int[CHANGE_LOG_SIZE];
+        forgetChanges();
+    }
+
+    private World(World parent) {
+        tiles = parent.tiles.fork();
+        variables = new GameVariables(parent.variables);
+        version = parent.version;
+        forgetChanges();
+    }
+
+    /**
+     * Forks the world in constant time, see TileStore.fork. The fork has no listeners, and
+     * does not log its changes, as it is not played by clients, nor record its commands
+     * for undoing. The commands this world recorded are forgotten, as the units and cities
+     * they would restore are then shared with the fork.
+     * @return an independent world, the same as this one
+     */
+    public World fork() {
+        if (undoLog != null)
+            undoLog.clear();
+        return new World(this);
+    }
+
+    /**
+     * Copies the world in time linear in its tiles. Unlike a fork, the copy shares no unit
+     * or city with this world, so this world goes on changing its units and cities where
+     * they are, and the units and cities held by its clients stay the ones on its map.
+     * The copy has no listeners, and does not log its changes nor record its commands.
+     * @return an independent world, the same as this one
+     */
+    public World copy() {
+        int size = tiles.getSize();
+        TileStore copy = new TileStore(size);
+        for (int index = 0; index < size * size; index++)
+            copy.setType(index, tiles.getType(index));
+        for (Map.Entry<Integer, UnitImpl> unit : tiles.getUnits().entrySet())
+            copy.setUnit(unit.getKey(), new UnitImpl(unit.getValue()));
+        for (Map.Entry<Integer, CityImpl> city : tiles.getCities().entrySet())
+            copy.setCity(city.getKey(), new CityImpl(city.getValue()));
+        return new World(copy, new GameVariables(variables));
+    }
+
+    public void setTileMap(TileImpl[][] newMap) {
+        tiles = TileStore.of(newMap);
+        forgetChanges();
+        forgetCommands();
+    }
+
+    public void setMap(String[][] layout) {
+        tiles = LayoutStrategy.generateMap(layout);
+        forgetChanges();
+        forgetCommands();
+    }
+
+    // the commands recorded cannot be undone on a new map
+    private void forgetCommands() {
+        if (undoLog != null) {
+            undoLog.clear();
+            tiles.setUndoLog(undoLog);
+        }
+    }
+
+    /**
+     * Starts or stops recording the commands played in the world, see UndoLog. Stopping
+     * forgets the commands recorded.
+     */
+    public void setUndoRecording(boolean recording) {
+        if (recording && undoLog == null)
+            undoLog = new UndoLog();
+        else if (!recording)
+            undoLog = null;
+        tiles.setUndoLog(undoLog);
+    }
+
+    /**
+     * @return whether the commands played in the world are recorded for undoing
+     */
+    public boolean isUndoRecording() {
+        return undoLog != null;
     }
 
-    public static void setMap(String[][] layout) {
-        map = LayoutStrategy.generateMap(layout);
+    /**
+     * Starts the records of a command, if commands are recorded, and hashes what the last
+     * command changed; the game calls this at the start of every command changing the world
+     */
+    public void beginCommand() {
+        if (undoLog != null)
+            undoLog.beginCommand(variables);
+        // the units and cities given for writing are not kept for hashing longer than a command
+        tiles.getHash();
+    }
+
+    /**
+     * Undoes the last command recorded, leaving the world as it was before the command
+     * @return false if there is no command to undo
+     */
+    public boolean undo() {
+        return undoLog != null && undoLog.undo(this);
+    }
+
+    /**
+     * @return the number of commands that can be undone
+     */
+    public int getUndoableCommands() {
+        return undoLog == null ? 0 : undoLog.getCommands();
+    }
+
+    // a new map changes everything, so older versions can only be answered with the whole map
+    private void forgetChanges() {
+        version++;
+        oldestLoggedVersion = version;
+    }
+
+    /**
+     * Records that something on the tile at p has changed
+     * @param p the position of the tile
+     */
+    public void markChanged(Position p) {
+        if (tiles.contains(p))
+            markChanged(tiles.indexOf(p));
+    }
+
+    /**
+     * Records that something on the tile with the index has changed
+     */
+    void markChanged(int index) {
+        if (changeLog != null)
+            changeLog[version % CHANGE_LOG_SIZE] = index;
+        version++;
     }
 
-    public static TileImpl[][] getMap() {
+    /**
+     * @return the Zobrist hash of the tiles and variables of the world, see StateHash
+     */
+    public long getStateHash() {
+        return tiles.getHash() ^ variables.getHash();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the tiles changed after the given version
+     * @param since a version returned by getVersion
+     * @return the indices (row * size + column) of the changed tiles in increasing order,
+     * or null if the changes are no longer logged
+     */
+    public int[] getChangesSince(int since) {
+        if (changeLog == null || since > version || since < oldestLoggedVersion || since < version - CHANGE_LOG_SIZE)
+            return null;
+        BitSet changed = new BitSet();
+        for (int v = since; v < version; v++)
+            changed.set(changeLog[v % CHANGE_LOG_SIZE]);
+        return changed.stream().toArray();
+    }
+
+    public void addListener(WorldListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return the number of rows and columns of the map
+     */
+    public int getSize() {
+        return tiles.getSize();
+    }
+
+    /**
+     * @return true if the position is on the map
+     */
+    public boolean contains(Position p) {
+        return tiles.contains(p);
+    }
+
+    public TileStore getTiles() {
+        return tiles;
+    }
+
+    /**
+     * @return the unit at the position, for changing it, or null; see TileStore.getUnitForWrite
+     */
+    public UnitImpl getUnitForWrite(Position p) {
+        return tiles.contains(p) ? tiles.getUnitForWrite(tiles.indexOf(p)) : null;
+    }
+
+    /**
+     * @return the city at the position, for changing it, or null; see TileStore.getCityForWrite
+     */
+    public CityImpl getCityForWrite(Position p) {
+        return tiles.contains(p) ? tiles.getCityForWrite(tiles.indexOf(p)) : null;
+    }
+
+    /**
+     * Creates a view of every tile, for clients of the tile map. This costs an object
+     * per tile, so use getTiles for large maps.
+     * @return the map as views of the tiles
+     */
+    public TileImpl[][] getMap() {
+        int size = tiles.getSize();
+        TileImpl[][] map = new TileImpl[size][size];
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                map[r][c] = tiles.getTile(tiles.indexOf(r, c));
         return map;
     }
 
-    public static Tile getTileAt(Position p) {
-        if (p.getRow() < 0 || GameConstants.WORLDSIZE <= p.getRow()
-                || p.getColumn() < 0 || GameConstants.WORLDSIZE <= p.getColumn())
+    /**
+     * @return the units of a player by tile index, in tile order
+     */
+    public Map<Integer, UnitImpl> getUnitsOf(Player owner) {
+        return tiles.getUnitsOf(owner);
+    }
+
+    /**
+     * @return the cities of a player by tile index, in tile order
+     */
+    public Map<Integer, CityImpl> getCitiesOf(Player owner) {
+        return tiles.getCitiesOf(owner);
+    }
+
+    public GameVariables getVariables() {
+        return variables;
+    }
+
+    public Tile getTileAt(Position p) {
+        if (!tiles.contains(p))
             return null;
-        return map[p.getRow()][p.getColumn()];
+        return tiles.getTile(tiles.indexOf(p));
     }
 
-    public static Unit getUnitAt(Position p) {
-        if (p.getRow() < 0 || GameConstants.WORLDSIZE <= p.getRow()
-                || p.getColumn() < 0 || GameConstants.WORLDSIZE <= p.getColumn())
+    /**
+     * @return the terrain type at p, or null if p is not on the map
+     */
+    public String getTypeAt(Position p) {
+        if (!tiles.contains(p))
             return null;
-        return map[p.getRow()][p.getColumn()].getUnit();
+        return tiles.getType(tiles.indexOf(p));
     }
 
-    public static City getCityAt(Position p) {
-        if (p.getRow() < 0 || GameConstants.WORLDSIZE <= p.getRow()
-                || p.getColumn() < 0 || GameConstants.WORLDSIZE <= p.getColumn())
+    /**
+     * @return the descriptor of the terrain at p, or null if p is not on the map
+     */
+    public GameConstants.TILE getTerrainAt(Position p) {
+        if (!tiles.contains(p))
             return null;
-        return map[p.getRow()][p.getColumn()].getCity();
+        return tiles.getTerrain(tiles.indexOf(p));
     }
 
-    public static boolean moveUnit(Position from, Position to, ResolveAttackStrategy attackStrategy, UnitMovementDistinctionStrategy moveStrategy) {
-        UnitImpl unit = map[from.getRow()][from.getColumn()].getUnit();
+    public Unit getUnitAt(Position p) {
+        if (!tiles.contains(p))
+            return null;
+        return tiles.getUnit(tiles.indexOf(p));
+    }
+
+    public City getCityAt(Position p) {
+        if (!tiles.contains(p))
+            return null;
+        return tiles.getCity(tiles.indexOf(p));
+    }
+
+    /**
+     * Finds a unit on the map by its id, which its copies in forks share
+     * @return the position of the unit, or null if it is not on the map
+     */
+    public Position getPositionOf(UnitImpl unit) {
+        for (Map.Entry<Integer, UnitImpl> entry : tiles.getUnitsOf(unit.getOwner()).entrySet())
+            if (entry.getValue().getId().equals(unit.getId()))
+                return tiles.positionOf(entry.getKey());
+        return null;
+    }
+
+    public boolean moveUnit(Position from, Position to, ResolveAttackStrategy attackStrategy, UnitMovementDistinctionStrategy moveStrategy) {
+        // Check that both positions are on the map, as an index off it is a tile elsewhere
+        if (!tiles.contains(from) || !tiles.contains(to))
+            return false;
+
+        UnitImpl unit = tiles.getUnit(tiles.indexOf(from));
 
         // Check if unit exists
         if (unit == null)
             return false;
 
         // Checking if the unit has the right owner
-        if(unit.getOwner() != GameVariables.currentPlayer){ return false;}
+        if(unit.getOwner() != variables.getCurrentPlayer()){ return false;}
 
         // Check if unit has enough movement points left
         if (!(unit.getMoveCount() > 0))
@@ -68,12 +346,11 @@ public class World {
             return false;
 
         // Check unit collision
-        UnitImpl toUnit = map[to.getRow()][to.getColumn()].getUnit();
+        UnitImpl toUnit = tiles.getUnit(tiles.indexOf(to));
         if (toUnit != null){
             // Friendly unit
-             if(toUnit.getOwner() == GameVariables.currentPlayer)
+             if(toUnit.getOwner() == variables.getCurrentPlayer())
                 return false;
-
              // Enemy unit, resolve combat
              else{
                  boolean attackerWins = unitAttack(from, to, attackStrategy);
@@ -81,22 +358,38 @@ public class World {
                       removeUnit(from); // the attacker dies
                       return false;
                   }
+                  removeUnit(to); // the defender dies
              }
         }
 
         // Conquer any city entered
         if (getCityAt(to) != null)
-            ((CityImpl) getCityAt(to)).setOwner(GameVariables.currentPlayer);
+            getCityForWrite(to).setOwner(variables.getCurrentPlayer());
 
+        unit = tiles.getUnitForWrite(tiles.indexOf(from));
         unit.setMoveCount(unit.getMoveCount() - 1);
-        map[to.getRow()][to.getColumn()].setUnit(unit); // replaces unit on to
-        map[from.getRow()][from.getColumn()].setUnit(null); // removes unit on from
+        tiles.setUnit(tiles.indexOf(to), unit); // replaces unit on to
+        tiles.setUnit(tiles.indexOf(from), null); // removes unit on from
+        markChanged(from);
+        markChanged(to);
         return true;
     }
 
-    private static boolean unitAttack(Position attacker, Position defender, ResolveAttackStrategy attackStrategy){
-        if (attackStrategy.unitAttack(attacker, defender)){
-            GameVariables.incrementVictory(getUnitAt(attacker).getOwner());
+    /**
+     * Finds a shortest route for the unit at from, see PathFinder
+     * @return the tiles of the route after from, or null if there is none
+     */
+    public List<Position> findPath(Position from, Position to, UnitMovementDistinctionStrategy moveStrategy) {
+        if (!tiles.contains(from) || !tiles.contains(to))
+            return null;
+        if (pathFinder == null || pathFinder.getMovement() != moveStrategy)
+            pathFinder = new PathFinder(this, moveStrategy);
+        return pathFinder.findPath(from, to);
+    }
+
+    private boolean unitAttack(Position attacker, Position defender, ResolveAttackStrategy attackStrategy){
+        if (attackStrategy.unitAttack(this, attacker, defender)){
+            variables.incrementVictory(getUnitAt(attacker).getOwner());
             return true;
         }
         return false;
@@ -105,12 +398,19 @@ public class World {
     /**
      * Returns the nearest valid tile for a unit
      * @param pos the position in question
-     * @return the nearest free tile
+     * @return the nearest free tile, or null if there is none or pos is not on the map
      */
-    public static Position getNearestAvailableTile(Position pos, String type, UnitMovementDistinctionStrategy moveStrategy) {
-        ArrayList<Position> posList = Utility.nearestTileList(pos);
-        for (Position availablePos : posList) {
-            if (validUnitPosition(availablePos, type, moveStrategy) && (getUnitAt(availablePos) == null))
+    public Position getNearestAvailableTile(Position pos, String type, UnitMovementDistinctionStrategy moveStrategy) {
+        if (!tiles.contains(pos))
+            return null;
+        Neighborhood neighborhood = tiles.getNeighborhood();
+        int center = tiles.indexOf(pos);
+        for (int n = 0; n < Neighborhood.SIZE; n++) {
+            int index = neighborhood.neighbor(center, n);
+            if (index < 0 || tiles.getUnit(index) != null)
+                continue;
+            Position availablePos = tiles.positionOf(index);
+            if (validUnitPosition(availablePos, type, moveStrategy))
                 return availablePos;
         }
         return null;
@@ -121,37 +421,61 @@ public class World {
      * @param pos the parameter to be checked
      * @return true if valid
      */
-    private static boolean validUnitPosition(Position pos, String type, UnitMovementDistinctionStrategy strategy) {
-        return strategy.validUnitPosition(pos,type);
+    private boolean validUnitPosition(Position pos, String type, UnitMovementDistinctionStrategy strategy) {
+        return strategy.validUnitPosition(this, pos, type);
     }
 
-    public static void setTypeAt(Position pos, String type) {
-        map[pos.getRow()][pos.getColumn()].setType(type);
+    public void setTypeAt(Position pos, String type) {
+        if (!tiles.contains(pos))
+            return;
+        tiles.setType(tiles.indexOf(pos), type);
+        markChanged(pos);
     }
 
-    public static boolean setUnitAt(Position pos, UnitImpl unit, UnitMovementDistinctionStrategy moveStrategy) {
-        if (!validUnitPosition(pos, unit.getTypeString(), moveStrategy))
+    public boolean setUnitAt(Position pos, UnitImpl unit, UnitMovementDistinctionStrategy moveStrategy) {
+        if (!tiles.contains(pos) || !validUnitPosition(pos, unit.getTypeString(), moveStrategy))
             return false;
+
         // check for other units
         if (getUnitAt(pos) != null)
             return false;
 
-        map[pos.getRow()][pos.getColumn()].setUnit(unit);
+        tiles.setUnit(tiles.indexOf(pos), unit);
+        markChanged(pos);
         return true;
     }
 
-    public static void setCityAt(CityImpl city){
+    public void setCityAt(CityImpl city){
         Position pos = city.getLocation();
-        map[pos.getRow()][pos.getColumn()].setCity(city);
+        if (!tiles.contains(pos))
+            return;
+        tiles.setCity(tiles.indexOf(pos), city);
+        markChanged(pos);
     }
 
     /**
      * Removes the unit located at positon pos
      * @param pos The position
      */
-    public static void removeUnit(Position pos) {
-        map[pos.getRow()][pos.getColumn()].setUnit(null);
+    public void removeUnit(Position pos) {
+        if (!tiles.contains(pos))
+            return;
+        UnitImpl unit = tiles.getUnit(tiles.indexOf(pos));
+        tiles.setUnit(tiles.indexOf(pos), null);
+        markChanged(pos);
+        if (unit != null)
+            for (WorldListener listener : listeners)
+                listener.unitRemoved(unit);
     }
 
-    public static void removeCity(Position pos) { map[pos.getRow()][pos.getColumn()].setCity(null); }
-}
\ No newline at end of file
+    public void removeCity(Position pos) {
+        if (!tiles.contains(pos))
+            return;
+        CityImpl city = tiles.getCity(tiles.indexOf(pos));
+        tiles.setCity(tiles.indexOf(pos), null);
+        markChanged(pos);
+        if (city != null)
+            for (WorldListener listener : listeners)
+                listener.cityRemoved(city);
+    }
+}
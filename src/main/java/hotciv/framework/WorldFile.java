@@ -0,0 +1,343 @@
+package hotciv.framework;
+
+import hotciv.standard.CityImpl;
+import hotciv.standard.UnitImpl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the whole state of a world in a compact binary form and restores it: the terrain,
+ * the units and cities with everything that changes during a game, and the game variables.
+ *
+ * The file starts with a magic number and the version of the format, followed by the
+ * variables, a table of the names used (terrain types first, so the terrain is written
+ * as it is stored, one byte per tile), the units and the cities by tile index, and a
+ * CRC32 of everything before it. It is written and read through a small buffer, so a
+ * world of any size is saved without copying it in memory.
+ */
+public class WorldFile {
+    // "HCIV"
+    public static final int MAGIC = 0x48434956;
+    // Increment when the format changes
+    public static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte FORTIFIED = 1;
+    private static final byte USED_ACTION = 2;
+    private static final Player[] PLAYERS = Player.values();
+
+    private WorldFile() {
+    }
+
+    /**
+     * Saves a world to a file. The world is written to a file next to it first, which then
+     * replaces the file, so a crash while saving leaves the old save as it was.
+     */
+    public static void save(World world, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(world, channel);
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a saved world of a known version
+     */
+    public static World load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    /**
+     * @return the CRC32 at the end of a saved world, which tells saves apart
+     */
+    public static int checksumOf(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer crc = ByteBuffer.allocate(4);
+            channel.position(channel.size() - 4);
+            while (crc.hasRemaining())
+                if (channel.read(crc) < 0)
+                    throw new IOException("The saved world ends too soon");
+            crc.flip();
+            return crc.getInt();
+        }
+    }
+
+    public static void write(World world, WritableByteChannel channel) throws IOException {
+        Output out = new Output(channel);
+        TileStore tiles = world.getTiles();
+        GameVariables variables = world.getVariables();
+        out.need(10);
+        out.buffer.putInt(MAGIC).putShort((short) VERSION).putInt(tiles.getSize());
+
+        HashMap<Player, Integer> marked = variables.getMarkedVictories();
+        out.need(11 + 8 * PLAYERS.length);
+        out.buffer.putInt(variables.getRound()).putInt(variables.getAge());
+        out.buffer.put((byte) variables.getCurrentPlayer().ordinal());
+        out.buffer.put(ordinalOf(variables.getWinner()));
+        out.buffer.put((byte) (marked == null ? 0 : 1));
+        for (Player player : PLAYERS) {
+            out.buffer.putInt(variables.getCombatVictories(player));
+            out.buffer.putInt(marked == null ? 0 : marked.get(player));
+        }
+
+        // the terrain types keep their ordinals, the other names follow them
+        ArrayList<String> names = new ArrayList<>(tiles.getTypes());
+        HashMap<String, Integer> nameIndex = new HashMap<>();
+        for (int i = 0; i < names.size(); i++)
+            nameIndex.put(names.get(i), i);
+        for (UnitImpl unit : tiles.getUnits().values())
+            addName(names, nameIndex, unit.getTypeString());
+        for (CityImpl city : tiles.getCities().values()) {
+            addName(names, nameIndex, city.getProduction());
+            addName(names, nameIndex, city.getWorkforceFocus());
+        }
+        out.need(2);
+        out.buffer.putShort((short) names.size());
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            out.need(2 + bytes.length);
+            out.buffer.putShort((short) bytes.length).put(bytes);
+        }
+
+        int count = tiles.getSize() * tiles.getSize();
+        for (int index = 0; index < count; index++) {
+            out.need(1);
+            out.buffer.put((byte) tiles.getTypeOrdinal(index));
+        }
+
+        out.need(4);
+        out.buffer.putInt(tiles.getUnits().size());
+        for (Map.Entry<Integer, UnitImpl> entry : tiles.getUnits().entrySet()) {
+            UnitImpl unit = entry.getValue();
+            out.need(12);
+            out.buffer.putInt(entry.getKey()).put((byte) unit.getOwner().ordinal());
+            out.buffer.putShort((short) (int) nameIndex.get(unit.getTypeString()));
+            out.buffer.putInt(unit.getMoveCount());
+            out.buffer.put((byte) ((unit.isFortified() ? FORTIFIED : 0) | (unit.getUsedAction() ? USED_ACTION : 0)));
+        }
+
+        out.need(4);
+        out.buffer.putInt(tiles.getCities().size());
+        for (Map.Entry<Integer, CityImpl> entry : tiles.getCities().entrySet()) {
+            CityImpl city = entry.getValue();
+            out.need(25);
+            out.buffer.putInt(entry.getKey()).put((byte) city.getOwner().ordinal());
+            out.buffer.putInt(city.getSize()).putInt(city.getTreasury());
+            out.buffer.putShort((short) (int) nameIndex.get(city.getProduction()));
+            out.buffer.putShort((short) (int) nameIndex.get(city.getWorkforceFocus()));
+            out.buffer.putInt(city.getProductionValue()).putInt(city.getFood());
+        }
+        out.finish();
+    }
+
+    public static World read(ReadableByteChannel channel) throws IOException {
+        Input in = new Input(channel);
+        in.need(10);
+        if (in.buffer.getInt() != MAGIC)
+            throw new IOException("Not a saved world");
+        int version = in.buffer.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported save version " + version);
+        int size = in.buffer.getInt();
+        if (size <= 0 || size > 46340)
+            throw new IOException("Unsupported map size " + size);
+
+        GameVariables variables = new GameVariables();
+        in.need(11 + 8 * PLAYERS.length);
+        variables.setRound(in.buffer.getInt());
+        variables.setAge(in.buffer.getInt());
+        variables.setCurrentPlayer(player(in.buffer.get()));
+        byte winner = in.buffer.get();
+        variables.setWinner(winner < 0 ? null : player(winner));
+        boolean marked = in.buffer.get() != 0;
+        HashMap<Player, Integer> markedVictories = new HashMap<>();
+        for (Player player : PLAYERS) {
+            variables.setCombatVictories(player, in.buffer.getInt());
+            markedVictories.put(player, in.buffer.getInt());
+        }
+        variables.setMarkedVictories(marked ? markedVictories : null);
+
+        in.need(2);
+        int nameCount = in.buffer.getShort() & 0xFFFF;
+        List<String> names = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            in.need(2);
+            byte[] bytes = new byte[in.buffer.getShort() & 0xFFFF];
+            in.need(bytes.length);
+            in.buffer.get(bytes);
+            names.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        TileStore tiles = new TileStore(size);
+        // the types of the map are the first names, in the order of their ordinals
+        int[] ordinals = new int[256];
+        for (int i = 0; i < Math.min(256, nameCount); i++)
+            ordinals[i] = tiles.typeOrdinal(names.get(i));
+        int count = size * size;
+        for (int index = 0; index < count; index++) {
+            in.need(1);
+            tiles.setTypeOrdinal(index, ordinals[in.buffer.get() & 0xFF]);
+        }
+
+        in.need(4);
+        int units = in.buffer.getInt();
+        for (int i = 0; i < units; i++) {
+            in.need(12);
+            int index = in.index(count);
+            Player owner = player(in.buffer.get());
+            UnitImpl unit = new UnitImpl(in.name(names), owner);
+            int moveCount = in.buffer.getInt();
+            byte flags = in.buffer.get();
+            if ((flags & FORTIFIED) != 0)
+                unit.toggleFortify();
+            unit.setMoveCount(moveCount);
+            unit.setUsedAction((flags & USED_ACTION) != 0);
+            tiles.setUnit(index, unit);
+        }
+
+        in.need(4);
+        int cities = in.buffer.getInt();
+        for (int i = 0; i < cities; i++) {
+            in.need(25);
+            int index = in.index(count);
+            Player owner = player(in.buffer.get());
+            int citySize = in.buffer.getInt();
+            int treasury = in.buffer.getInt();
+            String production = in.name(names);
+            String focus = in.name(names);
+            CityImpl city = new CityImpl(citySize, treasury, owner, production, focus, tiles.positionOf(index));
+            city.addProductionValue(in.buffer.getInt());
+            city.addFood(in.buffer.getInt());
+            tiles.setCity(index, city);
+        }
+        in.finish();
+        return new World(tiles, variables);
+    }
+
+    private static void addName(List<String> names, Map<String, Integer> nameIndex, String name) {
+        if (!nameIndex.containsKey(name)) {
+            nameIndex.put(name, names.size());
+            names.add(name);
+        }
+    }
+
+    private static byte ordinalOf(Player player) {
+        return (byte) (player == null ? -1 : player.ordinal());
+    }
+
+    private static Player player(byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= PLAYERS.length)
+            throw new IOException("Unknown player " + ordinal);
+        return PLAYERS[ordinal];
+    }
+
+    /**
+     * Writes through a buffer to a channel, keeping a checksum of what is written
+     */
+    private static class Output {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        final WritableByteChannel channel;
+        final CRC32 crc = new CRC32();
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Makes room in the buffer for the next bytes
+         */
+        void need(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        void finish() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads through a buffer from a channel, checking the checksum at the end
+     */
+    private static class Input {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        final ReadableByteChannel channel;
+        final CRC32 crc = new CRC32();
+        // the bytes of the buffer before this position are in the checksum
+        int checked;
+
+        Input(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        /**
+         * Makes sure the next bytes are in the buffer
+         * @throws IOException if the file ends first
+         */
+        void need(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes)
+                return;
+            crc.update(buffer.array(), checked, buffer.position() - checked);
+            buffer.compact();
+            while (buffer.position() < bytes)
+                if (channel.read(buffer) < 0)
+                    throw new IOException("The saved world ends too soon");
+            buffer.flip();
+            checked = 0;
+        }
+
+        int index(int count) throws IOException {
+            int index = buffer.getInt();
+            if (index < 0 || index >= count)
+                throw new IOException("Tile index " + index + " is off the map");
+            return index;
+        }
+
+        String name(List<String> names) throws IOException {
+            int name = buffer.getShort() & 0xFFFF;
+            if (name >= names.size())
+                throw new IOException("Unknown name " + name);
+            return names.get(name);
+        }
+
+        void finish() throws IOException {
+            crc.update(buffer.array(), checked, buffer.position() - checked);
+            checked = buffer.position();
+            need(4);
+            if (buffer.getInt() != (int) crc.getValue())
+                throw new IOException("The saved world is damaged");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package hotciv.framework;
+
+import hotciv.standard.CityImpl;
+import hotciv.standard.UnitImpl;
+
+/**
+ * Told when units and cities leave a World, so whoever keeps track of them
+ * (like the object registry of a broker Invoker) can forget them
+ */
+public interface WorldListener {
+    /**
+     * invoked when a unit is removed from the world, because it died or was used up
+     * @param unit the unit removed
+     */
+    void unitRemoved(UnitImpl unit);
+
+    /**
+     * invoked when a city is removed from the world
+     * @param city the city removed
+     */
+    void cityRemoved(CityImpl city);
+}
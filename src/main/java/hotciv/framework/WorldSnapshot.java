@@ -0,0 +1,334 @@
+package hotciv.framework;
+
+import hotciv.standard.CityImpl;
+import hotciv.standard.TileImpl;
+import hotciv.standard.UnitImpl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything a client needs to draw the world, in a compact form that is cheap to send
+ * over the broker: the age, the player in turn, the terrain, and the units and cities.
+ *
+ * A snapshot is either complete or holds only the tiles changed since some world
+ * version; a client keeps the world version of the last snapshot it has applied and
+ * asks for the changes since then.
+ *
+ * All strings (terrain types, unit types, production and focus) are stored once in a
+ * name table and referred to by their index. The terrain is a string with one character
+ * per included tile, in tile order, holding '0' + the name index. Units and cities are
+ * flat int arrays with a fixed number of values per entry, see UNIT_FIELDS and CITY_FIELDS.
+ * A tile is identified by its index, row * size + column.
+ */
+public class WorldSnapshot {
+    // Increment when the encoding changes
+    public static final int VERSION = 2;
+    // tile index, owner, type, move count
+    public static final int UNIT_FIELDS = 4;
+    // tile index, owner, size, production, workforce focus
+    public static final int CITY_FIELDS = 5;
+
+    private int version;
+    private int worldVersion;
+    // the indices of the included tiles, null when all tiles are included
+    private int[] tiles;
+    private int age;
+    private Player playerInTurn;
+    private int size;
+    private String[] names;
+    private String terrain;
+    private int[] units;
+    private int[] cities;
+
+    // the decoded map, built the first time it is asked for
+    private transient TileImpl[][] map;
+
+    /**
+     * Encodes a tile map
+     * @param map the square map of the game
+     * @param age the age of the game
+     * @param playerInTurn the player in turn
+     * @return the snapshot
+     */
+    public static WorldSnapshot of(TileImpl[][] map, int age, Player playerInTurn) {
+        return of(map, age, playerInTurn, 0, null);
+    }
+
+    /**
+     * Encodes some of the tiles of a tile map
+     * @param worldVersion the version of the world the snapshot is taken at
+     * @param tiles the indices of the tiles to include, or null for all tiles
+     * @return the snapshot
+     */
+    public static WorldSnapshot of(TileImpl[][] map, int age, Player playerInTurn, int worldVersion, int[] tiles) {
+        return of(TileStore.of(map), age, playerInTurn, worldVersion, tiles);
+    }
+
+    /**
+     * Encodes some of the tiles of a tile store
+     * @param store the tiles of the game
+     * @param worldVersion the version of the world the snapshot is taken at
+     * @param tiles the indices of the tiles to include, or null for all tiles
+     * @return the snapshot
+     */
+    public static WorldSnapshot of(TileStore store, int age, Player playerInTurn, int worldVersion, int[] tiles) {
+        WorldSnapshot snapshot = new WorldSnapshot();
+        snapshot.version = VERSION;
+        snapshot.worldVersion = worldVersion;
+        snapshot.tiles = tiles;
+        snapshot.age = age;
+        snapshot.playerInTurn = playerInTurn;
+        snapshot.size = store.getSize();
+
+        int count = tiles == null ? store.getSize() * store.getSize() : tiles.length;
+        ArrayList<String> names = new ArrayList<>();
+        StringBuilder terrain = new StringBuilder(count);
+        for (int i = 0; i < count; i++)
+            terrain.append((char) ('0' + nameIndex(names, store.getType(tiles == null ? i : tiles[i]))));
+
+        // units and cities are sparse, so a complete snapshot takes them from the store instead of looking at every tile
+        ArrayList<Integer> indices = new ArrayList<>();
+        if (tiles == null) {
+            indices.addAll(store.getUnits().keySet());
+            indices.addAll(store.getCities().keySet());
+            Collections.sort(indices);
+        } else {
+            for (int index : tiles)
+                indices.add(index);
+        }
+        ArrayList<Integer> units = new ArrayList<>();
+        ArrayList<Integer> cities = new ArrayList<>();
+        int previous = -1;
+        for (int index : indices) {
+            // a tile with both a unit and a city is in the list twice
+            if (index == previous)
+                continue;
+            previous = index;
+            UnitImpl unit = store.getUnit(index);
+            if (unit != null) {
+                units.add(index);
+                units.add(unit.getOwner().ordinal());
+                units.add(nameIndex(names, unit.getTypeString()));
+                units.add(unit.getMoveCount());
+            }
+            CityImpl city = store.getCity(index);
+            if (city != null) {
+                cities.add(index);
+                cities.add(city.getOwner().ordinal());
+                cities.add(city.getSize());
+                cities.add(nameIndex(names, city.getProduction()));
+                cities.add(nameIndex(names, city.getWorkforceFocus()));
+            }
+        }
+        snapshot.names = names.toArray(new String[0]);
+        snapshot.terrain = terrain.toString();
+        snapshot.units = units.stream().mapToInt(Integer::intValue).toArray();
+        snapshot.cities = cities.stream().mapToInt(Integer::intValue).toArray();
+        return snapshot;
+    }
+
+    private static int nameIndex(ArrayList<String> names, String name) {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            names.add(name);
+            index = names.size() - 1;
+        }
+        return index;
+    }
+
+    /**
+     * Writes the snapshot in binary form: the numbers as variable length integers,
+     * the names as UTF strings and the terrain as one byte per included tile
+     * @param out where to write the snapshot
+     */
+    public void write(DataOutput out) throws IOException {
+        writeVarint(out, version);
+        writeVarint(out, worldVersion);
+        writeVarint(out, age);
+        out.writeByte(playerInTurn == null ? -1 : playerInTurn.ordinal());
+        writeVarint(out, size);
+        writeVarint(out, names.length);
+        for (String name : names)
+            out.writeUTF(name);
+        // the included tiles come before the terrain, which has one byte for each of them
+        writeInts(out, tiles);
+        out.writeBytes(terrain);
+        writeInts(out, units);
+        writeInts(out, cities);
+    }
+
+    /**
+     * Reads a snapshot written by write
+     * @param in where to read the snapshot
+     * @return the snapshot
+     */
+    public static WorldSnapshot read(DataInput in) throws IOException {
+        WorldSnapshot snapshot = new WorldSnapshot();
+        snapshot.version = readVarint(in);
+        if (snapshot.version != VERSION)
+            throw new IOException("Unsupported world snapshot version " + snapshot.version);
+        snapshot.worldVersion = readVarint(in);
+        snapshot.age = readVarint(in);
+        byte player = in.readByte();
+        snapshot.playerInTurn = player < 0 ? null : Player.values()[player];
+        snapshot.size = readVarint(in);
+        snapshot.names = new String[readVarint(in)];
+        for (int i = 0; i < snapshot.names.length; i++)
+            snapshot.names[i] = in.readUTF();
+        snapshot.tiles = readInts(in);
+        byte[] terrain = new byte[snapshot.tiles == null ? snapshot.size * snapshot.size : snapshot.tiles.length];
+        in.readFully(terrain);
+        snapshot.terrain = new String(terrain, StandardCharsets.ISO_8859_1);
+        snapshot.units = readInts(in);
+        snapshot.cities = readInts(in);
+        return snapshot;
+    }
+
+    // an array is written as its length + 1, so 0 stands for null
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        if (values == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, values.length + 1);
+        for (int value : values)
+            writeVarint(out, value);
+    }
+
+    private static int[] readInts(DataInput in) throws IOException {
+        int length = readVarint(in) - 1;
+        if (length < 0)
+            return null;
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++)
+            values[i] = readVarint(in);
+        return values;
+    }
+
+    // zigzag encoded, so small negative numbers are short too
+    private static void writeVarint(DataOutput out, int value) throws IOException {
+        int bits = (value << 1) ^ (value >> 31);
+        while ((bits & ~0x7F) != 0) {
+            out.writeByte((bits & 0x7F) | 0x80);
+            bits >>>= 7;
+        }
+        out.writeByte(bits);
+    }
+
+    private static int readVarint(DataInput in) throws IOException {
+        int bits = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            bits |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return (bits >>> 1) ^ -(bits & 1);
+        }
+        throw new IOException("Malformed number in world snapshot");
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getWorldVersion() {
+        return worldVersion;
+    }
+
+    /**
+     * @return true if the snapshot holds every tile, false if it only holds changes
+     */
+    public boolean isComplete() {
+        return tiles == null;
+    }
+
+    /**
+     * @return the positions of the tiles in the snapshot
+     */
+    public List<Position> getPositions() {
+        ArrayList<Position> positions = new ArrayList<>();
+        int count = tiles == null ? size * size : tiles.length;
+        for (int i = 0; i < count; i++) {
+            int index = tiles == null ? i : tiles[i];
+            positions.add(new Position(index / size, index % size));
+        }
+        return positions;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public Player getPlayerInTurn() {
+        return playerInTurn;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Unit getUnitAt(Position p) {
+        TileImpl[][] map = toTileMap();
+        if (p.getRow() < 0 || size <= p.getRow() || p.getColumn() < 0 || size <= p.getColumn())
+            return null;
+        return map[p.getRow()][p.getColumn()].getUnit();
+    }
+
+    public City getCityAt(Position p) {
+        TileImpl[][] map = toTileMap();
+        if (p.getRow() < 0 || size <= p.getRow() || p.getColumn() < 0 || size <= p.getColumn())
+            return null;
+        return map[p.getRow()][p.getColumn()].getCity();
+    }
+
+    /**
+     * Decodes a complete snapshot into a tile map with units and cities.
+     * The objects are copies; changing them does not change the game.
+     * @return the tile map
+     */
+    public TileImpl[][] toTileMap() {
+        if (map != null)
+            return map;
+        if (!isComplete())
+            throw new IllegalStateException("A snapshot of changes has no complete tile map");
+        TileImpl[][] decoded = new TileImpl[size][size];
+        applyTo(decoded);
+        map = decoded;
+        return map;
+    }
+
+    /**
+     * Replaces the tiles in the snapshot in a tile map of the same size
+     * @param target the tile map to update
+     */
+    public void applyTo(TileImpl[][] target) {
+        if (version != VERSION)
+            throw new IllegalStateException("Unsupported world snapshot version " + version);
+
+        int count = tiles == null ? size * size : tiles.length;
+        for (int i = 0; i < count; i++) {
+            int index = tiles == null ? i : tiles[i];
+            Position position = new Position(index / size, index % size);
+            target[position.getRow()][position.getColumn()] =
+                    new TileImpl(position, names[terrain.charAt(i) - '0'], null, null);
+        }
+
+        Player[] players = Player.values();
+        for (int i = 0; i < units.length; i += UNIT_FIELDS) {
+            UnitImpl unit = new UnitImpl(names[units[i + 2]], players[units[i + 1]]);
+            unit.setMoveCount(units[i + 3]);
+            target[units[i] / size][units[i] % size].setUnit(unit);
+        }
+        for (int i = 0; i < cities.length; i += CITY_FIELDS) {
+            Position location = new Position(cities[i] / size, cities[i] % size);
+            CityImpl city = new CityImpl(cities[i + 2], 0, players[cities[i + 1]],
+                    names[cities[i + 3]], names[cities[i + 4]], location);
+            target[location.getRow()][location.getColumn()].setCity(city);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package hotciv.journal;
+
+import hotciv.framework.Command;
+import hotciv.framework.Position;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of the commands given to a game since its world was last saved.
+ *
+ * The file starts with a magic number, the version of the format and the checksum of the
+ * saved world the commands follow. Each entry is its length, the command and the numbers
+ * rolled while carrying it out, and a CRC32 of the entry, so an entry cut short by a crash
+ * is recognized and left out when the journal is read.
+ *
+ * Appended entries are written to the file at once, and forced to the disk in groups:
+ * when a batch of entries is waiting, when the oldest waiting entry has waited for the
+ * longest delay, or when sync is called. A crash loses at most the entries not yet forced.
+ */
+public class CommandJournal implements Closeable {
+    // "HCJL"
+    public static final int MAGIC = 0x48434A4C;
+    // Increment when the format changes
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 10;
+
+    private static final Command.Type[] TYPES = Command.Type.values();
+
+    private final FileChannel channel;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private final CRC32 crc = new CRC32();
+    private long appended;
+    private long durable;
+    private long syncs;
+
+    /**
+     * Starts a new journal, replacing any journal in the file
+     * @param file the journal
+     * @param worldChecksum the checksum of the saved world the commands follow
+     * @param batchSize the number of waiting entries forced to the disk together
+     * @param maxDelayMillis the longest time an entry waits to be forced, or 0 to wait for a full batch or sync
+     */
+    public CommandJournal(Path file, int worldChecksum, int batchSize, long maxDelayMillis) throws IOException {
+        this.batchSize = batchSize;
+        // the header is in place before the file replaces the old journal
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel header = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE);
+            bytes.putInt(MAGIC).putShort((short) VERSION).putInt(worldChecksum).flip();
+            while (bytes.hasRemaining())
+                header.write(bytes);
+            header.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        if (maxDelayMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+        } else
+            flusher = null;
+    }
+
+    /**
+     * Appends an entry, forcing the waiting entries to the disk if a batch is waiting
+     */
+    public synchronized void append(Command command, int[] rolls) throws IOException {
+        buffer.clear();
+        buffer.putInt(0); // the length, when it is known
+        buffer.put((byte) command.getType().ordinal());
+        putPosition(command.getPosition());
+        putPosition(command.getTo());
+        if (command.getValue() == null)
+            buffer.putShort((short) -1);
+        else {
+            byte[] value = command.getValue().getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) value.length).put(value);
+        }
+        buffer.putShort((short) rolls.length);
+        for (int roll : rolls)
+            buffer.put((byte) roll);
+        int length = buffer.position() - 4;
+        buffer.putInt(0, length);
+        crc.reset();
+        crc.update(buffer.array(), 4, length);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        appended++;
+        if (appended - durable >= batchSize)
+            sync();
+    }
+
+    private void putPosition(Position p) {
+        if (p == null)
+            buffer.put((byte) 0);
+        else
+            buffer.put((byte) 1).putInt(p.getRow()).putInt(p.getColumn());
+    }
+
+    /**
+     * Forces the entries appended so far to the disk
+     */
+    public synchronized void sync() throws IOException {
+        if (durable == appended)
+            return;
+        channel.force(false);
+        durable = appended;
+        syncs++;
+    }
+
+    private void flushQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // the next append or sync will fail the same way and tell the game
+        }
+    }
+
+    public synchronized long getAppended() {
+        return appended;
+    }
+
+    /**
+     * @return the number of entries forced to the disk
+     */
+    public synchronized long getDurable() {
+        return durable;
+    }
+
+    /**
+     * @return the number of times the journal has been forced to the disk
+     */
+    public synchronized long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * Forces the waiting entries to the disk and closes the journal
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null)
+            flusher.shutdown();
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * The commands of a journal and the saved world they follow
+     */
+    public static class Contents {
+        private final int worldChecksum;
+        private final List<JournalEntry> entries;
+
+        Contents(int worldChecksum, List<JournalEntry> entries) {
+            this.worldChecksum = worldChecksum;
+            this.entries = entries;
+        }
+
+        public int getWorldChecksum() {
+            return worldChecksum;
+        }
+
+        public List<JournalEntry> getEntries() {
+            return entries;
+        }
+    }
+
+    /**
+     * Reads the entries of a journal, up to the first entry that was cut short or damaged
+     * @return the contents, or null if there is no journal
+     * @throws IOException if the file cannot be read or is not a journal of a known version
+     */
+    public static Contents read(Path file) throws IOException {
+        ByteBuffer bytes;
+        try {
+            bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (bytes.remaining() < HEADER_SIZE || bytes.getInt() != MAGIC)
+            throw new IOException("Not a journal");
+        int version = bytes.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported journal version " + version);
+        int worldChecksum = bytes.getInt();
+
+        List<JournalEntry> entries = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        while (bytes.remaining() >= 4) {
+            int length = bytes.getInt();
+            if (length <= 0 || bytes.remaining() < length + 4)
+                break; // cut short
+            int start = bytes.position();
+            crc.reset();
+            crc.update(bytes.array(), start, length);
+            if (bytes.getInt(start + length) != (int) crc.getValue())
+                break; // damaged
+            entries.add(readEntry(bytes));
+            bytes.position(start + length + 4);
+        }
+        return new Contents(worldChecksum, entries);
+    }
+
+    private static JournalEntry readEntry(ByteBuffer bytes) {
+        Command.Type type = TYPES[bytes.get()];
+        Position position = readPosition(bytes);
+        Position to = readPosition(bytes);
+        String value = null;
+        int valueLength = bytes.getShort();
+        if (valueLength >= 0) {
+            byte[] utf8 = new byte[valueLength];
+            bytes.get(utf8);
+            value = new String(utf8, StandardCharsets.UTF_8);
+        }
+        int[] rolls = new int[bytes.getShort()];
+        for (int i = 0; i < rolls.length; i++)
+            rolls[i] = bytes.get();
+        return new JournalEntry(new Command(type, position, to, value), rolls);
+    }
+
+    private static Position readPosition(ByteBuffer bytes) {
+        if (bytes.get() == 0)
+            return null;
+        return new Position(bytes.getInt(), bytes.getInt());
+    }
+}
@@ -0,0 +1,60 @@
+package hotciv.journal;
+
+import hotciv.standard.random.RandomStrategy;
+
+import java.util.Arrays;
+
+/**
+ * The die of a journaled game. It rolls the die it is given and remembers the numbers
+ * rolled since they were last taken, so they are journaled with the command rolling
+ * them. When replaying, the numbers queued from the journal are rolled first.
+ */
+public class JournalDie implements RandomStrategy {
+    private final RandomStrategy die;
+    private int[] rolled = new int[8];
+    private int count;
+    private int[] queue = new int[0];
+    private int next;
+
+    /**
+     * @param die the die to roll once the queued numbers are used up
+     */
+    public JournalDie(RandomStrategy die) {
+        this.die = die;
+    }
+
+    @Override
+    public int getNext() {
+        int roll = next < queue.length ? queue[next++] : die.getNext();
+        if (count == rolled.length)
+            rolled = Arrays.copyOf(rolled, 2 * count);
+        rolled[count++] = roll;
+        return roll;
+    }
+
+    /**
+     * @return the numbers rolled since the last time they were taken
+     */
+    public int[] take() {
+        int[] rolls = Arrays.copyOf(rolled, count);
+        count = 0;
+        return rolls;
+    }
+
+    /**
+     * Makes the die roll these numbers next, as they were rolled before
+     */
+    public void queue(int[] rolls) {
+        int[] remaining = Arrays.copyOfRange(queue, next, queue.length);
+        queue = Arrays.copyOf(remaining, remaining.length + rolls.length);
+        System.arraycopy(rolls, 0, queue, remaining.length, rolls.length);
+        next = 0;
+    }
+
+    /**
+     * @return the number of queued numbers not yet rolled
+     */
+    public int getQueued() {
+        return queue.length - next;
+    }
+}
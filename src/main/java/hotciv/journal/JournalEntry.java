@@ -0,0 +1,24 @@
+package hotciv.journal;
+
+import hotciv.framework.Command;
+
+/**
+ * A command given to a game, and the numbers rolled by the die while it was carried out
+ */
+public class JournalEntry {
+    private final Command command;
+    private final int[] rolls;
+
+    public JournalEntry(Command command, int[] rolls) {
+        this.command = command;
+        this.rolls = rolls;
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+
+    public int[] getRolls() {
+        return rolls;
+    }
+}
@@ -0,0 +1,240 @@
+package hotciv.journal;
+
+import hotciv.framework.*;
+import hotciv.standard.GameImpl;
+import hotciv.standard.TileImpl;
+import hotciv.standard.factory.StrategyFactory;
+import hotciv.standard.random.RandomStrategy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A game that journals every accepted command, with the numbers the die rolled for it,
+ * before telling the caller the command is done. Together with the world saved at the
+ * last checkpoint, the journal is enough to rebuild the game after a crash, see recover.
+ *
+ * A move is journaled when the unit moved or fought; a move refused without a fight
+ * changes nothing. A move along a path is journaled as one command, as the route is
+ * found again when it is replayed. The other commands are always journaled. The variant must roll the
+ * die of the game, which it is given when the game is made.
+ *
+ * A journaled game is used by one thread at a time, like the game it decorates. Failing
+ * to write the journal is reported as an UncheckedIOException.
+ */
+public class JournaledGame implements Game, Closeable {
+    private final GameImpl game;
+    private final JournalDie die;
+    private final Path snapshot;
+    private final Path journalFile;
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private CommandJournal journal;
+
+    /**
+     * Journals a game, starting with a checkpoint
+     * @param game the game, playing with the die
+     * @param die the die of the game
+     * @param snapshot the file the world is saved to at a checkpoint
+     * @param journal the file the commands are journaled to
+     * @param batchSize the number of journaled commands forced to the disk together
+     * @param maxDelayMillis the longest time a journaled command waits to be forced to the disk,
+     *                       or 0 to wait for a full batch or a checkpoint
+     */
+    public JournaledGame(GameImpl game, JournalDie die, Path snapshot, Path journal, int batchSize,
+                         long maxDelayMillis) throws IOException {
+        this.game = game;
+        this.die = die;
+        this.snapshot = snapshot;
+        this.journalFile = journal;
+        this.batchSize = batchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        checkpoint();
+    }
+
+    /**
+     * Starts a new journaled game of a variant
+     * @param variant makes the factory of the variant from the die of the game
+     * @param die the die to roll
+     */
+    public static JournaledGame start(Function<RandomStrategy, StrategyFactory> variant, RandomStrategy die,
+                                      Path snapshot, Path journal, int batchSize, long maxDelayMillis) throws IOException {
+        JournalDie journalDie = new JournalDie(die);
+        return new JournaledGame(new GameImpl(variant.apply(journalDie)), journalDie, snapshot, journal,
+                batchSize, maxDelayMillis);
+    }
+
+    /**
+     * Rebuilds a game after a crash from the world saved at the last checkpoint and the
+     * commands journaled after it, and goes on journaling it from a new checkpoint. A
+     * journal of an older saved world is left out, as the crash came in the middle of a
+     * checkpoint and the saved world holds all of its commands.
+     * @throws IOException if the saved world or the journal cannot be read
+     */
+    public static JournaledGame recover(Function<RandomStrategy, StrategyFactory> variant, RandomStrategy die,
+                                        Path snapshot, Path journal, int batchSize, long maxDelayMillis) throws IOException {
+        JournalDie journalDie = new JournalDie(die);
+        GameImpl game = GameImpl.load(variant.apply(journalDie), snapshot);
+        CommandJournal.Contents contents = CommandJournal.read(journal);
+        if (contents != null && contents.getWorldChecksum() == WorldFile.checksumOf(snapshot)) {
+            List<JournalEntry> entries = contents.getEntries();
+            for (int i = 0; i < entries.size(); i++)
+                Replay.apply(game, journalDie, entries.get(i), i);
+        }
+        return new JournaledGame(game, journalDie, snapshot, journal, batchSize, maxDelayMillis);
+    }
+
+    /**
+     * Saves the world and starts an empty journal following it
+     */
+    public void checkpoint() throws IOException {
+        if (journal != null)
+            journal.close();
+        WorldFile.save(game.getWorld(), snapshot);
+        journal = new CommandJournal(journalFile, WorldFile.checksumOf(snapshot), batchSize, maxDelayMillis);
+    }
+
+    /**
+     * Forces the journaled commands to the disk
+     */
+    public void sync() throws IOException {
+        journal.sync();
+    }
+
+    public CommandJournal getJournal() {
+        return journal;
+    }
+
+    public GameImpl getGame() {
+        return game;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private void record(Command command) {
+        try {
+            journal.append(command, die.take());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A command of a batch, which keeps the dice it rolled for the journal
+     */
+    private class JournaledCommand extends Command {
+        // the rolls of the command, or null if it is not journaled
+        private int[] rolls;
+
+        JournaledCommand(Command command) {
+            super(command.getType(), command.getPosition(), command.getTo(), command.getValue());
+        }
+
+        @Override
+        public boolean executeOn(Game game) {
+            boolean result = super.executeOn(game);
+            int[] rolls = die.take();
+            boolean move = getType() == Type.MOVE_UNIT || getType() == Type.MOVE_UNIT_ALONG_PATH;
+            if (result || !move || rolls.length > 0)
+                this.rolls = rolls;
+            return result;
+        }
+    }
+
+    // === Mutator methods, journaled ===
+
+    public boolean moveUnit(Position from, Position to) {
+        die.take();
+        boolean moved = game.moveUnit(from, to);
+        int[] rolls = die.take();
+        if (moved || rolls.length > 0) {
+            try {
+                journal.append(Command.moveUnit(from, to), rolls);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return moved;
+    }
+
+    public Position moveUnitAlongPath(Position from, Position to) {
+        die.take();
+        Position at = game.moveUnitAlongPath(from, to);
+        int[] rolls = die.take();
+        if (!from.equals(at) || rolls.length > 0) {
+            try {
+                journal.append(Command.moveUnitAlongPath(from, to), rolls);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return at;
+    }
+
+    public void endOfTurn() {
+        die.take();
+        game.endOfTurn();
+        record(Command.endOfTurn());
+    }
+
+    public void changeWorkForceFocusInCityAt(Position p, String balance) {
+        die.take();
+        game.changeWorkForceFocusInCityAt(p, balance);
+        record(Command.changeWorkForceFocusInCityAt(p, balance));
+    }
+
+    public void changeProductionInCityAt(Position p, String unitType) {
+        die.take();
+        game.changeProductionInCityAt(p, unitType);
+        record(Command.changeProductionInCityAt(p, unitType));
+    }
+
+    public void performUnitActionAt(Position p) {
+        die.take();
+        game.performUnitActionAt(p);
+        record(Command.performUnitActionAt(p));
+    }
+
+    public boolean[] submitBatch(List<Command> commands) {
+        die.take();
+        List<JournaledCommand> journaled = new ArrayList<>(commands.size());
+        for (Command command : commands)
+            journaled.add(new JournaledCommand(command));
+        // a batch that fails is taken back, so the commands are journaled once all are applied
+        boolean[] results = game.submitBatch(Collections.unmodifiableList(journaled));
+        try {
+            for (JournaledCommand command : journaled)
+                if (command.rolls != null)
+                    journal.append(command, command.rolls);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return results;
+    }
+
+    // === Everything else is the game's ===
+
+    public Tile getTileAt(Position p) { return game.getTileAt(p); }
+    public Unit getUnitAt(Position p) { return game.getUnitAt(p); }
+    public City getCityAt(Position p) { return game.getCityAt(p); }
+    public Player getPlayerInTurn() { return game.getPlayerInTurn(); }
+    public Player getWinner() { return game.getWinner(); }
+    public int getAge() { return game.getAge(); }
+    public void addObserver(GameObserver observer) { game.addObserver(observer); }
+    public void setTileFocus(Position position) { game.setTileFocus(position); }
+    public void requestUpdate() { game.requestUpdate(); }
+    public ArrayList<String> getAvailableUnits() { return game.getAvailableUnits(); }
+    public TileImpl[][] getTileMap() { return game.getTileMap(); }
+    public WorldSnapshot getWorldSnapshot() { return game.getWorldSnapshot(); }
+    public WorldSnapshot getWorldChangesSince(int worldVersion) { return game.getWorldChangesSince(worldVersion); }
+    public long getStateHash() { return game.getStateHash(); }
+}
@@ -0,0 +1,59 @@
+package hotciv.journal;
+
+import hotciv.framework.WorldFile;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.StrategyFactory;
+import hotciv.standard.random.RandomStrategy;
+import hotciv.standard.random.ReplayedDieRoll;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Plays the commands of a journal on the world saved before them, as fast as they can be
+ * carried out, for finding out how a game came to be as it is. The die rolls only the
+ * journaled numbers, so the replay stops with an IllegalStateException where it does not
+ * play out as the game did.
+ */
+public class Replay {
+    private Replay() {
+    }
+
+    /**
+     * Replays the first entries of a journal
+     * @param variant makes the factory of the variant from the die of the game
+     * @param snapshot the world saved at the checkpoint the journal follows
+     * @param journal the journal
+     * @param entries the number of entries to replay, at most
+     * @return the game after the entries
+     * @throws IOException if the files cannot be read, or the journal follows another saved world
+     */
+    public static GameImpl replay(Function<RandomStrategy, StrategyFactory> variant, Path snapshot, Path journal,
+                                  int entries) throws IOException {
+        CommandJournal.Contents contents = CommandJournal.read(journal);
+        if (contents == null)
+            throw new IOException("There is no journal " + journal);
+        if (contents.getWorldChecksum() != WorldFile.checksumOf(snapshot))
+            throw new IOException("The journal does not follow the saved world");
+        JournalDie die = new JournalDie(new ReplayedDieRoll(new int[0]));
+        GameImpl game = GameImpl.load(variant.apply(die), snapshot);
+        List<JournalEntry> journaled = contents.getEntries();
+        for (int i = 0; i < Math.min(entries, journaled.size()); i++)
+            apply(game, die, journaled.get(i), i);
+        return game;
+    }
+
+    /**
+     * Carries out a journaled command, rolling the numbers it rolled
+     * @throws IllegalStateException if the command rolls fewer numbers than it did
+     */
+    static void apply(GameImpl game, JournalDie die, JournalEntry entry, int number) {
+        die.queue(entry.getRolls());
+        entry.getCommand().executeOn(game);
+        die.take();
+        if (die.getQueued() > 0)
+            throw new IllegalStateException("Entry " + number + " of the journal does not play out as it did");
+    }
+}
@@ -0,0 +1,76 @@
+package hotciv.simulation;
+
+import hotciv.framework.Player;
+
+import java.util.Objects;
+
+/**
+ * How a simulated game ended
+ */
+public class GameOutcome {
+    private final long seed;
+    private final Player winner;
+    private final int rounds;
+    private final int combats;
+    private final int age;
+
+    public GameOutcome(long seed, Player winner, int rounds, int combats, int age) {
+        this.seed = seed;
+        this.winner = winner;
+        this.rounds = rounds;
+        this.combats = combats;
+        this.age = age;
+    }
+
+    /**
+     * @return the seed the game was played with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the winner, or null if nobody had won when the rounds ran out
+     */
+    public Player getWinner() {
+        return winner;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return the number of attacks on enemy units, won or lost
+     */
+    public int getCombats() {
+        return combats;
+    }
+
+    /**
+     * @return the age of the world when the game ended
+     */
+    public int getAge() {
+        return age;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GameOutcome that = (GameOutcome) o;
+        return seed == that.seed && winner == that.winner && rounds == that.rounds
+                && combats == that.combats && age == that.age;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seed, winner, rounds, combats, age);
+    }
+
+    @Override
+    public String toString() {
+        return "seed " + seed + ": " + (winner == null ? "no winner" : winner + " won") + " after " + rounds
+                + " rounds and " + combats + " combats, age " + age;
+    }
+}
@@ -0,0 +1,63 @@
+package hotciv.simulation;
+
+import hotciv.framework.*;
+import hotciv.standard.CityImpl;
+import hotciv.standard.GameImpl;
+import hotciv.standard.UnitImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A player who moves every unit to a random neighboring tile, now and then has a unit
+ * perform its action, and now and then changes what a city produces. The same seed
+ * gives the same orders in the same game.
+ */
+public class RandomPlayer implements SimulatedPlayer {
+    // the chances, in percent, of a unit acting instead of moving and of a city changing production
+    private static final int ACTION = 5;
+    private static final int CHANGE_PRODUCTION = 10;
+
+    private final SplittableRandom random;
+    // the tiles of the units to move this turn, kept from turn to turn
+    private int[] units = new int[16];
+
+    public RandomPlayer(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public int playTurn(GameImpl game) {
+        World world = game.getWorld();
+        TileStore tiles = world.getTiles();
+        Neighborhood neighborhood = tiles.getNeighborhood();
+        Player player = game.getPlayerInTurn();
+
+        List<String> available = game.getAvailableUnits();
+        for (Map.Entry<Integer, CityImpl> entry : world.getCitiesOf(player).entrySet())
+            if (random.nextInt(100) < CHANGE_PRODUCTION)
+                game.changeProductionInCityAt(tiles.positionOf(entry.getKey()),
+                        available.get(random.nextInt(available.size())));
+
+        // the units are moved from a copy of their tiles, as moving changes the units of the player
+        Map<Integer, UnitImpl> owned = world.getUnitsOf(player);
+        if (units.length < owned.size())
+            units = new int[2 * owned.size()];
+        int count = 0;
+        for (int index : owned.keySet())
+            units[count++] = index;
+
+        int combats = 0;
+        for (int i = 0; i < count; i++) {
+            Position from = tiles.positionOf(units[i]);
+            if (random.nextInt(100) < ACTION) {
+                game.performUnitActionAt(from);
+                continue;
+            }
+            int to = neighborhood.neighbor(units[i], 1 + random.nextInt(Neighborhood.SIZE - 1));
+            if (to >= 0 && SimulatedPlayer.moveUnit(game, from, tiles.positionOf(to)))
+                combats++;
+        }
+        return combats;
+    }
+}
@@ -0,0 +1,36 @@
+package hotciv.simulation;
+
+import hotciv.framework.Command;
+import hotciv.standard.GameImpl;
+
+import java.util.List;
+
+/**
+ * A player who gives the same orders in every game: the commands of a turn are given in
+ * order, and after the last scripted turn the player gives no orders.
+ */
+public class ScriptedPlayer implements SimulatedPlayer {
+    private final List<List<Command>> turns;
+    private int turn;
+
+    /**
+     * @param turns the commands of each turn of the player
+     */
+    public ScriptedPlayer(List<List<Command>> turns) {
+        this.turns = turns;
+    }
+
+    public int playTurn(GameImpl game) {
+        if (turn >= turns.size())
+            return 0;
+        int combats = 0;
+        for (Command command : turns.get(turn++)) {
+            if (command.getType() == Command.Type.MOVE_UNIT) {
+                if (SimulatedPlayer.moveUnit(game, command.getPosition(), command.getTo()))
+                    combats++;
+            } else
+                command.executeOn(game);
+        }
+        return combats;
+    }
+}
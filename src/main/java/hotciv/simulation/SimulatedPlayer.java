@@ -0,0 +1,37 @@
+package hotciv.simulation;
+
+import hotciv.framework.Position;
+import hotciv.framework.Unit;
+import hotciv.standard.GameImpl;
+
+/**
+ * A player in a simulated game, who gives the orders of a turn. A player is made for one
+ * game and is only called by the thread playing it.
+ */
+public interface SimulatedPlayer {
+    /**
+     * Gives the orders of the player in turn, without ending the turn
+     * @param game the game
+     * @return the number of combats fought, won or lost
+     */
+    int playTurn(GameImpl game);
+
+    /**
+     * Moves a unit of the player in turn
+     * @return whether the unit attacked an enemy unit, winning or losing
+     */
+    static boolean moveUnit(GameImpl game, Position from, Position to) {
+        Unit defender = game.getUnitAt(to);
+        boolean enemy = defender != null && defender.getOwner() != game.getPlayerInTurn();
+        boolean moved = game.moveUnit(from, to);
+        // a lost combat removes the attacker, any other failed move leaves it where it was
+        return enemy && (moved || game.getUnitAt(from) == null);
+    }
+
+    /**
+     * @return a player that gives no orders
+     */
+    static SimulatedPlayer idle() {
+        return game -> 0;
+    }
+}
@@ -0,0 +1,120 @@
+package hotciv.simulation;
+
+import hotciv.framework.Player;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.StrategyFactory;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Plays complete games without a user interface, one game for each seed in a range, on
+ * all the threads of a fork join pool. A game is played until somebody wins or the
+ * rounds run out.
+ *
+ * Everything random in a game is made from its seed: the seed is split into seeds for
+ * the variant and for each player, so a game plays out the same every time, whichever
+ * thread plays it. Give the variants their seed through the factories, such as
+ * <code>new Simulation(SemiFactory::new, RandomPlayer::new, RandomPlayer::new, 100)</code>,
+ * or ignore it for the variants without randomness, <code>seed -> new AlphaFactory()</code>.
+ *
+ * A simulation given its own number of threads has a pool of its own, which close shuts down.
+ */
+public class Simulation implements AutoCloseable {
+    private final LongFunction<StrategyFactory> variant;
+    private final LongFunction<SimulatedPlayer> red;
+    private final LongFunction<SimulatedPlayer> blue;
+    private final int maxRounds;
+    private final ForkJoinPool pool;
+    // whether the pool was made for the simulation, so it is shut down on close
+    private final boolean ownsPool;
+
+    /**
+     * Plays on the common fork join pool, with a thread for each core
+     */
+    public Simulation(LongFunction<StrategyFactory> variant, LongFunction<SimulatedPlayer> red,
+                      LongFunction<SimulatedPlayer> blue, int maxRounds) {
+        this(variant, red, blue, maxRounds, ForkJoinPool.commonPool(), false);
+    }
+
+    /**
+     * @param variant makes the factory of a game from a seed
+     * @param red makes the red player of a game from a seed
+     * @param blue makes the blue player of a game from a seed
+     * @param maxRounds the number of rounds after which a game ends without a winner
+     * @param parallelism the number of games played at a time, on a pool of the simulation's own
+     */
+    public Simulation(LongFunction<StrategyFactory> variant, LongFunction<SimulatedPlayer> red,
+                      LongFunction<SimulatedPlayer> blue, int maxRounds, int parallelism) {
+        this(variant, red, blue, maxRounds, new ForkJoinPool(parallelism), true);
+    }
+
+    private Simulation(LongFunction<StrategyFactory> variant, LongFunction<SimulatedPlayer> red,
+                       LongFunction<SimulatedPlayer> blue, int maxRounds, ForkJoinPool pool, boolean ownsPool) {
+        this.variant = variant;
+        this.red = red;
+        this.blue = blue;
+        this.maxRounds = maxRounds;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * Plays a game for each seed
+     * @param fromSeed the first seed
+     * @param toSeed the seed after the last one
+     * @return the outcomes in the order of the seeds
+     */
+    public List<GameOutcome> run(long fromSeed, long toSeed) {
+        try {
+            return pool.submit(() -> LongStream.range(fromSeed, toSeed).parallel()
+                    .mapToObj(this::play)
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The simulation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A simulated game failed", e.getCause());
+        }
+    }
+
+    /**
+     * Plays the game of a seed on the calling thread
+     */
+    public GameOutcome play(long seed) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        GameImpl game = new GameImpl(variant.apply(seeds.nextLong()));
+        SimulatedPlayer redPlayer = red.apply(seeds.nextLong());
+        SimulatedPlayer bluePlayer = blue.apply(seeds.nextLong());
+
+        int combats = 0;
+        int rounds = 0;
+        while (game.getWinner() == null && rounds < maxRounds) {
+            combats += redPlayer.playTurn(game);
+            game.endOfTurn();
+            combats += bluePlayer.playTurn(game);
+            game.endOfTurn();
+            rounds++;
+        }
+        Player winner = game.getWinner();
+        return new GameOutcome(seed, winner, rounds, combats, game.getAge());
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Stops the threads of the simulation's own pool, once the games running are played; a
+     * simulation on the common pool leaves it running
+     */
+    public void close() {
+        if (ownsPool)
+            pool.shutdown();
+    }
+}
@@ -15,7 +15,7 @@ public class CityImpl implements City {
     private int productionCost;
     private int food;
     private Position location;
-    private String id = UUID.randomUUID().toString();
+    private String id;
 
     public String getId() {
         return id;
@@ -33,6 +33,30 @@ public class CityImpl implements City {
         productionValue = 0;
         setProduction(production);
         this.location = loc;
+        id = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Copies a city, for a forked game to change; the copy keeps the id of the city
+     */
+    public CityImpl(CityImpl city) {
+        copyFrom(city);
+    }
+
+    /**
+     * Makes this city the same as another, for undoing changes to it
+     */
+    public void copyFrom(CityImpl city) {
+        size = city.size;
+        treasury = city.treasury;
+        owner = city.owner;
+        production = city.production;
+        workforceFocus = city.workforceFocus;
+        productionValue = city.productionValue;
+        productionCost = city.productionCost;
+        food = city.food;
+        location = city.location;
+        id = city.id;
     }
 
     @Override
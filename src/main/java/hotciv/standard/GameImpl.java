@@ -3,6 +3,7 @@ package hotciv.standard;
 import hotciv.framework.*;
 import hotciv.standard.age.*;
 import hotciv.standard.availableUnit.AvailableUnitStrategy;
+import hotciv.standard.endOfRound.EndOfRoundStrategy;
 import hotciv.standard.resolveAttack.ResolveAttackStrategy;
 import hotciv.standard.unitAction.*;
 import hotciv.standard.unitMovementDistinction.UnitMovementDistinctionStrategy;
@@ -10,7 +11,13 @@ import hotciv.standard.victoryStrategy.*;
 import hotciv.standard.workforce.WorkforceStrategy;
 import hotciv.standard.factory.StrategyFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class GameImpl implements Game {
     private AgeStrategy worldAgeStrategy;
@@ -20,9 +27,21 @@ public class GameImpl implements Game {
     private WorkforceStrategy workforceStrategy;
     private UnitMovementDistinctionStrategy unitMovementDistinctionStrategy;
     private AvailableUnitStrategy availableUnitsStrategy;
+    private EndOfRoundStrategy endOfRoundStrategy;
     private ArrayList<GameObserver> observers = new ArrayList<>();
+    // collects the changes while a batch is submitted, or null
+    private ChangeCollector batch;
+    private World world;
 
     public GameImpl(StrategyFactory strategy) {
+        this(strategy, (World) null);
+    }
+
+    /**
+     * Creates a game played in a world, such as one rebuilt from a snapshot
+     * @param world the world of the game, or null for a new world from the layout of the variant
+     */
+    public GameImpl(StrategyFactory strategy, World world) {
         worldAgeStrategy = strategy.createAgeStrategy();
         winCondition = strategy.createVictoryStrategy();
         unitActionStrategy = strategy.createActionStrategy();
@@ -30,29 +49,117 @@ public class GameImpl implements Game {
         workforceStrategy = strategy.createWorkforceStrategy();
         unitMovementDistinctionStrategy = strategy.createUnitMovementDistinctionStrategy();
         availableUnitsStrategy = strategy.createAvailableUnitStrategy();
-        World.setMap(strategy.createLayoutStrategy().getLayout());
-        GameVariables.initialize();
+        endOfRoundStrategy = strategy.createEndOfRoundStrategy();
+        this.world = world != null ? world : new World(strategy.createLayoutStrategy().getLayout());
+    }
+
+    /**
+     * @param parent the game forked, whose strategies are shared
+     */
+    private GameImpl(GameImpl parent) {
+        worldAgeStrategy = parent.worldAgeStrategy;
+        winCondition = parent.winCondition;
+        unitActionStrategy = parent.unitActionStrategy;
+        attackStrategy = parent.attackStrategy;
+        workforceStrategy = parent.workforceStrategy;
+        unitMovementDistinctionStrategy = parent.unitMovementDistinctionStrategy;
+        availableUnitsStrategy = parent.availableUnitsStrategy;
+        endOfRoundStrategy = parent.endOfRoundStrategy;
+        world = parent.world.fork();
+    }
+
+    /**
+     * Forks the game in constant time, for looking ahead. The fork is played independently
+     * of this game and shares everything neither has changed, see TileStore.fork. It has no
+     * observers, and shares the strategies of this game, so a die is rolled by both; fork
+     * with a factory of its own die to keep the rolls of this game apart.
+     * Forking changes this game, so it is done by the thread playing it.
+     * @return a game in the same state as this one
+     */
+    public GameImpl fork() {
+        return new GameImpl(this);
+    }
+
+    /**
+     * Forks the game in constant time with strategies of its own, see fork()
+     * @param strategy the variant of this game, such as a factory with a die of its own
+     */
+    public GameImpl fork(StrategyFactory strategy) {
+        return new GameImpl(strategy, world.fork());
+    }
+
+    /**
+     * Copies the game with strategies of its own, for looking ahead without forking this
+     * game, see World.copy
+     * @param strategy the variant of this game, such as a factory with a die of its own
+     */
+    public GameImpl copy(StrategyFactory strategy) {
+        return new GameImpl(strategy, world.copy());
+    }
+
+    /**
+     * Starts or stops recording the commands of the game, so a search can play a command and
+     * take it back with undo. Every command changing the game is recorded, including the
+     * ones that fail, so a command is always taken back by one undo. Recording costs an
+     * undo record per change and allocates nothing once the search has reached its depth;
+     * see UndoLog.
+     */
+    public void setUndoRecording(boolean recording) {
+        world.setUndoRecording(recording);
+    }
+
+    /**
+     * Takes back the last command recorded, restoring the units, cities, terrain and round
+     * based state to what they were before it. A die rolled by the command is not rolled back.
+     * @return false if there is no command to take back
+     */
+    public boolean undo() {
+        return world.undo();
+    }
+
+    /**
+     * @return the number of commands undo can take back
+     */
+    public int getUndoableCommands() {
+        return world.getUndoableCommands();
     }
 
     public GameImpl(StrategyFactory strategy, String[][] customLayout) {
         this(strategy);
-        World.setMap(customLayout);
+        world.setMap(customLayout);
+    }
+
+    /**
+     * Restores a game saved with save
+     * @param strategy the variant the game was played in
+     * @param file the saved game
+     * @throws IOException if the file cannot be read or is not a saved game
+     */
+    public static GameImpl load(StrategyFactory strategy, Path file) throws IOException {
+        return new GameImpl(strategy, WorldFile.load(file));
+    }
+
+    /**
+     * Saves the map, the units, the cities and the round based state of the game, to be restored with load
+     */
+    public void save(Path file) throws IOException {
+        WorldFile.save(world, file);
     }
 
     public Tile getTileAt(Position p) {
-        return World.getTileAt(p);
+        return world.getTileAt(p);
     }
 
     public Unit getUnitAt(Position p) {
-        return World.getUnitAt(p);
+        return world.getUnitAt(p);
     }
 
     public City getCityAt(Position p) {
-        return World.getCityAt(p);
+        return world.getCityAt(p);
     }
 
     public Player getPlayerInTurn() {
-        return GameVariables.currentPlayer;
+        return world.getVariables().getCurrentPlayer();
     }
 
     /**
@@ -60,17 +167,17 @@ public class GameImpl implements Game {
      * @return the winner
      */
     public Player getWinner() {
-        return GameVariables.winner;
+        return world.getVariables().getWinner();
     }
 
     /**
      * Checks and updates the winner if either blue or red has won
      */
     private void updateWinner() {
-        if (winCondition.checkVictory(Player.RED))
-            GameVariables.winner = Player.RED;
-        else if (winCondition.checkVictory(Player.BLUE))
-            GameVariables.winner = Player.BLUE;
+        if (winCondition.checkVictory(world, Player.RED))
+            world.getVariables().setWinner(Player.RED);
+        else if (winCondition.checkVictory(world, Player.BLUE))
+            world.getVariables().setWinner(Player.BLUE);
     }
 
     /**
@@ -78,7 +185,7 @@ public class GameImpl implements Game {
      * @return the world age
      */
     public int getAge() {
-        return GameVariables.age;
+        return world.getVariables().getAge();
     }
 
     public UnitImpl createUnit(String type, Player owner){
@@ -87,32 +194,72 @@ public class GameImpl implements Game {
     }
 
     public boolean setProduction(String production, CityImpl city){
+         world.beginCommand();
          if(! availableUnitsStrategy.validUnitType(production))
              return false;
-         city.setProduction(production);
-         Utility.notifyWorldChange(city.getLocation(), observers);
+         world.getCityForWrite(city.getLocation()).setProduction(production);
+         notifyWorldChange(city.getLocation());
          return true;
     }
 
     public boolean moveUnit(Position from, Position to) {
-        boolean hasMoved = World.moveUnit(from, to, attackStrategy, unitMovementDistinctionStrategy);
-        Utility.notifyWorldChange(from, observers);
-        Utility.notifyWorldChange(to, observers);
+        world.beginCommand();
+        boolean hasMoved = world.moveUnit(from, to, attackStrategy, unitMovementDistinctionStrategy);
+        Utility.notifyWorldChange(from, listeners());
+        Utility.notifyWorldChange(to, listeners());
         return hasMoved;
     }
 
+    /**
+     * Finds a shortest route for the unit at from, going around other units
+     * @return the tiles of the route after from, or null if there is none
+     */
+    public List<Position> findPath(Position from, Position to) {
+        return world.findPath(from, to, unitMovementDistinctionStrategy);
+    }
+
+    public Position moveUnitAlongPath(Position from, Position to) {
+        if (!world.contains(from))
+            return from;
+        world.beginCommand();
+        List<Position> path = world.findPath(from, to, unitMovementDistinctionStrategy);
+        Position at = from;
+        if (path != null) {
+            for (Position next : path) {
+                if (world.getUnitAt(at).getMoveCount() == 0)
+                    break;
+                if (!world.moveUnit(at, next, attackStrategy, unitMovementDistinctionStrategy)) {
+                    // a lost fight removes the unit, any other failed move leaves it where it was
+                    if (world.getUnitAt(at) == null) {
+                        Utility.notifyWorldChange(from, listeners());
+                        Utility.notifyWorldChange(at, listeners());
+                        return null;
+                    }
+                    break;
+                }
+                at = next;
+            }
+        }
+        Utility.notifyWorldChange(from, listeners());
+        if (!at.equals(from))
+            Utility.notifyWorldChange(at, listeners());
+        return at;
+    }
+
     /**
      * Ends the turn for the current player. If that player is blue, endOfRound effects are resolved.
      */
     public void endOfTurn() {
-        if (GameVariables.currentPlayer == Player.RED) {
-            GameVariables.setCurrentPlayer(Player.BLUE);
-            Utility.notifyTurnChange(GameVariables.currentPlayer, observers);
+        world.beginCommand();
+        GameVariables variables = world.getVariables();
+        if (variables.getCurrentPlayer() == Player.RED) {
+            variables.setCurrentPlayer(Player.BLUE);
+            Utility.notifyTurnChange(variables.getCurrentPlayer(), listeners());
         }
         else { // resolve end-of-turn stuff and begin the next turn
             endOfRound();
-            GameVariables.setCurrentPlayer(Player.RED);
-            Utility.notifyTurnChange(GameVariables.currentPlayer, observers);
+            variables.setCurrentPlayer(Player.RED);
+            Utility.notifyTurnChange(variables.getCurrentPlayer(), listeners());
         }
     }
 
@@ -121,7 +268,7 @@ public class GameImpl implements Game {
      */
     private void endOfRound(){
         changeWorldAge();
-        GameVariables.incrementRound();
+        world.getVariables().incrementRound();
 
         // Checking if anybody has won
         updateWinner();
@@ -131,26 +278,32 @@ public class GameImpl implements Game {
     }
 
     private void updateMapObjects(){
-        // Iterating over each tile on the map
-        for(int i = 0; i < GameConstants.WORLDSIZE; i++){
-            for(int j = 0; j< GameConstants.WORLDSIZE; j++){
-                Position pos = new Position(i, j);
-                // If the tile contains a city..
-                if (getCityAt(pos) != null){
-                    CityImpl city = ((CityImpl) getCityAt(pos));
-                    workforceStrategy.workTiles(city); // Work the tiles around the city to add extra production and food
-                    produceUnit(pos, city); // produce eventual units
-                    Utility.notifyWorldChange(pos, observers);
-                }
-                // If the tile contains a unit..
-                if (getUnitAt(pos) != null){
-                    UnitImpl unit = ((UnitImpl) getUnitAt(pos));
-                    unit.refreshMoveCount(); // refresh its movement
-                    unit.setUsedAction(false);
-                    Utility.notifyWorldChange(pos, observers);
-                }
-            }
+        TileStore tiles = world.getTiles();
+        // Only the tiles holding a city or a unit are visited, in tile order.
+        // Working tiles only changes the city itself and does not depend on units, so every city works
+        // its tiles first, as the end of round strategy sees fit, and then the cities produce in tile order.
+        // The cities and units to change are taken for writing first, as forks may share them.
+        int[] cityIndices = tiles.getCityIndices();
+        ArrayList<CityImpl> cities = new ArrayList<>(cityIndices.length);
+        for (int index : cityIndices)
+            cities.add(tiles.getCityForWrite(index));
+        endOfRoundStrategy.forEach(cities,
+                city -> workforceStrategy.workTiles(world, city)); // Work the tiles around the city to add extra production and food
+        for (int i = 0; i < cityIndices.length; i++) {
+            Position pos = tiles.positionOf(cityIndices[i]);
+            produceUnit(pos, cities.get(i)); // produce eventual units
+            notifyWorldChange(pos);
         }
+        int[] unitIndices = tiles.getUnitIndices();
+        ArrayList<UnitImpl> units = new ArrayList<>(unitIndices.length);
+        for (int index : unitIndices)
+            units.add(tiles.getUnitForWrite(index));
+        endOfRoundStrategy.forEach(units, unit -> {
+            unit.refreshMoveCount(); // refresh its movement
+            unit.setUsedAction(false);
+        });
+        for (int index : unitIndices)
+            notifyWorldChange(tiles.positionOf(index));
     }
 
     /**
@@ -162,10 +315,10 @@ public class GameImpl implements Game {
         // check if it can produce a unit
         if (city.getProductionValue() >= city.getProductionCost()) {
             // Try to place a unit at the nearest available tile around the city, and subtracts the production if successful
-            Position nearestTile = World.getNearestAvailableTile(pos, city.getProduction(), unitMovementDistinctionStrategy);
-            if (World.setUnitAt(nearestTile, new UnitImpl(city.getProduction(), city.getOwner()), unitMovementDistinctionStrategy)) {
+            Position nearestTile = world.getNearestAvailableTile(pos, city.getProduction(), unitMovementDistinctionStrategy);
+            if (world.setUnitAt(nearestTile, new UnitImpl(city.getProduction(), city.getOwner()), unitMovementDistinctionStrategy)) {
                 city.addProductionValue(-city.getProductionCost());
-                Utility.notifyWorldChange(nearestTile, observers);
+                Utility.notifyWorldChange(nearestTile, listeners());
             }
         }
     }
@@ -174,22 +327,25 @@ public class GameImpl implements Game {
      * Increments the world age
      */
     private void changeWorldAge() {
-        GameVariables.age = worldAgeStrategy.getNextYear(GameVariables.age);
+        GameVariables variables = world.getVariables();
+        variables.setAge(worldAgeStrategy.getNextYear(variables.getAge()));
     }
 
     public void changeWorkForceFocusInCityAt(Position p, String balance) {
-        CityImpl city = (CityImpl) getCityAt(p);
+        world.beginCommand();
+        CityImpl city = world.getCityForWrite(p);
         if (city != null) {
             city.setWorkforceFocus(balance);
-            Utility.notifyWorldChange(p, observers);
+            notifyWorldChange(p);
         }
     }
 
     public void changeProductionInCityAt(Position p, String unitType) {
-        CityImpl city = (CityImpl) getCityAt(p);
+        world.beginCommand();
+        CityImpl city = world.getCityForWrite(p);
         if (city != null) {
             city.setProduction(unitType);
-            Utility.notifyWorldChange(p, observers);
+            notifyWorldChange(p);
         }
     }
 
@@ -198,52 +354,192 @@ public class GameImpl implements Game {
      * @param pos the position of the unit
      */
     public void performUnitActionAt(Position pos) {
-        if (World.getUnitAt(pos) == null)
+        world.beginCommand();
+        if (world.getUnitAt(pos) == null)
             return;
-        if (World.getUnitAt(pos).getOwner() != GameVariables.currentPlayer)
+        if (world.getUnitAt(pos).getOwner() != world.getVariables().getCurrentPlayer())
             return;
-        if (((UnitImpl) World.getUnitAt(pos)).getUsedAction()) // If the action has been used this round
+        if (((UnitImpl) world.getUnitAt(pos)).getUsedAction()) // If the action has been used this round
             return;
-        ((UnitImpl) World.getUnitAt(pos)).setUsedAction(true);
-        unitActionStrategy.doAction(pos);
-        Utility.notifyWorldChange(pos, observers);
+        world.getUnitForWrite(pos).setUsedAction(true);
+        unitActionStrategy.doAction(world, pos);
+        notifyWorldChange(pos);
     }
 
     public boolean setUnitAt(Position pos, UnitImpl unit) {
-        boolean placedUnit = World.setUnitAt(pos, unit, unitMovementDistinctionStrategy);
+        world.beginCommand();
+        boolean placedUnit = world.setUnitAt(pos, unit, unitMovementDistinctionStrategy);
         if (placedUnit)
-            Utility.notifyWorldChange(pos, observers);
+            Utility.notifyWorldChange(pos, listeners());
         return placedUnit;
     }
 
     public void setTypeAt(Position pos, String type) {
-        World.setTypeAt(pos, type);
-        Utility.notifyWorldChange(pos, observers);
+        world.beginCommand();
+        world.setTypeAt(pos, type);
+        Utility.notifyWorldChange(pos, listeners());
     }
 
     public void setCityAt(CityImpl city) {
-        World.setCityAt(city);
-        Utility.notifyWorldChange(city.getLocation(), observers);
+        world.beginCommand();
+        world.setCityAt(city);
+        Utility.notifyWorldChange(city.getLocation(), listeners());
+    }
+
+    /**
+     * Changes a unit through the world, as a command of its own, so the change is hashed,
+     * recorded for undoing, kept from forks sharing the unit and logged for clients
+     * @param unit the unit, or a copy of it sharing its id
+     * @return the unit changed, which is a copy if the unit was shared, or null if the
+     * unit is not on the map
+     */
+    public UnitImpl changeUnit(UnitImpl unit, Consumer<UnitImpl> change) {
+        Position pos = world.getPositionOf(unit);
+        if (pos == null)
+            return null;
+        world.beginCommand();
+        UnitImpl changed = world.getUnitForWrite(pos);
+        change.accept(changed);
+        notifyWorldChange(pos);
+        return changed;
+    }
+
+    /**
+     * Changes a city through the world, as a command of its own, see changeUnit
+     * @return the city changed, or null if the city is not on the map
+     */
+    public CityImpl changeCity(CityImpl city, Consumer<CityImpl> change) {
+        Position pos = city.getLocation();
+        City there = world.getCityAt(pos);
+        if (there == null || !((CityImpl) there).getId().equals(city.getId()))
+            return null;
+        world.beginCommand();
+        CityImpl changed = world.getCityForWrite(pos);
+        change.accept(changed);
+        notifyWorldChange(pos);
+        return changed;
     }
 
     public void addObserver(GameObserver observer){
         observers.add(observer);
     };
 
+    /**
+     * @return the observers to tell about a change now: the collector of the batch being
+     * submitted, or else every observer
+     */
+    private ArrayList<GameObserver> listeners() {
+        return batch != null ? batch.listeners : observers;
+    }
+
+    /**
+     * Records the change in the world, so clients can ask for the changes since
+     * a version, and tells the observers
+     */
+    private void notifyWorldChange(Position pos) {
+        world.markChanged(pos);
+        Utility.notifyWorldChange(pos, listeners());
+    }
+
     public void setTileFocus(Position pos){
-        Utility.notifyTileFocusChange(pos, observers);
+        Utility.notifyTileFocusChange(pos, listeners());
     };
 
     public ArrayList<String> getAvailableUnits(){
         return availableUnitsStrategy.getAvailableUnits();
     }
 
+    public World getWorld() {
+        return world;
+    }
+
     public TileImpl[][] getTileMap() {
-        return World.getMap();
+        return world.getMap();
+    }
+
+    public WorldSnapshot getWorldSnapshot() {
+        return WorldSnapshot.of(world.getTiles(), getAge(), getPlayerInTurn(), world.getVersion(), null);
+    }
+
+    public WorldSnapshot getWorldChangesSince(int worldVersion) {
+        int[] changes = world.getChangesSince(worldVersion);
+        return WorldSnapshot.of(world.getTiles(), getAge(), getPlayerInTurn(), world.getVersion(), changes);
+    }
+
+    public long getStateHash() {
+        return world.getStateHash();
+    }
+
+    public boolean[] submitBatch(List<Command> commands) {
+        // collect the changes of the commands and tell the observers at the end
+        ChangeCollector changes = new ChangeCollector();
+        batch = changes;
+        // a batch that fails is taken back with the undo records, so it is applied whole or not at all
+        boolean recording = world.isUndoRecording();
+        world.setUndoRecording(true);
+        int before = world.getUndoableCommands();
+        boolean[] results = new boolean[commands.size()];
+        try {
+            for (int i = 0; i < results.length; i++)
+                results[i] = commands.get(i).executeOn(this);
+        } catch (RuntimeException e) {
+            while (world.getUndoableCommands() > before)
+                world.undo();
+            // the tiles are put back, so the observers only redraw them
+            changes.turnEnds.clear();
+            changes.focus = null;
+            throw e;
+        } finally {
+            batch = null;
+            if (!recording)
+                world.setUndoRecording(false);
+            tell(changes);
+        }
+        return results;
+    }
+
+    private void tell(ChangeCollector changes) {
+        for (Position pos : changes.positions)
+            Utility.notifyWorldChange(pos, observers);
+        for (Player nextPlayer : changes.turnEnds)
+            Utility.notifyTurnChange(nextPlayer, observers);
+        if (changes.focus != null)
+            Utility.notifyTileFocusChange(changes.focus, observers);
+    }
+
+    /**
+     * Remembers each changed position once, in the order of the first change, every end of
+     * a turn, and the last tile focused
+     */
+    private static class ChangeCollector implements GameObserver {
+        private final LinkedHashSet<Position> positions = new LinkedHashSet<>();
+        private final ArrayList<Player> turnEnds = new ArrayList<>();
+        private Position focus;
+        // the collector alone, told in place of the observers
+        private final ArrayList<GameObserver> listeners = new ArrayList<>();
+
+        ChangeCollector() {
+            listeners.add(this);
+        }
+
+        public void worldChangedAt(Position pos) {
+            positions.add(pos);
+        }
+
+        public void turnEnds(Player nextPlayer) {
+            turnEnds.add(nextPlayer);
+        }
+
+        public void tileFocusChangedAt(Position position) {
+            focus = position;
+        }
+
+        public void requestUpdate() {
+        }
     }
 
     public void requestUpdate(){
-        for(GameObserver observer : observers)
+        for(GameObserver observer : listeners())
             observer.requestUpdate();
     }
 }
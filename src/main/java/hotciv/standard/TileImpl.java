@@ -1,13 +1,14 @@
 package hotciv.standard ;
 import hotciv.framework.*;
-import java.util.UUID;
 
 public class TileImpl implements Tile{
     private Position pos;
     private String type;
     private CityImpl city;
     private UnitImpl unit;
-    private String id = UUID.randomUUID().toString();
+    // The tile store this tile is a view of, or null for a tile of its own, like one decoded from a snapshot
+    private transient TileStore store;
+    private transient int index;
 
     public TileImpl(Position position, String type, CityImpl city, UnitImpl unit){
         this.pos = position;
@@ -16,32 +17,70 @@ public class TileImpl implements Tile{
         this.unit = unit;
     }
 
+    /**
+     * Creates a read-only view of a tile in a store. The tiles of a game are changed
+     * through the game, so the change is hashed, recorded for undoing and told to the
+     * observers. The fields hold the tile as it was when the view was created, which is
+     * what a client is sent.
+     */
+    public TileImpl(TileStore store, int index) {
+        this(store.positionOf(index), store.getType(index), store.getCity(index), store.getUnit(index));
+        this.store = store;
+        this.index = index;
+    }
+
     @Override
     public String getTypeString() {
-        return type;
+        return store == null ? type : store.getType(index);
     }
 
     public void setType(String type){
+        checkOwnTile();
         this.type = type;
     }
 
     public void setCity(CityImpl city) {
+        checkOwnTile();
         this.city = city;
     }
 
     public void setUnit(UnitImpl unit) {
+        checkOwnTile();
         this.unit = unit;
     }
 
+    // only a tile of its own is changed directly, see TileImpl(TileStore, int)
+    private void checkOwnTile() {
+        if (store != null)
+            throw new UnsupportedOperationException("The tiles of a game are changed through the game");
+    }
+
     public UnitImpl getUnit() {
-        return unit;
+        return store == null ? unit : store.getUnit(index);
     }
 
     public CityImpl getCity() {
-        return city;
+        return store == null ? city : store.getCity(index);
     }
 
+    /**
+     * A tile is identified by its position, so the id of a tile is the same for every
+     * view of it
+     */
     public String getId(){
-        return id;
+        return pos.getRow() + "_" + pos.getColumn();
+    }
+
+    /**
+     * @param id the id of a tile
+     * @return the position of the tile, or null if the id is not a tile id
+     */
+    public static Position positionOf(String id) {
+        int separator = id.indexOf('_');
+        try {
+            return new Position(Integer.parseInt(id.substring(0, separator)), Integer.parseInt(id.substring(separator + 1)));
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            return null;
+        }
     }
 }
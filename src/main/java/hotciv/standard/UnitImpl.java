@@ -13,17 +13,43 @@ public class UnitImpl implements Unit {
     private int cost;
     private boolean isFortified = false; // is the unit fortified
     private boolean usedAction = false;
-    private String id = UUID.randomUUID().toString();
+    private String id;
 
     public UnitImpl(String type, Player owner){
         this.type = type;
         this.owner = owner;
-        this.attStrength = GameConstants.UNITS.toClass(type).getAttStrength();
-        this.defStrength = GameConstants.UNITS.toClass(type).getDefStrength();
-        this.movement = GameConstants.UNITS.toClass(type).getMovement();
-        this.cost = GameConstants.UNITS.toClass(type).getCost();
+        GameConstants.UNITS kind = GameConstants.UNITS.toClass(type);
+        this.attStrength = kind.getAttStrength();
+        this.defStrength = kind.getDefStrength();
+        this.movement = kind.getMovement();
+        this.cost = kind.getCost();
         moveCount = movement;
+        id = UUID.randomUUID().toString();
     }
+
+    /**
+     * Copies a unit, for a forked game to change; the copy keeps the id of the unit
+     */
+    public UnitImpl(UnitImpl unit) {
+        copyFrom(unit);
+    }
+
+    /**
+     * Makes this unit the same as another, for undoing changes to it
+     */
+    public void copyFrom(UnitImpl unit) {
+        type = unit.type;
+        owner = unit.owner;
+        attStrength = unit.attStrength;
+        defStrength = unit.defStrength;
+        movement = unit.movement;
+        moveCount = unit.moveCount;
+        cost = unit.cost;
+        isFortified = unit.isFortified;
+        usedAction = unit.usedAction;
+        id = unit.id;
+    }
+
     public String getId() {
         return id;
     }
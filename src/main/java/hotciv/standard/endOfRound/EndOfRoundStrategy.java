@@ -0,0 +1,20 @@
+package hotciv.standard.endOfRound;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * How the cities and units are updated at the end of a round. Working the tiles of a
+ * city and refreshing a unit only change the city or unit itself, so they may be done
+ * in any order, or concurrently; GameImpl places the units the cities produce
+ * afterwards, one city at a time in tile order.
+ */
+public interface EndOfRoundStrategy {
+    /**
+     * Applies an update to each object
+     * @param objects the cities or units of the world in tile order, so objects next to
+     *                each other in the list are on the same or neighboring rows of the map
+     * @param update the update, which changes nothing but the object it is given
+     */
+    <T> void forEach(List<T> objects, Consumer<? super T> update);
+}
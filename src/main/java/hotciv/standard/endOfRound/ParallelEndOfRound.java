@@ -0,0 +1,68 @@
+package hotciv.standard.endOfRound;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Updates the cities and units of a round in a fork join pool. The objects are in tile
+ * order, so the list is split in halves until the parts are small, each part being a
+ * band of rows of the map.
+ */
+public class ParallelEndOfRound implements EndOfRoundStrategy {
+    // below this many objects a band is updated by one thread
+    private static final int BAND = 64;
+    private final ForkJoinPool pool;
+
+    /**
+     * Uses the common fork join pool, with a thread for each core
+     */
+    public ParallelEndOfRound() {
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * @param parallelism the number of threads to use
+     */
+    public ParallelEndOfRound(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public <T> void forEach(List<T> objects, Consumer<? super T> update) {
+        if (objects.size() <= BAND) {
+            objects.forEach(update);
+            return;
+        }
+        pool.invoke(new Band<>(objects, 0, objects.size(), update));
+    }
+
+    private static class Band<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<T> objects;
+        private final int from;
+        private final int to;
+        private final Consumer<? super T> update;
+
+        Band(List<T> objects, int from, int to, Consumer<? super T> update) {
+            this.objects = objects;
+            this.from = from;
+            this.to = to;
+            this.update = update;
+        }
+
+        protected void compute() {
+            if (to - from <= BAND) {
+                for (int i = from; i < to; i++)
+                    update.accept(objects.get(i));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Band<>(objects, from, middle, update), new Band<>(objects, middle, to, update));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package hotciv.standard.endOfRound;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class SerialEndOfRound implements EndOfRoundStrategy {
+    public <T> void forEach(List<T> objects, Consumer<? super T> update) {
+        for (T object : objects)
+            update.accept(object);
+    }
+}
@@ -7,6 +7,7 @@ import hotciv.standard.availableUnit.StandardUnits;
 import hotciv.standard.layout.LayoutStrategy;
 import hotciv.standard.layout.StandardLayout;
 import hotciv.standard.random.RandomStrategy;
+import hotciv.standard.random.SeededDieRoll;
 import hotciv.standard.resolveAttack.ActualCombat;
 import hotciv.standard.resolveAttack.ResolveAttackStrategy;
 import hotciv.standard.unitAction.NoAction;
@@ -33,6 +34,9 @@ public class EpsilonFactory implements StrategyFactory {
     public EpsilonFactory() {
         combat = new ActualCombat();
     }
+    public EpsilonFactory(long seed) {
+        combat = new ActualCombat(new SeededDieRoll(seed));
+    }
     public EpsilonFactory(RandomStrategy random) {
         combat = new ActualCombat(random);
     }
@@ -0,0 +1,49 @@
+package hotciv.standard.factory;
+
+import hotciv.standard.age.AgeStrategy;
+import hotciv.standard.availableUnit.AvailableUnitStrategy;
+import hotciv.standard.endOfRound.EndOfRoundStrategy;
+import hotciv.standard.endOfRound.ParallelEndOfRound;
+import hotciv.standard.layout.LayoutStrategy;
+import hotciv.standard.resolveAttack.ResolveAttackStrategy;
+import hotciv.standard.unitAction.UnitActionStrategy;
+import hotciv.standard.unitMovementDistinction.UnitMovementDistinctionStrategy;
+import hotciv.standard.victoryStrategy.VictoryStrategy;
+import hotciv.standard.workforce.WorkforceStrategy;
+
+/**
+ * Any variant, with the cities and units updated in parallel at the end of a round.
+ * The game plays out exactly as the variant does.
+ */
+public class ParallelFactory implements StrategyFactory {
+    private final StrategyFactory variant;
+    private final int parallelism;
+
+    /**
+     * @param variant the variant to play
+     */
+    public ParallelFactory(StrategyFactory variant) {
+        this(variant, 0);
+    }
+
+    /**
+     * @param variant the variant to play
+     * @param parallelism the number of threads to use, or 0 for the common pool
+     */
+    public ParallelFactory(StrategyFactory variant, int parallelism) {
+        this.variant = variant;
+        this.parallelism = parallelism;
+    }
+
+    public AgeStrategy createAgeStrategy() { return variant.createAgeStrategy(); }
+    public VictoryStrategy createVictoryStrategy() { return variant.createVictoryStrategy(); }
+    public LayoutStrategy createLayoutStrategy() { return variant.createLayoutStrategy(); }
+    public ResolveAttackStrategy createAttackStrategy() { return variant.createAttackStrategy(); }
+    public UnitActionStrategy createActionStrategy() { return variant.createActionStrategy(); }
+    public WorkforceStrategy createWorkforceStrategy() { return variant.createWorkforceStrategy(); }
+    public AvailableUnitStrategy createAvailableUnitStrategy() { return variant.createAvailableUnitStrategy(); }
+    public UnitMovementDistinctionStrategy createUnitMovementDistinctionStrategy() { return variant.createUnitMovementDistinctionStrategy(); }
+    public EndOfRoundStrategy createEndOfRoundStrategy() {
+        return parallelism == 0 ? new ParallelEndOfRound() : new ParallelEndOfRound(parallelism);
+    }
+}
@@ -11,6 +11,9 @@ import hotciv.standard.layout.DeltaLayout;
 import hotciv.standard.layout.FractalLayout;
 import hotciv.standard.layout.LayoutStrategy;
 import hotciv.standard.layout.StandardLayout;
+import hotciv.standard.random.DieRoll;
+import hotciv.standard.random.RandomStrategy;
+import hotciv.standard.random.SeededDieRoll;
 import hotciv.standard.resolveAttack.ActualCombat;
 import hotciv.standard.resolveAttack.ResolveAttackStrategy;
 import hotciv.standard.unitAction.GammaAction;
@@ -25,10 +28,30 @@ import hotciv.standard.workforce.WorkableTiles;
 import hotciv.standard.workforce.WorkforceStrategy;
 
 public class SemiFactory implements StrategyFactory {
+    private final RandomStrategy random;
+
+    public SemiFactory() {
+        this(new DieRoll());
+    }
+
+    /**
+     * @param seed the seed of the die, so games play out the same for the same seed
+     */
+    public SemiFactory(long seed) {
+        this(new SeededDieRoll(seed));
+    }
+
+    /**
+     * @param random the die of the combats, to be used by one game
+     */
+    public SemiFactory(RandomStrategy random) {
+        this.random = random;
+    }
+
     public AgeStrategy createAgeStrategy() { return new GradualAging();}
     public VictoryStrategy createVictoryStrategy() { return new ThreeCombatVictories();}
     public LayoutStrategy createLayoutStrategy() { return new DeltaLayout(); }
-    public ResolveAttackStrategy createAttackStrategy() { return new ActualCombat(); }
+    public ResolveAttackStrategy createAttackStrategy() { return new ActualCombat(random); }
     public UnitActionStrategy createActionStrategy() { return new ThetaAction(); }
     public WorkforceStrategy createWorkforceStrategy() { return new WorkableTiles(); }
     public AvailableUnitStrategy createAvailableUnitStrategy() {return new B52Expansion(); }
@@ -2,6 +2,8 @@ package hotciv.standard.factory;
 
 import hotciv.standard.availableUnit.AvailableUnitStrategy;
 import hotciv.standard.age.AgeStrategy;
+import hotciv.standard.endOfRound.EndOfRoundStrategy;
+import hotciv.standard.endOfRound.SerialEndOfRound;
 import hotciv.standard.layout.LayoutStrategy;
 import hotciv.standard.resolveAttack.ResolveAttackStrategy;
 import hotciv.standard.unitAction.UnitActionStrategy;
@@ -18,5 +20,7 @@ public interface StrategyFactory {
     WorkforceStrategy createWorkforceStrategy();
     AvailableUnitStrategy createAvailableUnitStrategy();
     UnitMovementDistinctionStrategy createUnitMovementDistinctionStrategy();
+    // The variants update their cities and units one at a time, see ParallelFactory
+    default EndOfRoundStrategy createEndOfRoundStrategy() { return new SerialEndOfRound(); }
 }
 
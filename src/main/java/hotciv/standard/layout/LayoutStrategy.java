@@ -20,13 +20,14 @@ public interface LayoutStrategy {
 
     /**
      * This method implements the basic map given at page 459.
-     * @return the finished map as an array of tiles
+     * @param layout a square layout of any size
+     * @return the finished map as a store of tiles the size of the layout
      */
 
-    static TileImpl[][] generateMap(String[][] layout){
-        TileImpl[][] map = new TileImpl[GameConstants.WORLDSIZE][GameConstants.WORLDSIZE];
-        for(int i = 0; i < GameConstants.WORLDSIZE; i++){
-            for(int j = 0; j< GameConstants.WORLDSIZE; j++){
+    static TileStore generateMap(String[][] layout){
+        TileStore map = new TileStore(layout.length);
+        for(int i = 0; i < layout.length; i++){
+            for(int j = 0; j< layout.length; j++){
                 String string = layout[i][j];
                 String type = GameConstants.PLAINS;
                 CityImpl city = null;
@@ -53,7 +54,10 @@ public interface LayoutStrategy {
                             break;
                     }
                 }
-                map[i][j] = new TileImpl(new Position(i,j), type, city, unit);
+                int index = map.indexOf(i, j);
+                map.setType(index, type);
+                map.setCity(index, city);
+                map.setUnit(index, unit);
             }
         }
         return map;
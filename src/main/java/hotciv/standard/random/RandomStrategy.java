@@ -3,6 +3,9 @@ package hotciv.standard.random;
 public interface RandomStrategy {
     int getNext();
 
+    /**
+     * @return a strategy for another game or worker, rolling independently of this one.
+     * Strategies without a seed may be shared, and return themselves.
+     */
+    default RandomStrategy split() { return this; }
 }
-
-
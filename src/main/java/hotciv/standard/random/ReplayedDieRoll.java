@@ -0,0 +1,28 @@
+package hotciv.standard.random;
+
+/**
+ * Rolls the numbers a die has rolled before, such as those recorded by a SeededDieRoll,
+ * so the combats of a game are won and lost as they were.
+ */
+public class ReplayedDieRoll implements RandomStrategy {
+    private final int[] rolls;
+    private int next;
+
+    public ReplayedDieRoll(int[] rolls) {
+        this.rolls = rolls.clone();
+    }
+
+    /**
+     * @throws IllegalStateException if every recorded number has been rolled
+     */
+    @Override
+    public int getNext() {
+        if (next == rolls.length)
+            throw new IllegalStateException("Only " + rolls.length + " rolls were recorded");
+        return rolls[next++];
+    }
+
+    public int getRemaining() {
+        return rolls.length - next;
+    }
+}
@@ -0,0 +1,60 @@
+package hotciv.standard.random;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A die that rolls the same numbers every time it is given the same seed, and remembers
+ * what it has rolled so a game can be replayed with a ReplayedDieRoll.
+ *
+ * A die is for one game on one thread. Give each game or worker its own die with split,
+ * which is seeded from this die: the dice split from a die are the same every time, and
+ * their rolls do not depend on each other.
+ */
+public class SeededDieRoll implements RandomStrategy {
+    private final long seed;
+    private final SplittableRandom random;
+    // the numbers rolled so far, one byte each
+    private byte[] rolls = new byte[64];
+    private int count;
+
+    public SeededDieRoll(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int getNext() {
+        int roll = 1 + random.nextInt(6); // Returns a number between 1 and 6 (inclusive)
+        if (count == rolls.length)
+            rolls = Arrays.copyOf(rolls, 2 * count);
+        rolls[count++] = (byte) roll;
+        return roll;
+    }
+
+    /**
+     * @return a die seeded from this die, the next one each time
+     */
+    @Override
+    public SeededDieRoll split() {
+        return new SeededDieRoll(random.nextLong());
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the numbers rolled so far, in order
+     */
+    public int[] getRolls() {
+        int[] copy = new int[count];
+        for (int i = 0; i < count; i++)
+            copy[i] = rolls[i];
+        return copy;
+    }
+
+    public int getRollCount() {
+        return count;
+    }
+}
@@ -7,8 +7,6 @@ import hotciv.standard.random.RandomStrategy;
 import hotciv.standard.random.DieRoll;
 import hotciv.standard.UnitImpl;
 
-import java.util.ArrayList;
-
 public class ActualCombat implements  ResolveAttackStrategy{
     RandomStrategy rand;
 
@@ -20,27 +18,27 @@ public class ActualCombat implements  ResolveAttackStrategy{
     }
 
     @Override
-    public boolean unitAttack(Position attPos, Position defPos) {
+    public boolean unitAttack(World world, Position attPos, Position defPos) {
         // Husk at ændre antal vundre kampe for vinderen
-        UnitImpl attacker = (UnitImpl) World.getUnitAt(attPos);
-        UnitImpl defender = (UnitImpl) World.getUnitAt(defPos);
+        UnitImpl attacker = (UnitImpl) world.getUnitAt(attPos);
+        UnitImpl defender = (UnitImpl) world.getUnitAt(defPos);
 
         // TERRAIN BONUS
         int attBonus;
-        if (World.getCityAt(attPos) == null) // if there is not a city at the attacker..
-            attBonus = GameConstants.TILE.toClass(World.getTileAt(attPos).getTypeString()).getCombatBonus(); // use the terrain bonus
+        if (world.getCityAt(attPos) == null) // if there is not a city at the attacker..
+            attBonus = world.getTerrainAt(attPos).getCombatBonus(); // use the terrain bonus
         else // use the city bonus
             attBonus = GameConstants.TILE.CITY_COMBAT_BONUS;
 
         int defBonus;
-        if (World.getCityAt(defPos) == null) // if there is not a city at the defender..
-            defBonus = GameConstants.TILE.toClass(World.getTileAt(defPos).getTypeString()).getCombatBonus(); // use the terrain bonus
+        if (world.getCityAt(defPos) == null) // if there is not a city at the defender..
+            defBonus = world.getTerrainAt(defPos).getCombatBonus(); // use the terrain bonus
         else // use the city bonus
             defBonus = GameConstants.TILE.CITY_COMBAT_BONUS;
 
         // FRIENDLY SUPPORT
-        int attSupport = checkFriendlySupport(attPos);
-        int defSupport = checkFriendlySupport(defPos);
+        int attSupport = checkFriendlySupport(world, attPos);
+        int defSupport = checkFriendlySupport(world, defPos);
 
         // COMBINED COMBAT STATS
         int combinedAtt = (attacker.getAttackingStrength() + attSupport)*rand.getNext()*attBonus;
@@ -50,17 +48,22 @@ public class ActualCombat implements  ResolveAttackStrategy{
 
     /**
      * Returns the number of supporting units for a given position
+     * @param world The world the combat takes place in
      * @param pos The position in question
      * @return The number of supporting units
      */
-    private int checkFriendlySupport(Position pos) {
+    private int checkFriendlySupport(World world, Position pos) {
         int n = 0; // the current bonus from supporting units
-        Player owner = World.getUnitAt(pos).getOwner(); // the owner of the unit
-        ArrayList<Position> posList = Utility.nearestTileList(pos);
+        Player owner = world.getUnitAt(pos).getOwner(); // the owner of the unit
+        TileStore tiles = world.getTiles();
+        Neighborhood neighborhood = tiles.getNeighborhood();
+        int center = tiles.indexOf(pos);
 
-        posList.remove(pos);
-        for (Position supportPos : posList) { // iterating through each nearby tile
-            Unit unit = World.getUnitAt(supportPos); // retrieving the unit
+        for (int i = 1; i < Neighborhood.SIZE; i++) { // iterating through each nearby tile, leaving out the tile itself
+            int supportIndex = neighborhood.neighbor(center, i);
+            if (supportIndex < 0)
+                continue;
+            Unit unit = tiles.getUnit(supportIndex); // retrieving the unit
             if (unit != null && unit.getOwner().equals(owner)) // if a friendly unit exists on the tile
                 n++; // increase the number of supporting units
         }
@@ -1,10 +1,11 @@
 package hotciv.standard.resolveAttack;
 
 import hotciv.framework.Position;
+import hotciv.framework.World;
 
 public class AttackerWins implements ResolveAttackStrategy{
     @Override
-    public boolean unitAttack(Position attacker, Position defender) {
+    public boolean unitAttack(World world, Position attacker, Position defender) {
         return true;
     }
 }
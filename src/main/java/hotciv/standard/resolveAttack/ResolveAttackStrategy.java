@@ -1,9 +1,10 @@
 package hotciv.standard.resolveAttack;
 
 import hotciv.framework.Position;
+import hotciv.framework.World;
 
 public interface ResolveAttackStrategy {
 
-    boolean unitAttack(Position attacker, Position defender);
+    boolean unitAttack(World world, Position attacker, Position defender);
 }
 
@@ -3,14 +3,14 @@ import hotciv.framework.*;
 import hotciv.standard.*;
 
 public class GammaAction implements UnitActionStrategy {
-    public void doAction(Position pos) {
-        switch (World.getUnitAt(pos).getTypeString()) {
+    public void doAction(World world, Position pos) {
+        switch (world.getUnitAt(pos).getTypeString()) {
             case GameConstants.SETTLER:
-                World.setCityAt(new CityImpl(World.getUnitAt(pos).getOwner(), pos));
-                World.removeUnit(pos);
+                world.setCityAt(new CityImpl(world.getUnitAt(pos).getOwner(), pos));
+                world.removeUnit(pos);
                 break;
             case GameConstants.ARCHER:
-                ((UnitImpl) World.getUnitAt(pos)).toggleFortify();
+                world.getUnitForWrite(pos).toggleFortify();
                 break;
             default:
                 break;
@@ -2,5 +2,5 @@ package hotciv.standard.unitAction;
 import hotciv.framework.*;
 
 public class NoAction implements UnitActionStrategy {
-    public void doAction(Position pos) { }
+    public void doAction(World world, Position pos) { }
 }
@@ -4,23 +4,23 @@ import hotciv.framework.*;
 import hotciv.standard.*;
 
 public class ThetaAction implements UnitActionStrategy {
-    public void doAction(Position pos) {
-        switch (World.getUnitAt(pos).getTypeString()) {
+    public void doAction(World world, Position pos) {
+        switch (world.getUnitAt(pos).getTypeString()) {
             case GameConstants.SETTLER:
-                World.setCityAt(new CityImpl(World.getUnitAt(pos).getOwner(), pos));
-                World.removeUnit(pos);
+                world.setCityAt(new CityImpl(world.getUnitAt(pos).getOwner(), pos));
+                world.removeUnit(pos);
                 break;
             case GameConstants.ARCHER:
-                ((UnitImpl) World.getUnitAt(pos)).toggleFortify();
+                world.getUnitForWrite(pos).toggleFortify();
                 break;
             case GameConstants.B52:
-                CityImpl city = (CityImpl) World.getCityAt(pos);
+                CityImpl city = world.getCityForWrite(pos);
                 if (city != null){
                     if(!city.decrementSize())
-                        World.removeCity(pos);
+                        world.removeCity(pos);
                 }
-                if(World.getTileAt(pos).getTypeString().equals(GameConstants.FOREST))
-                    World.setTypeAt(pos, GameConstants.PLAINS);
+                if(world.getTileAt(pos).getTypeString().equals(GameConstants.FOREST))
+                    world.setTypeAt(pos, GameConstants.PLAINS);
                 break;
         }
     }
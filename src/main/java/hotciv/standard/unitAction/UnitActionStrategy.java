@@ -2,6 +2,6 @@ package hotciv.standard.unitAction;
 import hotciv.framework.*;
 
 public interface UnitActionStrategy {
-    void doAction(Position pos);
+    void doAction(World world, Position pos);
 }
 
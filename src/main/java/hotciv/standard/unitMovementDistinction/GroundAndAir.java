@@ -5,9 +5,9 @@ import hotciv.framework.Position;
 import hotciv.framework.World;
 
 public class GroundAndAir implements UnitMovementDistinctionStrategy {
-    public boolean validUnitPosition(Position pos, String type) {
+    public boolean validUnitPosition(World world, Position pos, String type) {
         // check if the position is null and within the world border
-        if (!validPosition(pos))
+        if (!validPosition(world, pos))
             return false;
 
         // if the unit is flying, we do not check for impassable terrain
@@ -15,7 +15,8 @@ public class GroundAndAir implements UnitMovementDistinctionStrategy {
             return true;
 
         // check for mountains and ocean
-        if (World.getTileAt(pos).getTypeString().equals(GameConstants.MOUNTAINS) || World.getTileAt(pos).getTypeString().equals(GameConstants.OCEANS))
+        String terrain = world.getTypeAt(pos);
+        if (terrain.equals(GameConstants.MOUNTAINS) || terrain.equals(GameConstants.OCEANS))
             return false;
 
         return true;
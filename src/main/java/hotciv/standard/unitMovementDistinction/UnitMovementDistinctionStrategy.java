@@ -1,19 +1,19 @@
 package hotciv.standard.unitMovementDistinction;
 
-import hotciv.framework.GameConstants;
 import hotciv.framework.Position;
+import hotciv.framework.World;
 
 public interface UnitMovementDistinctionStrategy {
-    boolean validUnitPosition(Position pos, String type);
-    default boolean validPosition(Position pos) {
+    boolean validUnitPosition(World world, Position pos, String type);
+    default boolean validPosition(World world, Position pos) {
         // Check for null-position
         if(pos == null)
             return false;
 
         // check for out-of-bounds
-        if (pos.getColumn() < 0 || GameConstants.WORLDSIZE < pos.getColumn())
+        if (pos.getColumn() < 0 || world.getSize() <= pos.getColumn())
             return false;
-        if (pos.getRow() < 0 || GameConstants.WORLDSIZE < pos.getRow())
+        if (pos.getRow() < 0 || world.getSize() <= pos.getRow())
             return false;
 
         return true;
@@ -1,14 +1,14 @@
 package hotciv.standard.victoryStrategy;
 
-import hotciv.framework.GameVariables;
 import hotciv.framework.Player;
+import hotciv.framework.World;
 
 public class ThreeCombatVictories implements VictoryStrategy {
     private int zeroPoint = 0;
 
     @Override
-    public boolean checkVictory(Player player) {
-        return GameVariables.getCombatVictories(player) >= 3 + zeroPoint;
+    public boolean checkVictory(World world, Player player) {
+        return world.getVariables().getCombatVictories(player) >= 3 + zeroPoint;
     }
 
     public void setZeroPoint(int i){zeroPoint = i;}
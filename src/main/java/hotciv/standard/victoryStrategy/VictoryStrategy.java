@@ -2,6 +2,6 @@ package hotciv.standard.victoryStrategy;
 import hotciv.framework.*;
 
 public interface VictoryStrategy {
-    boolean checkVictory(Player player);
+    boolean checkVictory(World world, Player player);
 }
 
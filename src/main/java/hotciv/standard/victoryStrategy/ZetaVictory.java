@@ -2,26 +2,26 @@ package hotciv.standard.victoryStrategy;
 
 import hotciv.framework.GameVariables;
 import hotciv.framework.Player;
-
-import java.util.HashMap;
+import hotciv.framework.World;
 
 public class ZetaVictory implements VictoryStrategy {
     private ConquestVictory conquest = new ConquestVictory();
     private ThreeCombatVictories combat = new ThreeCombatVictories();
-    private HashMap<Player, Integer> winsAtRound19;
 
     @Override
-    public boolean checkVictory(Player player) {
-        if (GameVariables.round < 19)
-            return conquest.checkVictory(player);
+    public boolean checkVictory(World world, Player player) {
+        GameVariables variables = world.getVariables();
+        if (variables.getRound() < 19)
+            return conquest.checkVictory(world, player);
 
-        else if (GameVariables.round == 19) {
-            winsAtRound19 = (HashMap<Player, Integer>) GameVariables.combatVictories.clone();
-            return conquest.checkVictory(player);
+        else if (variables.getRound() == 19) {
+            // kept with the game variables, so a restored game counts from the same point
+            variables.markCombatVictories();
+            return conquest.checkVictory(world, player);
         }
         else {
-            combat.setZeroPoint(winsAtRound19.get(player));
-            return combat.checkVictory(player);
+            combat.setZeroPoint(variables.getMarkedVictories(player));
+            return combat.checkVictory(world, player);
         }
     }
 }
@@ -1,10 +1,11 @@
 package hotciv.standard.workforce;
 
 import hotciv.framework.GameConstants;
+import hotciv.framework.World;
 import hotciv.standard.CityImpl;
 
 public class NoWorkableTiles implements WorkforceStrategy{
-    public void workTiles(CityImpl city) {
+    public void workTiles(World world, CityImpl city) {
         city.addProductionValue(GameConstants.CITY_PRODUCTION_PER_TURN); // add constant production
     }
 
@@ -3,46 +3,37 @@ package hotciv.standard.workforce;
 import hotciv.framework.*;
 import hotciv.standard.CityImpl;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-
 public class WorkableTiles implements WorkforceStrategy{
-    public void workTiles(CityImpl city) {
+    public void workTiles(World world, CityImpl city) {
         int food = 1;
         int production = 1;
         String focus = city.getWorkforceFocus();
-        ArrayList<Position> tileList = Utility.nearestTileList(city.getLocation());
-        tileList.remove(0);
+        TileStore tiles = world.getTiles();
+        Neighborhood neighborhood = tiles.getNeighborhood();
+        int center = tiles.indexOf(city.getLocation());
 
-        switch (focus){
-            case GameConstants.foodFocus:
-                Comparator cf = new Comparator<Position>() {
-                    @Override
-                    public int compare(Position o1, Position o2) {
-                        int foodP1 = GameConstants.TILE.toClass(World.getTileAt(o1).getTypeString()).getFood();
-                        int foodP2 = GameConstants.TILE.toClass(World.getTileAt(o2).getTypeString()).getFood();
-                        return foodP2 - foodP1;
-                    }
-                };
-                Collections.sort(tileList, cf);
-                break;
-            case GameConstants.productionFocus:
-                Comparator cp = new Comparator<Position>() {
-                    @Override
-                    public int compare(Position o1, Position o2) {
-                        int prodP1 = GameConstants.TILE.toClass(World.getTileAt(o1).getTypeString()).getProduction();
-                        int prodP2 = GameConstants.TILE.toClass(World.getTileAt(o2).getTypeString()).getProduction();
-                        return prodP2 - prodP1;
-                    }
-                };
-                Collections.sort(tileList, cp);
+        // Work the best of the surrounding tiles for the focus, the first one found when tiles are equally good.
+        // The tiles already worked are marked in a bit set over the neighbor numbers.
+        int worked = 0;
+        for (int i = 0; i < city.getSize() - 1; i++) {
+            int best = -1;
+            int bestValue = Integer.MIN_VALUE;
+            for (int n = 1; n < Neighborhood.SIZE; n++) {
+                int index = neighborhood.neighbor(center, n);
+                if (index < 0 || (worked & (1 << n)) != 0)
+                    continue;
+                int value = valueOf(tiles.getTerrain(index), focus);
+                if (value > bestValue) {
+                    best = n;
+                    bestValue = value;
+                }
+            }
+            if (best < 0) // every tile around the city is worked
                 break;
-        }
-        for (int i = 0; (i < city.getSize() - 1) && i < tileList.size(); i++) {
-            food += GameConstants.TILE.toClass(World.getTileAt(tileList.get(i)).getTypeString()).getFood();
-            production += GameConstants.TILE.toClass(World.getTileAt(tileList.get(i)).getTypeString()).getProduction();
+            worked |= 1 << best;
+            GameConstants.TILE terrain = tiles.getTerrain(neighborhood.neighbor(center, best));
+            food += terrain.getFood();
+            production += terrain.getProduction();
         }
 
         city.addProductionValue(production);
@@ -50,6 +41,18 @@ public class WorkableTiles implements WorkforceStrategy{
 
         growCity(city);
     }
+
+    private static int valueOf(GameConstants.TILE terrain, String focus) {
+        switch (focus) {
+            case GameConstants.foodFocus:
+                return terrain.getFood();
+            case GameConstants.productionFocus:
+                return terrain.getProduction();
+            default: // no preference, the tiles are worked in order
+                return 0;
+        }
+    }
+
     public void growCity(CityImpl city) {
         if(city.getFood() > 5 + city.getSize() * 3 ){
             city.resetFood();
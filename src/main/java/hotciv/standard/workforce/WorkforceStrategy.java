@@ -1,10 +1,11 @@
 package hotciv.standard.workforce;
 
 
+import hotciv.framework.World;
 import hotciv.standard.CityImpl;
 
 public interface WorkforceStrategy {
-    void workTiles(CityImpl city);
+    void workTiles(World world, CityImpl city);
     void growCity(CityImpl city);
 }
 
@@ -6,6 +6,7 @@ import hotciv.standard.TileImpl;
 import hotciv.standard.UnitImpl;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class GameStub implements Game, frds.broker.Servant {
     private GameObserver observer = null;
@@ -92,6 +93,7 @@ public class GameStub implements Game, frds.broker.Servant {
     public Player getWinner() { return Player.YELLOW; }
     public int getAge() { return 16; }
     public boolean moveUnit(Position from, Position to) { return true;}
+    public Position moveUnitAlongPath(Position from, Position to) { return to;}
     public void endOfTurn() {changeMe = true;}
     public void changeWorkForceFocusInCityAt(Position pos, String balance) {changeMe = true;}
     public void changeProductionInCityAt(Position pos, String unitType) { changeMe = true;}
@@ -113,4 +115,27 @@ public class GameStub implements Game, frds.broker.Servant {
     public TileImpl[][] getTileMap() {
         return new TileImpl[0][];
     }
+
+    @Override
+    public WorldSnapshot getWorldSnapshot() {
+        return WorldSnapshot.of(getTileMap(), getAge(), getPlayerInTurn());
+    }
+
+    @Override
+    public WorldSnapshot getWorldChangesSince(int worldVersion) {
+        return getWorldSnapshot();
+    }
+
+    @Override
+    public long getStateHash() {
+        return 0;
+    }
+
+    @Override
+    public boolean[] submitBatch(List<Command> commands) {
+        boolean[] results = new boolean[commands.size()];
+        for (int i = 0; i < results.length; i++)
+            results[i] = commands.get(i).executeOn(this);
+        return results;
+    }
 }
@@ -5,6 +5,7 @@ import hotciv.standard.TileImpl;
 import hotciv.standard.UnitImpl;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class ServerStub implements Game {
     Position archer = new Position(1, 1);
@@ -43,6 +44,10 @@ public class ServerStub implements Game {
         return false;
     }
 
+    public Position moveUnitAlongPath(Position from, Position to) {
+        return moveUnit(from, to) ? to : from;
+    }
+
     public void endOfTurn() {
 
     }
@@ -81,4 +86,27 @@ public class ServerStub implements Game {
     public TileImpl[][] getTileMap() {
         return new TileImpl[0][];
     }
+
+    @Override
+    public WorldSnapshot getWorldSnapshot() {
+        return WorldSnapshot.of(getTileMap(), getAge(), getPlayerInTurn());
+    }
+
+    @Override
+    public WorldSnapshot getWorldChangesSince(int worldVersion) {
+        return getWorldSnapshot();
+    }
+
+    @Override
+    public long getStateHash() {
+        return 0;
+    }
+
+    @Override
+    public boolean[] submitBatch(List<Command> commands) {
+        boolean[] results = new boolean[commands.size()];
+        for (int i = 0; i < results.length; i++)
+            results[i] = commands.get(i).executeOn(this);
+        return results;
+    }
 }
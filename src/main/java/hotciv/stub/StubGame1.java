@@ -45,6 +45,7 @@ public class StubGame1 implements Game {
   public Player getWinner() { return null; }
   public int getAge() { return 0; }  
   public boolean moveUnit( Position from, Position to ) { return true; }
+  public Position moveUnitAlongPath( Position from, Position to ) { return to; }
   public void endOfTurn() {}
   public void changeWorkForceFocusInCityAt( Position p, String balance ) {}
   public void changeProductionInCityAt( Position p, String unitType ) {}
@@ -67,6 +68,29 @@ public class StubGame1 implements Game {
     return new TileImpl[0][];
   }
 
+  @Override
+  public WorldSnapshot getWorldSnapshot() {
+    return WorldSnapshot.of(getTileMap(), getAge(), getPlayerInTurn());
+  }
+
+  @Override
+  public WorldSnapshot getWorldChangesSince(int worldVersion) {
+    return getWorldSnapshot();
+  }
+
+  @Override
+  public long getStateHash() {
+    return 0;
+  }
+
+  @Override
+  public boolean[] submitBatch(List<Command> commands) {
+    boolean[] results = new boolean[commands.size()];
+    for (int i = 0; i < results.length; i++)
+      results[i] = commands.get(i).executeOn(this);
+    return results;
+  }
+
   // A simple implementation to draw the map of DeltaCiv
   protected Map<Position,Tile> world; 
   public Tile getTileAt( Position p ) { return world.get(p); }
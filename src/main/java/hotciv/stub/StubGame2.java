@@ -45,6 +45,10 @@ public class StubGame2 implements Game {
     return true;
   }
 
+  public Position moveUnitAlongPath(Position from, Position to) {
+    return moveUnit(from, to) ? to : from;
+  }
+
   public void endOfTurn() {
     System.out.println("-- StubGame2 / endOfTurn called.");
     inTurn = (getPlayerInTurn() == Player.RED ?
@@ -147,6 +151,29 @@ public class StubGame2 implements Game {
     return new TileImpl[0][];
   }
 
+  @Override
+  public WorldSnapshot getWorldSnapshot() {
+    return WorldSnapshot.of(getTileMap(), getAge(), getPlayerInTurn());
+  }
+
+  @Override
+  public WorldSnapshot getWorldChangesSince(int worldVersion) {
+    return getWorldSnapshot();
+  }
+
+  @Override
+  public long getStateHash() {
+    return 0;
+  }
+
+  @Override
+  public boolean[] submitBatch(List<Command> commands) {
+    boolean[] results = new boolean[commands.size()];
+    for (int i = 0; i < results.length; i++)
+      results[i] = commands.get(i).executeOn(this);
+    return results;
+  }
+
   private void notifyWorldChange(Position pos) {
     gameObserver.worldChangedAt(pos);
   }
@@ -23,6 +23,10 @@ public class CivDrawing implements Drawing, GameObserver {
      * from */
     protected Game game;
 
+    /** the world as last drawn, and the world version it was drawn at */
+    protected TileImpl[][] map;
+    protected int worldVersion;
+
     HashMap<Player, String> playerHashMap = new HashMap<Player, String>(){{
         put(Player.RED, "red");
         put(Player.BLUE, "blue");
@@ -44,11 +48,13 @@ public class CivDrawing implements Drawing, GameObserver {
         game.addObserver(this);
         // ... and build up the set of figures associated with
         // units in the game
-        World.setTileMap(game.getTileMap());
-        defineCityMap(World.getMap());
-        defineUnitMap(World.getMap());
+        WorldSnapshot snapshot = game.getWorldSnapshot();
+        map = snapshot.toTileMap();
+        worldVersion = snapshot.getWorldVersion();
+        defineCityMap(map);
+        defineUnitMap(map);
         // and the set of 'icons' in the status panel
-        defineIcons();
+        defineIcons(snapshot);
 
     }
 
@@ -79,28 +85,32 @@ public class CivDrawing implements Drawing, GameObserver {
         // each unit in the game world, as well as
         // create an association between the unit and
         // the unitFigure in 'unitFigureMap'.
-        for ( int r = 0; r < GameConstants.WORLDSIZE; r++ ) {
-            for ( int c = 0; c < GameConstants.WORLDSIZE; c++ ) {
+        for ( int r = 0; r < map.length; r++ ) {
+            for ( int c = 0; c < map.length; c++ ) {
                 Unit unit = map[r][c].getUnit();
                 if ( unit != null ) {
-                    String type = unit.getTypeString();
-                    // convert the unit's Position to (x,y) coordinates
-                    Point point = new Point( GfxConstants.getXFromColumn(c),
-                            GfxConstants.getYFromRow(r) );
-                    UnitFigure unitFigure =
-                            new UnitFigure( type, point, unit );
-                    unitFigure.addFigureChangeListener(this);
-                    unitFigureMap.put(unit, unitFigure);
-
-                    // also insert in delegate list as it is
-                    // this list that is iterated by the
-                    // graphics rendering algorithms
-                    delegate.add(unitFigure);
+                    addUnitFigure(r, c, unit);
                 }
             }
         }
     }
 
+    protected void addUnitFigure(int r, int c, Unit unit) {
+        String type = unit.getTypeString();
+        // convert the unit's Position to (x,y) coordinates
+        Point point = new Point( GfxConstants.getXFromColumn(c),
+                GfxConstants.getYFromRow(r) );
+        UnitFigure unitFigure =
+                new UnitFigure( type, point, unit );
+        unitFigure.addFigureChangeListener(this);
+        unitFigureMap.put(unit, unitFigure);
+
+        // also insert in delegate list as it is
+        // this list that is iterated by the
+        // graphics rendering algorithms
+        delegate.add(unitFigure);
+    }
+
     protected void defineCityMap(TileImpl[][] map) {
         // ensure no units of the old list are accidental in
         // the selection!
@@ -111,22 +121,62 @@ public class CivDrawing implements Drawing, GameObserver {
 
         // iterate world, and create a city figure for each city in the game world, as well as
         // create an association between the city and the cityFigure in 'cityFigureMap'.
-        for ( int r = 0; r < GameConstants.WORLDSIZE; r++ ) {
-            for ( int c = 0; c < GameConstants.WORLDSIZE; c++ ) {
+        for ( int r = 0; r < map.length; r++ ) {
+            for ( int c = 0; c < map.length; c++ ) {
                 City city = map[r][c].getCity();
                 if ( city != null ) {
+                    addCityFigure(r, c, city);
+                }
+            }
+        }
+    }
 
-                    // convert the unit's Position to (x,y) coordinates
-                    Point point = new Point( GfxConstants.getXFromColumn(c), GfxConstants.getYFromRow(r) );
-                    CityFigure cityFigure = new CityFigure(city, point);
-                    cityFigure.addFigureChangeListener(this);
-                    cityFigureMap.put(city, cityFigure);
+    protected void addCityFigure(int r, int c, City city) {
+        // convert the unit's Position to (x,y) coordinates
+        Point point = new Point( GfxConstants.getXFromColumn(c), GfxConstants.getYFromRow(r) );
+        CityFigure cityFigure = new CityFigure(city, point);
+        cityFigure.addFigureChangeListener(this);
+        cityFigureMap.put(city, cityFigure);
 
-                    // also insert in delegate list as it is this list that is iterated by the graphics rendering algorithms
-                    delegate.add(cityFigure);
-                }
+        // also insert in delegate list as it is this list that is iterated by the graphics rendering algorithms
+        delegate.add(cityFigure);
+    }
+
+    /** fetch the tiles changed since the world was last drawn and
+     * replace only the figures on those tiles. Falls back to rebuilding
+     * every figure when the game answers with a complete snapshot.
+     * @return the changes, which also hold the age and player in turn
+     */
+    protected WorldSnapshot updateWorld() {
+        WorldSnapshot changes = game.getWorldChangesSince(worldVersion);
+        if (changes.isComplete()) {
+            map = changes.toTileMap();
+            defineCityMap(map);
+            defineUnitMap(map);
+        } else {
+            clearSelection();
+            List<Position> positions = changes.getPositions();
+            for (Position p : positions)
+                removeFiguresAt(p);
+            changes.applyTo(map);
+            for (Position p : positions) {
+                TileImpl tile = map[p.getRow()][p.getColumn()];
+                if (tile.getCity() != null)
+                    addCityFigure(p.getRow(), p.getColumn(), tile.getCity());
+                if (tile.getUnit() != null)
+                    addUnitFigure(p.getRow(), p.getColumn(), tile.getUnit());
             }
         }
+        worldVersion = changes.getWorldVersion();
+        return changes;
+    }
+
+    protected void removeFiguresAt(Position p) {
+        TileImpl tile = map[p.getRow()][p.getColumn()];
+        if (tile.getUnit() != null && unitFigureMap.containsKey(tile.getUnit()))
+            delegate.remove(unitFigureMap.remove(tile.getUnit()));
+        if (tile.getCity() != null && cityFigureMap.containsKey(tile.getCity()))
+            delegate.remove(cityFigureMap.remove(tile.getCity()));
     }
 
 
@@ -175,10 +225,10 @@ public class CivDrawing implements Drawing, GameObserver {
     protected ImageFigure refreshButtonIcon;
     protected TextFigure moveCountText;
     protected TextFigure ageText;
-    protected void defineIcons() {
+    protected void defineIcons(WorldSnapshot snapshot) {
         removeAlImageFigures();
         removeAllTextFigures();
-        Integer age = game.getAge();
+        Integer age = snapshot.getAge();
         turnShieldIcon = new ImageFigure( GfxConstants.RED_SHIELD, new Point( GfxConstants.TURN_SHIELD_X, GfxConstants.TURN_SHIELD_Y ));
         unitShieldIcon = new ImageFigure(GfxConstants.NOTHING, new Point(GfxConstants.UNIT_SHIELD_X, GfxConstants.UNIT_SHIELD_Y));
         cityShieldIcon = new ImageFigure(GfxConstants.NOTHING, new Point(GfxConstants.CITY_SHIELD_X, GfxConstants.CITY_SHIELD_Y));
@@ -208,18 +258,18 @@ public class CivDrawing implements Drawing, GameObserver {
         delegate.add(moveCountText);
     }
 
-    protected void resetIcons() {
+    protected void resetIcons(WorldSnapshot snapshot) {
         unitShieldIcon.set(GfxConstants.NOTHING, new Point(GfxConstants.UNIT_SHIELD_X, GfxConstants.UNIT_SHIELD_Y));
         cityShieldIcon.set(GfxConstants.NOTHING, new Point(GfxConstants.CITY_SHIELD_X, GfxConstants.CITY_SHIELD_Y));
         workforceFocusIcon.set(GfxConstants.NOTHING, new Point(GfxConstants.WORKFORCEFOCUS_X, GfxConstants.WORKFORCEFOCUS_Y));
         cityProductionIcon.set(GfxConstants.NOTHING, new Point(GfxConstants.CITY_PRODUCTION_X, GfxConstants.CITY_PRODUCTION_Y));
-        updateIcons();
+        updateIcons(snapshot);
     }
 
-    protected void updateIcons(){
-        String playerName = playerHashMap.get(game.getPlayerInTurn());
+    protected void updateIcons(WorldSnapshot snapshot){
+        String playerName = playerHashMap.get(snapshot.getPlayerInTurn());
         turnShieldIcon.set( playerName+"shield", new Point( GfxConstants.TURN_SHIELD_X, GfxConstants.TURN_SHIELD_Y ));
-        ageText.setText(((Integer) game.getAge()).toString());
+        ageText.setText(((Integer) snapshot.getAge()).toString());
         clearSelection();
         removeAlImageFigures();
         removeAllTextFigures();
@@ -235,30 +285,30 @@ public class CivDrawing implements Drawing, GameObserver {
     }
     // === Observer Methods ===
 
+    // Each event fetches the changes since the last one in a single request
+    // and only replaces the figures on the changed tiles.
     public void worldChangedAt(Position pos) {
-        World.setTileMap(game.getTileMap());
-        defineCityMap(World.getMap());
-        defineUnitMap(World.getMap());
-        updateIcons();
+        WorldSnapshot changes = updateWorld();
+        updateIcons(changes);
     }
 
     public void turnEnds(Player nextPlayer) {
-        resetIcons();
+        WorldSnapshot changes = updateWorld();
+        resetIcons(changes);
         String playerName = playerHashMap.get(nextPlayer);
         turnShieldIcon.set( playerName+"shield", new Point( GfxConstants.TURN_SHIELD_X, GfxConstants.TURN_SHIELD_Y ));
-        ageText.setText(((Integer) game.getAge()).toString());
-        World.setTileMap(game.getTileMap());
-        defineCityMap(World.getMap());
-        defineUnitMap(World.getMap());
+        ageText.setText(((Integer) changes.getAge()).toString());
     }
 
     public void tileFocusChangedAt(Position pos) {
-        // TODO: Implementation pending
+        updateWorld();
+        Unit unit = map[pos.getRow()][pos.getColumn()].getUnit();
+        City city = map[pos.getRow()][pos.getColumn()].getCity();
         // If you select a unit, then the shields should change to the appropriate colours
-        if(game.getUnitAt(pos) != null){
-            String ownerName = playerHashMap.get(game.getUnitAt(pos).getOwner());
+        if(unit != null){
+            String ownerName = playerHashMap.get(unit.getOwner());
             unitShieldIcon.set(ownerName + "shield", new Point( GfxConstants.UNIT_SHIELD_X, GfxConstants.UNIT_SHIELD_Y ));
-            moveCountText.setText(((Integer) game.getUnitAt(pos).getMoveCount()).toString());
+            moveCountText.setText(((Integer) unit.getMoveCount()).toString());
         }
         else {
             unitShieldIcon.set(GfxConstants.NOTHING, new Point( GfxConstants.UNIT_SHIELD_X, GfxConstants.UNIT_SHIELD_Y ));
@@ -266,17 +316,17 @@ public class CivDrawing implements Drawing, GameObserver {
         }
 
         // If you select a city
-        if(game.getCityAt(pos) != null){
+        if(city != null){
             // Change shield
-            String ownerName = playerHashMap.get(game.getCityAt(pos).getOwner());
+            String ownerName = playerHashMap.get(city.getOwner());
             cityShieldIcon.set(ownerName + "shield", new Point( GfxConstants.CITY_SHIELD_X, GfxConstants.CITY_SHIELD_Y ));
 
             // Change production
-            String production = game.getCityAt(pos).getProduction();
+            String production = city.getProduction();
             cityProductionIcon.set(production, new Point(GfxConstants.CITY_PRODUCTION_X, GfxConstants.CITY_PRODUCTION_Y));
 
             // Change focus
-            String focus = game.getCityAt(pos).getWorkforceFocus();
+            String focus = city.getWorkforceFocus();
             workforceFocusIcon.set(focus, new Point(GfxConstants.WORKFORCEFOCUS_X, GfxConstants.WORKFORCEFOCUS_Y));
         }
         else {
@@ -289,10 +339,12 @@ public class CivDrawing implements Drawing, GameObserver {
     @Override
     public void requestUpdate() {
         // A request has been issued to repaint everything. We simply rebuild the entire Drawing.
-        World.setTileMap(game.getTileMap());
-        updateIcons();
-        defineCityMap(World.getMap());
-        defineUnitMap(World.getMap());
+        WorldSnapshot snapshot = game.getWorldSnapshot();
+        map = snapshot.toTileMap();
+        worldVersion = snapshot.getWorldVersion();
+        updateIcons(snapshot);
+        defineCityMap(map);
+        defineUnitMap(map);
     }
 
     @Override
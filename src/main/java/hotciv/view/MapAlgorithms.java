@@ -37,19 +37,19 @@ class MapAlgorithms {
    *  that encodes the coast line properties for a tile at a given
    *  position.  Precondition: the tile at position p is ocean.
    *
-   * @param game the game which contains the world
+   * @param map the tiles of the world
    * @param center the position of the tile to compute the coastline for
    *
    * @return a 4 digit binary number as a string. For each position
    *  in the number an '1' means "coast line" and "0" means "ocean".
    *  The first binary number is the northern edge, the second the
    *  eastern, the third the southern, and the forth the western.  Ex:
-   *  "0000" is returned if the ocean tile at position 'p' in 'game'
+   *  "0000" is returned if the ocean tile at position 'p' in 'map'
    *  has no coast lines to N, E, S, and W. "0110" means ocean tile
    *  'p' as coast line on the E and S tile.
    *
    */
-  public static String getCoastlineCoding(Game game, Position center) {
+  public static String getCoastlineCoding(Tile[][] map, Position center) {
     char[] coding = {'0','0','0','0' };
 
     int row = center.getRow(), col = center.getColumn();
@@ -63,9 +63,9 @@ class MapAlgorithms {
     //   check if there is a coastline
     for ( int i = 0; i < 4; i++ ) {
       p = new Position( row+offsetRow[i], col+offsetCol[i]);
-      if ( p.getRow() >= 0 && p.getRow() < GameConstants.WORLDSIZE &&
-           p.getColumn() >= 0 && p.getColumn() < GameConstants.WORLDSIZE &&
-           !World.getMap()[p.getRow()][p.getColumn()].getTypeString().equals(GameConstants.OCEANS) ) {
+      if ( p.getRow() >= 0 && p.getRow() < map.length &&
+           p.getColumn() >= 0 && p.getColumn() < map.length &&
+           !map[p.getRow()][p.getColumn()].getTypeString().equals(GameConstants.OCEANS) ) {
         coding[i] = '1';
       }
     }
@@ -70,18 +70,19 @@ public class MapView
 
     ImageManager im = ImageManager.getSingleton();
     Image img;
+    TileImpl[][] map = game.getWorldSnapshot().toTileMap();
     // draw the map as a matrix of tiles with cities on top
-    for ( int r = 0; r < GameConstants.WORLDSIZE; r++ ) {
-      for ( int c = 0; c < GameConstants.WORLDSIZE; c++ ) {
+    for ( int r = 0; r < map.length; r++ ) {
+      for ( int c = 0; c < map.length; c++ ) {
         int xpos = GfxConstants.getXFromColumn(c);
         int ypos = GfxConstants.getYFromRow(r);
         // Draw proper terrain
-        Tile t = World.getMap()[r][c];
+        Tile t = map[r][c];
         String image_name = t.getTypeString();
         // special handling of ocean coasts
         if ( image_name.equals(GameConstants.OCEANS) ) {
           image_name = image_name + 
-            MapAlgorithms.getCoastlineCoding(game, new Position(r, c));
+            MapAlgorithms.getCoastlineCoding(map, new Position(r, c));
         }
         img = im.getImage( image_name );
         g.drawImage( img, xpos, ypos, null );
@@ -1,18 +1,42 @@
 package hotciv.visual;
 
+import hotciv.ai.ComputerSeat;
+import hotciv.ai.MctsPlayer;
 import hotciv.framework.Game;
+import hotciv.framework.Player;
 import hotciv.standard.GameImpl;
 import hotciv.standard.factory.SemiFactory;
 import minidraw.framework.Drawing;
 import minidraw.framework.DrawingEditor;
 import minidraw.standard.MiniDrawApplication;
 
+import javax.swing.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
 public class SemiGUI {
+    // the time the computer thinks about a turn
+    private static final long TURN_MILLIS = 2000;
+
+    /**
+     * @param args "computer" to play against the computer, which plays blue
+     */
     public static void main(String[] args) {
         GameImpl game = new GameImpl(new SemiFactory());
         DrawingEditor editor = new MiniDrawApplication("SemiCiv", new HotCivFactory4(game)); //Might work?
         editor.open();
         editor.setTool(new CompositeTool(editor, game));
+        if (args.length > 0 && args[0].equals("computer")) {
+            MctsPlayer computer = new MctsPlayer(SemiFactory::new, System.nanoTime(), TURN_MILLIS,
+                    Runtime.getRuntime().availableProcessors());
+            // the computer searches on a thread of its own, and plays its commands on the thread
+            // of the user interface, as the drawing does
+            Executor search = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "computer player");
+                thread.setDaemon(true);
+                return thread;
+            });
+            game.addObserver(new ComputerSeat(game, Player.BLUE, computer, SwingUtilities::invokeLater, search));
+        }
     }
 }
-
@@ -0,0 +1,70 @@
+package hotciv.broker;
+
+import frds.broker.RequestObject;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.AlphaFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the latency of getAge against a local ServerRequestHandler when a new
+ * connection is opened for every call, when connections are pooled, and when four
+ * calls are pipelined over one pooled connection.
+ */
+public class ConnectionBenchmark {
+    private static final int WARMUP = 500;
+    private static final int CALLS = 5000;
+
+    public static void main(String[] args) throws IOException {
+        ServerRequestHandler server = new ServerRequestHandler(0, new Invoker(new GameImpl(new AlphaFactory())));
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+        int port = server.getPort();
+
+        NetworkClientRequestHandler perCall = new NetworkClientRequestHandler("localhost");
+        perCall.setServer("localhost", port);
+        report("connect per call", measure(new GameProxy(new StandardJSONRequestor(perCall))));
+
+        NetworkClientRequestHandler pooled = new NetworkClientRequestHandler("localhost", port, 4, 30000);
+        report("pooled", measure(new GameProxy(new StandardJSONRequestor(pooled))));
+
+        List<RequestObject> batch = Collections.nCopies(4, new RequestObject("lol", OperationNames.getAge, "[]"));
+        long[] pipelined = new long[CALLS];
+        for (int i = 0; i < WARMUP + CALLS; i++) {
+            long start = System.nanoTime();
+            pooled.sendAll(batch);
+            if (i >= WARMUP)
+                pipelined[i - WARMUP] = (System.nanoTime() - start) / batch.size();
+        }
+        report("pooled, 4 pipelined", pipelined);
+
+        pooled.close();
+        server.stop();
+    }
+
+    private static long[] measure(GameProxy game) {
+        long[] latencies = new long[CALLS];
+        for (int i = 0; i < WARMUP + CALLS; i++) {
+            long start = System.nanoTime();
+            game.getAge();
+            if (i >= WARMUP)
+                latencies[i - WARMUP] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static void report(String name, long[] latencies) {
+        Arrays.sort(latencies);
+        System.out.printf("%-22s p50 %7.1f us  p99 %7.1f us  mean %7.1f us%n", name,
+                latencies[latencies.length / 2] / 1000.0,
+                latencies[latencies.length * 99 / 100] / 1000.0,
+                Arrays.stream(latencies).average().getAsDouble() / 1000.0);
+    }
+}
@@ -0,0 +1,142 @@
+package hotciv.broker;
+
+import frds.broker.ClientRequestHandler;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.GameObserver;
+import hotciv.framework.Player;
+import hotciv.framework.Position;
+import hotciv.framework.WorldSnapshot;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.AlphaFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One client ends a turn every TURN_MS while another client follows the game, either
+ * by having the events pushed or by asking for the world changes every POLL_MS.
+ * Prints how long it takes the follower to see the turn change and how many
+ * requests it makes per turn.
+ */
+public class EventPushBenchmark {
+    private static final int TURNS = 50;
+    private static final long TURN_MS = 200;
+    private static final long POLL_MS = 100;
+
+    private static class CountingClientRequestHandler implements ClientRequestHandler {
+        private final ClientRequestHandler handler;
+        private final AtomicInteger requests = new AtomicInteger();
+
+        CountingClientRequestHandler(ClientRequestHandler handler) {
+            this.handler = handler;
+        }
+
+        public ReplyObject sendToServer(RequestObject requestObject) {
+            requests.incrementAndGet();
+            return handler.sendToServer(requestObject);
+        }
+
+        public void setServer(String hostname, int port) {
+            handler.setServer(hostname, port);
+        }
+
+        public void close() {
+            handler.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(true);
+        run(false);
+    }
+
+    private static void run(boolean push) throws Exception {
+        ServerRequestHandler server = new ServerRequestHandler(0, new Invoker(new GameImpl(new AlphaFactory())));
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        NetworkClientRequestHandler playerConnection = new NetworkClientRequestHandler("localhost", server.getPort(), 2, 60000);
+        GameProxy player = new GameProxy(new StandardJSONRequestor(playerConnection));
+        CountingClientRequestHandler followerConnection = new CountingClientRequestHandler(
+                new NetworkClientRequestHandler("localhost", server.getPort(), 2, 60000));
+        GameProxy follower = new GameProxy(new StandardJSONRequestor(followerConnection));
+
+        // the time each turn was ended and the time the follower saw it
+        long[] ended = new long[TURNS];
+        long[] seen = new long[TURNS];
+        AtomicInteger turnsSeen = new AtomicInteger();
+        Thread poller = null;
+        if (push) {
+            follower.addObserver(new GameObserver() {
+                public void worldChangedAt(Position pos) { }
+                public void turnEnds(Player nextPlayer) {
+                    int turn = turnsSeen.getAndIncrement();
+                    if (turn < TURNS)
+                        seen[turn] = System.nanoTime();
+                }
+                public void tileFocusChangedAt(Position position) { }
+                public void requestUpdate() { }
+            });
+            follower.subscribe(Runnable::run);
+        } else {
+            int version = follower.getWorldSnapshot().getWorldVersion();
+            poller = new Thread(() -> {
+                int worldVersion = version;
+                Player last = follower.getPlayerInTurn();
+                while (!Thread.currentThread().isInterrupted()) {
+                    WorldSnapshot changes = follower.getWorldChangesSince(worldVersion);
+                    worldVersion = changes.getWorldVersion();
+                    if (changes.getPlayerInTurn() != last) {
+                        last = changes.getPlayerInTurn();
+                        int turn = turnsSeen.getAndIncrement();
+                        if (turn < TURNS)
+                            seen[turn] = System.nanoTime();
+                    }
+                    try {
+                        Thread.sleep(POLL_MS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            poller.setDaemon(true);
+            poller.start();
+        }
+
+        int before = followerConnection.requests.get();
+        for (int turn = 0; turn < TURNS; turn++) {
+            ended[turn] = System.nanoTime();
+            player.endOfTurn();
+            Thread.sleep(TURN_MS);
+        }
+        Thread.sleep(2 * POLL_MS);
+        int requests = followerConnection.requests.get() - before;
+
+        long[] latencies = new long[TURNS];
+        int count = 0;
+        for (int turn = 0; turn < TURNS; turn++)
+            if (seen[turn] != 0)
+                latencies[count++] = seen[turn] - ended[turn];
+
+        System.out.printf("%-6s turns seen %3d/%d  requests per turn %.2f", push ? "push" : "poll",
+                Math.min(turnsSeen.get(), TURNS), TURNS, requests / (double) TURNS);
+        if (count > 0) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("  latency p50 %.2f ms  p99 %.2f ms", sorted[count / 2] / 1e6, sorted[count * 99 / 100] / 1e6);
+        }
+        System.out.println();
+
+        follower.unsubscribe();
+        if (poller != null)
+            poller.interrupt();
+        playerConnection.close();
+        followerConnection.close();
+        server.stop();
+    }
+}
@@ -0,0 +1,49 @@
+package hotciv.broker;
+
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.invokers.ObjectRegistry;
+import hotciv.framework.GameConstants;
+import hotciv.framework.Player;
+import hotciv.framework.Position;
+import hotciv.standard.GameImpl;
+import hotciv.standard.UnitImpl;
+import hotciv.standard.factory.AlphaFactory;
+
+/**
+ * Hands out a unit to a client, lets it die and puts a new one in its place, over and
+ * over, and prints the size of the unit registry of the Invoker and the used heap.
+ * Every other unit leaves through World.removeUnit, the rest are simply replaced on
+ * their tile, so both the lifecycle and the garbage collection eviction are exercised.
+ */
+public class RegistrySoakBenchmark {
+    private static final int UNITS = 1_000_000;
+    private static final int REPORT_EVERY = 100_000;
+
+    public static void main(String[] args) {
+        GameImpl game = new GameImpl(new AlphaFactory());
+        Invoker invoker = new Invoker(game);
+        ObjectRegistry<UnitImpl> units = invoker.getUnits();
+        Position pos = new Position(2, 0);
+        String payload = "[{\"r\":2,\"c\":0}]";
+        Runtime runtime = Runtime.getRuntime();
+
+        System.out.printf("%10s %10s %10s %10s %10s %10s%n", "units", "registry", "added", "removed", "evicted", "heap MB");
+        for (int i = 1; i <= UNITS; i++) {
+            invoker.handleRequest("lol", OperationNames.getUnitAt, payload);
+            UnitImpl next = new UnitImpl(GameConstants.ARCHER, Player.RED);
+            if (i % 2 == 0) {
+                game.getWorld().removeUnit(pos);
+                game.setUnitAt(pos, next);
+            } else {
+                game.getWorld().getTiles().setUnit(game.getWorld().getTiles().indexOf(pos), next);
+            }
+
+            if (i % REPORT_EVERY == 0) {
+                System.gc();
+                long heap = runtime.totalMemory() - runtime.freeMemory();
+                System.out.printf("%10d %10d %10d %10d %10d %10.1f%n", i, units.size(), units.getAdded(),
+                        units.getRemoved(), units.getEvicted(), heap / 1e6);
+            }
+        }
+    }
+}
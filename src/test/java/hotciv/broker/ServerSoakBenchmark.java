@@ -0,0 +1,111 @@
+package hotciv.broker;
+
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.AlphaFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Keeps a growing number of clients busy calling getAge for a while and reports the
+ * latency percentiles, once for the thread per connection ServerRequestHandler and
+ * once for the NioServerRequestHandler. Each is run without and with clients subscribed
+ * to the events of the game, which hold a game_awaitEvents request on the server the
+ * whole time.
+ */
+public class ServerSoakBenchmark {
+    private static final int[] CLIENT_COUNTS = {1, 10, 100, 300};
+    // twice the workers of a NioServerRequestHandler
+    private static final int SUBSCRIBERS = 2 * Runtime.getRuntime().availableProcessors();
+    private static final long RUN_MS = 3000;
+
+    private interface Server {
+        int getPort();
+        void start();
+        void stop();
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("server\tclients\tsubscribers\treq/s\tp50 us\tp99 us");
+        for (int clients : CLIENT_COUNTS) {
+            for (int subscribers : new int[]{0, SUBSCRIBERS}) {
+                ServerRequestHandler threaded = new ServerRequestHandler(0, new Invoker(new GameImpl(new AlphaFactory())));
+                run("threads", clients, subscribers, new Server() {
+                    public int getPort() { return threaded.getPort(); }
+                    public void start() { threaded.start(); }
+                    public void stop() { threaded.stop(); }
+                });
+                NioServerRequestHandler nio = new NioServerRequestHandler(0, new Invoker(new GameImpl(new AlphaFactory())));
+                run("nio", clients, subscribers, new Server() {
+                    public int getPort() { return nio.getPort(); }
+                    public void start() { nio.start(); }
+                    public void stop() { nio.stop(); }
+                });
+            }
+        }
+    }
+
+    private static void run(String name, int clients, int subscribers, Server server) throws InterruptedException {
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        ArrayList<GameProxy> subscribed = new ArrayList<>();
+        ArrayList<NetworkClientRequestHandler> subscriberHandlers = new ArrayList<>();
+        for (int s = 0; s < subscribers; s++) {
+            NetworkClientRequestHandler handler = new NetworkClientRequestHandler("localhost", server.getPort(), 2, 60000);
+            GameProxy game = new GameProxy(new StandardJSONRequestor(handler));
+            game.subscribe(Runnable::run);
+            subscribed.add(game);
+            subscriberHandlers.add(handler);
+        }
+
+        long[][] latencies = new long[clients][];
+        CountDownLatch ready = new CountDownLatch(clients);
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            final int index = c;
+            Thread thread = new Thread(() -> {
+                NetworkClientRequestHandler handler = new NetworkClientRequestHandler("localhost", server.getPort(), 1, 60000);
+                GameProxy game = new GameProxy(new StandardJSONRequestor(handler));
+                game.getAge(); // connect before the clock starts
+                ready.countDown();
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long[] samples = new long[1024];
+                int count = 0;
+                long end = System.currentTimeMillis() + RUN_MS;
+                while (System.currentTimeMillis() < end) {
+                    long start = System.nanoTime();
+                    game.getAge();
+                    if (count == samples.length)
+                        samples = Arrays.copyOf(samples, count * 2);
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[index] = Arrays.copyOf(samples, count);
+                handler.close();
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (GameProxy game : subscribed)
+            game.unsubscribe();
+        server.stop();
+        for (NetworkClientRequestHandler handler : subscriberHandlers)
+            handler.close();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%s\t%d\t%d\t%d\t%.1f\t%.1f%n", name, clients, subscribers, all.length * 1000 / RUN_MS,
+                all[all.length / 2] / 1000.0, all[all.length * 99 / 100] / 1000.0);
+    }
+}
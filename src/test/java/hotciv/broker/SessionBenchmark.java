@@ -0,0 +1,104 @@
+package hotciv.broker;
+
+import frds.broker.ClientRequestHandler;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.invokers.SessionInvoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.Position;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.SemiFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the request throughput of a SessionInvoker for a growing number of games.
+ * The clients call the invoker in process, so the numbers show the cost of the broker
+ * layers and the game itself, not of the network.
+ *
+ * Every configuration is run twice, once with all games on a single shard and once
+ * with one shard per processor.
+ */
+public class SessionBenchmark {
+    private static final int[] GAME_COUNTS = {1, 2, 4, 8, 16, 64};
+    private static final long WARMUP_MS = 500;
+    private static final long RUN_MS = 2000;
+
+    /**
+     * Hands requests directly to the invoker without printing them
+     */
+    private static class InProcessClientRequestHandler implements ClientRequestHandler {
+        private final frds.broker.Invoker invoker;
+
+        InProcessClientRequestHandler(frds.broker.Invoker invoker) {
+            this.invoker = invoker;
+        }
+
+        public ReplyObject sendToServer(RequestObject requestObject) {
+            return invoker.handleRequest(requestObject.getObjectId(), requestObject.getOperationName(),
+                    requestObject.getPayload());
+        }
+
+        public void setServer(String hostname, int port) {
+        }
+
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2 * processors;
+        System.out.println("clients=" + clients + " processors=" + processors);
+        System.out.println("games\tshards\treq/s");
+        for (int games : GAME_COUNTS) {
+            System.out.println(games + "\t1\t" + Math.round(run(games, 1, clients)));
+            if (processors > 1)
+                System.out.println(games + "\t" + processors + "\t" + Math.round(run(games, processors, clients)));
+        }
+    }
+
+    private static double run(int games, int shards, int clients) throws InterruptedException {
+        SessionInvoker invoker = new SessionInvoker(shards);
+        for (int i = 0; i < games; i++)
+            invoker.addGame("game" + i, new GameImpl(new SemiFactory()));
+
+        LongAdder requests = new LongAdder();
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            String gameId = "game" + (c % games);
+            Thread thread = new Thread(() -> {
+                GameProxy game = new GameProxy(new StandardJSONRequestor(new InProcessClientRequestHandler(invoker)), gameId);
+                Position pos = new Position(8, 12);
+                while (running.get()) {
+                    game.getPlayerInTurn();
+                    game.getUnitAt(pos);
+                    game.getCityAt(pos);
+                    game.getAge();
+                    if (measuring.get())
+                        requests.add(4);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(WARMUP_MS);
+        measuring.set(true);
+        long start = System.nanoTime();
+        long before = requests.sum();
+        Thread.sleep(RUN_MS);
+        long done = requests.sum() - before;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        for (Thread thread : threads)
+            thread.join();
+        invoker.shutdown();
+        return done / seconds;
+    }
+}
@@ -0,0 +1,81 @@
+package hotciv.broker;
+
+import frds.broker.ClientRequestHandler;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.Position;
+import hotciv.standard.GameImpl;
+import hotciv.standard.factory.SemiFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Prints the requests and bytes a client exchanges with the server for one redraw
+ * of the world and one change of tile focus, using the per-call requests the view
+ * used to make and using a world snapshot.
+ */
+public class SnapshotTrafficReport {
+    private static class CountingClientRequestHandler implements ClientRequestHandler {
+        private final Invoker invoker;
+        private int requests;
+        private long bytes;
+
+        CountingClientRequestHandler(Invoker invoker) {
+            this.invoker = invoker;
+        }
+
+        public ReplyObject sendToServer(RequestObject requestObject) {
+            ReplyObject reply = invoker.handleRequest(requestObject.getObjectId(), requestObject.getOperationName(),
+                    requestObject.getPayload());
+            requests++;
+            bytes += requestObject.getPayload().getBytes(StandardCharsets.UTF_8).length
+                    + reply.payload().getBytes(StandardCharsets.UTF_8).length;
+            return reply;
+        }
+
+        void reset() {
+            requests = 0;
+            bytes = 0;
+        }
+
+        public void setServer(String hostname, int port) {
+        }
+
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) {
+        CountingClientRequestHandler counter = new CountingClientRequestHandler(new Invoker(new GameImpl(new SemiFactory())));
+        GameProxy game = new GameProxy(new StandardJSONRequestor(counter));
+        Position city = new Position(8, 12);
+
+        game.getTileMap();
+        game.getPlayerInTurn();
+        game.getAge();
+        report("redraw, per call", counter);
+        game.getWorldSnapshot();
+        report("redraw, snapshot", counter);
+
+        if (game.getUnitAt(city) != null) {
+            game.getUnitAt(city).getOwner();
+            game.getUnitAt(city).getMoveCount();
+        }
+        if (game.getCityAt(city) != null) {
+            game.getCityAt(city).getOwner();
+            game.getCityAt(city).getProduction();
+            game.getCityAt(city).getWorkforceFocus();
+        }
+        report("focus, per call", counter);
+        game.getWorldSnapshot();
+        report("focus, snapshot", counter);
+    }
+
+    private static void report(String name, CountingClientRequestHandler counter) {
+        System.out.printf("%-18s %2d requests %7d bytes%n", name, counter.requests, counter.bytes);
+        counter.reset();
+    }
+}
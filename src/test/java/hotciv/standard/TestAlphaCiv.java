@@ -126,6 +126,18 @@ public class TestAlphaCiv {
         assertFalse(game.moveUnit(from, unit)); // trying to move onto a friendly unit
     }
 
+    @Test
+    public void cannotMoveFromOffTheMap() {
+        Position archer = new Position(2, 0);
+        Position offMap = new Position(1, GameConstants.WORLDSIZE); // one past the end of row 1
+        Position to = new Position(2, GameConstants.WORLDSIZE - 1);
+        assertFalse(game.moveUnit(offMap, to));
+        assertThat(game.moveUnitAlongPath(offMap, to), is(offMap));
+        assertNull(game.findPath(offMap, to));
+        assertThat(game.getUnitAt(archer).getTypeString(), is(GameConstants.ARCHER));
+        assertNull(game.getUnitAt(to));
+    }
+
     @Test
     public void canMoveDiagonally() {
         Position from = new Position (2, 0);
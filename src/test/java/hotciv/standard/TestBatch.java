@@ -0,0 +1,205 @@
+package hotciv.standard;
+
+import frds.broker.ClientRequestHandler;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.GameEvents;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.marshall.BinaryWireFormat;
+import hotciv.broker.marshall.WireRequestor;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.*;
+
+public class TestBatch {
+    GameImpl game;
+    ArrayList<Position> changes;
+
+    private final Position redArcher = new Position(2, 0);
+    private final Position redCity = new Position(1, 1);
+
+    // moveUnit tells about both positions, also when the move is not valid
+    private final List<Position> changed = Arrays.asList(redArcher, new Position(3, 1), new Position(5, 1), redCity);
+
+    private List<Command> orders() {
+        return Arrays.asList(
+                Command.moveUnit(redArcher, new Position(3, 1)),
+                Command.moveUnit(new Position(3, 1), new Position(5, 1)), // too far
+                Command.changeProductionInCityAt(redCity, GameConstants.LEGION),
+                Command.changeWorkForceFocusInCityAt(redCity, GameConstants.foodFocus));
+    }
+
+    private static class CountingHandler implements ClientRequestHandler {
+        private final Invoker invoker;
+        private int requests;
+
+        CountingHandler(Invoker invoker) {
+            this.invoker = invoker;
+        }
+
+        public ReplyObject sendToServer(RequestObject request) {
+            requests++;
+            return invoker.handleRequest(request.getObjectId(), request.getOperationName(), request.getPayload());
+        }
+
+        public void setServer(String hostname, int port) {
+        }
+
+        public void close() {
+        }
+    }
+
+    @Before
+    public void setup() {
+        game = new GameImpl(new AlphaFactory());
+        changes = new ArrayList<>();
+        game.addObserver(new NullObserver() {
+            public void worldChangedAt(Position pos) {
+                changes.add(pos);
+            }
+        });
+    }
+
+    private void assertOrdersApplied(boolean[] results) {
+        assertThat(results.length, is(4));
+        assertTrue(results[0]);
+        assertFalse(results[1]);
+        assertTrue(results[2]);
+        assertTrue(results[3]);
+        assertThat(game.getUnitAt(new Position(3, 1)).getTypeString(), is(GameConstants.ARCHER));
+        assertNull(game.getUnitAt(redArcher));
+        assertThat(game.getCityAt(redCity).getProduction(), is(GameConstants.LEGION));
+        assertThat(game.getCityAt(redCity).getWorkforceFocus(), is(GameConstants.foodFocus));
+    }
+
+    @Test
+    public void batchReturnsTheResultOfEachCommand() {
+        assertOrdersApplied(game.submitBatch(orders()));
+    }
+
+    @Test
+    public void observersHearOfEachPositionOnceAfterTheBatch() {
+        game.submitBatch(orders());
+        assertThat(changes, is(changed));
+    }
+
+    @Test
+    public void emptyBatchDoesNothing() {
+        assertThat(game.submitBatch(new ArrayList<>()).length, is(0));
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void batchIsOneRequestAndOneEventBatch() {
+        Invoker invoker = new Invoker(game);
+        CountingHandler handler = new CountingHandler(invoker);
+        GameProxy proxy = new GameProxy(new StandardJSONRequestor(handler));
+        long before = invoker.getEvents().await(-1, 0).getSequence();
+
+        assertOrdersApplied(proxy.submitBatch(orders()));
+        assertThat(handler.requests, is(1));
+
+        GameEvents events = invoker.getEvents().await(before, 0);
+        assertThat(events.getSequence(), is(before + 1));
+        assertThat(events.getChanges(), is(changed));
+    }
+
+    @Test
+    public void observersHearOfTheEndOfATurnInABatch() {
+        ArrayList<Player> turns = new ArrayList<>();
+        GameObserver turnObserver = new NullObserver() {
+            public void turnEnds(Player nextPlayer) {
+                turns.add(nextPlayer);
+            }
+        };
+        game.addObserver(turnObserver);
+        game.submitBatch(Arrays.asList(Command.endOfTurn()));
+        assertThat(turns, is(Arrays.asList(Player.BLUE)));
+        assertTrue(changes.isEmpty());
+
+        // a proxy that has not subscribed to the events of the game tells its observers itself
+        GameProxy proxy = new GameProxy(new StandardJSONRequestor(new CountingHandler(new Invoker(game))));
+        ArrayList<Position> proxyChanges = new ArrayList<>();
+        proxy.addObserver(new NullObserver() {
+            public void worldChangedAt(Position pos) {
+                proxyChanges.add(pos);
+            }
+
+            public void turnEnds(Player nextPlayer) {
+                turns.add(nextPlayer);
+            }
+        });
+        proxy.submitBatch(Arrays.asList(Command.endOfTurn()));
+        assertThat(turns, is(Arrays.asList(Player.BLUE, Player.RED, Player.RED)));
+        assertTrue(proxyChanges.isEmpty());
+    }
+
+    @Test
+    public void failingBatchIsTakenBack() {
+        long hash = game.getStateHash();
+        ArrayList<Player> turns = new ArrayList<>();
+        game.addObserver(new NullObserver() {
+            public void turnEnds(Player nextPlayer) {
+                turns.add(nextPlayer);
+            }
+        });
+        List<Command> failing = new ArrayList<>(orders());
+        failing.add(Command.endOfTurn());
+        failing.add(new Command(null, null, null, null));
+        try {
+            game.submitBatch(failing);
+            fail("the command without a type fails");
+        } catch (NullPointerException e) {
+            // expected
+        }
+
+        assertThat(game.getUnitAt(redArcher).getTypeString(), is(GameConstants.ARCHER));
+        assertNull(game.getUnitAt(new Position(3, 1)));
+        assertThat(game.getCityAt(redCity).getProduction(), is(not(GameConstants.LEGION)));
+        assertThat(game.getPlayerInTurn(), is(Player.RED));
+        assertThat(game.getStateHash(), is(hash));
+        assertThat(game.getUndoableCommands(), is(0));
+        // the positions put back are redrawn, and no turn ended
+        assertThat(changes, is(changed));
+        assertTrue(turns.isEmpty());
+    }
+
+    @Test
+    public void observerAddedDuringABatchIsKept() {
+        ArrayList<Position> late = new ArrayList<>();
+        GameObserver observer = new NullObserver() {
+            public void worldChangedAt(Position pos) {
+                late.add(pos);
+            }
+        };
+        Command subscribe = new Command(Command.Type.END_OF_TURN, null, null, null) {
+            public boolean executeOn(Game game) {
+                game.addObserver(observer);
+                return true;
+            }
+        };
+        game.submitBatch(Arrays.asList(subscribe, Command.moveUnit(redArcher, new Position(3, 1))));
+        assertThat(late, is(Arrays.asList(redArcher, new Position(3, 1))));
+
+        game.moveUnit(new Position(3, 1), new Position(4, 1));
+        assertThat(late.size(), is(4));
+    }
+
+    @Test
+    public void batchWorksOverTheBinaryFormat() {
+        BinaryWireFormat binary = new BinaryWireFormat();
+        GameProxy proxy = new GameProxy(new WireRequestor(new CountingHandler(new Invoker(game, binary)), binary));
+        assertOrdersApplied(proxy.submitBatch(orders()));
+    }
+}
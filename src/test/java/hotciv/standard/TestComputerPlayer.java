@@ -0,0 +1,155 @@
+package hotciv.standard;
+
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.ai.ComputerSeat;
+import hotciv.ai.MctsPlayer;
+import hotciv.ai.SearchStatistics;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.BetaFactory;
+import hotciv.standard.factory.EpsilonFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestComputerPlayer {
+    /**
+     * @return a map with a red archer next to the only city, which is blue
+     */
+    private static String[][] lonelyCity() {
+        String[][] layout = new String[8][8];
+        layout[3][3] = "pa1";
+        layout[3][4] = "pc2";
+        return layout;
+    }
+
+    private static final Position CITY = new Position(3, 4);
+
+    @Test
+    public void theComputerTakesTheCityThatWinsTheGame() {
+        GameImpl game = new GameImpl(new BetaFactory(), lonelyCity());
+        try (MctsPlayer computer = new MctsPlayer(seed -> new BetaFactory(), 1, 200, 1)) {
+            computer.playTurn(game);
+        }
+        assertThat(game.getCityAt(CITY).getOwner(), is(Player.RED));
+        assertThat(game.getPlayerInTurn(), is(Player.RED));
+        game.endOfTurn();
+        game.endOfTurn();
+        assertThat(game.getWinner(), is(Player.RED));
+    }
+
+    @Test
+    public void theComputerPlaysARemoteGameThroughTheBroker() {
+        GameImpl game = new GameImpl(new BetaFactory(), lonelyCity());
+        GameProxy proxy = new GameProxy(new StandardJSONRequestor(new LocalMethodClientRequestHandler(new Invoker(game))));
+        try (MctsPlayer computer = new MctsPlayer(seed -> new BetaFactory(), 1, 200, 2)) {
+            computer.playTurn(proxy);
+        }
+        assertThat(game.getCityAt(CITY).getOwner(), is(Player.RED));
+    }
+
+    @Test
+    public void aTurnKeepsToItsTimeOnEveryThread() {
+        GameImpl game = new GameImpl(new EpsilonFactory(1));
+        try (MctsPlayer computer = new MctsPlayer(EpsilonFactory::new, 1, 200, 2)) {
+            long start = System.nanoTime();
+            computer.playTurn(game);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            // a search stops at its deadline, after the iteration it is in
+            assertThat("took " + millis + " ms", millis < 1000, is(true));
+
+            SearchStatistics statistics = computer.getStatistics();
+            assertThat(statistics.getDecisions() > 0, is(true));
+            assertThat(statistics.getNodes() > 0, is(true));
+            assertThat(statistics.getNodesPerSecond() > 0, is(true));
+            assertThat(statistics.getMaxDecisionNanos() >= statistics.getLastDecisionNanos(), is(true));
+        }
+        // the game played is still the turn of red, and records no commands
+        assertThat(game.getPlayerInTurn(), is(Player.RED));
+        assertThat(game.getUndoableCommands(), is(0));
+    }
+
+    @Test
+    public void theUnitsHeldByClientsStayOnTheMapWhileTheComputerSearches() {
+        String[][] layout = lonelyCity();
+        layout[6][6] = "pl2";
+        GameImpl game = new GameImpl(new BetaFactory(), layout);
+        Position legion = new Position(6, 6);
+        Position next = new Position(6, 5);
+        Unit held = game.getUnitAt(legion);
+        try (MctsPlayer computer = new MctsPlayer(seed -> new BetaFactory(), 1, 100, 2)) {
+            computer.playTurn(game);
+        }
+        game.endOfTurn();
+
+        assertTrue(game.moveUnit(legion, next));
+        assertThat(game.getUnitAt(next), is(sameInstance(held)));
+        assertThat(held.getMoveCount(), is(0));
+    }
+
+    @Test
+    public void aSeatPlaysTheTurnsOfItsPlayer() {
+        GameImpl game = new GameImpl(new BetaFactory(), lonelyCity());
+        MctsPlayer computer = new MctsPlayer(seed -> new BetaFactory(), 1, 50, 1);
+        game.addObserver(new ComputerSeat(game, Player.BLUE, computer, Runnable::run));
+        game.endOfTurn();
+        // blue has played and ended its turn
+        assertThat(game.getPlayerInTurn(), is(Player.RED));
+        assertThat(computer.getStatistics().getDecisions() > 0, is(true));
+        computer.close();
+    }
+
+    @Test(timeout = 20000)
+    public void aSeatSearchesOffTheThreadPlayingTheGame() throws Exception {
+        ExecutorService played = Executors.newSingleThreadExecutor();
+        ExecutorService searched = Executors.newSingleThreadExecutor();
+        Thread playing = played.submit(Thread::currentThread).get();
+        GameImpl game = new GameImpl(new BetaFactory(), lonelyCity());
+        MctsPlayer computer = new MctsPlayer(seed -> new BetaFactory(), 1, 300, 1);
+        List<Thread> changedOn = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch redAgain = new CountDownLatch(1);
+        AtomicInteger searches = new AtomicInteger();
+        Executor search = runnable -> {
+            searches.incrementAndGet();
+            searched.execute(runnable);
+        };
+        played.submit(() -> {
+            game.addObserver(new NullObserver() {
+                public void worldChangedAt(Position pos) {
+                    changedOn.add(Thread.currentThread());
+                }
+
+                public void turnEnds(Player nextPlayer) {
+                    if (nextPlayer == Player.RED)
+                        redAgain.countDown();
+                }
+            });
+            game.addObserver(new ComputerSeat(game, Player.BLUE, computer, played, search));
+            game.endOfTurn();
+        }).get();
+
+        // the thread playing the game is free while blue searches
+        assertThat(played.submit(game::getPlayerInTurn).get(), is(Player.BLUE));
+        assertTrue(redAgain.await(10, TimeUnit.SECONDS));
+        assertThat(computer.getStatistics().getDecisions(), is((long) searches.get()));
+        assertThat(searches.get() > 0, is(true));
+        for (Thread thread : changedOn)
+            assertThat(thread, is(sameInstance(playing)));
+        computer.close();
+        played.shutdown();
+        searched.shutdown();
+    }
+}
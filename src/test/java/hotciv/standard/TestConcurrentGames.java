@@ -0,0 +1,73 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import hotciv.standard.factory.EtaFactory;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+public class TestConcurrentGames {
+    private static final int GAMES = 200;
+    private static final int THREADS = 8;
+
+    /**
+     * Plays a game for a number of rounds that depends on its index, so every game
+     * ends up in a different state. Returns the game so its state can be checked.
+     */
+    private GameImpl playGame(int index) {
+        GameImpl game = new GameImpl(index % 2 == 0 ? new AlphaFactory() : new EtaFactory());
+        int rounds = 1 + index % 9;
+
+        // every game moves its red archer to its own column before ending rounds
+        Position from = new Position(2, 0);
+        Position to = new Position(3, 1);
+        assertTrue(game.moveUnit(from, to));
+
+        for (int i = 0; i < rounds; i++) {
+            game.endOfTurn();
+            Thread.yield(); // give other games a chance to run in between
+            game.endOfTurn();
+        }
+        return game;
+    }
+
+    @Test
+    public void gamesInParallelDoNotInterfere() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        ArrayList<Future<GameImpl>> results = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++) {
+            final int index = i;
+            results.add(pool.submit(() -> playGame(index)));
+        }
+
+        for (int i = 0; i < GAMES; i++) {
+            GameImpl game = results.get(i).get();
+            int rounds = 1 + i % 9;
+            assertThat(game.getAge(), is(GameConstants.STARTYEAR + 100 * rounds));
+            assertThat(game.getPlayerInTurn(), is(Player.RED));
+            assertThat(game.getUnitAt(new Position(3, 1)).getTypeString(), is(GameConstants.ARCHER));
+            assertNull(game.getUnitAt(new Position(2, 0)));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void twoGamesHaveSeparateWorlds() {
+        GameImpl first = new GameImpl(new AlphaFactory());
+        GameImpl second = new GameImpl(new AlphaFactory());
+
+        assertTrue(first.moveUnit(new Position(2, 0), new Position(3, 1)));
+        first.endOfTurn();
+
+        assertThat(second.getPlayerInTurn(), is(Player.RED));
+        assertThat(second.getUnitAt(new Position(2, 0)).getTypeString(), is(GameConstants.ARCHER));
+        assertNull(second.getUnitAt(new Position(3, 1)));
+    }
+}
@@ -0,0 +1,149 @@
+package hotciv.standard;
+
+import com.google.gson.Gson;
+import frds.broker.IPCException;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.NetworkClientRequestHandler;
+import hotciv.broker.OperationNames;
+import hotciv.broker.ServerRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestConnectionPool {
+    ServerRequestHandler server;
+    NetworkClientRequestHandler client;
+    GameProxy game;
+
+    @Before
+    public void setup() throws Exception {
+        server = new ServerRequestHandler(0, new Invoker(new GameImpl(new AlphaFactory())));
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+        client = new NetworkClientRequestHandler("localhost", server.getPort(), 2, 200);
+        game = new GameProxy(new StandardJSONRequestor(client));
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void connectionIsKeptAliveBetweenCalls() {
+        assertThat(game.getAge(), is(GameConstants.STARTYEAR));
+        assertThat(client.getIdleConnectionCount(), is(1));
+        assertThat(game.getPlayerInTurn(), is(Player.RED));
+        assertThat(client.getIdleConnectionCount(), is(1));
+    }
+
+    @Test
+    public void pipelinedRepliesComeInRequestOrder() {
+        List<RequestObject> requests = Arrays.asList(
+                new RequestObject("lol", OperationNames.getAge, "[]"),
+                new RequestObject("lol", OperationNames.getPlayerInTurn, "[]"),
+                new RequestObject("lol", OperationNames.getWinner, "[]"));
+        List<frds.broker.ReplyObject> replies = client.sendAll(requests);
+        assertThat(replies.size(), is(3));
+        assertThat(replies.get(0).payload(), is("-4000"));
+        assertThat(replies.get(1).payload(), is("\"RED\""));
+        assertThat(replies.get(2).payload(), is("null"));
+    }
+
+    @Test
+    public void idleConnectionsAreEvicted() throws Exception {
+        game.getAge();
+        Thread.sleep(300);
+        client.evictIdle();
+        assertThat(client.getIdleConnectionCount(), is(0));
+        // and a new connection is opened on demand
+        assertThat(game.getAge(), is(GameConstants.STARTYEAR));
+    }
+
+    /**
+     * Starts a server on the listener that counts the requests it reads; it reads a number of
+     * requests on each connection, answers the first of them, and closes the connection
+     */
+    private static AtomicInteger serve(ServerSocket listener, int read, int answered) {
+        AtomicInteger received = new AtomicInteger();
+        Gson gson = new Gson();
+        Thread fake = new Thread(() -> {
+            while (true) {
+                try (Socket socket = listener.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                    PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                    for (int i = 0; i < read && in.readLine() != null; i++) {
+                        received.incrementAndGet();
+                        if (i < answered)
+                            out.println(gson.toJson(new ReplyObject(200, "" + received.get())));
+                    }
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        fake.setDaemon(true);
+        fake.start();
+        return received;
+    }
+
+    @Test
+    public void aConnectionTheServerClosedIsReplacedBeforeSending() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            AtomicInteger received = serve(listener, 1, 1);
+            NetworkClientRequestHandler pooled = new NetworkClientRequestHandler("localhost", listener.getLocalPort(), 1, 10_000);
+            RequestObject request = new RequestObject("lol", OperationNames.moveUnit, "[]");
+            assertThat(pooled.sendToServer(request).payload(), is("1"));
+            Thread.sleep(100); // the server closes the connection after its reply
+            assertThat(pooled.sendToServer(request).payload(), is("2"));
+            assertThat(received.get(), is(2));
+            pooled.close();
+        }
+    }
+
+    @Test
+    public void requestsTheServerMayHaveCarriedOutAreNotSentAgain() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            // the server reads the second request on a connection, but fails before answering it
+            AtomicInteger received = serve(listener, 2, 1);
+            NetworkClientRequestHandler pooled = new NetworkClientRequestHandler("localhost", listener.getLocalPort(), 1, 10_000);
+            RequestObject request = new RequestObject("lol", OperationNames.moveUnit, "[]");
+            pooled.sendToServer(request);
+            try {
+                pooled.sendToServer(request);
+                fail("the reply was lost");
+            } catch (IPCException expected) {
+            }
+            Thread.sleep(100);
+            assertThat(received.get(), is(2));
+            pooled.close();
+        }
+    }
+
+    @Test
+    public void perCallModeKeepsNoConnections() {
+        NetworkClientRequestHandler perCall = new NetworkClientRequestHandler("localhost");
+        perCall.setServer("localhost", server.getPort());
+        GameProxy proxy = new GameProxy(new StandardJSONRequestor(perCall));
+        assertThat(proxy.getAge(), is(GameConstants.STARTYEAR));
+        assertThat(perCall.getIdleConnectionCount(), is(0));
+    }
+}
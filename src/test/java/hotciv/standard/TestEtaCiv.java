@@ -29,12 +29,12 @@ public class TestEtaCiv {
         for (int i = 0; i < 40; i++) {
             endRound();
         }
-        assertTrue(World.getCityAt(new Position(1, 1)).getSize() > 1);
+        assertTrue(game.getCityAt(new Position(1, 1)).getSize() > 1);
     }
 
     @Test
     public void foodFocusGivesCorrectFood() {
-        CityImpl city = (CityImpl) World.getCityAt(new Position(1, 1));
+        CityImpl city = (CityImpl) game.getCityAt(new Position(1, 1));
         city.increaseSize();
         city.increaseSize();
         endRound();
@@ -43,7 +43,7 @@ public class TestEtaCiv {
 
     @Test
     public void productionFocusGivesCorrectProduction() {
-        CityImpl city = (CityImpl) World.getCityAt(new Position(1, 1));
+        CityImpl city = (CityImpl) game.getCityAt(new Position(1, 1));
         city.setWorkforceFocus(GameConstants.productionFocus);
         city.increaseSize();
         city.increaseSize();
@@ -53,7 +53,7 @@ public class TestEtaCiv {
 
     @Test
     public void checkThatSize9IsMax() {
-        CityImpl city = (CityImpl) World.getCityAt(new Position(1, 1));
+        CityImpl city = (CityImpl) game.getCityAt(new Position(1, 1));
         for (int i = 0; i < 10; i++) {
             city.increaseSize();
         }
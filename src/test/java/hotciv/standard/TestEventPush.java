@@ -0,0 +1,155 @@
+package hotciv.standard;
+
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.GameEvents;
+import hotciv.broker.NetworkClientRequestHandler;
+import hotciv.broker.ServerRequestHandler;
+import hotciv.broker.invokers.EventLog;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestEventPush {
+    ServerRequestHandler server;
+    NetworkClientRequestHandler redConnection;
+    NetworkClientRequestHandler blueConnection;
+    GameProxy red;
+    GameProxy blue;
+
+    @Before
+    public void setup() throws Exception {
+        server = new ServerRequestHandler(0, new Invoker(new GameImpl(new AlphaFactory())));
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+        redConnection = new NetworkClientRequestHandler("localhost", server.getPort(), 2, 60000);
+        blueConnection = new NetworkClientRequestHandler("localhost", server.getPort(), 2, 60000);
+        red = new GameProxy(new StandardJSONRequestor(redConnection));
+        blue = new GameProxy(new StandardJSONRequestor(blueConnection));
+    }
+
+    @After
+    public void tearDown() {
+        red.unsubscribe();
+        blue.unsubscribe();
+        redConnection.close();
+        blueConnection.close();
+        server.stop();
+    }
+
+    private static class RecordingObserver implements GameObserver {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch turn = new CountDownLatch(1);
+
+        public void worldChangedAt(Position pos) {
+            events.add("world " + pos);
+        }
+
+        public void turnEnds(Player nextPlayer) {
+            events.add("turn " + nextPlayer);
+            turn.countDown();
+        }
+
+        public void tileFocusChangedAt(Position position) {
+            events.add("focus " + position);
+        }
+
+        public void requestUpdate() {
+            events.add("update");
+        }
+    }
+
+    @Test
+    public void eventsOfOtherClientsArePushed() throws Exception {
+        RecordingObserver observer = new RecordingObserver();
+        blue.addObserver(observer);
+        blue.subscribe(Runnable::run);
+
+        red.moveUnit(new Position(2, 0), new Position(3, 1));
+        red.endOfTurn();
+
+        assertTrue(observer.turn.await(5, TimeUnit.SECONDS));
+        assertThat(observer.events, hasItems("world [3,1]", "world [2,0]", "turn BLUE"));
+    }
+
+    @Test
+    public void eventLogCoalescesOneRequest() {
+        EventLog log = new EventLog();
+        long start = log.await(-1, 0).getSequence();
+        log.worldChangedAt(new Position(1, 1));
+        log.worldChangedAt(new Position(1, 1));
+        log.turnEnds(Player.BLUE);
+        log.publish();
+
+        GameEvents events = log.await(start, 0);
+        assertThat(events.getChanges().size(), is(1));
+        assertThat(events.getTurnEnds(), is(Player.BLUE));
+        assertThat(events.getSequence(), is(start + 1));
+    }
+
+    @Test
+    public void eventLogTimesOutWithoutEvents() {
+        EventLog log = new EventLog();
+        GameEvents events = log.await(0, 50);
+        assertTrue(events.isEmpty());
+        assertFalse(events.isMissed());
+    }
+
+    @Test
+    public void callbackIsCalledOnPublishWithoutHoldingTheCaller() {
+        EventLog log = new EventLog();
+        List<GameEvents> replies = new ArrayList<>();
+        log.await(0, 60000, replies::add);
+        assertTrue(replies.isEmpty());
+
+        log.turnEnds(Player.BLUE);
+        log.publish();
+        assertThat(replies.size(), is(1));
+        assertThat(replies.get(0).getTurnEnds(), is(Player.BLUE));
+
+        // a later publish does not call back again
+        log.turnEnds(Player.RED);
+        log.publish();
+        assertThat(replies.size(), is(1));
+    }
+
+    @Test
+    public void callbackIsCalledWithoutEventsOnTimeout() throws Exception {
+        EventLog log = new EventLog();
+        CountDownLatch timedOut = new CountDownLatch(1);
+        List<GameEvents> replies = Collections.synchronizedList(new ArrayList<>());
+        log.await(0, 50, events -> {
+            replies.add(events);
+            timedOut.countDown();
+        });
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+        assertTrue(replies.get(0).isEmpty());
+
+        log.turnEnds(Player.BLUE);
+        log.publish();
+        assertThat(replies.size(), is(1));
+    }
+
+    @Test
+    public void clientTooFarBehindMustRedraw() {
+        EventLog log = new EventLog();
+        for (int i = 0; i < EventLog.HISTORY + 2; i++) {
+            log.worldChangedAt(new Position(0, 0));
+            log.publish();
+        }
+        assertTrue(log.await(0, 0).isMissed());
+    }
+}
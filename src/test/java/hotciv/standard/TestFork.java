@@ -0,0 +1,191 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.simulation.RandomPlayer;
+import hotciv.standard.factory.*;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestFork {
+    private static final List<Supplier<StrategyFactory>> VARIANTS = Arrays.asList(
+            AlphaFactory::new, GammaFactory::new, () -> new EpsilonFactory(1), ZetaFactory::new, ThetaFactory::new,
+            () -> new SemiFactory(1));
+
+    private static void play(GameImpl game, long seed, int rounds) {
+        RandomPlayer red = new RandomPlayer(seed);
+        RandomPlayer blue = new RandomPlayer(seed + 1);
+        for (int round = 0; round < rounds; round++) {
+            red.playTurn(game);
+            game.endOfTurn();
+            blue.playTurn(game);
+            game.endOfTurn();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    @Test
+    public void aForkIsPlayedApartFromItsParent() {
+        for (Supplier<StrategyFactory> variant : VARIANTS) {
+            GameImpl game = new GameImpl(variant.get());
+            play(game, 1, 10);
+            List<String> before = TestWorldFile.state(game);
+            GameImpl fork = game.fork(variant.get());
+            assertThat(TestWorldFile.state(fork), is(before));
+
+            play(fork, 3, 20);
+            assertThat(TestWorldFile.state(game), is(before));
+
+            List<String> forked = TestWorldFile.state(fork);
+            play(game, 5, 20);
+            assertThat(TestWorldFile.state(fork), is(forked));
+        }
+    }
+
+    @Test
+    public void forksOfTheSameGamePlayAlike() {
+        // the variants without dice
+        for (Supplier<StrategyFactory> variant : Arrays.<Supplier<StrategyFactory>>asList(
+                AlphaFactory::new, GammaFactory::new, ThetaFactory::new)) {
+            GameImpl game = new GameImpl(variant.get());
+            play(game, 1, 5);
+            GameImpl first = game.fork();
+            GameImpl second = game.fork();
+            GameImpl grandchild = first.fork();
+            play(first, 7, 15);
+            play(second, 7, 15);
+            play(grandchild, 7, 15);
+            assertThat(TestWorldFile.state(second), is(TestWorldFile.state(first)));
+            assertThat(TestWorldFile.state(grandchild), is(TestWorldFile.state(first)));
+        }
+    }
+
+    @Test
+    public void aChangeCopiesOnlyWhatItTouches() {
+        GameImpl game = new GameImpl(new GammaFactory());
+        Position archer = new Position(2, 0);
+        Position settler = new Position(4, 3);
+        GameImpl fork = game.fork();
+        assertSame(game.getUnitAt(archer), fork.getUnitAt(archer));
+
+        fork.performUnitActionAt(archer); // fortify
+        assertTrue(((UnitImpl) fork.getUnitAt(archer)).isFortified());
+        assertFalse(((UnitImpl) game.getUnitAt(archer)).isFortified());
+        assertSame(game.getUnitAt(settler), fork.getUnitAt(settler));
+        assertSame(game.getCityAt(new Position(1, 1)), fork.getCityAt(new Position(1, 1)));
+        // the copy keeps the id the broker knows the unit by
+        assertThat(((UnitImpl) fork.getUnitAt(archer)).getId(), is(((UnitImpl) game.getUnitAt(archer)).getId()));
+    }
+
+    @Test
+    public void aCopySharesNothingWithTheGame() {
+        GameImpl game = new GameImpl(new GammaFactory());
+        Position archer = new Position(2, 0);
+        Unit held = game.getUnitAt(archer);
+        GameImpl copy = game.copy(new GammaFactory());
+        assertThat(copy.getStateHash(), is(game.getStateHash()));
+        assertNotSame(held, copy.getUnitAt(archer));
+        assertNotSame(game.getCityAt(new Position(1, 1)), copy.getCityAt(new Position(1, 1)));
+
+        copy.performUnitActionAt(archer); // fortify
+        assertFalse(((UnitImpl) held).isFortified());
+        // the game still changes its own units where they are
+        game.performUnitActionAt(archer);
+        assertSame(held, game.getUnitAt(archer));
+        assertThat(copy.getStateHash(), is(game.getStateHash()));
+    }
+
+    @Test
+    public void terrainChangesStayInTheFork() {
+        GameImpl game = new GameImpl(new ThetaFactory());
+        Position forest = new Position(5, 5);
+        Position corner = new Position(0, 0);
+        game.setTypeAt(forest, GameConstants.FOREST);
+        String cornerType = game.getTileAt(corner).getTypeString();
+        GameImpl fork = game.fork();
+        fork.setTypeAt(forest, GameConstants.PLAINS);
+        fork.setTypeAt(corner, "lava");
+        assertThat(game.getTileAt(forest).getTypeString(), is(GameConstants.FOREST));
+        assertThat(fork.getTileAt(forest).getTypeString(), is(GameConstants.PLAINS));
+        assertThat(game.getTileAt(corner).getTypeString(), is(cornerType));
+        assertThat(fork.getTileAt(corner).getTypeString(), is("lava"));
+        assertThat(game.getWorld().getTiles().getTypes().contains("lava"), is(false));
+    }
+
+    @Test
+    public void storesForkLikeCopies() {
+        Random random = new Random(11);
+        TileStore store = new TileStore(200);
+        TreeMap<Integer, UnitImpl> expected = new TreeMap<>();
+        for (int generation = 0; generation < 30; generation++) {
+            TileStore fork = store.fork();
+            TreeMap<Integer, UnitImpl> forked = new TreeMap<>(expected);
+            for (int i = 0; i < 500; i++) {
+                int index = random.nextInt(200 * 200);
+                UnitImpl unit = random.nextInt(3) == 0 ? null
+                        : new UnitImpl(GameConstants.ARCHER, random.nextBoolean() ? Player.RED : Player.BLUE);
+                fork.setUnit(index, unit);
+                if (unit == null)
+                    forked.remove(index);
+                else
+                    forked.put(index, unit);
+                if (random.nextInt(10) == 0 && !forked.isEmpty()) {
+                    Integer changed = forked.ceilingKey(random.nextInt(200 * 200));
+                    if (changed == null)
+                        changed = forked.firstKey();
+                    forked.put(changed, fork.getUnitForWrite(changed));
+                    forked.get(changed).setMoveCount(0);
+                }
+            }
+            assertThat(store.getUnits(), is((Map<Integer, UnitImpl>) expected));
+            assertThat(fork.getUnits(), is((Map<Integer, UnitImpl>) forked));
+            for (Map.Entry<Integer, UnitImpl> entry : expected.entrySet())
+                assertThat(entry.getValue().getMoveCount(), is(1));
+            TreeMap<Integer, UnitImpl> red = new TreeMap<>();
+            for (Map.Entry<Integer, UnitImpl> entry : forked.entrySet())
+                if (entry.getValue().getOwner() == Player.RED)
+                    red.put(entry.getKey(), entry.getValue());
+            assertThat(fork.getUnitsOf(Player.RED), is((Map<Integer, UnitImpl>) red));
+            // the fork goes on as the store of the next generation, with fresh units for the comparison
+            store = fork;
+            expected = new TreeMap<>();
+            for (Map.Entry<Integer, UnitImpl> entry : forked.entrySet()) {
+                UnitImpl fresh = new UnitImpl(GameConstants.ARCHER, entry.getValue().getOwner());
+                store.setUnit(entry.getKey(), fresh);
+                expected.put(entry.getKey(), fresh);
+            }
+        }
+    }
+
+    @Test
+    public void forkingCostsTheSameOnAnyMap() {
+        long[] allocated = new long[2];
+        int[] sizes = {16, 1024};
+        for (int i = 0; i < sizes.length; i++) {
+            String[][] layout = new String[sizes[i]][sizes[i]];
+            layout[0][0] = "pa1";
+            layout[sizes[i] - 1][sizes[i] - 1] = "pc2";
+            GameImpl game = new GameImpl(new AlphaFactory(), layout);
+            for (int warmup = 0; warmup < 1000; warmup++)
+                game.fork();
+            long before = allocatedBytes();
+            for (int fork = 0; fork < 1000; fork++)
+                game.fork();
+            allocated[i] = (allocatedBytes() - before) / 1000;
+        }
+        assertThat(allocated[1], is(allocated[0]));
+        assertTrue(allocated[0] + " bytes a fork", allocated[0] < 2048);
+    }
+}
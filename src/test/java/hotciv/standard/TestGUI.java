@@ -49,7 +49,7 @@ public class TestGUI {
         Position pos2 = new Position(0, 7);
         Position cityPos = new Position(1, 6);
 
-        game.setUnitAt(pos1, game.createUnit(GameConstants.ARCHER, GameVariables.currentPlayer));
+        game.setUnitAt(pos1, game.createUnit(GameConstants.ARCHER, game.getPlayerInTurn()));
         assertThat(testObserver.getLatestPos(), is(pos1));
 
         game.moveUnit(pos1, pos2);
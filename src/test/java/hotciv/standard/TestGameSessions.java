@@ -0,0 +1,77 @@
+package hotciv.standard;
+
+import frds.broker.ReplyObject;
+import frds.broker.Requestor;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.OperationNames;
+import hotciv.broker.invokers.SessionInvoker;
+import hotciv.broker.proxies.CityProxy;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.broker.proxies.UnitProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestGameSessions {
+    SessionInvoker invoker;
+    GameProxy first;
+    GameProxy second;
+    CityProxy firstCities;
+    UnitProxy secondUnits;
+
+    @Before
+    public void setup() {
+        invoker = new SessionInvoker(2);
+        invoker.addGame("first", new GameImpl(new AlphaFactory()));
+        invoker.addGame("second", new GameImpl(new AlphaFactory()));
+        Requestor requestor = new StandardJSONRequestor(new LocalMethodClientRequestHandler(invoker));
+        first = new GameProxy(requestor, "first");
+        second = new GameProxy(requestor, "second");
+        firstCities = new CityProxy(requestor, "first");
+        secondUnits = new UnitProxy(requestor, "second");
+    }
+
+    @After
+    public void tearDown() {
+        invoker.shutdown();
+    }
+
+    @Test
+    public void gamesAreRoutedIndependently() {
+        assertTrue(first.moveUnit(new Position(2, 0), new Position(3, 1)));
+        first.endOfTurn();
+
+        assertThat(first.getPlayerInTurn(), is(Player.BLUE));
+        assertThat(second.getPlayerInTurn(), is(Player.RED));
+        assertNull(second.getUnitAt(new Position(3, 1)));
+    }
+
+    @Test
+    public void cityAndUnitIdsAreRoutedThroughTheirGame() {
+        CityImpl city = (CityImpl) first.getCityAt(new Position(1, 1));
+        assertThat(firstCities.getOwner(city.getId()), is(Player.RED));
+
+        UnitImpl unit = (UnitImpl) second.getUnitAt(new Position(2, 0));
+        assertThat(secondUnits.getTypeString(unit.getId()), is(GameConstants.ARCHER));
+    }
+
+    @Test
+    public void unknownGameIsRejected() {
+        ReplyObject reply = invoker.handleRequest("nope", OperationNames.getAge, "[]");
+        assertThat(reply.getStatusCode(), is(SessionInvoker.NOT_FOUND));
+    }
+
+    @Test
+    public void removedGameIsNoLongerServed() {
+        invoker.removeGame("second");
+        assertThat(invoker.getGameCount(), is(1));
+        ReplyObject reply = invoker.handleRequest("second", OperationNames.getAge, "[]");
+        assertThat(reply.getStatusCode(), is(SessionInvoker.NOT_FOUND));
+    }
+}
@@ -0,0 +1,230 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.journal.CommandJournal;
+import hotciv.journal.JournalEntry;
+import hotciv.journal.JournaledGame;
+import hotciv.journal.Replay;
+import hotciv.standard.factory.AlphaFactory;
+import hotciv.standard.factory.EpsilonFactory;
+import hotciv.standard.factory.SemiFactory;
+import hotciv.standard.factory.StrategyFactory;
+import hotciv.standard.random.RandomStrategy;
+import hotciv.standard.random.SeededDieRoll;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestJournal {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Function<RandomStrategy, StrategyFactory> SEMI = SemiFactory::new;
+    private static final Function<RandomStrategy, StrategyFactory> EPSILON = EpsilonFactory::new;
+
+    private Path snapshot() {
+        return folder.getRoot().toPath().resolve("game.hciv");
+    }
+
+    private Path journal() {
+        return folder.getRoot().toPath().resolve("game.hcjl");
+    }
+
+    private JournaledGame start(Function<RandomStrategy, StrategyFactory> variant, int batchSize, long maxDelayMillis)
+            throws IOException {
+        return JournaledGame.start(variant, new SeededDieRoll(7), snapshot(), journal(), batchSize, maxDelayMillis);
+    }
+
+    /**
+     * Gives random orders through the game, ending the turn now and then
+     */
+    private static void play(Game game, World world, long seed, int orders) {
+        SplittableRandom random = new SplittableRandom(seed);
+        TileStore tiles = world.getTiles();
+        for (int i = 0; i < orders; i++) {
+            List<Integer> units = new ArrayList<>(world.getUnitsOf(game.getPlayerInTurn()).keySet());
+            int order = random.nextInt(100);
+            if (order < 10 || units.isEmpty()) {
+                game.endOfTurn();
+                continue;
+            }
+            int unit = units.get(random.nextInt(units.size()));
+            if (order < 13) {
+                game.performUnitActionAt(tiles.positionOf(unit));
+                continue;
+            }
+            int to = tiles.getNeighborhood().neighbor(unit, 1 + random.nextInt(Neighborhood.SIZE - 1));
+            if (to >= 0)
+                game.moveUnit(tiles.positionOf(unit), tiles.positionOf(to));
+        }
+    }
+
+    private static void play(JournaledGame game, long seed, int orders) {
+        play(game, game.getGame().getWorld(), seed, orders);
+    }
+
+    @Test
+    public void aCrashedGameIsRecoveredFromTheJournal() throws IOException {
+        for (Function<RandomStrategy, StrategyFactory> variant : Arrays.asList(SEMI, EPSILON)) {
+            JournaledGame game = start(variant, 16, 0);
+            play(game, 1, 400);
+            game.changeProductionInCityAt(new Position(8, 12), GameConstants.SETTLER);
+            game.sync();
+            // the game is left as it was when the process died
+            JournaledGame recovered = JournaledGame.recover(variant, new SeededDieRoll(8), snapshot(), journal(), 16, 0);
+            assertThat(TestWorldFile.state(recovered.getGame()), is(TestWorldFile.state(game.getGame())));
+            // the recovered game has saved the world and goes on with an empty journal
+            assertThat(CommandJournal.read(journal()).getEntries().size(), is(0));
+            recovered.close();
+            game.close();
+        }
+    }
+
+    @Test
+    public void diceRollsAreJournaledWithTheCommand() throws IOException {
+        JournaledGame game = start(EPSILON, 1, 0);
+        play(game, 2, 600);
+        int rolls = 0;
+        for (JournalEntry entry : CommandJournal.read(journal()).getEntries())
+            rolls += entry.getRolls().length;
+        // EpsilonCiv rolls two dice in a fight
+        assertTrue(rolls + " rolls", rolls > 0 && rolls % 2 == 0);
+        game.close();
+    }
+
+    @Test
+    public void aTornRecordAtTheEndIsLeftOut() throws IOException {
+        JournaledGame game = start(SEMI, 1, 0);
+        play(game, 3, 100);
+        game.close();
+        int entries = CommandJournal.read(journal()).getEntries().size();
+        try (FileChannel channel = FileChannel.open(journal(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertThat(CommandJournal.read(journal()).getEntries().size(), is(entries - 1));
+        GameImpl replayed = Replay.replay(SEMI, snapshot(), journal(), entries);
+        JournaledGame recovered = JournaledGame.recover(SEMI, new SeededDieRoll(8), snapshot(), journal(), 1, 0);
+        assertThat(TestWorldFile.state(recovered.getGame()), is(TestWorldFile.state(replayed)));
+        recovered.close();
+    }
+
+    @Test
+    public void theJournalOfAnOlderCheckpointIsLeftOut() throws IOException {
+        JournaledGame game = start(SEMI, 1, 0);
+        play(game, 4, 200);
+        Path old = folder.getRoot().toPath().resolve("old.hcjl");
+        Files.copy(journal(), old);
+        game.checkpoint();
+        game.close();
+        // the process died after saving the world, but before starting the new journal
+        Files.move(old, journal(), StandardCopyOption.REPLACE_EXISTING);
+        JournaledGame recovered = JournaledGame.recover(SEMI, new SeededDieRoll(8), snapshot(), journal(), 1, 0);
+        assertThat(TestWorldFile.state(recovered.getGame()), is(TestWorldFile.state(game.getGame())));
+        recovered.close();
+    }
+
+    @Test
+    public void commandsAreForcedToTheDiskInBatches() throws IOException {
+        JournaledGame game = start(SEMI, 16, 0);
+        for (int i = 0; i < 100; i++)
+            game.endOfTurn();
+        CommandJournal journal = game.getJournal();
+        assertThat(journal.getAppended(), is(100L));
+        assertThat(journal.getDurable(), is(96L));
+        assertThat(journal.getSyncs(), is(6L));
+        game.close();
+        assertThat(journal.getDurable(), is(100L));
+    }
+
+    @Test
+    public void commandsWaitNoLongerThanTheDelay() throws IOException, InterruptedException {
+        JournaledGame game = start(SEMI, 1000, 10);
+        game.endOfTurn();
+        CommandJournal journal = game.getJournal();
+        for (int i = 0; i < 200 && journal.getDurable() < 1; i++)
+            Thread.sleep(10);
+        assertThat(journal.getDurable(), is(1L));
+        game.close();
+    }
+
+    @Test
+    public void refusedMovesAreNotJournaled() throws IOException {
+        JournaledGame game = start(SEMI, 1, 0);
+        // onto the ocean
+        assertFalse(game.moveUnit(new Position(8, 5), new Position(0, 0)));
+        assertThat(game.getJournal().getAppended(), is(0L));
+        game.close();
+    }
+
+    @Test
+    public void aJournalIsReplayedUpToAnEntry() throws IOException {
+        JournaledGame game = start(SEMI, 64, 0);
+        GameImpl halfway = GameImpl.load(new SemiFactory(), snapshot());
+        play(game, 5, 300);
+        List<JournalEntry> entries = CommandJournal.read(journal()).getEntries();
+        game.close();
+        for (JournalEntry entry : entries.subList(0, 50))
+            entry.getCommand().executeOn(halfway);
+
+        assertThat(TestWorldFile.state(Replay.replay(SEMI, snapshot(), journal(), entries.size())),
+                is(TestWorldFile.state(game.getGame())));
+        // the first entries roll no dice, before the armies meet
+        assertThat(TestWorldFile.state(Replay.replay(SEMI, snapshot(), journal(), 50)),
+                is(TestWorldFile.state(halfway)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void aReplayStopsWhereItPlaysOutOtherwise() throws IOException {
+        JournaledGame game = start(EPSILON, 64, 0);
+        play(game, 2, 600);
+        game.close();
+        // AlphaCiv decides fights without dice
+        Replay.replay(die -> new AlphaFactory(), snapshot(), journal(), Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void batchesAreJournaledCommandByCommand() throws IOException {
+        JournaledGame game = start(SEMI, 1, 0);
+        List<Command> batch = new ArrayList<>();
+        batch.add(Command.changeProductionInCityAt(new Position(8, 12), GameConstants.SETTLER));
+        batch.add(Command.endOfTurn());
+        batch.add(Command.endOfTurn());
+        game.submitBatch(batch);
+        List<JournalEntry> entries = CommandJournal.read(journal()).getEntries();
+        assertThat(entries.size(), is(3));
+        assertThat(entries.get(1).getCommand().getType(), is(Command.Type.END_OF_TURN));
+        game.close();
+    }
+
+    @Test
+    public void aBatchTakenBackIsNotJournaled() throws IOException {
+        JournaledGame game = start(SEMI, 1, 0);
+        List<Command> batch = new ArrayList<>();
+        batch.add(Command.endOfTurn());
+        batch.add(new Command(null, null, null, null));
+        try {
+            game.submitBatch(batch);
+            fail("the command without a type fails");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        assertThat(game.getPlayerInTurn(), is(Player.RED));
+        assertThat(game.getJournal().getAppended(), is(0L));
+        game.close();
+    }
+}
@@ -0,0 +1,141 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.standard.resolveAttack.ActualCombat;
+import hotciv.standard.workforce.WorkableTiles;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestNeighborhood {
+    private static final int CALLS = 100_000;
+    // what measuring itself may allocate, far less than a byte per call
+    private static final long NOISE = 4096;
+
+    private final Neighborhood neighborhood = new Neighborhood(16);
+
+    private ArrayList<Integer> neighbors(int index, boolean includeCenter) {
+        ArrayList<Integer> neighbors = new ArrayList<>();
+        neighborhood.forEach(index, includeCenter, neighbors::add);
+        return neighbors;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * @return the bytes allocated by the last CALLS runs of the call, after as many to warm up
+     */
+    private static long allocatedBy(Runnable call) {
+        for (int i = 0; i < CALLS; i++)
+            call.run();
+        long before = allocatedBytes();
+        for (int i = 0; i < CALLS; i++)
+            call.run();
+        return allocatedBytes() - before;
+    }
+
+    @Test
+    public void neighborsRunClockwiseFromNorth() {
+        int center = 5 * 16 + 5;
+        assertThat(neighbors(center, true).toArray(), is(new Object[]{
+                center, center - 16, center - 15, center + 1, center + 17, center + 16, center + 15, center - 1, center - 17}));
+        assertThat(neighbors(center, false).size(), is(8));
+    }
+
+    @Test
+    public void neighborsOffTheMapAreLeftOut() {
+        assertThat(neighbors(0, true).toArray(), is(new Object[]{0, 1, 17, 16}));
+        assertThat(neighbors(16 * 16 - 1, false).toArray(), is(new Object[]{255 - 16, 254, 255 - 17}));
+        // the east edge does not wrap around to the next row
+        assertThat(neighborhood.neighbor(15, 3), is(-1));
+        assertThat(neighborhood.neighbor(16, 7), is(-1));
+    }
+
+    @Test
+    public void unitsAreLookedUpByIndex() {
+        TileStore tiles = new TileStore(64);
+        HashMap<Integer, UnitImpl> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int index = random.nextInt(200);
+            UnitImpl unit = random.nextBoolean() ? new UnitImpl(GameConstants.ARCHER, Player.RED) : null;
+            tiles.setUnit(index, unit);
+            if (unit == null)
+                expected.remove(index);
+            else
+                expected.put(index, unit);
+        }
+        for (int index = 0; index < 64 * 64; index++)
+            assertSame(expected.get(index), tiles.getUnit(index));
+        assertThat(tiles.getUnits().size(), is(expected.size()));
+    }
+
+    @Test
+    public void visitingANeighborhoodMakesNoGarbage() {
+        int[] sum = new int[1];
+        long allocated = allocatedBy(() -> {
+            for (int n = 0; n < Neighborhood.SIZE; n++) {
+                int neighbor = neighborhood.neighbor(100, n);
+                if (neighbor >= 0)
+                    sum[0] += neighbor;
+            }
+        });
+        assertTrue(allocated + " bytes", allocated < NOISE);
+    }
+
+    @Test
+    public void combatSupportMakesNoGarbage() {
+        String[][] layout = new String[16][16];
+        layout[5][5] = "fa1";
+        layout[5][6] = "ha2";
+        layout[4][5] = "pl1";
+        layout[6][6] = "pl2";
+        World world = new World(layout);
+        ActualCombat combat = new ActualCombat(() -> 3);
+        Position attacker = new Position(5, 5);
+        Position defender = new Position(5, 6);
+        long allocated = allocatedBy(() -> combat.unitAttack(world, attacker, defender));
+        assertTrue(allocated + " bytes", allocated < NOISE);
+    }
+
+    @Test
+    public void workingTilesMakesNoGarbage() {
+        String[][] layout = new String[16][16];
+        layout[0][0] = "pc1";
+        layout[0][1] = "f";
+        layout[1][1] = "h";
+        World world = new World(layout);
+        CityImpl city = (CityImpl) world.getCityAt(new Position(0, 0));
+        for (int i = 0; i < 9; i++)
+            city.increaseSize();
+        city.setWorkforceFocus(GameConstants.productionFocus);
+        WorkableTiles workforce = new WorkableTiles();
+        long allocated = allocatedBy(() -> workforce.workTiles(world, city));
+        assertTrue(allocated + " bytes", allocated < NOISE);
+    }
+
+    @Test
+    public void citiesWorkTheBestTilesForTheirFocus() {
+        String[][] layout = new String[16][16];
+        layout[5][5] = "pc1";
+        layout[4][5] = "f";
+        layout[4][6] = "h";
+        layout[6][6] = "m";
+        World world = new World(layout);
+        CityImpl city = (CityImpl) world.getCityAt(new Position(5, 5));
+        city.increaseSize();
+        city.increaseSize(); // size 3 works 2 tiles
+        city.setWorkforceFocus(GameConstants.productionFocus);
+        new WorkableTiles().workTiles(world, city);
+        // the forest and hills, and 1 for the city itself
+        assertThat(city.getProductionValue(), is(1 + 3 + 2));
+    }
+}
@@ -0,0 +1,148 @@
+package hotciv.standard;
+
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.NetworkClientRequestHandler;
+import hotciv.broker.NioServerRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestNioServer {
+    NioServerRequestHandler server;
+
+    @Before
+    public void setup() throws Exception {
+        server = new NioServerRequestHandler(0, new Invoker(new GameImpl(new AlphaFactory())), 2);
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void servesManySimultaneousClients() throws Exception {
+        int clients = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        ArrayList<Future<Integer>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            results.add(pool.submit(() -> {
+                NetworkClientRequestHandler handler = new NetworkClientRequestHandler("localhost", server.getPort(), 1, 60000);
+                GameProxy game = new GameProxy(new StandardJSONRequestor(handler));
+                int correct = 0;
+                for (int i = 0; i < 10; i++)
+                    if (game.getAge() == GameConstants.STARTYEAR && game.getPlayerInTurn() == Player.RED)
+                        correct++;
+                handler.close();
+                return correct;
+            }));
+        }
+        for (Future<Integer> result : results)
+            assertThat(result.get(), is(10));
+        pool.shutdown();
+    }
+
+    @Test(timeout = 20000)
+    public void subscribersWaitingForEventsDoNotHoldUpOtherClients() throws Exception {
+        // more subscribers than the two workers, each holding a request for events
+        int subscribers = 6;
+        CountDownLatch told = new CountDownLatch(subscribers);
+        ArrayList<GameProxy> subscribed = new ArrayList<>();
+        ArrayList<NetworkClientRequestHandler> handlers = new ArrayList<>();
+        for (int s = 0; s < subscribers; s++) {
+            NetworkClientRequestHandler handler = new NetworkClientRequestHandler("localhost", server.getPort(), 2, 60000);
+            GameProxy game = new GameProxy(new StandardJSONRequestor(handler));
+            game.addObserver(new NullObserver() {
+                public void turnEnds(Player nextPlayer) {
+                    told.countDown();
+                }
+            });
+            game.subscribe(Runnable::run);
+            subscribed.add(game);
+            handlers.add(handler);
+        }
+        Thread.sleep(200); // the subscribers are waiting for events
+
+        NetworkClientRequestHandler handler = new NetworkClientRequestHandler("localhost", server.getPort(), 1, 60000);
+        GameProxy game = new GameProxy(new StandardJSONRequestor(handler));
+        for (int i = 0; i < 100; i++)
+            assertThat(game.getAge(), is(GameConstants.STARTYEAR));
+        game.endOfTurn();
+        assertTrue(told.await(5, TimeUnit.SECONDS));
+
+        for (GameProxy proxy : subscribed)
+            proxy.unsubscribe();
+        for (NetworkClientRequestHandler subscriber : handlers)
+            subscriber.close();
+        handler.close();
+    }
+
+    @Test(timeout = 20000)
+    public void waitingForEventsHoldsNoThread() throws Exception {
+        int subscribers = 50;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int before = threads.getThreadCount();
+        ArrayList<Socket> sockets = new ArrayList<>();
+        for (int s = 0; s < subscribers; s++) {
+            Socket socket = new Socket("localhost", server.getPort());
+            socket.getOutputStream().write(("{\"operationName\":\"game_awaitEvents\",\"payload\":\"[0,60000]\","
+                    + "\"objectId\":\"game\"}\n").getBytes(StandardCharsets.UTF_8));
+            sockets.add(socket);
+        }
+        Thread.sleep(200); // the subscribers are waiting for events
+        assertTrue(threads.getThreadCount() < before + subscribers / 2);
+
+        // the events reach every waiting subscriber
+        NetworkClientRequestHandler handler = new NetworkClientRequestHandler("localhost", server.getPort(), 1, 60000);
+        new GameProxy(new StandardJSONRequestor(handler)).endOfTurn();
+        for (Socket socket : sockets) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            assertTrue(in.readLine().contains("BLUE"));
+            socket.close();
+        }
+        handler.close();
+    }
+
+    @Test
+    public void requestsSplitOverSeveralPacketsAreFramed() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String age = "{\"operationName\":\"game_getAge\",\"payload\":\"[]\",\"objectId\":\"lol\"}";
+            String player = "{\"operationName\":\"game_getPlayerInTurn\",\"payload\":\"[]\",\"objectId\":\"lol\"}";
+
+            out.write(age.substring(0, 20).getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Thread.sleep(50);
+            // the rest of the first request and a whole second one in the same packet
+            out.write((age.substring(20) + "\n" + player + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertTrue(in.readLine().contains("-4000"));
+            assertTrue(in.readLine().contains("RED"));
+        }
+    }
+}
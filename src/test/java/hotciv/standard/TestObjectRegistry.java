@@ -0,0 +1,101 @@
+package hotciv.standard;
+
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.invokers.ObjectRegistry;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestObjectRegistry {
+    GameImpl game;
+    Invoker invoker;
+    GameProxy proxy;
+
+    private final Position redArcher = new Position(2, 0);
+    private final Position blueLegion = new Position(3, 2);
+
+    @Before
+    public void setup() {
+        game = new GameImpl(new AlphaFactory());
+        invoker = new Invoker(game);
+        proxy = new GameProxy(new StandardJSONRequestor(new LocalMethodClientRequestHandler(invoker)));
+    }
+
+    @Test
+    public void removedUnitLeavesTheRegistry() {
+        String id = ((UnitImpl) proxy.getUnitAt(redArcher)).getId();
+        assertThat(invoker.getUnits().size(), is(1));
+        assertNotNull(invoker.getUnit(id));
+
+        game.getWorld().removeUnit(redArcher);
+        assertThat(invoker.getUnits().size(), is(0));
+        assertNull(invoker.getUnit(id));
+        assertThat(invoker.getUnits().getRemoved(), is(1L));
+    }
+
+    @Test
+    public void defeatedDefenderLeavesTheRegistry() {
+        String legion = ((UnitImpl) proxy.getUnitAt(blueLegion)).getId();
+        String archer = ((UnitImpl) proxy.getUnitAt(redArcher)).getId();
+        assertTrue(proxy.moveUnit(redArcher, new Position(3, 1)));
+        proxy.endOfTurn();
+        proxy.endOfTurn();
+        // attackers always win in AlphaCiv
+        assertTrue(proxy.moveUnit(new Position(3, 1), blueLegion));
+
+        assertNull(invoker.getUnit(legion));
+        assertNotNull(invoker.getUnit(archer));
+        assertThat(invoker.getUnits().size(), is(1));
+    }
+
+    @Test
+    public void removedCityLeavesTheRegistry() {
+        Position redCity = new Position(1, 1);
+        proxy.getCityAt(redCity);
+        assertThat(invoker.getCities().size(), is(1));
+        game.getWorld().removeCity(redCity);
+        assertThat(invoker.getCities().size(), is(0));
+    }
+
+    @Test
+    public void registryStaysBoundedWhileUnitsComeAndGo() {
+        for (int round = 0; round < 500; round++) {
+            for (int r = 0; r < GameConstants.WORLDSIZE; r++)
+                for (int c = 0; c < GameConstants.WORLDSIZE; c++)
+                    proxy.getUnitAt(new Position(r, c));
+            // the archer dies and a new one takes its place
+            game.getWorld().removeUnit(redArcher);
+            game.setUnitAt(redArcher, new UnitImpl(GameConstants.ARCHER, Player.RED));
+            assertTrue(invoker.getUnits().size() <= 3);
+        }
+        // the last archer placed has not been asked for
+        assertThat(invoker.getUnits().getAdded() - invoker.getUnits().getRemoved(), is(2L));
+        // tiles are not registered but found by their position
+        String tile = proxy.getTileAt(redArcher).getId();
+        assertThat(invoker.getTile(tile).getTypeString(), is(GameConstants.PLAINS));
+    }
+
+    @Test
+    public void objectsNobodyHoldsAreEvicted() throws InterruptedException {
+        ObjectRegistry<Object> registry = new ObjectRegistry<>();
+        Object kept = new Object();
+        registry.put("kept", kept);
+        for (int i = 0; i < 1000; i++)
+            registry.put("dropped" + i, new Object());
+
+        for (int attempt = 0; attempt < 50 && registry.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(registry.size(), is(1));
+        assertThat(registry.getEvicted(), is(1000L));
+        assertSame(kept, registry.get("kept"));
+    }
+}
@@ -0,0 +1,137 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.standard.endOfRound.ParallelEndOfRound;
+import hotciv.standard.endOfRound.SerialEndOfRound;
+import hotciv.standard.factory.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestParallelEndOfRound {
+    private static final int SIZE = 96;
+    private static final int ROUNDS = 12;
+    private static final String[] TERRAIN = {null, null, null, "f", "h", "m", "o"};
+    private static final String[] FOCUS = {GameConstants.foodFocus, GameConstants.productionFocus};
+
+    /**
+     * @return a map with about a thousand cities close enough to compete for the tiles
+     * around them, and some units
+     */
+    private static String[][] layout(long seed) {
+        Random random = new Random(seed);
+        String[][] layout = new String[SIZE][SIZE];
+        for (int r = 0; r < SIZE; r++)
+            for (int c = 0; c < SIZE; c++) {
+                int roll = random.nextInt(100);
+                if (roll < 12)
+                    layout[r][c] = roll % 2 == 0 ? "pc1" : "pc2";
+                else if (roll < 16)
+                    layout[r][c] = roll % 2 == 0 ? "pa1" : "pl2";
+                else
+                    layout[r][c] = TERRAIN[random.nextInt(TERRAIN.length)];
+            }
+        return layout;
+    }
+
+    private static GameImpl game(StrategyFactory factory, long seed) {
+        GameImpl game = new GameImpl(factory, layout(seed));
+        Random random = new Random(seed);
+        for (CityImpl city : game.getWorld().getTiles().getCities().values()) {
+            city.setWorkforceFocus(FOCUS[random.nextInt(2)]);
+            for (int i = random.nextInt(6); i > 0; i--)
+                city.increaseSize();
+        }
+        return game;
+    }
+
+    /**
+     * @return every city and unit of the game, in tile order
+     */
+    private static List<String> state(GameImpl game) {
+        TileStore tiles = game.getWorld().getTiles();
+        List<String> state = new ArrayList<>();
+        for (Map.Entry<Integer, CityImpl> entry : tiles.getCities().entrySet()) {
+            CityImpl city = entry.getValue();
+            state.add(entry.getKey() + " city " + city.getOwner() + " " + city.getSize() + " "
+                    + city.getFood() + " " + city.getProductionValue());
+        }
+        for (Map.Entry<Integer, UnitImpl> entry : tiles.getUnits().entrySet()) {
+            UnitImpl unit = entry.getValue();
+            state.add(entry.getKey() + " unit " + unit.getOwner() + " " + unit.getTypeString() + " " + unit.getMoveCount());
+        }
+        return state;
+    }
+
+    /**
+     * Plays the rounds, recording the state after each round and every change the observers are told of
+     */
+    private static List<String> play(StrategyFactory factory, long seed) {
+        GameImpl game = game(factory, seed);
+        List<String> log = new ArrayList<>();
+        game.addObserver(new GameObserver() {
+            public void worldChangedAt(Position pos) { log.add("changed " + pos); }
+            public void turnEnds(Player nextPlayer) { log.add("turn " + nextPlayer); }
+            public void tileFocusChangedAt(Position position) { }
+            public void requestUpdate() { }
+        });
+        for (int round = 0; round < ROUNDS; round++) {
+            game.endOfTurn();
+            game.endOfTurn();
+            log.addAll(state(game));
+        }
+        return log;
+    }
+
+    @Test
+    public void theVariantsUpdateOneAtATime() {
+        assertThat(new EtaFactory().createEndOfRoundStrategy(), instanceOf(SerialEndOfRound.class));
+        assertThat(new ParallelFactory(new EtaFactory(), 4).createEndOfRoundStrategy(), instanceOf(ParallelEndOfRound.class));
+    }
+
+    @Test
+    public void parallelRoundsPlayOutAsSerialRounds() {
+        for (long seed = 1; seed <= 3; seed++) {
+            List<String> serial = play(new EtaFactory(), seed);
+            for (int parallelism : new int[]{2, 4, 8})
+                assertThat("seed " + seed + ", " + parallelism + " threads",
+                        play(new ParallelFactory(new EtaFactory(), parallelism), seed), is(serial));
+        }
+    }
+
+    @Test
+    public void parallelRoundsPlayOutAsSerialRoundsInSemiCiv() {
+        List<String> serial = play(new SemiFactory(), 7);
+        assertThat(play(new ParallelFactory(new SemiFactory(), 4), 7), is(serial));
+    }
+
+    @Test
+    public void citiesGrowAndProduceInParallelRounds() {
+        GameImpl game = game(new ParallelFactory(new EtaFactory(), 4), 1);
+        int units = game.getWorld().getTiles().getUnits().size();
+        for (int round = 0; round < ROUNDS; round++) {
+            game.endOfTurn();
+            game.endOfTurn();
+        }
+        assertTrue(game.getWorld().getTiles().getUnits().size() > units);
+        assertTrue(game.getWorld().getTiles().getCities().values().stream().anyMatch(city -> city.getSize() > 6));
+    }
+
+    @Test
+    public void everyObjectIsUpdatedOnce() {
+        Integer[] objects = new Integer[10_000];
+        Arrays.setAll(objects, i -> i);
+        Map<Integer, Integer> updates = new ConcurrentHashMap<>();
+        new ParallelEndOfRound(4).forEach(Arrays.asList(objects), i -> updates.merge(i, 1, Integer::sum));
+        assertThat(updates.size(), is(objects.length));
+        assertTrue(updates.values().stream().allMatch(count -> count == 1));
+    }
+}
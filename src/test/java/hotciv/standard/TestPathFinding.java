@@ -0,0 +1,194 @@
+package hotciv.standard;
+
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import hotciv.standard.factory.ThetaFactory;
+import hotciv.standard.unitMovementDistinction.GroundOnly;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestPathFinding {
+    /**
+     * @return a map of plains with a wall of mountains down column 3, open at the bottom row
+     */
+    private static String[][] wall() {
+        String[][] layout = new String[8][8];
+        for (int r = 0; r < 7; r++)
+            layout[r][3] = "m";
+        layout[0][0] = "pa1";
+        return layout;
+    }
+
+    // the moves on a shortest route by breadth first search, or -1 if there is none
+    private static int distance(World world, Position from, Position to) {
+        TileStore tiles = world.getTiles();
+        GroundOnly movement = new GroundOnly();
+        int[] moves = new int[tiles.getSize() * tiles.getSize()];
+        Arrays.fill(moves, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        moves[tiles.indexOf(from)] = 0;
+        queue.add(tiles.indexOf(from));
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            for (int n = 1; n < Neighborhood.SIZE; n++) {
+                int neighbor = tiles.getNeighborhood().neighbor(index, n);
+                if (neighbor < 0 || moves[neighbor] >= 0 || tiles.getUnit(neighbor) != null
+                        || !movement.validUnitPosition(world, tiles.positionOf(neighbor), GameConstants.ARCHER))
+                    continue;
+                moves[neighbor] = moves[index] + 1;
+                queue.add(neighbor);
+            }
+        }
+        return moves[tiles.indexOf(to)];
+    }
+
+    private static void assertWalkable(World world, Position from, List<Position> path) {
+        Position at = from;
+        for (Position next : path) {
+            assertTrue(at + " to " + next, Math.abs(at.getRow() - next.getRow()) <= 1
+                    && Math.abs(at.getColumn() - next.getColumn()) <= 1);
+            assertTrue(next + " is passable", new GroundOnly().validUnitPosition(world, next, GameConstants.ARCHER));
+            at = next;
+        }
+    }
+
+    @Test
+    public void routesGoAroundImpassableTerrain() {
+        GameImpl game = new GameImpl(new AlphaFactory(), wall());
+        Position from = new Position(0, 0);
+        Position to = new Position(0, 6);
+        List<Position> path = game.findPath(from, to);
+        assertThat(path.size(), is(14));
+        assertThat(path.get(path.size() - 1), is(to));
+        assertTrue(path.contains(new Position(7, 3)));
+        assertWalkable(game.getWorld(), from, path);
+    }
+
+    @Test
+    public void routesAreAsShortAsAnyOther() {
+        Random random = new Random(3);
+        for (int map = 0; map < 20; map++) {
+            String[][] layout = new String[32][32];
+            for (int r = 0; r < 32; r++)
+                for (int c = 0; c < 32; c++) {
+                    int roll = random.nextInt(10);
+                    layout[r][c] = roll < 3 ? "m" : roll < 4 ? "o" : roll < 5 ? "pl2" : null;
+                }
+            layout[0][0] = "pa1";
+            GameImpl game = new GameImpl(new AlphaFactory(), layout);
+            World world = game.getWorld();
+            Position from = new Position(0, 0);
+            for (int i = 0; i < 20; i++) {
+                Position to = new Position(random.nextInt(32), random.nextInt(32));
+                if (world.getUnitAt(to) != null)
+                    continue;
+                List<Position> path = game.findPath(from, to);
+                int distance = to.equals(from) ? 0 : distance(world, from, to);
+                if (distance < 0) {
+                    assertNull(path);
+                } else {
+                    assertThat(path.size(), is(distance));
+                    assertWalkable(world, from, path);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void routesGoAroundUnitsAndMayEndOnAnEnemy() {
+        String[][] layout = new String[8][8];
+        layout[0][0] = "pa1";
+        layout[0][1] = "pl1";
+        layout[1][1] = "pl1";
+        layout[1][0] = "pl1";
+        layout[2][2] = "ps2";
+        GameImpl game = new GameImpl(new AlphaFactory(), layout);
+        // boxed in by its own units
+        assertNull(game.findPath(new Position(0, 0), new Position(3, 3)));
+        assertNull(game.findPath(new Position(0, 0), new Position(0, 1)));
+        List<Position> path = game.findPath(new Position(0, 1), new Position(2, 2));
+        assertThat(path, is(Arrays.asList(new Position(1, 2), new Position(2, 2))));
+    }
+
+    @Test
+    public void thereIsNoRouteOntoImpassableTerrainOrWithoutAUnit() {
+        GameImpl game = new GameImpl(new AlphaFactory(), wall());
+        assertNull(game.findPath(new Position(0, 0), new Position(3, 3)));
+        assertNull(game.findPath(new Position(5, 5), new Position(6, 6)));
+        assertNull(game.findPath(new Position(0, 0), new Position(8, 0)));
+        assertThat(game.findPath(new Position(0, 0), new Position(0, 0)).size(), is(0));
+    }
+
+    @Test
+    public void aircraftFlyOverMountains() {
+        String[][] layout = wall();
+        layout[0][0] = "pb1";
+        GameImpl game = new GameImpl(new ThetaFactory(), layout);
+        assertThat(game.findPath(new Position(0, 0), new Position(0, 6)).size(), is(6));
+    }
+
+    @Test
+    public void routesFollowChangesOfTheTerrain() {
+        GameImpl game = new GameImpl(new AlphaFactory(), wall());
+        assertNotNull(game.findPath(new Position(0, 0), new Position(0, 6)));
+        game.getWorld().setTypeAt(new Position(7, 3), GameConstants.MOUNTAINS);
+        assertNull(game.findPath(new Position(0, 0), new Position(0, 6)));
+        game.getWorld().setTypeAt(new Position(3, 3), GameConstants.PLAINS);
+        assertThat(game.findPath(new Position(0, 0), new Position(0, 6)).size(), is(6));
+    }
+
+    @Test
+    public void unitsMoveAlongTheRouteAsFarAsTheirMovesGo() {
+        GameImpl game = new GameImpl(new AlphaFactory(), wall());
+        Position at = new Position(0, 0);
+        Position to = new Position(0, 6);
+        int turns = 0;
+        while (!to.equals(at)) {
+            Position next = game.moveUnitAlongPath(at, to);
+            // an archer has one move a turn
+            assertThat(Math.max(Math.abs(next.getRow() - at.getRow()), Math.abs(next.getColumn() - at.getColumn())), is(1));
+            assertThat(game.moveUnitAlongPath(next, to), is(next));
+            at = next;
+            game.endOfTurn();
+            game.endOfTurn();
+            turns++;
+        }
+        assertThat(turns, is(14));
+        assertThat(game.getUnitAt(to).getTypeString(), is(GameConstants.ARCHER));
+    }
+
+    @Test
+    public void aircraftUseBothMoves() {
+        String[][] layout = wall();
+        layout[0][0] = "pb1";
+        layout[0][2] = "pa2";
+        GameImpl game = new GameImpl(new ThetaFactory(), layout);
+        // the second move attacks the archer, and the attacker wins in ThetaCiv
+        assertThat(game.moveUnitAlongPath(new Position(0, 0), new Position(0, 2)), is(new Position(0, 2)));
+        assertThat(game.getUnitAt(new Position(0, 2)).getTypeString(), is(GameConstants.B52));
+        // a unit already at the destination stays
+        assertThat(game.moveUnitAlongPath(new Position(0, 2), new Position(0, 2)), is(new Position(0, 2)));
+    }
+
+    @Test
+    public void routesAreWalkedInOneRequestOverTheBroker() {
+        GameImpl game = new GameImpl(new ThetaFactory(), wall());
+        game.getWorld().setUnitAt(new Position(7, 7), new UnitImpl(GameConstants.B52, Player.RED), new GroundOnly());
+        GameProxy proxy = new GameProxy(new StandardJSONRequestor(new LocalMethodClientRequestHandler(new Invoker(game))));
+        assertThat(proxy.moveUnitAlongPath(new Position(7, 7), new Position(3, 3)), is(new Position(5, 5)));
+        assertThat(proxy.moveUnitAlongPath(new Position(0, 0), new Position(0, 4)), is(new Position(1, 1)));
+        assertThat(game.getUnitAt(new Position(5, 5)).getTypeString(), is(GameConstants.B52));
+        assertNull(game.getUnitAt(new Position(0, 0)));
+    }
+}
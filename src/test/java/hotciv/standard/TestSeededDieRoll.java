@@ -0,0 +1,116 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.standard.factory.SemiFactory;
+import hotciv.standard.random.RandomStrategy;
+import hotciv.standard.random.ReplayedDieRoll;
+import hotciv.standard.random.SeededDieRoll;
+import hotciv.standard.resolveAttack.ActualCombat;
+import hotciv.standard.resolveAttack.ResolveAttackStrategy;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestSeededDieRoll {
+    private static final int COMBATS = 1000;
+
+    private static int[] roll(RandomStrategy die, int times) {
+        int[] rolls = new int[times];
+        for (int i = 0; i < times; i++)
+            rolls[i] = die.getNext();
+        return rolls;
+    }
+
+    /**
+     * @return the outcomes of an archer attacking a legion on hills again and again
+     */
+    private static boolean[] fight(ResolveAttackStrategy combat) {
+        String[][] layout = new String[16][16];
+        layout[5][5] = "pa1";
+        layout[5][6] = "hl2";
+        layout[4][5] = "pa1";
+        World world = new World(layout);
+        boolean[] outcomes = new boolean[COMBATS];
+        for (int i = 0; i < COMBATS; i++)
+            outcomes[i] = combat.unitAttack(world, new Position(5, 5), new Position(5, 6));
+        return outcomes;
+    }
+
+    @Test
+    public void theSameSeedRollsTheSameNumbers() {
+        assertThat(roll(new SeededDieRoll(42), 500), is(roll(new SeededDieRoll(42), 500)));
+        assertThat(roll(new SeededDieRoll(42), 500), not(roll(new SeededDieRoll(43), 500)));
+    }
+
+    @Test
+    public void everyNumberOfTheDieIsRolled() {
+        int[] counts = new int[7];
+        for (int roll : roll(new SeededDieRoll(1), 6000))
+            counts[roll]++;
+        assertThat(counts[0], is(0));
+        for (int n = 1; n <= 6; n++)
+            assertTrue(n + " rolled " + counts[n] + " times", counts[n] > 800 && counts[n] < 1200);
+    }
+
+    @Test
+    public void theRollsAreRecorded() {
+        SeededDieRoll die = new SeededDieRoll(7);
+        int[] rolls = roll(die, 300);
+        assertThat(die.getRolls(), is(rolls));
+        assertThat(die.getRollCount(), is(300));
+        assertThat(die.getSeed(), is(7L));
+    }
+
+    @Test
+    public void splitDiceAreReproducibleAndIndependent() {
+        SeededDieRoll root = new SeededDieRoll(42);
+        SeededDieRoll first = root.split();
+        SeededDieRoll second = root.split();
+        SeededDieRoll again = new SeededDieRoll(42);
+        assertThat(roll(again.split(), 200), is(roll(first, 200)));
+        assertThat(roll(again.split(), 200), is(roll(second, 200)));
+        assertThat(first.getRolls(), not(second.getRolls()));
+        // rolling a split die does not change the dice split after it
+        SeededDieRoll other = new SeededDieRoll(42);
+        roll(other.split(), 1000);
+        assertThat(other.split().getSeed(), is(second.getSeed()));
+    }
+
+    @Test
+    public void combatsAreReplayedFromTheSeed() {
+        assertThat(fight(new ActualCombat(new SeededDieRoll(3))), is(fight(new ActualCombat(new SeededDieRoll(3)))));
+    }
+
+    @Test
+    public void combatsAreReplayedFromTheRecordedRolls() {
+        SeededDieRoll die = new SeededDieRoll(3);
+        boolean[] outcomes = fight(new ActualCombat(die));
+        ReplayedDieRoll replay = new ReplayedDieRoll(die.getRolls());
+        assertThat(fight(new ActualCombat(replay)), is(outcomes));
+        assertThat(replay.getRemaining(), is(0));
+        // both outcomes occur, so the replay is not trivially right
+        assertTrue(contains(outcomes, true) && contains(outcomes, false));
+    }
+
+    private static boolean contains(boolean[] outcomes, boolean outcome) {
+        for (boolean o : outcomes)
+            if (o == outcome)
+                return true;
+        return false;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void aReplayEndsWithTheRecording() {
+        RandomStrategy replay = new ReplayedDieRoll(new int[]{4, 2});
+        roll(replay, 3);
+    }
+
+    @Test
+    public void seedIsInjectedThroughTheFactory() {
+        assertThat(fight(new SemiFactory(11).createAttackStrategy()), is(fight(new SemiFactory(11).createAttackStrategy())));
+        SeededDieRoll die = new SeededDieRoll(11);
+        boolean[] outcomes = fight(new SemiFactory(die).createAttackStrategy());
+        assertThat(fight(new SemiFactory(new ReplayedDieRoll(die.getRolls())).createAttackStrategy()), is(outcomes));
+    }
+}
@@ -0,0 +1,102 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.simulation.*;
+import hotciv.standard.factory.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestSimulation {
+    private static SimulatedPlayer redArcherAttacks(long seed) {
+        return new ScriptedPlayer(Arrays.asList(
+                Collections.singletonList(Command.moveUnit(new Position(2, 0), new Position(3, 1))),
+                Collections.singletonList(Command.moveUnit(new Position(3, 1), new Position(3, 2)))));
+    }
+
+    @Test
+    public void alphaCivIsWonByRedAfterTenRounds() {
+        try (Simulation simulation = new Simulation(seed -> new AlphaFactory(), RandomPlayer::new, RandomPlayer::new, 100, 2)) {
+            for (GameOutcome outcome : simulation.run(0, 20)) {
+                assertThat(outcome.getWinner(), is(Player.RED));
+                assertThat(outcome.getRounds(), is(10));
+                assertThat(outcome.getAge(), is(-3000));
+            }
+        }
+    }
+
+    @Test
+    public void outcomesComeInTheOrderOfTheSeeds() {
+        List<GameOutcome> outcomes;
+        try (Simulation simulation = new Simulation(seed -> new AlphaFactory(), RandomPlayer::new, RandomPlayer::new, 100, 4)) {
+            outcomes = simulation.run(100, 150);
+        }
+        assertThat(outcomes.size(), is(50));
+        for (int i = 0; i < outcomes.size(); i++)
+            assertThat(outcomes.get(i).getSeed(), is(100L + i));
+    }
+
+    @Test
+    public void gamesPlayOutTheSameOnAnyNumberOfThreads() {
+        List<GameOutcome> serial;
+        List<GameOutcome> parallel;
+        try (Simulation one = new Simulation(SemiFactory::new, RandomPlayer::new, RandomPlayer::new, 200, 1);
+             Simulation four = new Simulation(SemiFactory::new, RandomPlayer::new, RandomPlayer::new, 200, 4)) {
+            serial = one.run(0, 20);
+            parallel = four.run(0, 20);
+        }
+        assertThat(parallel, is(serial));
+        // random players do fight, and somebody wins some of the games
+        assertTrue(serial.stream().anyMatch(outcome -> outcome.getCombats() > 0));
+        assertTrue(serial.stream().anyMatch(outcome -> outcome.getWinner() != null));
+    }
+
+    @Test
+    public void closingShutsDownTheOwnPoolOnly() {
+        Simulation own = new Simulation(seed -> new AlphaFactory(), RandomPlayer::new, RandomPlayer::new, 100, 2);
+        own.close();
+        try {
+            own.run(0, 1);
+            fail("A closed simulation has no threads to play on");
+        } catch (RejectedExecutionException e) {
+            // the pool is shut down
+        }
+
+        Simulation common = new Simulation(seed -> new AlphaFactory(), RandomPlayer::new, RandomPlayer::new, 100);
+        common.close();
+        assertThat(common.run(0, 1).size(), is(1));
+        assertFalse(ForkJoinPool.commonPool().isShutdown());
+    }
+
+    @Test
+    public void aGameIsPlayedTheSameForTheSameSeed() {
+        Simulation simulation = new Simulation(EpsilonFactory::new, RandomPlayer::new, RandomPlayer::new, 80);
+        assertThat(simulation.play(17), is(simulation.play(17)));
+    }
+
+    @Test
+    public void scriptedAttacksAreCountedAsCombats() {
+        Simulation simulation = new Simulation(EpsilonFactory::new, TestSimulation::redArcherAttacks,
+                seed -> SimulatedPlayer.idle(), 5);
+        GameOutcome outcome = simulation.play(3);
+        assertThat(outcome.getCombats(), is(1));
+        assertThat(outcome.getRounds(), is(5));
+        assertThat(outcome.getWinner(), is(nullValue()));
+    }
+
+    @Test
+    public void gamesWithoutAWinnerEndWhenTheRoundsRunOut() {
+        GameOutcome outcome = new Simulation(seed -> new BetaFactory(), seed -> SimulatedPlayer.idle(),
+                seed -> SimulatedPlayer.idle(), 25).play(1);
+        assertThat(outcome.getWinner(), is(nullValue()));
+        assertThat(outcome.getRounds(), is(25));
+        assertThat(outcome.getCombats(), is(0));
+    }
+}
@@ -0,0 +1,169 @@
+package hotciv.standard;
+
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.CityProxy;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.broker.proxies.UnitProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.*;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestStateHash {
+    /**
+     * @return the hash of the game worked out from scratch, from a copy of its tiles and variables
+     */
+    private static long recomputed(GameImpl game) {
+        GameVariables variables = game.getWorld().getVariables();
+        GameVariables copy = new GameVariables();
+        copy.setAge(variables.getAge());
+        copy.setCurrentPlayer(variables.getCurrentPlayer());
+        for (Player player : Player.values())
+            copy.setCombatVictories(player, variables.getCombatVictories(player));
+        return new World(TileStore.of(game.getTileMap()), copy).getStateHash();
+    }
+
+    @Test
+    public void theHashKeptUpToDateIsTheHashWorkedOutFromScratch() {
+        for (Supplier<StrategyFactory> variant : TestUndo.VARIANTS) {
+            GameImpl game = new GameImpl(variant.get());
+            SplittableRandom random = new SplittableRandom(5);
+            for (int i = 0; i < 300; i++) {
+                TestUndo.randomCommand(game, random);
+                if (i % 7 == 0)
+                    assertThat(game.getStateHash(), is(recomputed(game)));
+            }
+            assertThat(game.getStateHash(), is(recomputed(game)));
+        }
+    }
+
+    @Test
+    public void undoingACommandGivesBackTheHashOfTheGameBeforeIt() {
+        for (Supplier<StrategyFactory> variant : TestUndo.VARIANTS) {
+            GameImpl game = TestUndo.playedGame(variant.get(), 1);
+            game.setUndoRecording(true);
+            SplittableRandom random = new SplittableRandom(6);
+            Deque<Long> hashes = new ArrayDeque<>();
+            for (int i = 0; i < 300; i++) {
+                hashes.push(game.getStateHash());
+                TestUndo.randomCommand(game, random);
+                // the hash is not always asked for between commands
+                if (random.nextBoolean())
+                    game.getStateHash();
+            }
+            while (!hashes.isEmpty()) {
+                assertTrue(game.undo());
+                assertThat(game.getStateHash(), is(hashes.pop()));
+            }
+        }
+    }
+
+    @Test
+    public void everyPartOfTheStateChangesTheHash() {
+        GameImpl game = new GameImpl(new ThetaFactory());
+        Set<Long> hashes = new HashSet<>();
+        hashes.add(game.getStateHash());
+        Position archer = new Position(2, 0);
+        Position city = new Position(1, 1);
+
+        game.performUnitActionAt(archer); // fortified
+        assertTrue(hashes.add(game.getStateHash()));
+        game.changeProductionInCityAt(city, GameConstants.LEGION);
+        assertTrue(hashes.add(game.getStateHash()));
+        game.changeWorkForceFocusInCityAt(city, GameConstants.productionFocus);
+        assertTrue(hashes.add(game.getStateHash()));
+        game.setTypeAt(new Position(0, 0), GameConstants.FOREST);
+        assertTrue(hashes.add(game.getStateHash()));
+        game.endOfTurn(); // the player in turn
+        assertTrue(hashes.add(game.getStateHash()));
+        game.endOfTurn(); // the age, the sizes of the cities and the move counts of the units
+        assertTrue(hashes.add(game.getStateHash()));
+        game.getWorld().getVariables().incrementVictory(Player.RED);
+        assertTrue(hashes.add(game.getStateHash()));
+        assertThat(game.getStateHash(), is(recomputed(game)));
+    }
+
+    @Test
+    public void movesInAnyOrderReachTheSameHash() {
+        GameImpl game = new GameImpl(new AlphaFactory());
+        GameImpl other = game.fork();
+        assertThat(other.getStateHash(), is(game.getStateHash()));
+        Position archer = new Position(2, 0);
+        Position settler = new Position(4, 3);
+
+        game.moveUnit(archer, new Position(3, 0));
+        game.moveUnit(settler, new Position(5, 3));
+        assertThat(other.getStateHash(), is(not(game.getStateHash())));
+        other.moveUnit(settler, new Position(5, 3));
+        other.moveUnit(archer, new Position(3, 0));
+        assertThat(other.getStateHash(), is(game.getStateHash()));
+
+        // the same tiles, but the archer has used its move
+        GameImpl back = new GameImpl(new AlphaFactory());
+        back.moveUnit(archer, new Position(3, 0));
+        back.endOfTurn();
+        back.endOfTurn();
+        back.moveUnit(new Position(3, 0), archer);
+        back.endOfTurn();
+        back.endOfTurn();
+        GameImpl fresh = new GameImpl(new AlphaFactory());
+        fresh.endOfTurn();
+        fresh.endOfTurn();
+        fresh.endOfTurn();
+        fresh.endOfTurn();
+        assertThat(back.getStateHash(), is(fresh.getStateHash()));
+    }
+
+    @Test
+    public void theHashIsAskedForOverTheBroker() {
+        GameImpl game = TestUndo.playedGame(new SemiFactory(2), 2);
+        GameProxy proxy = new GameProxy(new StandardJSONRequestor(new LocalMethodClientRequestHandler(new Invoker(game))));
+        assertThat(proxy.getStateHash(), is(game.getStateHash()));
+        proxy.endOfTurn();
+        assertThat(proxy.getStateHash(), is(game.getStateHash()));
+        assertThat(proxy.getStateHash(), is(recomputed(game)));
+    }
+
+    @Test
+    public void unitsAndCitiesChangedOverTheBrokerAreChangedThroughTheWorld() {
+        GameImpl game = new GameImpl(new AlphaFactory());
+        game.setUndoRecording(true);
+        StandardJSONRequestor requestor = new StandardJSONRequestor(new LocalMethodClientRequestHandler(new Invoker(game)));
+        GameProxy proxy = new GameProxy(requestor);
+        Position archer = new Position(2, 0);
+        Position redCity = new Position(1, 1);
+        String unitId = ((UnitImpl) proxy.getUnitAt(archer)).getId();
+        String cityId = ((CityImpl) proxy.getCityAt(redCity)).getId();
+        GameImpl fork = game.fork();
+        int version = game.getWorld().getVersion();
+
+        new UnitProxy(requestor).toggleFortify(unitId);
+        new CityProxy(requestor).setOwner(cityId, Player.BLUE);
+        assertTrue(((UnitImpl) game.getUnitAt(archer)).isFortified());
+        assertThat(game.getCityAt(redCity).getOwner(), is(Player.BLUE));
+        assertThat(proxy.getStateHash(), is(recomputed(game)));
+        assertThat(proxy.getWorldChangesSince(version).getPositions(), hasItems(archer, redCity));
+        // a fork sharing the unit and city keeps them as they were
+        assertFalse(((UnitImpl) fork.getUnitAt(archer)).isFortified());
+        assertThat(fork.getCityAt(redCity).getOwner(), is(Player.RED));
+
+        // the changes are commands of their own, and the registry holds what was changed
+        new UnitProxy(requestor).toggleFortify(unitId);
+        assertFalse(((UnitImpl) game.getUnitAt(archer)).isFortified());
+        assertTrue(game.undo());
+        assertTrue(game.undo());
+        assertThat(game.getCityAt(redCity).getOwner(), is(Player.RED));
+        assertThat(game.getStateHash(), is(recomputed(game)));
+    }
+}
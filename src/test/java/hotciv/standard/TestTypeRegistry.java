@@ -0,0 +1,64 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestTypeRegistry {
+    private static class Catapult implements GameConstants.UNITS {
+        public String getString() { return "catapult"; }
+        public int getCost() { return 20; }
+        public int getDefStrength() { return 1; }
+        public int getMovement() { return 1; }
+        public int getAttStrength() { return 6; }
+        public String getMovementCategory() { return GROUND; }
+    }
+
+    @Test
+    public void typesAreSharedDescriptors() {
+        assertSame(GameConstants.TILE.toClass(GameConstants.FOREST), GameConstants.TILE.toClass(GameConstants.FOREST));
+        assertSame(GameConstants.UNITS.toClass(GameConstants.ARCHER), GameConstants.UNITS.toClass(GameConstants.ARCHER));
+        assertNull(GameConstants.TILE.toClass("lava"));
+    }
+
+    @Test
+    public void typesAreFoundByOrdinal() {
+        int ordinal = GameConstants.TILE.REGISTRY.ordinalOf(GameConstants.HILLS);
+        assertThat(GameConstants.TILE.toClass(ordinal).getString(), is(GameConstants.HILLS));
+        assertThat(GameConstants.TILE.REGISTRY.ordinalOf("lava"), is(-1));
+    }
+
+    @Test
+    public void registeredTypesGetTheNextOrdinal() {
+        TypeRegistry<GameConstants.UNITS> registry = new TypeRegistry<>(GameConstants.UNITS::getString);
+        assertThat(registry.register(new GameConstants.UNITS.ARCHER()), is(0));
+        assertThat(registry.register(new Catapult()), is(1));
+        assertThat(registry.get("catapult").getAttStrength(), is(6));
+        assertThat(registry.get(1).getString(), is("catapult"));
+        assertThat(registry.size(), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aTypeIsRegisteredOnce() {
+        GameConstants.TILE.register(new GameConstants.TILE.PLAINS());
+    }
+
+    @Test
+    public void variantsCanAddUnitTypes() {
+        if (GameConstants.UNITS.toClass("catapult") == null)
+            GameConstants.UNITS.register(new Catapult());
+        UnitImpl unit = new UnitImpl("catapult", Player.RED);
+        assertThat(unit.getAttackingStrength(), is(6));
+        assertThat(unit.getMoveCount(), is(1));
+    }
+
+    @Test
+    public void worldGivesTheTerrainOfATile() {
+        World world = new World(new String[][]{{"f", "m"}, {"o", "pc1"}});
+        assertSame(GameConstants.TILE.toClass(GameConstants.FOREST), world.getTerrainAt(new Position(0, 0)));
+        assertThat(world.getTerrainAt(new Position(1, 1)).getFood(), is(3));
+        assertNull(world.getTerrainAt(new Position(2, 0)));
+    }
+}
@@ -0,0 +1,197 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.simulation.RandomPlayer;
+import hotciv.standard.factory.*;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestUndo {
+    static final List<Supplier<StrategyFactory>> VARIANTS = Arrays.asList(
+            AlphaFactory::new, GammaFactory::new, () -> new EpsilonFactory(1), ZetaFactory::new, ThetaFactory::new,
+            () -> new SemiFactory(1));
+
+    /**
+     * Gives one random command to the game, mostly moves of the units of the player in turn
+     */
+    static void randomCommand(GameImpl game, SplittableRandom random) {
+        TileStore tiles = game.getWorld().getTiles();
+        int[] units = game.getWorld().getUnitsOf(game.getPlayerInTurn()).keySet().stream().mapToInt(i -> i).toArray();
+        int roll = random.nextInt(100);
+        if (roll < 10 || units.length == 0) {
+            game.endOfTurn();
+            return;
+        }
+        Position unit = tiles.positionOf(units[random.nextInt(units.length)]);
+        if (roll < 70) {
+            int to = tiles.getNeighborhood().neighbor(tiles.indexOf(unit), 1 + random.nextInt(Neighborhood.SIZE - 1));
+            game.moveUnit(unit, to < 0 ? unit : tiles.positionOf(to));
+        } else if (roll < 80) {
+            game.performUnitActionAt(unit);
+        } else if (roll < 90) {
+            int size = tiles.getSize();
+            game.moveUnitAlongPath(unit, new Position(random.nextInt(size), random.nextInt(size)));
+        } else {
+            // a city of any player, or none
+            int size = tiles.getSize();
+            Position pos = new Position(random.nextInt(size), random.nextInt(size));
+            List<String> available = game.getAvailableUnits();
+            if (random.nextBoolean())
+                game.changeProductionInCityAt(pos, available.get(random.nextInt(available.size())));
+            else
+                game.changeWorkForceFocusInCityAt(pos, random.nextBoolean() ? GameConstants.foodFocus : GameConstants.productionFocus);
+        }
+    }
+
+    static GameImpl playedGame(StrategyFactory variant, long seed) {
+        GameImpl game = new GameImpl(variant);
+        RandomPlayer player = new RandomPlayer(seed);
+        for (int turn = 0; turn < 6; turn++) {
+            player.playTurn(game);
+            game.endOfTurn();
+        }
+        return game;
+    }
+
+    @Test
+    public void everyCommandIsUndoneExactly() {
+        for (Supplier<StrategyFactory> variant : VARIANTS) {
+            GameImpl game = playedGame(variant.get(), 1);
+            game.setUndoRecording(true);
+            SplittableRandom random = new SplittableRandom(2);
+            Deque<List<String>> states = new ArrayDeque<>();
+            for (int i = 0; i < 400; i++) {
+                states.push(TestWorldFile.state(game));
+                randomCommand(game, random);
+            }
+            assertThat(game.getUndoableCommands(), is(400));
+            while (!states.isEmpty()) {
+                assertTrue(game.undo());
+                assertThat(TestWorldFile.state(game), is(states.pop()));
+            }
+            assertFalse(game.undo());
+        }
+    }
+
+    @Test
+    public void aSearchLeavesTheGameAsItWas() {
+        for (Supplier<StrategyFactory> variant : VARIANTS) {
+            GameImpl game = playedGame(variant.get(), 3).fork();
+            game.setUndoRecording(true);
+            List<String> before = TestWorldFile.state(game);
+            SplittableRandom random = new SplittableRandom(4);
+            // a random walk up and down the tree of commands
+            List<List<String>> path = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                if (!path.isEmpty() && random.nextInt(100) < 45) {
+                    game.undo();
+                    assertThat(TestWorldFile.state(game), is(path.remove(path.size() - 1)));
+                } else {
+                    path.add(TestWorldFile.state(game));
+                    randomCommand(game, random);
+                }
+            }
+            while (game.undo())
+                ;
+            assertThat(TestWorldFile.state(game), is(before));
+        }
+    }
+
+    @Test
+    public void combatConquestAndVictoriesAreUndone() {
+        GameImpl game = new GameImpl(new AlphaFactory());
+        Position archer = new Position(2, 0);
+        Position legion = new Position(3, 2);
+        Position blueCity = new Position(4, 1);
+        game.moveUnit(archer, new Position(3, 1));
+        game.endOfTurn();
+        game.endOfTurn();
+        game.setUndoRecording(true);
+        List<String> before = TestWorldFile.state(game);
+        UnitImpl defender = (UnitImpl) game.getUnitAt(legion);
+
+        assertTrue(game.moveUnit(new Position(3, 1), legion));
+        assertThat(game.getWorld().getVariables().getCombatVictories(Player.RED), is(1));
+        assertTrue(game.undo());
+        assertThat(TestWorldFile.state(game), is(before));
+        assertSame(defender, game.getUnitAt(legion));
+        assertThat(game.getWorld().getVariables().getCombatVictories(Player.RED), is(0));
+
+        assertTrue(game.moveUnit(new Position(3, 1), blueCity));
+        assertThat(game.getCityAt(blueCity).getOwner(), is(Player.RED));
+        assertTrue(game.undo());
+        assertThat(game.getCityAt(blueCity).getOwner(), is(Player.BLUE));
+        assertThat(TestWorldFile.state(game), is(before));
+    }
+
+    @Test
+    public void bombingAndFortifyingAreUndone() {
+        GameImpl game = new GameImpl(new ThetaFactory());
+        Position city = new Position(1, 1);
+        TileStore tiles = game.getWorld().getTiles();
+        tiles.setUnit(tiles.indexOf(city), new UnitImpl(GameConstants.B52, Player.RED));
+        game.getWorld().setTypeAt(city, GameConstants.FOREST);
+        game.setUndoRecording(true);
+        List<String> before = TestWorldFile.state(game);
+
+        game.performUnitActionAt(city);
+        assertNull(game.getCityAt(city));
+        assertThat(game.getTileAt(city).getTypeString(), is(GameConstants.PLAINS));
+        assertTrue(game.undo());
+        assertThat(TestWorldFile.state(game), is(before));
+
+        game.getWorld().getCityForWrite(city).increaseSize();
+        before = TestWorldFile.state(game);
+        game.performUnitActionAt(city);
+        assertThat(game.getCityAt(city).getSize(), is(1));
+        assertTrue(game.undo());
+        assertThat(TestWorldFile.state(game), is(before));
+
+        Position archer = new Position(2, 0);
+        game.performUnitActionAt(archer);
+        assertTrue(((UnitImpl) game.getUnitAt(archer)).isFortified());
+        assertTrue(game.undo());
+        assertThat(TestWorldFile.state(game), is(before));
+    }
+
+    @Test
+    public void forkingForgetsTheCommandsShared() {
+        GameImpl game = new GameImpl(new GammaFactory());
+        game.setUndoRecording(true);
+        Position archer = new Position(2, 0);
+        Position settler = new Position(4, 3);
+        game.performUnitActionAt(archer);
+        game.endOfTurn();
+        game.endOfTurn();
+        GameImpl fork = game.fork();
+        assertThat(game.getUndoableCommands(), is(0));
+        fork.endOfTurn();
+        assertFalse(fork.undo());
+        fork.endOfTurn();
+        List<String> parent = TestWorldFile.state(game);
+
+        fork.setUndoRecording(true);
+        List<String> forked = TestWorldFile.state(fork);
+        fork.moveUnit(settler, new Position(5, 3));
+        fork.performUnitActionAt(archer);
+        assertFalse(((UnitImpl) fork.getUnitAt(archer)).isFortified());
+        assertTrue(fork.undo());
+        assertTrue(fork.undo());
+        assertThat(TestWorldFile.state(fork), is(forked));
+        // the units put back are still shared with the parent, and copied before changing them
+        fork.performUnitActionAt(settler);
+        fork.performUnitActionAt(archer);
+        assertThat(fork.getCityAt(settler), is(notNullValue()));
+        assertThat(TestWorldFile.state(game), is(parent));
+    }
+}
@@ -0,0 +1,181 @@
+package hotciv.standard;
+
+import com.google.gson.Gson;
+import frds.broker.ReplyObject;
+import frds.broker.RequestObject;
+import frds.broker.Requestor;
+import hotciv.broker.GameEvents;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.OperationNames;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.invokers.SessionInvoker;
+import hotciv.broker.marshall.Arguments;
+import hotciv.broker.marshall.BinaryWireFormat;
+import hotciv.broker.marshall.JsonWireFormat;
+import hotciv.broker.marshall.WireRequestor;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.broker.proxies.UnitProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Base64;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestWireFormat {
+    GameImpl game;
+    GameProxy proxy;
+    BinaryWireFormat binary = new BinaryWireFormat();
+
+    @Before
+    public void setup() {
+        game = new GameImpl(new AlphaFactory());
+        Requestor requestor = new WireRequestor(new LocalMethodClientRequestHandler(new Invoker(game, binary)), binary);
+        proxy = new GameProxy(requestor);
+    }
+
+    @Test
+    public void proxyWorksOverTheBinaryFormat() {
+        assertThat(proxy.getAge(), is(GameConstants.STARTYEAR));
+        assertThat(proxy.getPlayerInTurn(), is(Player.RED));
+        assertTrue(proxy.moveUnit(new Position(2, 0), new Position(3, 1)));
+        assertFalse(proxy.moveUnit(new Position(3, 1), new Position(5, 1)));
+        proxy.changeProductionInCityAt(new Position(1, 1), GameConstants.LEGION);
+        assertThat(game.getCityAt(new Position(1, 1)).getProduction(), is(GameConstants.LEGION));
+        assertThat(proxy.getAvailableUnits(), is(game.getAvailableUnits()));
+        proxy.endOfTurn();
+        assertThat(proxy.getPlayerInTurn(), is(Player.BLUE));
+        assertNull(proxy.getWinner());
+    }
+
+    @Test
+    public void objectsHandedOutCanBeCalled() {
+        Requestor requestor = new WireRequestor(new LocalMethodClientRequestHandler(new Invoker(game, binary)), binary);
+        GameProxy gameProxy = new GameProxy(requestor);
+        UnitProxy unitProxy = new UnitProxy(requestor);
+        Unit unit = gameProxy.getUnitAt(new Position(2, 0));
+        assertThat(unit.getTypeString(), is(GameConstants.ARCHER));
+        String id = ((UnitImpl) unit).getId();
+        assertThat(unitProxy.getOwner(id), is(Player.RED));
+        assertThat(unitProxy.getMoveCount(id), is(1));
+        assertNull(gameProxy.getCityAt(new Position(0, 0)));
+    }
+
+    @Test
+    public void snapshotsSurviveTheBinaryFormat() {
+        WorldSnapshot snapshot = proxy.getWorldSnapshot();
+        assertTrue(snapshot.isComplete());
+        assertThat(snapshot.getUnitAt(new Position(2, 0)).getTypeString(), is(GameConstants.ARCHER));
+        assertThat(snapshot.getCityAt(new Position(1, 1)).getOwner(), is(Player.RED));
+        assertThat(snapshot.toTileMap()[1][0].getTypeString(), is(GameConstants.OCEANS));
+
+        proxy.moveUnit(new Position(2, 0), new Position(3, 1));
+        WorldSnapshot changes = proxy.getWorldChangesSince(snapshot.getWorldVersion());
+        assertFalse(changes.isComplete());
+        assertThat(changes.getPositions().size(), is(2));
+    }
+
+    @Test
+    public void valuesRoundTrip() {
+        String payload = binary.marshalArguments(-1, 1L << 40, Player.GREEN, new Position(15, 3),
+                GameConstants.SETTLER, "Åbyhøj", null, true);
+        Arguments arguments = binary.unmarshalArguments(payload);
+        assertThat(arguments.size(), is(8));
+        assertThat(arguments.get(0, Integer.class), is(-1));
+        assertThat(arguments.get(0, Long.class), is(-1L));
+        assertThat(arguments.get(1, Long.class), is(1L << 40));
+        assertThat(arguments.get(2, Player.class), is(Player.GREEN));
+        assertThat(arguments.get(3, Position.class), is(new Position(15, 3)));
+        assertThat(arguments.get(4, String.class), is(GameConstants.SETTLER));
+        assertThat(arguments.get(5, String.class), is("Åbyhøj"));
+        assertNull(arguments.get(6, String.class));
+        assertThat(arguments.get(7, boolean.class), is(true));
+
+        GameEvents events = new GameEvents();
+        events.setSequence(42);
+        events.addChange(new Position(2, 0));
+        events.addChange(new Position(3, 1));
+        events.setTurnEnds(Player.BLUE);
+        GameEvents decoded = binary.unmarshal(binary.marshal(events), GameEvents.class);
+        assertThat(decoded.getSequence(), is(42L));
+        assertThat(decoded.getChanges(), is(events.getChanges()));
+        assertThat(decoded.getTurnEnds(), is(Player.BLUE));
+        assertNull(decoded.getFocus());
+    }
+
+    @Test
+    public void operationsAreSentAsSmallIntegers() {
+        String moveUnit = binary.encodeOperation(OperationNames.moveUnit);
+        assertTrue(moveUnit.length() <= 2);
+        assertThat(binary.decodeOperation(moveUnit), is(OperationNames.moveUnit));
+
+        // the whole line sent by the socket handlers, where the JSON of the arguments is escaped
+        JsonWireFormat json = new JsonWireFormat();
+        Object[] arguments = {new Position(2, 0), new Position(3, 1)};
+        Gson gson = new Gson();
+        String binaryLine = gson.toJson(new RequestObject("lol", moveUnit, binary.marshalArguments(arguments)));
+        String jsonLine = gson.toJson(new RequestObject("lol", json.encodeOperation(OperationNames.moveUnit),
+                json.marshalArguments(arguments)));
+        assertTrue(binaryLine.length() * 3 < jsonLine.length() * 2);
+        assertFalse(binaryLine.contains("\\u"));
+    }
+
+    @Test
+    public void routesAreWalkedOverTheBinaryFormat() {
+        String operation = binary.encodeOperation(OperationNames.moveUnitAlongPath);
+        assertTrue(operation.length() <= 2);
+        assertThat(binary.decodeOperation(operation), is(OperationNames.moveUnitAlongPath));
+
+        Position to = new Position(3, 1);
+        Arguments arguments = binary.unmarshalArguments(binary.marshalArguments(new Position(2, 0), to));
+        assertThat(arguments.get(1, Position.class), is(to));
+        assertThat(proxy.moveUnitAlongPath(new Position(2, 0), to), is(to));
+        assertThat(game.getUnitAt(to).getTypeString(), is(GameConstants.ARCHER));
+    }
+
+    @Test
+    public void malformedPayloadsAreAnsweredWithAFailure() {
+        Invoker invoker = new Invoker(game, binary);
+        String moveUnit = binary.encodeOperation(OperationNames.moveUnit);
+        String request = binary.marshalArguments(new Position(2, 0), new Position(3, 1));
+        String garbage = Base64.getEncoder().withoutPadding().encodeToString(new byte[]{(byte) 0xff, 0x13, (byte) 0x80, 0x7f});
+        for (String payload : new String[]{"not base64 at all!", garbage, request.substring(0, request.length() / 2), ""}) {
+            ReplyObject reply = invoker.handleRequest("lol", moveUnit, payload);
+            assertFalse(payload, reply.isSuccess());
+        }
+        ReplyObject reply = invoker.handleRequest("lol", "99999999999999999999", request);
+        assertFalse(reply.isSuccess());
+        // nothing moved, and the invoker goes on answering
+        assertThat(game.getUnitAt(new Position(2, 0)).getTypeString(), is(GameConstants.ARCHER));
+        assertTrue(proxy.moveUnit(new Position(2, 0), new Position(3, 1)));
+    }
+
+    @Test
+    public void tilesCannotBeChangedByClients() {
+        Invoker invoker = new Invoker(game, binary);
+        Position p = new Position(0, 0);
+        String tileId = ((TileImpl) game.getTileAt(p)).getId();
+        long hash = game.getStateHash();
+        String[] setters = {"tile_setType", "tile_setCity", "tile_setUnit"};
+        for (String setter : setters) {
+            ReplyObject reply = invoker.handleRequest(tileId, binary.encodeOperation(setter),
+                    binary.marshalArguments(GameConstants.FOREST));
+            assertFalse(setter, reply.isSuccess());
+        }
+        assertThat(game.getStateHash(), is(hash));
+        assertThat(game.getTileAt(p).getTypeString(), is(GameConstants.PLAINS));
+    }
+
+    @Test
+    public void sessionsUseTheFormatOfTheirClients() {
+        SessionInvoker sessions = new SessionInvoker(1, binary);
+        sessions.addGame("first", new GameImpl(new AlphaFactory()));
+        GameProxy first = new GameProxy(new WireRequestor(new LocalMethodClientRequestHandler(sessions), binary), "first");
+        assertTrue(first.moveUnit(new Position(2, 0), new Position(3, 1)));
+        assertThat(first.getWorldSnapshot().getUnitAt(new Position(3, 1)).getOwner(), is(Player.RED));
+        sessions.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package hotciv.standard;
+
+import frds.broker.Requestor;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestWorldChanges {
+    GameImpl game;
+    GameProxy proxy;
+
+    @Before
+    public void setup() {
+        game = new GameImpl(new AlphaFactory());
+        Requestor requestor = new StandardJSONRequestor(new LocalMethodClientRequestHandler(new Invoker(game)));
+        proxy = new GameProxy(requestor);
+    }
+
+    @Test
+    public void moveChangesOnlyTheTwoTiles() {
+        int version = game.getWorldSnapshot().getWorldVersion();
+        game.moveUnit(new Position(2, 0), new Position(3, 1));
+        WorldSnapshot changes = game.getWorldChangesSince(version);
+        assertFalse(changes.isComplete());
+        assertThat(changes.getPositions(), is(Arrays.asList(new Position(2, 0), new Position(3, 1))));
+        assertThat(changes.getWorldVersion(), is(game.getWorld().getVersion()));
+    }
+
+    @Test
+    public void failedMoveChangesNothing() {
+        int version = game.getWorldSnapshot().getWorldVersion();
+        // two tiles away
+        assertFalse(game.moveUnit(new Position(2, 0), new Position(4, 0)));
+        assertThat(game.getWorldChangesSince(version).getPositions().size(), is(0));
+    }
+
+    @Test
+    public void cityChangesAreLogged() {
+        int version = game.getWorldSnapshot().getWorldVersion();
+        game.changeProductionInCityAt(new Position(1, 1), GameConstants.LEGION);
+        assertThat(game.getWorldChangesSince(version).getPositions(), is(Arrays.asList(new Position(1, 1))));
+    }
+
+    @Test
+    public void unknownVersionGivesCompleteSnapshot() {
+        assertTrue(game.getWorldChangesSince(-1).isComplete());
+        assertTrue(game.getWorldChangesSince(game.getWorld().getVersion() + 1).isComplete());
+    }
+
+    @Test
+    public void changesTooOldForTheLogGiveCompleteSnapshot() {
+        int version = game.getWorldSnapshot().getWorldVersion();
+        for (int i = 0; i <= World.CHANGE_LOG_SIZE; i++)
+            game.changeProductionInCityAt(new Position(1, 1), GameConstants.LEGION);
+        assertTrue(game.getWorldChangesSince(version).isComplete());
+    }
+
+    @Test
+    public void patchingAnOldMapOverTheBrokerGivesTheCurrentWorld() {
+        WorldSnapshot first = proxy.getWorldSnapshot();
+        TileImpl[][] map = first.toTileMap();
+
+        proxy.moveUnit(new Position(2, 0), new Position(3, 1));
+        proxy.endOfTurn();
+        proxy.moveUnit(new Position(3, 2), new Position(4, 2));
+        proxy.endOfTurn();
+
+        WorldSnapshot changes = proxy.getWorldChangesSince(first.getWorldVersion());
+        assertFalse(changes.isComplete());
+        changes.applyTo(map);
+
+        TileImpl[][] current = proxy.getWorldSnapshot().toTileMap();
+        for (int r = 0; r < GameConstants.WORLDSIZE; r++) {
+            for (int c = 0; c < GameConstants.WORLDSIZE; c++) {
+                assertThat(map[r][c].getTypeString(), is(current[r][c].getTypeString()));
+                assertThat(map[r][c].getUnit() == null, is(current[r][c].getUnit() == null));
+                if (current[r][c].getUnit() != null) {
+                    assertThat(map[r][c].getUnit().getTypeString(), is(current[r][c].getUnit().getTypeString()));
+                    assertThat(map[r][c].getUnit().getMoveCount(), is(current[r][c].getUnit().getMoveCount()));
+                }
+                assertThat(map[r][c].getCity() == null, is(current[r][c].getCity() == null));
+                if (current[r][c].getCity() != null)
+                    assertThat(map[r][c].getCity().getOwner(), is(current[r][c].getCity().getOwner()));
+            }
+        }
+        assertThat(changes.getAge(), is(game.getAge()));
+    }
+}
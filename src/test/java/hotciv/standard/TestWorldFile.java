@@ -0,0 +1,183 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.simulation.RandomPlayer;
+import hotciv.simulation.SimulatedPlayer;
+import hotciv.standard.factory.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class TestWorldFile {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final List<Supplier<StrategyFactory>> VARIANTS = Arrays.asList(
+            AlphaFactory::new, BetaFactory::new, GammaFactory::new, DeltaFactory::new, () -> new EpsilonFactory(1),
+            ZetaFactory::new, EtaFactory::new, ThetaFactory::new, FractalFactory::new, () -> new SemiFactory(1));
+
+    /**
+     * @return everything about the game that is saved
+     */
+    static List<String> state(GameImpl game) {
+        World world = game.getWorld();
+        TileStore tiles = world.getTiles();
+        GameVariables variables = world.getVariables();
+        List<String> state = new ArrayList<>();
+        state.add("round " + variables.getRound() + ", age " + variables.getAge() + ", " + variables.getCurrentPlayer()
+                + " in turn, winner " + variables.getWinner() + ", victories " + new TreeMap<>(variables.getCombatVictories())
+                + ", marked " + (variables.getMarkedVictories() == null ? null : new TreeMap<>(variables.getMarkedVictories())));
+        StringBuilder terrain = new StringBuilder();
+        for (int index = 0; index < tiles.getSize() * tiles.getSize(); index++)
+            terrain.append(tiles.getType(index)).append(' ');
+        state.add(terrain.toString());
+        for (Map.Entry<Integer, UnitImpl> entry : tiles.getUnits().entrySet()) {
+            UnitImpl unit = entry.getValue();
+            state.add(entry.getKey() + ": " + unit.getOwner() + " " + unit.getTypeString() + " moves " + unit.getMoveCount()
+                    + " defends " + unit.getDefensiveStrength() + " fortified " + unit.isFortified()
+                    + " acted " + unit.getUsedAction());
+        }
+        for (Map.Entry<Integer, CityImpl> entry : tiles.getCities().entrySet()) {
+            CityImpl city = entry.getValue();
+            state.add(entry.getKey() + ": " + city.getOwner() + " city at " + city.getLocation() + " size " + city.getSize()
+                    + " treasury " + city.getTreasury() + " " + city.getProduction() + " " + city.getProductionValue()
+                    + "/" + city.getProductionCost() + " " + city.getWorkforceFocus() + " food " + city.getFood());
+        }
+        return state;
+    }
+
+    private static void play(GameImpl game, SimulatedPlayer red, SimulatedPlayer blue, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            red.playTurn(game);
+            game.endOfTurn();
+            blue.playTurn(game);
+            game.endOfTurn();
+        }
+    }
+
+    private GameImpl saveAndLoad(GameImpl game, StrategyFactory factory) throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.hciv");
+        game.save(file);
+        return GameImpl.load(factory, file);
+    }
+
+    @Test
+    public void everyVariantIsRestoredAsItWasSaved() throws IOException {
+        for (Supplier<StrategyFactory> variant : VARIANTS) {
+            GameImpl game = new GameImpl(variant.get());
+            play(game, new RandomPlayer(1), new RandomPlayer(2), 15);
+            // the red player has moved and acted in the middle of a turn
+            new RandomPlayer(3).playTurn(game);
+            assertThat(state(saveAndLoad(game, variant.get())), is(state(game)));
+        }
+    }
+
+    @Test
+    public void restoredGamesPlayOnAsTheOriginal() throws IOException {
+        // the variants without dice, so the games only depend on their state
+        List<Supplier<StrategyFactory>> variants = Arrays.asList(AlphaFactory::new, BetaFactory::new,
+                GammaFactory::new, ZetaFactory::new, EtaFactory::new, ThetaFactory::new);
+        for (Supplier<StrategyFactory> variant : variants) {
+            GameImpl game = new GameImpl(variant.get());
+            play(game, new RandomPlayer(1), new RandomPlayer(2), 22);
+            GameImpl restored = saveAndLoad(game, variant.get());
+            play(game, new RandomPlayer(5), new RandomPlayer(6), 10);
+            play(restored, new RandomPlayer(5), new RandomPlayer(6), 10);
+            assertThat(state(restored), is(state(game)));
+        }
+    }
+
+    @Test
+    public void unitsAndCitiesKeepWhatChangesDuringAGame() throws IOException {
+        GameImpl game = new GameImpl(new GammaFactory());
+        game.performUnitActionAt(new Position(2, 0)); // fortify the archer
+        game.moveUnit(new Position(4, 3), new Position(4, 4)); // the settler has used its move
+        game.changeProductionInCityAt(new Position(1, 1), GameConstants.SETTLER);
+        game.endOfTurn();
+        game.endOfTurn();
+        game.endOfTurn();
+        CityImpl city = (CityImpl) game.getCityAt(new Position(1, 1));
+        city.addFood(4);
+
+        GameImpl restored = saveAndLoad(game, new GammaFactory());
+        UnitImpl archer = (UnitImpl) restored.getUnitAt(new Position(2, 0));
+        assertTrue(archer.isFortified());
+        assertThat(archer.getDefensiveStrength(), is(game.getUnitAt(new Position(2, 0)).getDefensiveStrength()));
+        CityImpl restoredCity = (CityImpl) restored.getCityAt(new Position(1, 1));
+        assertThat(restoredCity.getProduction(), is(GameConstants.SETTLER));
+        assertThat(restoredCity.getProductionValue(), is(city.getProductionValue()));
+        assertThat(restoredCity.getFood(), is(city.getFood()));
+        assertThat(restored.getPlayerInTurn(), is(Player.BLUE));
+        assertThat(restored.getAge(), is(game.getAge()));
+    }
+
+    @Test
+    public void theTerrainTakesAByteATile() throws IOException {
+        World world = new World(new String[256][256]);
+        Path file = folder.getRoot().toPath().resolve("plains.hciv");
+        WorldFile.save(world, file);
+        assertTrue(Files.size(file) + " bytes", Files.size(file) < 256 * 256 + 256);
+        assertThat(WorldFile.load(file).getTiles().getSize(), is(256));
+    }
+
+    @Test
+    public void aSaveReplacesTheLastOne() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.hciv");
+        GameImpl game = new GameImpl(new AlphaFactory());
+        game.save(file);
+        game.endOfTurn();
+        game.save(file);
+        assertThat(GameImpl.load(new AlphaFactory(), file).getPlayerInTurn(), is(Player.BLUE));
+        assertThat(Files.list(folder.getRoot().toPath()).count(), is(1L));
+    }
+
+    @Test
+    public void otherFilesAreNotLoaded() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("other.txt");
+        Files.write(file, "not a game at all".getBytes());
+        try {
+            WorldFile.load(file);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("Not a saved world"));
+        }
+    }
+
+    @Test
+    public void damagedFilesAreNotLoaded() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.hciv");
+        new GameImpl(new SemiFactory(1)).save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] damaged = bytes.clone();
+        damaged[bytes.length / 2] ^= 1;
+        Files.write(file, damaged);
+        try {
+            WorldFile.load(file);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("The saved world is damaged"));
+        }
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+        try {
+            WorldFile.load(file);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("The saved world ends too soon"));
+        }
+    }
+}
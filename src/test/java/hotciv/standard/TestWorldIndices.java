@@ -0,0 +1,103 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import hotciv.standard.factory.BetaFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestWorldIndices {
+    GameImpl game;
+    World world;
+
+    private final Position redArcher = new Position(2, 0);
+    private final Position blueLegion = new Position(3, 2);
+    private final Position redSettler = new Position(4, 3);
+
+    @Before
+    public void setup() {
+        game = new GameImpl(new AlphaFactory());
+        world = game.getWorld();
+    }
+
+    private int index(Position p) {
+        return world.getTiles().indexOf(p);
+    }
+
+    @Test
+    public void unitsAreKeptByOwnerInTileOrder() {
+        assertThat(world.getUnitsOf(Player.RED).keySet().toArray(), is(new Object[]{index(redArcher), index(redSettler)}));
+        assertThat(world.getUnitsOf(Player.BLUE).keySet().toArray(), is(new Object[]{index(blueLegion)}));
+        assertTrue(world.getUnitsOf(Player.GREEN).isEmpty());
+    }
+
+    @Test
+    public void unitsOfAPlayerFollowMovesAndDeaths() {
+        Position to = new Position(3, 1);
+        assertTrue(game.moveUnit(redArcher, to));
+        assertThat(world.getUnitsOf(Player.RED).keySet().toArray(), is(new Object[]{index(to), index(redSettler)}));
+
+        game.endOfTurn();
+        game.endOfTurn();
+        // attackers always win in AlphaCiv
+        assertTrue(game.moveUnit(to, blueLegion));
+        assertTrue(world.getUnitsOf(Player.BLUE).isEmpty());
+        assertThat(world.getUnitsOf(Player.RED).get(index(blueLegion)).getTypeString(), is(GameConstants.ARCHER));
+
+        world.removeUnit(redSettler);
+        assertThat(world.getUnitsOf(Player.RED).size(), is(1));
+    }
+
+    @Test
+    public void producedUnitsAreKept() {
+        for (int round = 0; round < 2; round++) {
+            game.endOfTurn();
+            game.endOfTurn();
+        }
+        // each city has produced an archer on its own tile
+        assertThat(world.getUnitsOf(Player.RED).get(index(new Position(1, 1))).getTypeString(), is(GameConstants.ARCHER));
+        assertThat(world.getUnitsOf(Player.BLUE).get(index(new Position(4, 1))).getTypeString(), is(GameConstants.ARCHER));
+    }
+
+    @Test
+    public void citiesOfAPlayerFollowConquest() {
+        assertThat(world.getCitiesOf(Player.RED).keySet().toArray(), is(new Object[]{index(new Position(1, 1))}));
+        world.getCityForWrite(new Position(4, 1)).setOwner(Player.RED);
+        assertThat(world.getCitiesOf(Player.RED).size(), is(2));
+        assertTrue(world.getCitiesOf(Player.BLUE).isEmpty());
+    }
+
+    @Test
+    public void citiesOfAPlayerAreKeptApartInForksAndUndone() {
+        GameImpl fork = game.fork();
+        fork.getWorld().getCityForWrite(new Position(4, 1)).setOwner(Player.RED);
+        assertThat(fork.getWorld().getCitiesOf(Player.RED).size(), is(2));
+        assertThat(world.getCitiesOf(Player.RED).size(), is(1));
+        assertThat(world.getCitiesOf(Player.BLUE).size(), is(1));
+
+        game.setUndoRecording(true);
+        game.changeProductionInCityAt(new Position(4, 1), GameConstants.LEGION);
+        world.getCityForWrite(new Position(4, 1)).setOwner(Player.RED);
+        assertTrue(world.getCitiesOf(Player.BLUE).isEmpty());
+        assertTrue(game.undo());
+        assertThat(world.getCitiesOf(Player.BLUE).keySet().toArray(), is(new Object[]{index(new Position(4, 1))}));
+        assertThat(world.getCitiesOf(Player.RED).size(), is(1));
+    }
+
+    @Test
+    public void conquestIsFoundOnALargeMap() {
+        String[][] layout = new String[1000][1000];
+        layout[10][10] = "pc1";
+        layout[998][998] = "pa1";
+        layout[999][999] = "pc2";
+        game = new GameImpl(new BetaFactory(), layout);
+        assertTrue(game.moveUnit(new Position(998, 998), new Position(999, 999)));
+        game.endOfTurn();
+        game.endOfTurn();
+        assertThat(game.getWinner(), is(Player.RED));
+        assertThat(game.getWorld().getCitiesOf(Player.RED).keySet().toArray(), is(new Object[]{10 * 1000 + 10, 999 * 1000 + 999}));
+    }
+}
@@ -0,0 +1,103 @@
+package hotciv.standard;
+
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestWorldSize {
+    private static final int SIZE = 1000;
+    GameImpl game;
+
+    private final Position redArcher = new Position(SIZE - 1, SIZE - 2);
+    private final Position blueCity = new Position(SIZE - 1, SIZE - 1);
+
+    @Before
+    public void setup() {
+        String[][] layout = new String[SIZE][SIZE]; // plains where nothing is given
+        layout[0][0] = "pc1";
+        layout[redArcher.getRow()][redArcher.getColumn()] = "pa1";
+        layout[blueCity.getRow()][blueCity.getColumn()] = "pc2";
+        layout[SIZE / 2][SIZE / 2] = "m";
+        game = new GameImpl(new AlphaFactory(), layout);
+    }
+
+    @Test
+    public void worldTakesItsSizeFromTheLayout() {
+        assertThat(game.getWorld().getSize(), is(SIZE));
+        assertThat(game.getTileAt(new Position(SIZE / 2, SIZE / 2)).getTypeString(), is(GameConstants.MOUNTAINS));
+        assertThat(game.getTileAt(blueCity).getTypeString(), is(GameConstants.PLAINS));
+        assertNull(game.getTileAt(new Position(SIZE, 0)));
+        assertNull(game.getUnitAt(new Position(0, SIZE)));
+    }
+
+    @Test
+    public void unitsMoveAndConquerAtTheFarCorner() {
+        assertTrue(game.moveUnit(redArcher, blueCity));
+        assertThat(game.getCityAt(blueCity).getOwner(), is(Player.RED));
+        // the edge of the map
+        assertFalse(game.moveUnit(blueCity, new Position(SIZE, SIZE)));
+    }
+
+    @Test
+    public void endOfRoundReachesTheWholeMap() {
+        assertTrue(game.moveUnit(redArcher, new Position(SIZE - 2, SIZE - 2)));
+        game.endOfTurn();
+        game.endOfTurn();
+        assertThat(game.getUnitAt(new Position(SIZE - 2, SIZE - 2)).getMoveCount(), is(1));
+        assertThat(((CityImpl) game.getCityAt(blueCity)).getProductionValue(), is(GameConstants.CITY_PRODUCTION_PER_TURN));
+    }
+
+    @Test
+    public void snapshotHoldsTheWholeMap() {
+        TileImpl[][] map = game.getWorldSnapshot().toTileMap();
+        assertThat(map.length, is(SIZE));
+        assertThat(map[redArcher.getRow()][redArcher.getColumn()].getUnit().getTypeString(), is(GameConstants.ARCHER));
+        assertThat(map[blueCity.getRow()][blueCity.getColumn()].getCity().getOwner(), is(Player.BLUE));
+        assertThat(map[SIZE / 2][SIZE / 2].getTypeString(), is(GameConstants.MOUNTAINS));
+    }
+
+    @Test
+    public void tilesAreViewsOfTheStore() {
+        Position p = new Position(SIZE - 3, 7);
+        TileImpl tile = (TileImpl) game.getTileAt(p);
+        game.setTypeAt(p, GameConstants.FOREST);
+        assertThat(tile.getTypeString(), is(GameConstants.FOREST));
+        assertThat(game.getTileAt(p).getId(), is(tile.getId()));
+        assertThat(TileImpl.positionOf(tile.getId()), is(p));
+    }
+
+    @Test
+    public void tilesOfAGameAreChangedThroughTheGameOnly() {
+        Position p = new Position(SIZE - 3, 7);
+        long hash = game.getStateHash();
+        TileImpl[][] map = game.getTileMap();
+        try {
+            map[p.getRow()][p.getColumn()].setType(GameConstants.FOREST);
+            fail("a tile of the game is read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            ((TileImpl) game.getTileAt(p)).setUnit(new UnitImpl(GameConstants.ARCHER, Player.RED));
+            fail("a tile of the game is read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertThat(game.getStateHash(), is(hash));
+
+        // a tile of its own, like one of a snapshot, is still changed directly
+        TileImpl own = game.getWorldSnapshot().toTileMap()[p.getRow()][p.getColumn()];
+        own.setType(GameConstants.FOREST);
+        assertThat(own.getTypeString(), is(GameConstants.FOREST));
+    }
+
+    @Test
+    public void positionsOfLargeMapsHashApart() {
+        assertNotEquals(new Position(0, 479).hashCode(), new Position(1, 0).hashCode());
+        assertNotEquals(new Position(1, 2047).hashCode(), new Position(5, 131).hashCode());
+    }
+}
@@ -0,0 +1,86 @@
+package hotciv.standard;
+
+import com.google.gson.Gson;
+import frds.broker.Requestor;
+import frds.broker.marshall.json.StandardJSONRequestor;
+import hotciv.broker.LocalMethodClientRequestHandler;
+import hotciv.broker.invokers.Invoker;
+import hotciv.broker.proxies.GameProxy;
+import hotciv.framework.*;
+import hotciv.standard.factory.AlphaFactory;
+import hotciv.standard.factory.SemiFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class TestWorldSnapshot {
+    GameImpl game;
+    GameProxy proxy;
+
+    @Before
+    public void setup() {
+        game = new GameImpl(new AlphaFactory());
+        Requestor requestor = new StandardJSONRequestor(new LocalMethodClientRequestHandler(new Invoker(game)));
+        proxy = new GameProxy(requestor);
+    }
+
+    private void assertSameWorld(WorldSnapshot snapshot) {
+        assertThat(snapshot.getVersion(), is(WorldSnapshot.VERSION));
+        assertThat(snapshot.getAge(), is(game.getAge()));
+        assertThat(snapshot.getPlayerInTurn(), is(game.getPlayerInTurn()));
+        TileImpl[][] map = snapshot.toTileMap();
+        for (int r = 0; r < GameConstants.WORLDSIZE; r++) {
+            for (int c = 0; c < GameConstants.WORLDSIZE; c++) {
+                Position p = new Position(r, c);
+                assertThat(map[r][c].getTypeString(), is(game.getTileAt(p).getTypeString()));
+                Unit unit = game.getUnitAt(p);
+                if (unit == null)
+                    assertNull(snapshot.getUnitAt(p));
+                else {
+                    assertThat(snapshot.getUnitAt(p).getTypeString(), is(unit.getTypeString()));
+                    assertThat(snapshot.getUnitAt(p).getOwner(), is(unit.getOwner()));
+                    assertThat(snapshot.getUnitAt(p).getMoveCount(), is(unit.getMoveCount()));
+                }
+                City city = game.getCityAt(p);
+                if (city == null)
+                    assertNull(snapshot.getCityAt(p));
+                else {
+                    assertThat(snapshot.getCityAt(p).getOwner(), is(city.getOwner()));
+                    assertThat(snapshot.getCityAt(p).getSize(), is(city.getSize()));
+                    assertThat(snapshot.getCityAt(p).getProduction(), is(city.getProduction()));
+                    assertThat(snapshot.getCityAt(p).getWorkforceFocus(), is(city.getWorkforceFocus()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void snapshotHoldsTheWholeWorld() {
+        assertSameWorld(game.getWorldSnapshot());
+    }
+
+    @Test
+    public void snapshotFollowsTheGame() {
+        game.moveUnit(new Position(2, 0), new Position(3, 1));
+        game.changeProductionInCityAt(new Position(1, 1), GameConstants.LEGION);
+        game.endOfTurn();
+        assertSameWorld(game.getWorldSnapshot());
+    }
+
+    @Test
+    public void snapshotIsOneRequestOverTheBroker() {
+        game.moveUnit(new Position(2, 0), new Position(3, 1));
+        assertSameWorld(proxy.getWorldSnapshot());
+    }
+
+    @Test
+    public void snapshotIsSmallerThanTheTileMap() {
+        GameImpl semi = new GameImpl(new SemiFactory());
+        Gson gson = new Gson();
+        int snapshot = gson.toJson(semi.getWorldSnapshot()).length();
+        int tileMap = gson.toJson(semi.getTileMap()).length();
+        assertTrue(snapshot * 10 < tileMap);
+    }
+}